@@ -1,25 +1,101 @@
 package challonge;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 public class Challonge {
-
-	// CONSTANTS - Parameters
-	private static final String PARAM_KEY = "api_key=";
-	private static final String PARAM_SUBDOMAIN = "subdomain=";
 	
 	// CONSTANTS - URLs
 	public static final String URL_START = "https://api.challonge.com/v1/";
 	private static final String URL_ENCODING = "UTF-8";
+	private static final Pattern TOURNAMENT_PATH = Pattern.compile("/tournaments/([^/.]+)"); // tournament in group 1
+	// ID or custom URL, optionally prefixed with "subdomain-" (group 1)
+	private static final Pattern TOURNAMENT_IDENTIFIER = Pattern.compile("^(?:([a-zA-Z0-9]+)-)?[a-zA-Z0-9_]+$");
+	
+	// CONSTANTS - Endpoints
+	private static final String ENDPOINT_TOURNAMENT = "/tournaments/{tournament}";
+	private static final String ENDPOINT_ID = "/{id}";
+	
+	// CONSTANTS - Compression
+	private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+	private static final String ENCODING_GZIP = "gzip";
+	private static final String ENCODING_DEFLATE = "deflate";
+	private static final int READ_BUFFER_SIZE = 8192;
+	private static final int ZLIB_HEADER_LENGTH = 2;
+	private static final int ZLIB_METHOD_DEFLATE = 8; // low bits of the first header byte
+	private static final int ZLIB_HEADER_DIVISOR = 31; // the header, read as a big-endian short, is a multiple
+	
+	// CONSTANTS - Threads
+	private static final String HEDGE_THREAD_NAME = "challonge-hedge";
+	
+	// DATA MEMBERS
+	// Request budgets by API key, shared by every connector and tenant using that key
+	private static final ConcurrentHashMap<String, SharedBudget> budgets = new ConcurrentHashMap<String, SharedBudget>();
+	// Identical GETs in flight, by URL (the URL includes the API key); off unless enabled
+	private static final RequestCoalescer<String> responses = new RequestCoalescer<String>(false, 0);
+	// Circuit breakers by endpoint (method and path with IDs removed)
+	private static final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+	private static volatile int breakerWindow = 0; // 0 disables circuit breakers
+	private static volatile double breakerFailureRatio;
+	private static volatile long breakerOpenMillis;
+	// Hedged GETs
+	private static volatile long hedgeDelayMillis = 0; // 0 disables hedging
+	private static final AtomicLong hedgedRequests = new AtomicLong();
+	private static ExecutorService hedgeExecutor;
+	// Response sizes, as received and after decompression
+	private static final AtomicLong receivedBytes = new AtomicLong();
+	private static final AtomicLong decodedBytes = new AtomicLong();
+	// Document builders are not thread safe, so each thread reuses its own
+	private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>() {
+		@Override
+		protected DocumentBuilder initialValue()
+		{
+			try
+			{
+				return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			}
+			catch(ParserConfigurationException pce)
+			{
+				throw new IllegalStateException(pce);
+			}
+		}
+	};
 	
 	// METHODS
 	/**
@@ -46,6 +122,120 @@ public class Challonge {
 		return url.matches("^[a-zA-Z0-9_]+$");
 	}
 	
+	/**
+	 * enables a circuit breaker for each endpoint; once enough recent requests to an endpoint have
+	 * failed because of the server or the connection, further requests fail immediately until a
+	 * probe request succeeds
+	 * 
+	 * @param window number of recent requests considered per endpoint (0 to disable breakers)
+	 * @param failureRatio fraction of failed requests in a full window that opens a breaker
+	 * @param openMillis how long a breaker stays open before a probe is sent, in milliseconds
+	 * @throws ChallongeException if the settings are invalid
+	 */
+	public static void configureCircuitBreakers(int window, double failureRatio, long openMillis) throws ChallongeException
+	{
+		if((window < 0) || (failureRatio <= 0) || (failureRatio > 1) || (openMillis < 0))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		breakerFailureRatio = failureRatio;
+		breakerOpenMillis = openMillis;
+		breakerWindow = window;
+		breakers.clear();
+	}
+	
+	/**
+	 * returns the circuit breakers created so far
+	 * 
+	 * @return one breaker per endpoint that has been used since breakers were configured
+	 */
+	public static ArrayList<CircuitBreaker> getCircuitBreakers()
+	{
+		return new ArrayList<CircuitBreaker>(breakers.values());
+	}
+	
+	/**
+	 * returns how well responses have been compressed
+	 * 
+	 * @return bytes after decompression per byte received, 1 if nothing has been received
+	 */
+	public static double getCompressionRatio()
+	{
+		long received = receivedBytes.get();
+		return (received == 0) ? 1 : (double) decodedBytes.get() / received;
+	}
+	
+	/**
+	 * returns the coalescer shared by identical GETs; it is disabled until enabled with
+	 * {@link RequestCoalescer#setEnabled(boolean)}, and every POST, PUT or DELETE empties it so
+	 * callers see their own writes
+	 * 
+	 * @return coalescer of responses, by URL
+	 */
+	public static RequestCoalescer<String> getResponseCoalescer()
+	{
+		return responses;
+	}
+	
+	/**
+	 * returns the size of every response body after decompression
+	 * 
+	 * @return total decoded bytes
+	 */
+	public static long getDecodedBytes()
+	{
+		return decodedBytes.get();
+	}
+	
+	/**
+	 * returns how long a GET may take before a second, identical GET is sent
+	 * 
+	 * @return delay in milliseconds, 0 if hedging is disabled
+	 */
+	public static long getHedgeDelay()
+	{
+		return hedgeDelayMillis;
+	}
+	
+	/**
+	 * returns how many GETs have been hedged
+	 * 
+	 * @return number of second requests sent
+	 */
+	public static long getHedgedRequestCount()
+	{
+		return hedgedRequests.get();
+	}
+	
+	/**
+	 * returns the size of every response body as received, before decompression
+	 * 
+	 * @return total bytes received
+	 */
+	public static long getReceivedBytes()
+	{
+		return receivedBytes.get();
+	}
+	
+	/**
+	 * retrieves a single tournament with its participants and matches, without downloading the
+	 * tournament index
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param idOrURL tournament ID, custom URL, or "subdomain-url" for a tournament belonging to an
+	 * organization
+	 * @return the tournament
+	 * @throws ChallongeException if the identifier is invalid or the tournament could not be retrieved
+	 */
+	public static Tournament getTournament(String apiKey, String idOrURL) throws ChallongeException
+	{
+		Matcher m = TOURNAMENT_IDENTIFIER.matcher(idOrURL);
+		if(!m.matches())
+			throw new ChallongeException(ChallongeException.REASON_INVALID_URL);
+		
+		String xml = sendHttpRequest(apiKey, Endpoint.TOURNAMENT.url(apiKey, idOrURL), "GET");
+		return Tournament.createTournamentFromXML(apiKey, m.group(1), xml);
+	}
+	
 	/**
 	 * get the XML data from the user's tournament index
 	 * 
@@ -54,43 +244,392 @@ public class Challonge {
 	 * @return ArrayList of tournaments from XML data retrieved from request
 	 */
 	public static ArrayList<Tournament> getTournamentIndex(String apiKey, String subdomain) throws ChallongeException
+	{
+		return getTournamentIndex(new TournamentQuery(apiKey).setSubdomain(subdomain));
+	}
+	
+	/**
+	 * get the tournaments from the user's tournament index that match a query, filtered by the server
+	 * 
+	 * @param query filters to apply to the index
+	 * @return ArrayList of tournaments matching the query
+	 * @throws ChallongeException if the request could not be processed
+	 */
+	public static ArrayList<Tournament> getTournamentIndex(TournamentQuery query) throws ChallongeException
+	{
+		return query.execute();
+	}
+	
+	/**
+	 * get the tournaments matching a query as a stream, hydrating each tournament only when the
+	 * subscriber requests it
+	 * 
+	 * @param query filters to apply to the index
+	 * @return publisher of tournaments matching the query
+	 */
+	public static Flow.Publisher<Tournament> publishTournamentIndex(TournamentQuery query)
+	{
+		return new TournamentPublisher(query);
+	}
+	
+	/**
+	 * returns the circuit breaker of the endpoint a request is sent to, creating it if necessary
+	 * 
+	 * @param url URL of the request
+	 * @param method request method
+	 * @return circuit breaker, or <b>null</b> if breakers are disabled
+	 */
+	private static CircuitBreaker getCircuitBreaker(URL url, String method)
+	{
+		int window = breakerWindow;
+		if(window == 0)
+			return null;
+		
+		String endpoint = getEndpointName(url, method);
+		CircuitBreaker breaker = breakers.get(endpoint);
+		if(breaker == null)
+		{
+			breaker = new CircuitBreaker(endpoint, window, breakerFailureRatio, breakerOpenMillis);
+			CircuitBreaker existing = breakers.putIfAbsent(endpoint, breaker);
+			if(existing != null)
+				breaker = existing;
+		}
+		
+		return breaker;
+	}
+	
+	/**
+	 * names the endpoint a request is sent to; requests that differ only by tournament or object
+	 * share an endpoint
+	 * 
+	 * @param url URL of the request
+	 * @param method request method
+	 * @return method and path, with IDs replaced by placeholders
+	 */
+	private static String getEndpointName(URL url, String method)
+	{
+		return method + " " + url.getPath().replaceAll("/tournaments/[^/.]+", ENDPOINT_TOURNAMENT)
+				.replaceAll("/[0-9]+", ENDPOINT_ID);
+	}
+	
+	/**
+	 * returns the executor hedged requests are sent on
+	 * 
+	 * @return shared executor of daemon threads
+	 */
+	private static synchronized ExecutorService getHedgeExecutor()
+	{
+		if(hedgeExecutor == null)
+			hedgeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, HEDGE_THREAD_NAME);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		
+		return hedgeExecutor;
+	}
+	
+	/**
+	 * adds a child element containing text
+	 * 
+	 * @param parent element to add the child to
+	 * @param tag tag of the child
+	 * @param text text of the child
+	 */
+	/* package */ static void appendXMLElement(Element parent, String tag, String text)
+	{
+		Element child = parent.getOwnerDocument().createElement(tag);
+		child.setTextContent(text);
+		parent.appendChild(child);
+	}
+	
+	/**
+	 * creates an empty XML document using this thread's shared document builder
+	 * 
+	 * @return new document
+	 */
+	/* package */ static Document createXMLDocument()
+	{
+		return documentBuilders.get().newDocument();
+	}
+	
+	/**
+	 * parses an XML response using this thread's shared document builder
+	 * 
+	 * @param xml XML data as a String
+	 * @return parsed document
+	 * @throws ChallongeException if the XML could not be parsed
+	 */
+	/* package */ static Document parseXML(String xml) throws ChallongeException
 	{
 		try
 		{
-			// Generate URL
-			String urlString = URL_START + "tournaments.xml?" + PARAM_KEY + encodeString(apiKey);
-			if(subdomain != null)
-				urlString += "&" + PARAM_SUBDOMAIN + encodeString(subdomain);
-			URL url = new URL(urlString);
-			String xml = sendHttpRequest(url, "GET");
-			
-	        return Tournament.createTournamentListFromXML(apiKey, subdomain, xml);
+			DocumentBuilder builder = documentBuilders.get();
+			builder.reset();
+			return builder.parse(new InputSource(new StringReader(xml)));
 		}
-		catch(MalformedURLException mfe)
+		catch(SAXException se)
+		{
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		}
+		catch(IOException ioe)
 		{
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		}
+	}
+	
+	/**
+	 * enables hedging of GETs: if a GET has not completed after a delay, an identical GET is sent and
+	 * the first response is used; the second request counts against the API key's budget
+	 * 
+	 * @param delay delay in milliseconds (0 to disable hedging), usually near the normal p95 latency
+	 * @throws ChallongeException if the delay is negative
+	 */
+	public static void setHedgeDelay(long delay) throws ChallongeException
+	{
+		if(delay < 0)
 			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		hedgeDelayMillis = delay;
+	}
+	
+	/**
+	 * registers a user of an API key's request budget, which limits every request made with the
+	 * key no matter which object sends it; the first user's budget applies until every user of
+	 * the key has released it
+	 * 
+	 * @param apiKey API key to limit
+	 * @param budget budget to apply if the key has none yet
+	 * @return the budget applied to the key
+	 * @see #releaseRequestBudget(String)
+	 */
+	/* package */ static RequestBudget acquireRequestBudget(String apiKey, RequestBudget budget)
+	{
+		synchronized(budgets)
+		{
+			SharedBudget shared = budgets.get(apiKey);
+			if(shared == null)
+			{
+				shared = new SharedBudget(budget);
+				budgets.put(apiKey, shared);
+			}
+			shared.users++;
+			
+			return shared.budget;
+		}
+	}
+	
+	/**
+	 * unregisters a user of an API key's request budget; the key is no longer limited once its
+	 * last user is gone
+	 * 
+	 * @param apiKey limited API key
+	 * @see #acquireRequestBudget(String, RequestBudget)
+	 */
+	/* package */ static void releaseRequestBudget(String apiKey)
+	{
+		synchronized(budgets)
+		{
+			SharedBudget shared = budgets.get(apiKey);
+			if((shared != null) && (--shared.users == 0))
+				budgets.remove(apiKey);
+		}
+	}
+	
+	/**
+	 * sends an HTTP request to the Challonge server
+	 * 
+	 * @param apiKey API key the request is authenticated with (selects the request budget)
+	 * @param url base URL of the request
+	 * @param method request method
+	 * @return the server's XML response
+	 * @throws ChallongeException if request could not be processed properly
+	 */
+	/* package */ static String sendHttpRequest(String apiKey, URL url, String method) throws ChallongeException
+	{
+		return sendHttpRequest(apiKey, url, method, null);
+	}
+	
+	/**
+	 * sends an HTTP request to the Challonge server; identical GETs may share a single call if the
+	 * response coalescer is enabled (see {@link #getResponseCoalescer()})
+	 * 
+	 * @param apiKey API key the request is authenticated with (selects the request budget)
+	 * @param url base URL of the request
+	 * @param method request method
+	 * @param body body of request (can be <b>null</b>)
+	 * @return the server's XML response
+	 * @throws ChallongeException if request could not be processed properly
+	 */
+	/* package */ static String sendHttpRequest(final String apiKey, final URL url, final String method, final String body) throws ChallongeException
+	{
+		// Identical reads can share one call
+		if(method.equals("GET") && (body == null))
+		{
+			if(!responses.isEnabled())
+				return sendProtectedHttpRequest(apiKey, url, method, body);
+			
+			return responses.execute(url.toString(), new Callable<String>() {
+				@Override
+				public String call() throws ChallongeException
+				{
+					return sendProtectedHttpRequest(apiKey, url, method, body);
+				}
+			});
+		}
+		
+		try
+		{
+			return sendProtectedHttpRequest(apiKey, url, method, body);
+		}
+		finally
+		{
+			// A write may have been applied even if it failed, so no earlier read can be reused
+			responses.invalidateAll();
+		}
+	}
+	
+	/**
+	 * sends an HTTP request to the Challonge server through its endpoint's circuit breaker, hedging
+	 * GETs if enabled
+	 * 
+	 * @param apiKey API key the request is authenticated with (selects the request budget)
+	 * @param url base URL of the request
+	 * @param method request method
+	 * @param body body of request (can be <b>null</b>)
+	 * @return the server's XML response
+	 * @throws ChallongeException if request could not be processed properly or the endpoint's
+	 * breaker is open
+	 */
+	private static String sendProtectedHttpRequest(String apiKey, URL url, String method, String body) throws ChallongeException
+	{
+		CircuitBreaker breaker = getCircuitBreaker(url, method);
+		boolean probe = (breaker != null) && breaker.acquire();
+		
+		// Only failures of the service itself count against the endpoint
+		boolean failed = false;
+		try
+		{
+			long delay = hedgeDelayMillis;
+			if(method.equals("GET") && (body == null) && (delay > 0))
+				return sendHedgedHttpRequest(apiKey, url, method, delay);
+			return sendBudgetedHttpRequest(apiKey, url, method, body);
 		}
 		catch(ChallongeException ce)
 		{
+			failed = ce.isServiceFailure();
 			throw ce;
 		}
-		catch(IOException ioe)
+		catch(RuntimeException re)
+		{
+			failed = true;
+			throw re;
+		}
+		finally
 		{
+			if(breaker != null)
+				breaker.record(probe, failed);
+		}
+	}
+	
+	/**
+	 * sends a GET, sending an identical GET if the first has not completed after a delay, and
+	 * returns the first successful response
+	 * 
+	 * @param apiKey API key the request is authenticated with (selects the request budget)
+	 * @param url base URL of the request
+	 * @param method request method
+	 * @param delay time to wait for the first request before sending the second, in milliseconds
+	 * @return the server's XML response
+	 * @throws ChallongeException if every request failed or the wait was interrupted
+	 */
+	private static String sendHedgedHttpRequest(final String apiKey, final URL url, final String method, long delay) throws ChallongeException
+	{
+		Callable<String> request = new Callable<String>() {
+			@Override
+			public String call() throws ChallongeException
+			{
+				return sendBudgetedHttpRequest(apiKey, url, method, null);
+			}
+		};
+		
+		ExecutorCompletionService<String> completion = new ExecutorCompletionService<String>(getHedgeExecutor());
+		ArrayList<Future<String>> sent = new ArrayList<Future<String>>();
+		try
+		{
+			sent.add(completion.submit(request));
+			Future<String> done = completion.poll(delay, TimeUnit.MILLISECONDS);
+			if(done == null)
+			{
+				sent.add(completion.submit(request));
+				hedgedRequests.incrementAndGet();
+			}
+			
+			// Use the first success; fail only once every request has failed
+			ChallongeException failure = null;
+			for(int i = 0; i < sent.size(); i++)
+			{
+				if(done == null)
+					done = completion.take();
+				try
+				{
+					return done.get();
+				}
+				catch(ExecutionException ee)
+				{
+					if(ee.getCause() instanceof ChallongeException)
+						failure = (ChallongeException) ee.getCause();
+					else
+						failure = new ChallongeException(ChallongeException.REASON_DEFAULT);
+				}
+				done = null;
+			}
+			
+			throw failure;
+		}
+		catch(InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
 			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
 		}
+		finally
+		{
+			for(int i = 0; i < sent.size(); i++)
+				sent.get(i).cancel(true);
+		}
 	}
 	
 	/**
-	 * sends an HTTP request to the Challonge server
+	 * sends an HTTP request to the Challonge server, waiting for the API key's request budget
+	 * if one has been set
 	 * 
+	 * @param apiKey API key the request is authenticated with (selects the request budget)
 	 * @param url base URL of the request
 	 * @param method request method
+	 * @param body body of request (can be <b>null</b>)
 	 * @return the server's XML response
 	 * @throws ChallongeException if request could not be processed properly
 	 */
-	/* package */ static String sendHttpRequest(URL url, String method) throws ChallongeException
+	private static String sendBudgetedHttpRequest(String apiKey, URL url, String method, String body) throws ChallongeException
 	{
-		return sendHttpRequest(url, method, null);
+		SharedBudget shared = budgets.get(apiKey);
+		if(shared == null)
+			return sendHttpRequest(url, method, body);
+		
+		RequestBudget budget = shared.budget;
+		budget.acquire();
+		try
+		{
+			return sendHttpRequest(url, method, body);
+		}
+		finally
+		{
+			budget.release();
+		}
 	}
 	
 	/**
@@ -102,12 +641,15 @@ public class Challonge {
 	 * @return the server's XML response
 	 * @throws ChallongeException if request could not be processed properly
 	 */
-	/* package */ static String sendHttpRequest(URL url, String method, String body) throws ChallongeException
+	private static String sendHttpRequest(URL url, String method, String body) throws ChallongeException
 	{
+		ChallongeEvents.HttpRequest event = new ChallongeEvents.HttpRequest();
+		event.begin();
 		try
 		{
 			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 			connection.setRequestMethod(method);
+			connection.setRequestProperty(HEADER_ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
 			
 			// Send body, if applicable
 			if(body != null)
@@ -122,30 +664,22 @@ public class Challonge {
 			
 			// Check for errors
 			int code = connection.getResponseCode();
+			event.status = code;
 			if(connection.getErrorStream() != null) // If error text exists...
 				if(code == HttpURLConnection.HTTP_UNAUTHORIZED)
 					throw new ChallongeException(ChallongeException.REASON_KEY);
+				else if(code >= HttpURLConnection.HTTP_INTERNAL_ERROR)
+					throw new ChallongeException(ChallongeException.REASON_SERVER);
 				else
 				{
-					BufferedReader error = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
-					String errorText = "";
-					String errorLine;
-					while((errorLine = error.readLine()) != null)
-						errorText += errorLine + "\n";
-					error.close();
-					
+					String errorText = readResponse(connection.getErrorStream(), connection.getContentEncoding(), event);
 					throw new ChallongeException(getConnectionErrorReason(errorText));
 				}
 			
 			// If connection successful, read and return XML input
-	        BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-	        String xml = "";
-	        String inputLine;
-	        while ((inputLine = input.readLine()) != null) 
-	        	xml += inputLine + "\n";
-	        input.close();
-	        
-	        return xml;
+			String xml = readResponse(connection.getInputStream(), connection.getContentEncoding(), event);
+			event.succeeded = true;
+			return xml;
 		}
 		catch(ChallongeException ce)
 		{
@@ -155,6 +689,87 @@ public class Challonge {
 		{
 			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
 		}
+		finally
+		{
+			event.end();
+			if(event.shouldCommit())
+			{
+				event.method = method;
+				event.endpoint = getEndpointName(url, method);
+				Matcher m = TOURNAMENT_PATH.matcher(url.getPath());
+				event.tournament = m.find() ? m.group(1) : null;
+				event.commit();
+			}
+		}
+	}
+	
+	/**
+	 * checks whether a deflate body starts with a zlib header; some servers send raw deflate data
+	 * for "deflate" instead
+	 * 
+	 * @param stream body as received; the bytes read are pushed back
+	 * @return <b>true</b> if the body is wrapped in zlib format
+	 * @throws IOException if the body could not be read
+	 */
+	private static boolean hasZlibHeader(PushbackInputStream stream) throws IOException
+	{
+		byte[] header = stream.readNBytes(ZLIB_HEADER_LENGTH);
+		stream.unread(header);
+		if(header.length < ZLIB_HEADER_LENGTH)
+			return false;
+		
+		int cmf = header[0] & 0xFF;
+		int flg = header[1] & 0xFF;
+		return ((cmf & 0x0F) == ZLIB_METHOD_DEFLATE) && (((cmf << 8) | flg) % ZLIB_HEADER_DIVISOR == 0);
+	}
+	
+	/**
+	 * reads a response body, decompressing it as it is read
+	 * 
+	 * @param stream response body as received
+	 * @param encoding content encoding of the body (can be <b>null</b>)
+	 * @param event request event, given the number of bytes received and decoded
+	 * @return decoded body
+	 * @throws IOException if the body could not be read
+	 */
+	private static String readResponse(InputStream stream, String encoding, ChallongeEvents.HttpRequest event) throws IOException
+	{
+		CountingInputStream received = new CountingInputStream(stream);
+		InputStream decompressed;
+		Inflater inflater = null; // ended here, InflaterInputStream only ends its own
+		if(ENCODING_GZIP.equalsIgnoreCase(encoding))
+			decompressed = new GZIPInputStream(received, READ_BUFFER_SIZE);
+		else if(ENCODING_DEFLATE.equalsIgnoreCase(encoding))
+		{
+			PushbackInputStream peeked = new PushbackInputStream(received, ZLIB_HEADER_LENGTH);
+			inflater = new Inflater(!hasZlibHeader(peeked));
+			decompressed = new InflaterInputStream(peeked, inflater, READ_BUFFER_SIZE);
+		}
+		else
+			decompressed = received;
+		CountingInputStream decoded = new CountingInputStream(decompressed);
+		
+		Reader input = new InputStreamReader(decoded, StandardCharsets.UTF_8);
+		StringBuilder text = new StringBuilder();
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		try
+		{
+			int read;
+			while((read = input.read(buffer)) != -1)
+				text.append(buffer, 0, read);
+		}
+		finally
+		{
+			input.close();
+			if(inflater != null)
+				inflater.end();
+			receivedBytes.addAndGet(received.count);
+			decodedBytes.addAndGet(decoded.count);
+			event.receivedBytes = received.count;
+			event.decodedBytes = decoded.count;
+		}
+		
+		return text.toString();
 	}
 	
 	/**
@@ -167,4 +782,72 @@ public class Challonge {
 	{
 		return xml; // TODO: Actually extract error reason from xml
 	}
+	
+	// Classes
+	/**
+	 * an input stream that counts the bytes read through it
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		
+		// DATA MEMBERS
+		private long count;
+		
+		// METHODS
+		/**
+		 * wraps a stream
+		 * 
+		 * @param in stream to count
+		 */
+		private CountingInputStream(InputStream in)
+		{
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if(b != -1)
+				count++;
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			int read = super.read(b, off, len);
+			if(read > 0)
+				count += read;
+			return read;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException
+		{
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+	
+	/**
+	 * the request budget of an API key, with the number of tenants using it
+	 */
+	private static class SharedBudget {
+		
+		// DATA MEMBERS
+		private final RequestBudget budget;
+		private int users; // guarded by budgets
+		
+		// METHODS
+		/**
+		 * creates a budget with no users
+		 * 
+		 * @param b request budget
+		 */
+		private SharedBudget(RequestBudget b)
+		{
+			budget = b;
+		}
+	}
 }
@@ -1,89 +1,104 @@
 package challonge;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ChallongeConnector {
-
+	
 	// CONSTANTS - Error Messages
-	private static final String ERR_ENCODE = "ERROR: Could not encode to ";
 	private static final String ERR_INDEX_RETRIEVE = "ERROR: Could not retrieve index";
-	private static final String ERR_MALFORMED_URL = "ERROR: Malformed URL";
-	private static final String ERR_NAME_LENGTH = "ERROR: Name too long";
 	private static final String ERR_PARTICIPANTS_RETRIEVE = "ERROR: Could not retrieve participants";
 	private static final String ERR_TOURNAMENT_CREATE = "ERROR: Could not create tournament";
 	
-	// CONSTANTS - Limits
-	private static final int NAME_MAX_LENGTH = 60;
-	
-	// CONSTANTS - Parameters
-	private static final String PARAM_KEY = "api_key=";
-	private static final String PARAM_SUBDOMAIN = "subdomain=";
-	private static final String PARAM_TOURNAMENT_NAME = "tournament[name]=";
-	private static final String PARAM_TOURNAMENT_SUBDOMAIN = "tournament[subdomain]=";
-	private static final String PARAM_TOURNAMENT_TYPE = "tournament[tournament_type]=";
-	private static final String PARAM_TOURNAMENT_URL = "tournament[url]=";
-	
-	// CONSTANTS - Tournament Types
-	private static final String TYPE_SINGLE_ELIM = "single elimination";
-	private static final String TYPE_DOUBLE_ELIM = "double elimination";
-	private static final String TYPE_ROUND_ROBIN = "round robin";
-	private static final String TYPE_SWISS = "swiss";
-	
-	// CONSTANTS - URLs
-	private static final String URL_START = "https://api.challonge.com/v1/";
-	private static final String URL_ENCODING = "UTF-8";
+	// CONSTANTS - Tenants
+	public static final String DEFAULT_TENANT = "default";
 	
 	// DATA MEMBERS
-	private String apiKey;
-	private String subdomain;
+	private ConcurrentHashMap<String, Tenant> tenants;
+	private int defaultMaxConcurrentRequests;
+	private double defaultRequestsPerSecond;
 	
 	// METHODS
+	// Constructors
+	/**
+	 * create a ChallongeConnector with no tenants; each tenant added later gets its own budget
+	 * with the given limits
+	 * 
+	 * @param maxConcurrent maximum number of requests in flight at once per tenant
+	 * @param perSecond maximum number of requests started per second per tenant
+	 */
+	public ChallongeConnector(int maxConcurrent, double perSecond)
+	{
+		tenants = new ConcurrentHashMap<String, Tenant>();
+		defaultMaxConcurrentRequests = maxConcurrent;
+		defaultRequestsPerSecond = perSecond;
+	}
+	
 	/**
-	 * create a ChallongeConnector without a subdomain
+	 * create a ChallongeConnector with a single, unlimited tenant without a subdomain
 	 * 
 	 * @param key unique API key generated from Challonge settings
 	 */
 	public ChallongeConnector(String key)
 	{
-		try
-		{
-			apiKey = encodeString(key);
-		}
-		catch(UnsupportedEncodingException use)
-		{
-			System.err.println(ERR_ENCODE + URL_ENCODING);
-		}
+		this(key, null);
 	}
 	
 	/**
-	 * create a ChallongeConnector with a subdomain
+	 * create a ChallongeConnector with a single, unlimited tenant with a subdomain
 	 * 
 	 * @param key unique API key generated from Challonge settings
 	 * @param sd subdomain for a specific organization
 	 */
 	public ChallongeConnector(String key, String sd)
 	{
-		try
-		{
-			apiKey = encodeString(key);
-			subdomain = encodeString(sd);
-		}
-		catch(UnsupportedEncodingException use)
-		{
-			System.err.println(ERR_ENCODE + URL_ENCODING);
-		}
+		this(RequestBudget.UNLIMITED_CONCURRENCY, RequestBudget.UNLIMITED_RATE);
+		addTenant(DEFAULT_TENANT, key, sd);
+	}
+	
+	// Instance methods
+	/**
+	 * adds a tenant using this connector's default limits
+	 * 
+	 * @param name unique name of the tenant
+	 * @param key tenant's API key
+	 * @param sd tenant's subdomain (can be <b>null</b>)
+	 * @return newly added tenant
+	 */
+	public Tenant addTenant(String name, String key, String sd)
+	{
+		return addTenant(name, key, sd, new RequestBudget(defaultMaxConcurrentRequests, defaultRequestsPerSecond));
 	}
 	
 	/**
-	 * create a double elimination tournament with only a name and URL
+	 * adds a tenant with its own limits, replacing any tenant with the same name
+	 * <p>
+	 * Challonge limits requests by API key, so tenants using the same key (in this connector or
+	 * another one) share the budget of the first of them; <b>budget</b> only applies if no other
+	 * tenant uses the key.
+	 * 
+	 * @param name unique name of the tenant
+	 * @param key tenant's API key
+	 * @param sd tenant's subdomain (can be <b>null</b>)
+	 * @param budget limits applied to every request made with the tenant's API key
+	 * @return newly added tenant
+	 */
+	public synchronized Tenant addTenant(String name, String key, String sd, RequestBudget budget)
+	{
+		Tenant previous = tenants.get(name);
+		if(previous != null)
+			Challonge.releaseRequestBudget(previous.apiKey);
+		
+		Tenant tenant = new Tenant(name, key, sd, Challonge.acquireRequestBudget(key, budget));
+		tenants.put(name, tenant);
+		
+		return tenant;
+	}
+	
+	/**
+	 * create a double elimination tournament for the default tenant with only a name and URL
+	 * 
 	 * @param name tournament name
 	 * @param customURL URL at which to host the tournament (challonge.com/[customURL])
 	 * @return newly initialized tournament, or <b>null</b> if tournament could not be
@@ -91,164 +106,216 @@ public class ChallongeConnector {
 	 */
 	public Tournament createDoubleEliminationTournament(String name, String customURL)
 	{
-		// Name must be NAME_MAX_LENGTH characters or fewer
-		if(name.length() > NAME_MAX_LENGTH)
-		{
-			System.err.println(ERR_NAME_LENGTH);
-			return null;
-		}
-		
-		// TODO: Ensure customURL only includes letters, numbers, and underscores
 		try
 		{
-			// Generate URL
-			String urlString = URL_START + "tournaments.xml?" + PARAM_KEY + apiKey;
-			if(subdomain != null)
-				urlString += "&" + PARAM_TOURNAMENT_SUBDOMAIN + subdomain;
-			
-			urlString += "&" + PARAM_TOURNAMENT_TYPE + encodeString(TYPE_DOUBLE_ELIM);
-			urlString += "&" + PARAM_TOURNAMENT_NAME + encodeString(name);
-			urlString += "&" + PARAM_TOURNAMENT_URL + encodeString(customURL);
-			URL url = new URL(urlString);
-			
-			// Establish connection
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("POST");
-			connection.connect();
-			
-			// Check for errors
-			connection.getResponseCode();
-			if(connection.getErrorStream() != null) // If error text exists...
-			{
-				BufferedReader error = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
-				String errorLine;
-				while((errorLine = error.readLine()) != null)
-					System.err.println(errorLine);
-				error.close();
-				return null;
-			}
-			
-			// Read input
-	        BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-	        String xml = "";
-	        String inputLine;
-	        while ((inputLine = input.readLine()) != null) 
-	        		xml += inputLine + "\n";
-	        input.close();
-	        
-	        return Tournament.createTournamentFromXML(xml);
+			return createTournament(DEFAULT_TENANT, name, customURL, Tournament.TYPE_DOUBLE_ELIM);
 		}
-		catch(MalformedURLException mfe)
+		catch(ChallongeException ce)
 		{
-			System.err.println(ERR_MALFORMED_URL);
-			return null;
-		}
-		catch(IOException ioe)
-		{
-			System.err.println(ERR_TOURNAMENT_CREATE);			
-			ioe.printStackTrace();
+			System.err.println(ERR_TOURNAMENT_CREATE + ": " + ce.getMessage());
 			return null;
 		}
 	}
 	
 	/**
-	 * encodes a String in a format understandable in an HTTP request
+	 * creates a new tournament on Challonge under a tenant's subdomain
 	 * 
-	 * @param s unencoded String
-	 * @return encoded String
-	 * @throws UnsupportedEncodingException
+	 * @param tenant name of the tenant
+	 * @param name name of new tournament
+	 * @param customURL url of new tournament
+	 * @param type tournament type (from <b>Tournament.TYPES</b>)
+	 * @return newly created tournament
+	 * @throws ChallongeException if the tenant does not exist or tournament could not be initialized
 	 */
-	private String encodeString(String s) throws UnsupportedEncodingException
+	public Tournament createTournament(String tenant, String name, String customURL, String type) throws ChallongeException
 	{
-		return URLEncoder.encode(s, URL_ENCODING);
+		Tenant t = requireTenant(tenant);
+		return Tournament.createTournament(t.apiKey, name, customURL, type, t.subdomain);
 	}
 	
 	/**
-	 * get the XML data from the user's tournament index
+	 * updates the participant list of a tournament
 	 * 
-	 * @return ArrayList of tournaments from XML data retrieved from request
+	 * @param t tournament
+	 * @return the tournament's participants, or <b>null</b> if they could not be retrieved
 	 */
-	public ArrayList<Tournament> getTournamentIndex()
+	public List<Participant> getParticipantList(Tournament t)
 	{
 		try
 		{
-			// Generate URL
-			String urlString = URL_START + "tournaments.xml?" + PARAM_KEY + apiKey;
-			if(subdomain != null)
-				urlString += "&" + PARAM_SUBDOMAIN + subdomain;
-			URL url = new URL(urlString);
-			
-			// Establish connection
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("GET");
-			connection.connect();
-			
-			// Read input
-	        BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-	        String xml = "";
-	        String inputLine;
-	        while ((inputLine = input.readLine()) != null) 
-	        		xml += inputLine + "\n";
-	        input.close();
-	        
-	        return Tournament.createTournamentListFromXML(xml);
+			return t.updateParticipants();
 		}
-		catch(MalformedURLException mfe)
+		catch(ChallongeException ce)
 		{
-			System.err.println(ERR_MALFORMED_URL);
-			return null;
-		}
-		catch(IOException ioe)
-		{
-			System.err.println(ERR_INDEX_RETRIEVE);
+			System.err.println(ERR_PARTICIPANTS_RETRIEVE + ": " + ce.getMessage());
 			return null;
 		}
 	}
 	
-	public ArrayList<Participant> getParticipantList(Tournament t)
+	/**
+	 * returns a tenant
+	 * 
+	 * @param name name of the tenant
+	 * @return the tenant, or <b>null</b> if there is no tenant with that name
+	 */
+	public Tenant getTenant(String name)
+	{
+		return tenants.get(name);
+	}
+	
+	/**
+	 * get the default tenant's tournament index
+	 * 
+	 * @return ArrayList of tournaments from XML data retrieved from request, or <b>null</b> if the
+	 * index could not be retrieved
+	 */
+	public ArrayList<Tournament> getTournamentIndex()
 	{
 		try
 		{
-			String urlString = URL_START + "tournaments/" + encodeString(Integer.toString(t.getID())) + "/participants.xml?"
-					+ PARAM_KEY + apiKey;
-			URL url = new URL(urlString);
-			
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("GET");
-			connection.connect();
-			
-			// Read input
-			BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			String xml = "";
-			String inputLine;
-			while((inputLine = input.readLine()) != null)
-				xml += inputLine + "\n";
-			input.close();
-			
-			return Participant.createParticipantListFromXML(xml);
+			return getTournamentIndex(DEFAULT_TENANT);
 		}
-		catch(MalformedURLException mfe)
+		catch(ChallongeException ce)
 		{
-			System.err.println(ERR_MALFORMED_URL);
+			System.err.println(ERR_INDEX_RETRIEVE + ": " + ce.getMessage());
 			return null;
 		}
-		catch(IOException ioe)
-		{
-			System.err.println(ERR_PARTICIPANTS_RETRIEVE);
-			return null;
-		}	
 	}
 	
-	public void setSubdomain(String sd)
+	/**
+	 * get a tenant's tournament index
+	 * 
+	 * @param tenant name of the tenant
+	 * @return ArrayList of tournaments from XML data retrieved from request
+	 * @throws ChallongeException if the tenant does not exist or the index could not be retrieved
+	 */
+	public ArrayList<Tournament> getTournamentIndex(String tenant) throws ChallongeException
 	{
-		try
+		return query(tenant).execute();
+	}
+	
+	/**
+	 * starts an index query for a tenant, already filtered by the tenant's subdomain
+	 * 
+	 * @param tenant name of the tenant
+	 * @return new query
+	 * @throws ChallongeException if the tenant does not exist
+	 */
+	public TournamentQuery query(String tenant) throws ChallongeException
+	{
+		Tenant t = requireTenant(tenant);
+		return new TournamentQuery(t.apiKey).setSubdomain(t.subdomain);
+	}
+	
+	/**
+	 * removes a tenant; its limits are removed too unless another tenant uses the same API key
+	 * 
+	 * @param name name of the tenant
+	 */
+	public synchronized void removeTenant(String name)
+	{
+		Tenant tenant = tenants.remove(name);
+		if(tenant != null)
+			Challonge.releaseRequestBudget(tenant.apiKey);
+	}
+	
+	/**
+	 * returns a tenant or throws an exception if it does not exist
+	 * 
+	 * @param name name of the tenant
+	 * @return the tenant
+	 * @throws ChallongeException if there is no tenant with that name
+	 */
+	private Tenant requireTenant(String name) throws ChallongeException
+	{
+		Tenant tenant = tenants.get(name);
+		if(tenant == null)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		return tenant;
+	}
+	
+	/**
+	 * changes the subdomain of the default tenant, keeping its API key and request budget; does
+	 * nothing if there is no default tenant
+	 * 
+	 * @param sd new subdomain
+	 */
+	public synchronized void setSubdomain(String sd)
+	{
+		Tenant tenant = tenants.get(DEFAULT_TENANT);
+		if(tenant != null)
+			addTenant(DEFAULT_TENANT, tenant.apiKey, sd, tenant.budget);
+	}
+	
+	// Classes
+	/**
+	 * an organization using this connector: its credentials and its request budget
+	 */
+	public static class Tenant {
+		
+		// DATA MEMBERS
+		private String name;
+		private String apiKey;
+		private String subdomain;
+		private RequestBudget budget;
+		
+		// METHODS
+		/**
+		 * creates a tenant
+		 * 
+		 * @param n unique name
+		 * @param key API key
+		 * @param sd subdomain (can be <b>null</b>)
+		 * @param b request budget
+		 */
+		private Tenant(String n, String key, String sd, RequestBudget b)
 		{
-			subdomain = encodeString(sd);
+			name = n;
+			apiKey = key;
+			subdomain = sd;
+			budget = b;
 		}
-		catch(UnsupportedEncodingException uee)
+		
+		/**
+		 * returns the request budget of this tenant, shared with every tenant using its API key
+		 * 
+		 * @return request budget
+		 */
+		public RequestBudget getBudget()
+		{
+			return budget;
+		}
+		
+		/**
+		 * returns the name of this tenant
+		 * 
+		 * @return tenant name
+		 */
+		public String getName()
+		{
+			return name;
+		}
+		
+		/**
+		 * returns the subdomain of this tenant
+		 * 
+		 * @return subdomain, or <b>null</b> if none
+		 */
+		public String getSubdomain()
+		{
+			return subdomain;
+		}
+		
+		/**
+		 * returns a String representation of this tenant (the API key is not included)
+		 * 
+		 * @return String representation of this tenant
+		 */
+		@Override
+		public String toString()
 		{
-			System.err.println("ERROR: COULD NOT SET SUBDOMAIN");
-			System.err.println("\tRequested Value: " + sd);
+			return name + ((subdomain == null) ? "" : " (" + subdomain + ")");
 		}
 	}
 }
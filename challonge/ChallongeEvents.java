@@ -0,0 +1,194 @@
+package challonge;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/* package */ final class ChallongeEvents {
+	
+	// CONSTANTS - Entities
+	/* package */ static final String ENTITY_MATCH = "match";
+	/* package */ static final String ENTITY_PARTICIPANT = "participant";
+	/* package */ static final String ENTITY_TOURNAMENT = "tournament";
+	
+	// CONSTANTS - Hydration Phases
+	/* package */ static final String PHASE_MATCHES = "matches";
+	/* package */ static final String PHASE_PARTICIPANTS = "participants";
+	/* package */ static final String PHASE_REFRESH = "refresh";
+	
+	// CONSTANTS - Data
+	/* package */ static final int NO_TOURNAMENT = 0;
+	private static final String CATEGORY = "Challonge";
+	
+	// METHODS
+	// Constructors
+	/**
+	 * not instantiable
+	 */
+	private ChallongeEvents()
+	{
+	}
+	
+	// Static
+	/**
+	 * starts timing a hydration phase
+	 * 
+	 * @return started event
+	 */
+	/* package */ static Hydration beginHydration()
+	{
+		Hydration event = new Hydration();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * starts timing a parse
+	 * 
+	 * @return started event
+	 */
+	/* package */ static Parse beginParse()
+	{
+		Parse event = new Parse();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * ends a hydration phase, recording it if the event is enabled
+	 * 
+	 * @param event event returned by {@link #beginHydration()}
+	 * @param phase PHASE_REFRESH, PHASE_PARTICIPANTS or PHASE_MATCHES
+	 * @param tournamentID tournament being hydrated
+	 * @param s snapshot published by the phase
+	 */
+	/* package */ static void endHydration(Hydration event, String phase, int tournamentID, TournamentSnapshot s)
+	{
+		event.end();
+		if(event.shouldCommit())
+		{
+			event.phase = phase;
+			event.tournamentID = tournamentID;
+			event.participants = s.getParticipants().size();
+			event.matches = s.getMatches().size();
+			event.commit();
+		}
+	}
+	
+	/**
+	 * ends a parse, recording it if the event is enabled
+	 * 
+	 * @param event event returned by {@link #beginParse()}
+	 * @param entity ENTITY_TOURNAMENT, ENTITY_PARTICIPANT or ENTITY_MATCH
+	 * @param tournamentID tournament the entities belong to (or NO_TOURNAMENT)
+	 * @param count number of entities parsed
+	 * @param xml parsed XML
+	 * @param p projection used, or <b>null</b> if every field was parsed
+	 */
+	/* package */ static void endParse(Parse event, String entity, int tournamentID, int count, String xml, Projection p)
+	{
+		event.end();
+		if(event.shouldCommit())
+		{
+			event.entity = entity;
+			event.tournamentID = tournamentID;
+			event.count = count;
+			event.characters = xml.length();
+			event.projected = (p != null) && (p != Projection.FULL);
+			event.commit();
+		}
+	}
+	
+	// Classes
+	/**
+	 * one HTTP request sent to the Challonge service, from connecting to reading the whole response
+	 */
+	@Name("challonge.HttpRequest")
+	@Label("Challonge HTTP Request")
+	@Category(CATEGORY)
+	@Description("Request sent to the Challonge API")
+	/* package */ static final class HttpRequest extends Event {
+		
+		// DATA MEMBERS
+		@Label("Method")
+		/* package */ String method;
+		
+		@Label("Endpoint")
+		@Description("Path with tournament and object IDs replaced by placeholders")
+		/* package */ String endpoint;
+		
+		@Label("Tournament")
+		@Description("Tournament ID or URL from the path, if any")
+		/* package */ String tournament;
+		
+		@Label("Status")
+		@Description("HTTP status code, or 0 if no response was received")
+		/* package */ int status;
+		
+		@Label("Bytes Received")
+		@DataAmount
+		/* package */ long receivedBytes;
+		
+		@Label("Bytes Decoded")
+		@DataAmount
+		/* package */ long decodedBytes;
+		
+		@Label("Succeeded")
+		/* package */ boolean succeeded;
+	}
+	
+	/**
+	 * one tournament hydration phase, from the first request to publishing the snapshot
+	 */
+	@Name("challonge.Hydration")
+	@Label("Challonge Hydration")
+	@Category(CATEGORY)
+	@Description("Participants and/or matches of a tournament retrieved and published")
+	/* package */ static final class Hydration extends Event {
+		
+		// DATA MEMBERS
+		@Label("Phase")
+		@Description("refresh, participants or matches")
+		/* package */ String phase;
+		
+		@Label("Tournament ID")
+		/* package */ int tournamentID;
+		
+		@Label("Participants")
+		/* package */ int participants;
+		
+		@Label("Matches")
+		/* package */ int matches;
+	}
+	
+	/**
+	 * one XML response parsed into tournaments, participants or matches
+	 */
+	@Name("challonge.Parse")
+	@Label("Challonge Parse")
+	@Category(CATEGORY)
+	@Description("XML response parsed into objects")
+	/* package */ static final class Parse extends Event {
+		
+		// DATA MEMBERS
+		@Label("Entity")
+		@Description("tournament, participant or match")
+		/* package */ String entity;
+		
+		@Label("Tournament ID")
+		@Description("Tournament the entities belong to, or 0 if not known to the parser")
+		/* package */ int tournamentID;
+		
+		@Label("Count")
+		/* package */ int count;
+		
+		@Label("Characters")
+		/* package */ long characters;
+		
+		@Label("Projected")
+		/* package */ boolean projected;
+	}
+}
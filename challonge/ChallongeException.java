@@ -3,7 +3,7 @@ package challonge;
 import java.io.IOException;
 
 public class ChallongeException extends IOException {
-
+	
 	// CONSTANTS - Messages
 	public static final String REASON_DEFAULT = "Problem connecting with Challonge service";
 	public static final String REASON_KEY = "Could not authenticate using given API key";
@@ -15,6 +15,13 @@ public class ChallongeException extends IOException {
 	public static final String REASON_PROTOCOL = "Invalid protocol";
 	public static final String REASON_MATCH_STATE = "Invalid match state";
 	public static final String REASON_PARTICIPANT_ID = "Invalid partcipant ID";
+	public static final String REASON_SERVER = "Challonge service failed to process request";
+	public static final String REASON_JOURNAL = "Could not read or write journal";
+	public static final String REASON_QUEUE_CLOSED = "Mutation queue is closed";
+	public static final String REASON_CACHE = "Could not read or write cache";
+	public static final String REASON_CIRCUIT_OPEN = "Request not sent; Challonge service is failing";
+	public static final String REASON_CHECKPOINT = "Could not read or write checkpoint";
+	public static final String REASON_EXPORT = "Could not write export";
 	
 	// METHODS
 	public ChallongeException()
@@ -26,4 +33,26 @@ public class ChallongeException extends IOException {
 	{
 		super(message);
 	}
+	
+	/**
+	 * returns whether this exception was thrown for a reason
+	 * 
+	 * @param reason one of the REASON_ constants
+	 * @return <b>true</b> if the message is that reason
+	 */
+	public boolean hasReason(String reason)
+	{
+		return reason.equals(getMessage());
+	}
+	
+	/**
+	 * returns whether the Challonge service or the connection to it failed, as opposed to the
+	 * request being invalid
+	 * 
+	 * @return <b>true</b> for REASON_DEFAULT and REASON_SERVER
+	 */
+	public boolean isServiceFailure()
+	{
+		return hasReason(REASON_DEFAULT) || hasReason(REASON_SERVER);
+	}
 }
@@ -0,0 +1,168 @@
+package challonge;
+
+public class CircuitBreaker {
+	
+	// CONSTANTS - States
+	public static final int STATE_CLOSED = 0; // requests are sent
+	public static final int STATE_OPEN = 1; // requests fail without being sent
+	public static final int STATE_HALF_OPEN = 2; // a single probe request is sent
+	
+	// CONSTANTS - Time
+	private static final long NANOS_PER_MILLI = 1000000L;
+	
+	// DATA MEMBERS
+	private String endpoint;
+	private int state;
+	private boolean[] outcomes; // ring of recent outcomes, true for failures
+	private int next;
+	private int recorded;
+	private int failures;
+	private double failureRatio;
+	private long openNanos;
+	private long openedAt;
+	private boolean probing;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a closed circuit breaker for an endpoint
+	 * 
+	 * @param e endpoint the breaker protects
+	 * @param window number of recent requests considered
+	 * @param ratio fraction of failed requests in a full window that opens the breaker
+	 * @param openMillis how long the breaker stays open before sending a probe, in milliseconds
+	 */
+	public CircuitBreaker(String e, int window, double ratio, long openMillis)
+	{
+		endpoint = e;
+		state = STATE_CLOSED;
+		outcomes = new boolean[window];
+		failureRatio = ratio;
+		openNanos = openMillis * NANOS_PER_MILLI;
+	}
+	
+	// Instance methods
+	/**
+	 * checks whether a request may be sent; while open, requests are refused until the open period
+	 * has passed, after which one probe request is let through
+	 * 
+	 * @return <b>true</b> if the request is the probe, whose outcome decides whether the breaker
+	 * closes
+	 * @throws ChallongeException if the request must not be sent
+	 */
+	/* package */ synchronized boolean acquire() throws ChallongeException
+	{
+		if(state == STATE_OPEN)
+		{
+			if(System.nanoTime() - openedAt < openNanos)
+				throw new ChallongeException(ChallongeException.REASON_CIRCUIT_OPEN);
+			state = STATE_HALF_OPEN;
+		}
+		
+		if(state == STATE_HALF_OPEN)
+		{
+			if(probing)
+				throw new ChallongeException(ChallongeException.REASON_CIRCUIT_OPEN);
+			probing = true;
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * returns the endpoint this breaker protects
+	 * 
+	 * @return endpoint
+	 */
+	public String getEndpoint()
+	{
+		return endpoint;
+	}
+	
+	/**
+	 * returns the fraction of failed requests among the recent requests
+	 * 
+	 * @return failure ratio, 0 if no requests have been recorded
+	 */
+	public synchronized double getFailureRatio()
+	{
+		return (recorded == 0) ? 0 : (double) failures / recorded;
+	}
+	
+	/**
+	 * returns the current state
+	 * 
+	 * @return STATE_CLOSED, STATE_OPEN or STATE_HALF_OPEN
+	 */
+	public synchronized int getState()
+	{
+		return state;
+	}
+	
+	/**
+	 * opens the breaker
+	 */
+	private void open()
+	{
+		state = STATE_OPEN;
+		openedAt = System.nanoTime();
+	}
+	
+	/**
+	 * records the outcome of a request that was let through; every request let through must be
+	 * recorded, or a probe would never be settled
+	 * 
+	 * @param probe <b>true</b> if the request was the probe (as returned by {@link #acquire()})
+	 * @param failed <b>true</b> if the request failed because of the server or the connection
+	 */
+	/* package */ synchronized void record(boolean probe, boolean failed)
+	{
+		if(probe)
+		{
+			probing = false;
+			if(failed)
+			{
+				open();
+				return;
+			}
+			
+			// Recovered; start over with a clean window
+			state = STATE_CLOSED;
+			next = 0;
+			recorded = 0;
+			failures = 0;
+			return;
+		}
+		
+		if(state != STATE_CLOSED) // A request sent before the breaker opened
+			return;
+		
+		if(recorded == outcomes.length)
+		{
+			if(outcomes[next])
+				failures--;
+		}
+		else
+			recorded++;
+		outcomes[next] = failed;
+		if(failed)
+			failures++;
+		next = (next + 1) % outcomes.length;
+		
+		if((recorded == outcomes.length) && (failures >= failureRatio * recorded))
+			open();
+	}
+	
+	/**
+	 * returns a String representation of this breaker
+	 * 
+	 * @return endpoint and state
+	 */
+	@Override
+	public synchronized String toString()
+	{
+		String s = (state == STATE_CLOSED) ? "closed" : (state == STATE_OPEN) ? "open" : "half-open";
+		return endpoint + ": " + s + " (" + failures + "/" + recorded + " failed)";
+	}
+}
@@ -0,0 +1,128 @@
+package challonge;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ConsistentHashRing {
+	
+	// CONSTANTS - Defaults
+	public static final int DEFAULT_VIRTUAL_NODES = 128;
+	
+	// CONSTANTS - Hashing
+	private static final String HASH_ALGORITHM = "MD5"; // same on every JVM, and spreads short keys well
+	private static final String VIRTUAL_NODE_SEPARATOR = "#";
+	
+	// DATA MEMBERS
+	private TreeMap<Long, String> ring; // point on the ring to the member owning the arc ending there
+	private ArrayList<String> members;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a ring with the default number of virtual nodes per member
+	 * 
+	 * @param m member names
+	 * @throws ChallongeException if there are no members
+	 */
+	public ConsistentHashRing(Collection<String> m) throws ChallongeException
+	{
+		this(m, DEFAULT_VIRTUAL_NODES);
+	}
+	
+	/**
+	 * creates a ring; rings created from the same members are identical in every process, whatever
+	 * the order the members are given in
+	 * 
+	 * @param m member names
+	 * @param virtualNodes points each member is placed at; more points spread keys more evenly
+	 * @throws ChallongeException if there are no members or <b>virtualNodes</b> is not positive
+	 */
+	public ConsistentHashRing(Collection<String> m, int virtualNodes) throws ChallongeException
+	{
+		if(m.isEmpty() || (virtualNodes <= 0))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		members = new ArrayList<String>(m);
+		Collections.sort(members);
+		ring = new TreeMap<Long, String>();
+		for(int i = 0; i < members.size(); i++)
+		{
+			String member = members.get(i);
+			for(int v = 0; v < virtualNodes; v++)
+			{
+				// On the rare collision, the member that sorts first keeps the point
+				Long point = hash(member + VIRTUAL_NODE_SEPARATOR + v);
+				if(!ring.containsKey(point))
+					ring.put(point, member);
+			}
+		}
+	}
+	
+	// Static
+	/**
+	 * hashes a key to a point on the ring
+	 * 
+	 * @param key key
+	 * @return first 64 bits of the key's digest
+	 */
+	private static long hash(String key)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(key.getBytes(StandardCharsets.UTF_8));
+			long point = 0;
+			for(int i = 0; i < 8; i++)
+				point = (point << 8) | (digest[i] & 0xFF);
+			
+			return point;
+		}
+		catch(NoSuchAlgorithmException nsae)
+		{
+			throw new IllegalStateException(nsae); // every JVM provides MD5
+		}
+	}
+	
+	// Instance methods
+	/**
+	 * returns the members of this ring
+	 * 
+	 * @return member names, sorted
+	 */
+	public List<String> getMembers()
+	{
+		return Collections.unmodifiableList(members);
+	}
+	
+	/**
+	 * returns the member owning a key: the first member clockwise from the key's point
+	 * 
+	 * @param key key
+	 * @return owning member
+	 */
+	public String getOwner(String key)
+	{
+		Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+		if(owner == null)
+			owner = ring.firstEntry(); // wrap around
+		
+		return owner.getValue();
+	}
+	
+	/**
+	 * returns the member owning a tournament
+	 * 
+	 * @param tournamentID tournament ID
+	 * @return owning member
+	 */
+	public String getOwner(int tournamentID)
+	{
+		return getOwner(Integer.toString(tournamentID));
+	}
+}
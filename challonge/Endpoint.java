@@ -0,0 +1,222 @@
+package challonge;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/* package */ final class Endpoint {
+	
+	// CONSTANTS - Parameters
+	private static final String PARAM_KEY = "api_key=";
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\{[a-z]+\\}"); // initialized before the routes use it
+	private static final int ID_LENGTH = 10; // digits in the largest ID
+	private static final int PARAMETERS_LENGTH = 64; // room reserved for a few parameters
+	
+	// CONSTANTS - Routes
+	/* package */ static final Endpoint TOURNAMENTS = new Endpoint("tournaments.xml");
+	/* package */ static final Endpoint TOURNAMENT = new Endpoint("tournaments/{tournament}.xml");
+	/* package */ static final Endpoint TOURNAMENT_START = new Endpoint("tournaments/{tournament}/start.xml");
+	/* package */ static final Endpoint PARTICIPANTS = new Endpoint("tournaments/{tournament}/participants.xml");
+	/* package */ static final Endpoint MATCHES = new Endpoint("tournaments/{tournament}/matches.xml");
+	/* package */ static final Endpoint MATCH = new Endpoint("tournaments/{tournament}/matches/{match}.xml");
+	
+	// DATA MEMBERS
+	// Encoded API keys, so each key is encoded once
+	private static final ConcurrentHashMap<String, String> encodedKeys = new ConcurrentHashMap<String, String>();
+	private String[] literals; // text before, between and after the placeholders
+	private int capacity; // typical length of a formatted URL, without the query
+	
+	// METHODS
+	// Constructors
+	/**
+	 * compiles a route template
+	 * 
+	 * @param template route relative to Challonge.URL_START, with IDs as {name} placeholders
+	 */
+	private Endpoint(String template)
+	{
+		ArrayList<String> parts = new ArrayList<String>();
+		Matcher m = PLACEHOLDER.matcher(template);
+		int start = 0;
+		while(m.find())
+		{
+			parts.add(template.substring(start, m.start()));
+			start = m.end();
+		}
+		parts.add(template.substring(start));
+		
+		literals = parts.toArray(new String[parts.size()]);
+		literals[0] = Challonge.URL_START + literals[0];
+		capacity = 0;
+		for(int i = 0; i < literals.length; i++)
+			capacity += literals[i].length();
+		capacity += (literals.length - 1) * ID_LENGTH;
+	}
+	
+	// Static
+	/**
+	 * appends an encoded parameter to a query or body
+	 * 
+	 * @param builder query or body being built (already containing the API key)
+	 * @param param parameter name, including "="
+	 * @param value unencoded value
+	 * @return <b>builder</b>
+	 * @throws ChallongeException if the value could not be encoded
+	 */
+	/* package */ static StringBuilder appendParameter(StringBuilder builder, String param, String value) throws ChallongeException
+	{
+		try
+		{
+			return builder.append('&').append(param).append(Challonge.encodeString(value));
+		}
+		catch(UnsupportedEncodingException uee)
+		{
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		}
+	}
+	
+	/**
+	 * starts a form-encoded request body with the API key
+	 * 
+	 * @param apiKey API key
+	 * @return body containing the encoded API key, to which parameters are appended
+	 * @throws ChallongeException if the key could not be encoded
+	 */
+	/* package */ static StringBuilder body(String apiKey) throws ChallongeException
+	{
+		String key = encodeKey(apiKey);
+		return new StringBuilder(PARAM_KEY.length() + key.length() + PARAMETERS_LENGTH).append(PARAM_KEY).append(key);
+	}
+	
+	/**
+	 * returns an API key encoded for a query or body, encoding it only the first time
+	 * 
+	 * @param apiKey API key
+	 * @return encoded key
+	 * @throws ChallongeException if the key could not be encoded
+	 */
+	private static String encodeKey(String apiKey) throws ChallongeException
+	{
+		String encoded = encodedKeys.get(apiKey);
+		if(encoded == null)
+		{
+			try
+			{
+				encoded = Challonge.encodeString(apiKey);
+			}
+			catch(UnsupportedEncodingException uee)
+			{
+				throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+			}
+			encodedKeys.putIfAbsent(apiKey, encoded);
+		}
+		
+		return encoded;
+	}
+	
+	/**
+	 * converts a built URL
+	 * 
+	 * @param url URL text
+	 * @return URL
+	 * @throws ChallongeException if the text is not a valid URL
+	 */
+	/* package */ static URL toURL(CharSequence url) throws ChallongeException
+	{
+		try
+		{
+			return new URL(url.toString());
+		}
+		catch(MalformedURLException mfe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_INVALID_URL);
+		}
+	}
+	
+	// Instance methods
+	/**
+	 * fills in this route's IDs
+	 * 
+	 * @param extra room to reserve for a query
+	 * @param ids one ID per placeholder, in order
+	 * @return builder containing the full URL without a query
+	 */
+	private StringBuilder format(int extra, int... ids)
+	{
+		if(ids.length != literals.length - 1)
+			throw new IllegalArgumentException();
+		
+		StringBuilder builder = new StringBuilder(capacity + extra);
+		builder.append(literals[0]);
+		for(int i = 0; i < ids.length; i++)
+			builder.append(ids[i]).append(literals[i + 1]);
+		
+		return builder;
+	}
+	
+	/**
+	 * starts a URL whose query carries the API key, for requests without a body (GET and DELETE);
+	 * further parameters can be added with {@link #appendParameter(StringBuilder, String, String)}
+	 * 
+	 * @param apiKey API key
+	 * @param ids one ID per placeholder, in order
+	 * @return builder containing the URL and the encoded API key
+	 * @throws ChallongeException if the key could not be encoded
+	 */
+	/* package */ StringBuilder query(String apiKey, int... ids) throws ChallongeException
+	{
+		String key = encodeKey(apiKey);
+		return format(PARAM_KEY.length() + key.length() + PARAMETERS_LENGTH, ids).append('?').append(PARAM_KEY).append(key);
+	}
+	
+	/**
+	 * builds a URL whose query carries only the API key, for a route with a single placeholder
+	 * filled with an identifier rather than a numeric ID (such as a tournament's URL)
+	 * 
+	 * @param apiKey API key
+	 * @param identifier value of the placeholder, already valid in a path
+	 * @return URL
+	 * @throws ChallongeException if the URL could not be built
+	 */
+	/* package */ URL url(String apiKey, String identifier) throws ChallongeException
+	{
+		if(literals.length != 2)
+			throw new IllegalArgumentException();
+		
+		String key = encodeKey(apiKey);
+		StringBuilder builder = new StringBuilder(capacity + identifier.length() + PARAM_KEY.length() + key.length());
+		builder.append(literals[0]).append(identifier).append(literals[1]).append('?').append(PARAM_KEY).append(key);
+		
+		return toURL(builder);
+	}
+	
+	/**
+	 * builds a URL whose query carries only the API key, for requests without a body
+	 * 
+	 * @param apiKey API key
+	 * @param ids one ID per placeholder, in order
+	 * @return URL
+	 * @throws ChallongeException if the URL could not be built
+	 */
+	/* package */ URL url(String apiKey, int... ids) throws ChallongeException
+	{
+		return toURL(query(apiKey, ids));
+	}
+	
+	/**
+	 * builds a URL without a query, for requests that carry the API key and parameters in their
+	 * body (POST and PUT)
+	 * 
+	 * @param ids one ID per placeholder, in order
+	 * @return URL
+	 * @throws ChallongeException if the URL could not be built
+	 */
+	/* package */ URL url(int... ids) throws ChallongeException
+	{
+		return toURL(format(0, ids));
+	}
+}
@@ -0,0 +1,336 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+public class HeadToHeadIndex {
+	
+	// CONSTANTS - Outcomes
+	public static final int OUTCOME_WIN = 1;
+	public static final int OUTCOME_LOSS = -1;
+	public static final int OUTCOME_DRAW = 0;
+	
+	// CONSTANTS - Head-to-head record layout
+	public static final int RECORD_WINS = 0;
+	public static final int RECORD_LOSSES = 1;
+	public static final int RECORD_DRAWS = 2;
+	
+	// DATA MEMBERS
+	private PlayerRegistry registry;
+	private HashMap<Long, int[]> pairs; // {wins of lower ID, wins of higher ID, draws}
+	private HashMap<Integer, History> histories; // by canonical player ID
+	private HashSet<Integer> indexedMatches;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an empty index; players are identified through a registry so results from different
+	 * tournaments are combined
+	 * 
+	 * @param r registry mapping participants to canonical player IDs
+	 */
+	public HeadToHeadIndex(PlayerRegistry r)
+	{
+		registry = r;
+		pairs = new HashMap<Long, int[]>();
+		histories = new HashMap<Integer, History>();
+		indexedMatches = new HashSet<Integer>();
+	}
+	
+	// Static
+	/**
+	 * builds the key of an unordered pair of players
+	 * 
+	 * @param low lower player ID
+	 * @param high higher player ID
+	 * @return key
+	 */
+	private static long pairKey(int low, int high)
+	{
+		return (((long) low) << 32) | (high & 0xFFFFFFFFL);
+	}
+	
+	// Instance methods
+	/**
+	 * adds a completed Match to this index; open matches, matches without both players and matches
+	 * already indexed are ignored
+	 * 
+	 * @param m Match
+	 * @return <b>true</b> if the Match was added
+	 */
+	public synchronized boolean addMatch(Match m)
+	{
+		if((m.getResult() == Match.RESULT_OPEN) || (m.getPlayer1() == null) || (m.getPlayer2() == null))
+			return false;
+		if(!indexedMatches.add(m.getID()))
+			return false;
+		
+		int player1 = registry.register(m.getPlayer1());
+		int player2 = registry.register(m.getPlayer2());
+		int tournamentID = (m.getTournament() == null) ? 0 : m.getTournament().getID();
+		
+		int outcome1;
+		if(m.getResult() == Match.RESULT_P1_WIN)
+			outcome1 = OUTCOME_WIN;
+		else if(m.getResult() == Match.RESULT_P2_WIN)
+			outcome1 = OUTCOME_LOSS;
+		else
+			outcome1 = OUTCOME_DRAW;
+		
+		// Pair record, stored once per unordered pair
+		int low = Math.min(player1, player2);
+		int high = Math.max(player1, player2);
+		long key = pairKey(low, high);
+		int[] record = pairs.get(key);
+		if(record == null)
+		{
+			record = new int[3];
+			pairs.put(key, record);
+		}
+		int lowOutcome = (player1 == low) ? outcome1 : -outcome1;
+		if(lowOutcome == OUTCOME_WIN)
+			record[0]++;
+		else if(lowOutcome == OUTCOME_LOSS)
+			record[1]++;
+		else
+			record[2]++;
+		
+		// Per-player histories
+		getHistory(player1).insert(m.getCompletedAt(), m.getID(), tournamentID, player2, outcome1);
+		getHistory(player2).insert(m.getCompletedAt(), m.getID(), tournamentID, player1, -outcome1);
+		
+		return true;
+	}
+	
+	/**
+	 * adds every completed Match of a Tournament to this index
+	 * 
+	 * @param t Tournament
+	 * @return number of matches added
+	 */
+	public int addTournament(Tournament t)
+	{
+		int added = 0;
+		List<Match> matches = t.getMatches();
+		for(int i = 0; i < matches.size(); i++)
+			if(addMatch(matches.get(i)))
+				added++;
+		
+		return added;
+	}
+	
+	/**
+	 * returns the record of one player against another
+	 * 
+	 * @param playerA canonical ID of the first player
+	 * @param playerB canonical ID of the second player
+	 * @return {wins of A, wins of B, draws} (indexed by RECORD_WINS, RECORD_LOSSES and RECORD_DRAWS)
+	 */
+	public synchronized int[] getHeadToHead(int playerA, int playerB)
+	{
+		int[] record = pairs.get(pairKey(Math.min(playerA, playerB), Math.max(playerA, playerB)));
+		if(record == null)
+			return new int[3];
+		if(playerA <= playerB)
+			return new int[] {record[0], record[1], record[2]};
+		
+		return new int[] {record[1], record[0], record[2]};
+	}
+	
+	/**
+	 * returns a player's most recent results
+	 * 
+	 * @param player canonical player ID
+	 * @param n maximum number of results
+	 * @return results, newest first
+	 */
+	public synchronized List<Result> getRecentResults(int player, int n)
+	{
+		ArrayList<Result> results = new ArrayList<Result>();
+		History history = histories.get(player);
+		if(history == null)
+			return results;
+		
+		for(int i = history.size - 1; (i >= 0) && (results.size() < n); i--)
+			results.add(new Result(history.times[i], history.matchIDs[i], history.tournamentIDs[i],
+					history.opponents[i], history.outcomes[i]));
+		
+		return results;
+	}
+	
+	/**
+	 * returns the registry used to identify players
+	 * 
+	 * @return player registry
+	 */
+	public PlayerRegistry getRegistry()
+	{
+		return registry;
+	}
+	
+	/**
+	 * returns a player's history, creating it if necessary
+	 * 
+	 * @param player canonical player ID
+	 * @return history
+	 */
+	private History getHistory(int player)
+	{
+		History history = histories.get(player);
+		if(history == null)
+		{
+			history = new History();
+			histories.put(player, history);
+		}
+		
+		return history;
+	}
+	
+	// Classes
+	/**
+	 * a single result from one player's point of view
+	 */
+	public static class Result {
+		
+		// DATA MEMBERS
+		private long time;
+		private int matchID;
+		private int tournamentID;
+		private int opponent;
+		private int outcome;
+		
+		// METHODS
+		/**
+		 * creates a result
+		 * 
+		 * @param ti completion time
+		 * @param m match ID
+		 * @param to tournament ID
+		 * @param op canonical ID of the opponent
+		 * @param ou OUTCOME_WIN, OUTCOME_LOSS or OUTCOME_DRAW
+		 */
+		private Result(long ti, int m, int to, int op, int ou)
+		{
+			time = ti;
+			matchID = m;
+			tournamentID = to;
+			opponent = op;
+			outcome = ou;
+		}
+		
+		/**
+		 * returns the match ID
+		 * 
+		 * @return match ID
+		 */
+		public int getMatchID()
+		{
+			return matchID;
+		}
+		
+		/**
+		 * returns the canonical ID of the opponent
+		 * 
+		 * @return opponent's player ID
+		 */
+		public int getOpponent()
+		{
+			return opponent;
+		}
+		
+		/**
+		 * returns the outcome
+		 * 
+		 * @return OUTCOME_WIN, OUTCOME_LOSS or OUTCOME_DRAW
+		 */
+		public int getOutcome()
+		{
+			return outcome;
+		}
+		
+		/**
+		 * returns when the match was completed
+		 * 
+		 * @return time in milliseconds since the epoch, or Match.NO_TIME if unknown
+		 */
+		public long getTime()
+		{
+			return time;
+		}
+		
+		/**
+		 * returns the ID of the tournament the match belongs to
+		 * 
+		 * @return tournament ID
+		 */
+		public int getTournamentID()
+		{
+			return tournamentID;
+		}
+	}
+	
+	/**
+	 * one player's results in parallel arrays, ordered by completion time
+	 */
+	private static class History {
+		
+		// CONSTANTS - Sizes
+		private static final int INITIAL_CAPACITY = 8;
+		
+		// DATA MEMBERS
+		private int size;
+		private long[] times = new long[INITIAL_CAPACITY];
+		private int[] matchIDs = new int[INITIAL_CAPACITY];
+		private int[] tournamentIDs = new int[INITIAL_CAPACITY];
+		private int[] opponents = new int[INITIAL_CAPACITY];
+		private byte[] outcomes = new byte[INITIAL_CAPACITY];
+		
+		// METHODS
+		/**
+		 * inserts a result at its place in time order (after results with the same time)
+		 * 
+		 * @param time completion time
+		 * @param matchID match ID
+		 * @param tournamentID tournament ID
+		 * @param opponent opponent's canonical ID
+		 * @param outcome outcome
+		 */
+		private void insert(long time, int matchID, int tournamentID, int opponent, int outcome)
+		{
+			if(size == times.length)
+			{
+				int capacity = size * 2;
+				times = Arrays.copyOf(times, capacity);
+				matchIDs = Arrays.copyOf(matchIDs, capacity);
+				tournamentIDs = Arrays.copyOf(tournamentIDs, capacity);
+				opponents = Arrays.copyOf(opponents, capacity);
+				outcomes = Arrays.copyOf(outcomes, capacity);
+			}
+			
+			// Results usually arrive in order, so search backwards from the end
+			int position = size;
+			while((position > 0) && (times[position - 1] > time))
+				position--;
+			
+			int moved = size - position;
+			if(moved > 0)
+			{
+				System.arraycopy(times, position, times, position + 1, moved);
+				System.arraycopy(matchIDs, position, matchIDs, position + 1, moved);
+				System.arraycopy(tournamentIDs, position, tournamentIDs, position + 1, moved);
+				System.arraycopy(opponents, position, opponents, position + 1, moved);
+				System.arraycopy(outcomes, position, outcomes, position + 1, moved);
+			}
+			
+			times[position] = time;
+			matchIDs[position] = matchID;
+			tournamentIDs[position] = tournamentID;
+			opponents[position] = opponent;
+			outcomes[position] = (byte) outcome;
+			size++;
+		}
+	}
+}
@@ -1,31 +1,57 @@
 package challonge;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 public class Match {
-
+	
 	// CONSTANTS - Data
 	public static final int RESULT_OPEN = -1;
 	public static final int RESULT_DRAW = 0;
 	public static final int RESULT_P1_WIN = 1;
 	public static final int RESULT_P2_WIN= 2;
+	public static final int NO_ROUND = 0; // rounds start at 1 (winners) or -1 (losers)
+	public static final int NO_MATCH = -1;
+	public static final long NO_TIME = 0;
 	
 	// CONSTANTS - XML
 	private static final String XML_ID = "id";
 	private static final String XML_MATCH = "match";
 	private static final String XML_P1_ID = "player1-id";
 	private static final String XML_P2_ID = "player2-id";
+	private static final String XML_P1_PREREQ = "player1-prereq-match-id";
+	private static final String XML_P2_PREREQ = "player2-prereq-match-id";
+	private static final String XML_P1_PREREQ_LOSER = "player1-is-prereq-match-loser";
+	private static final String XML_P2_PREREQ_LOSER = "player2-is-prereq-match-loser";
 	private static final String XML_STATE = "state";
-	private static final String XML_STATE_OPEN = "open";
-	private static final String XML_WINNER_ID = "winner_id";
+	private static final String XML_ROUND = "round";
+	private static final String XML_SCORES = "scores-csv";
+	private static final String XML_COMPLETED_AT = "completed-at";
+	private static final String XML_STATE_COMPLETE = "complete";
+	private static final String XML_WINNER_ID = "winner-id";
+	
+	// CONSTANTS - Parameters
+	private static final String PARAM_SCORES = "match[scores_csv]=";
+	private static final String PARAM_WINNER_ID = "match[winner_id]=";
+	private static final String PARAM_WINNER_TIE = "tie";
+	
+	// CONSTANTS - States
+	public static final String STATE_PENDING = "pending";
+	public static final String STATE_OPEN = "open";
+	public static final String STATE_COMPLETE = "complete";
+	
+	// CONSTANTS - Validation
+	private static final String SCORES_PATTERN = "^-?[0-9]+--?[0-9]+(,-?[0-9]+--?[0-9]+)*$";
+	private static final int NO_ID = -1;
 	
 	// DATA MEMBERS
 	private String apiKey;
@@ -34,6 +60,14 @@ public class Match {
 	private Participant player1;
 	private Participant player2;
 	private int result;
+	private String state;
+	private int round;
+	private String scores;
+	private long completedAt;
+	private int player1Prereq;
+	private int player2Prereq;
+	private boolean player1PrereqLoser;
+	private boolean player2PrereqLoser;
 	
 	// METHODS
 	// Constructors
@@ -43,11 +77,20 @@ public class Match {
 	 * @param key API key necessary for authentication
 	 * @param i ID number of this Match
 	 * @param parent Tournament to which this Match belongs
-	 * @param p1 player 1
-	 * @param p2 player 2
+	 * @param p1 player 1 (or <b>null</b> if not determined yet)
+	 * @param p2 player 2 (or <b>null</b> if not determined yet)
 	 * @param r result (or RESULT_OPEN if the match is still going on)
+	 * @param st state (STATE_PENDING, STATE_OPEN or STATE_COMPLETE)
+	 * @param rd round (negative for the losers bracket, NO_ROUND if unknown)
+	 * @param sc scores as reported to Challonge ("3-1,2-3", empty if none)
+	 * @param c completion time in milliseconds since the epoch (or NO_TIME)
+	 * @param pr1 ID of the match player 1 comes from (or NO_MATCH)
+	 * @param pr2 ID of the match player 2 comes from (or NO_MATCH)
+	 * @param pl1 <b>true</b> if player 1 is the loser of match <b>pr1</b>
+	 * @param pl2 <b>true</b> if player 2 is the loser of match <b>pr2</b>
 	 */
-	private Match(String key, int i, Tournament parent, Participant p1, Participant p2, int r)
+	private Match(String key, int i, Tournament parent, Participant p1, Participant p2, int r, String st, int rd, String sc,
+			long c, int pr1, int pr2, boolean pl1, boolean pl2)
 	{
 		apiKey = key;
 		id = i;
@@ -55,39 +98,68 @@ public class Match {
 		player1 = p1;
 		player2 = p2;
 		result = r;
+		state = st;
+		round = rd;
+		scores = sc;
+		completedAt = c;
+		player1Prereq = pr1;
+		player2Prereq = pr2;
+		player1PrereqLoser = pl1;
+		player2PrereqLoser = pl2;
 	}
 	
 	// Static
-	private static Match createMatchFromElement(String apiKey, Tournament parent, Element e) throws ChallongeException
+	/**
+	 * creates a Match from an XML element
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param parent Tournament to which this Match belongs
+	 * @param lookup snapshot whose participant list is used to resolve player IDs
+	 * @param e XML element containing a single match
+	 * @return newly created Match
+	 * @throws ChallongeException if the element could not be parsed or refers to unknown participants
+	 */
+	/* package */ static Match createMatchFromElement(String apiKey, Tournament parent, TournamentSnapshot lookup, Element e) throws ChallongeException
 	{
 		try
 		{
 			int id = Integer.parseInt(e.getElementsByTagName(XML_ID).item(0).getTextContent());
-			int p1id = Integer.parseInt(e.getElementsByTagName(XML_P1_ID).item(0).getTextContent());
-			int p2id = Integer.parseInt(e.getElementsByTagName(XML_P2_ID).item(0).getTextContent());
+			int p1id = parseOptionalInt(e, XML_P1_ID, NO_ID);
+			int p2id = parseOptionalInt(e, XML_P2_ID, NO_ID);
 			String state = e.getElementsByTagName(XML_STATE).item(0).getTextContent();
+			int round = parseOptionalInt(e, XML_ROUND, NO_ROUND);
+			String scores = getOptionalText(e, XML_SCORES);
+			long completed = parseOptionalTime(e, XML_COMPLETED_AT);
+			int p1Prereq = parseOptionalInt(e, XML_P1_PREREQ, NO_MATCH);
+			int p2Prereq = parseOptionalInt(e, XML_P2_PREREQ, NO_MATCH);
+			boolean p1PrereqLoser = Boolean.parseBoolean(getOptionalText(e, XML_P1_PREREQ_LOSER));
+			boolean p2PrereqLoser = Boolean.parseBoolean(getOptionalText(e, XML_P2_PREREQ_LOSER));
 			
-			System.out.println(id + " " + p1id + " " + p2id + " " + state);
-			
-			// Determine winner (or that state is open if there is no winner)
+			// Determine winner (or that the match is still open if it has not been completed)
 			int result = RESULT_OPEN;
-			if(!state.equals(XML_STATE_OPEN))
+			if(state.equals(XML_STATE_COMPLETE))
 			{
-				int winnerID = Integer.parseInt(e.getElementsByTagName(XML_WINNER_ID).item(0).getTextContent());
-				if(winnerID == p1id)
+				int winnerID = parseOptionalInt(e, XML_WINNER_ID, NO_ID);
+				if((winnerID == p1id) && (winnerID != NO_ID))
 					result = RESULT_P1_WIN;
-				else if(winnerID == p2id)
+				else if((winnerID == p2id) && (winnerID != NO_ID))
 					result = RESULT_P2_WIN;
 				else
 					result = RESULT_DRAW;
 			}
 			
-			Participant p1 = parent.getParticipantByID(p1id);
-			Participant p2 = parent.getParticipantByID(p2id);
-			if((p1 == null) || (p2 == null))
+			// Players are not known yet while earlier matches are being played
+			Participant p1 = null;
+			Participant p2 = null;
+			if(p1id != NO_ID)
+				p1 = lookup.getParticipantByID(p1id);
+			if(p2id != NO_ID)
+				p2 = lookup.getParticipantByID(p2id);
+			if(((p1id != NO_ID) && (p1 == null)) || ((p2id != NO_ID) && (p2 == null)))
 				throw new ChallongeException(ChallongeException.REASON_PARTICIPANT_ID);
 			
-			return new Match(apiKey, id, parent, p1, p2, result);
+			return new Match(apiKey, id, parent, p1, p2, result, state, round, scores, completed,
+					p1Prereq, p2Prereq, p1PrereqLoser, p2PrereqLoser);
 		}
 		catch(NumberFormatException nfe)
 		{
@@ -99,17 +171,164 @@ public class Match {
 		}
 	}
 	
-	/* package */ static Match createMatchFromXML(String apiKey, Tournament parent, String xml) throws ChallongeException
+	/**
+	 * creates a Match from the fields kept by a projection; fields that were not kept get the same
+	 * values as when they are missing from a response
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param parent Tournament to which this Match belongs
+	 * @param lookup snapshot used to resolve player IDs (players it does not contain are represented
+	 * by participants that only carry their ID)
+	 * @param r projected fields of a single match
+	 * @return newly created Match
+	 * @throws ChallongeException if a kept field could not be parsed
+	 */
+	private static Match createMatchFromRecord(String apiKey, Tournament parent, TournamentSnapshot lookup, Projection.Record r) throws ChallongeException
+	{
+		try
+		{
+			int id = r.getInt(XML_ID, NO_ID);
+			int p1id = r.getInt(XML_P1_ID, NO_ID);
+			int p2id = r.getInt(XML_P2_ID, NO_ID);
+			String state = r.has(XML_STATE) ? r.getText(XML_STATE) : null;
+			int round = r.getInt(XML_ROUND, NO_ROUND);
+			String scores = r.getText(XML_SCORES);
+			long completed = parseTime(r.getText(XML_COMPLETED_AT));
+			int p1Prereq = r.getInt(XML_P1_PREREQ, NO_MATCH);
+			int p2Prereq = r.getInt(XML_P2_PREREQ, NO_MATCH);
+			boolean p1PrereqLoser = Boolean.parseBoolean(r.getText(XML_P1_PREREQ_LOSER));
+			boolean p2PrereqLoser = Boolean.parseBoolean(r.getText(XML_P2_PREREQ_LOSER));
+			
+			// Without the state, a winner is the only sign the match is complete
+			int result = RESULT_OPEN;
+			int winnerID = r.getInt(XML_WINNER_ID, NO_ID);
+			if(XML_STATE_COMPLETE.equals(state) || ((state == null) && (winnerID != NO_ID)))
+			{
+				if((winnerID == p1id) && (winnerID != NO_ID))
+					result = RESULT_P1_WIN;
+				else if((winnerID == p2id) && (winnerID != NO_ID))
+					result = RESULT_P2_WIN;
+				else
+					result = RESULT_DRAW;
+			}
+			
+			Participant p1 = null;
+			Participant p2 = null;
+			if(p1id != NO_ID)
+			{
+				p1 = lookup.getParticipantByID(p1id);
+				if(p1 == null)
+					p1 = Participant.createPlaceholder(apiKey, p1id);
+			}
+			if(p2id != NO_ID)
+			{
+				p2 = lookup.getParticipantByID(p2id);
+				if(p2 == null)
+					p2 = Participant.createPlaceholder(apiKey, p2id);
+			}
+			
+			return new Match(apiKey, id, parent, p1, p2, result, state, round, scores, completed,
+					p1Prereq, p2Prereq, p1PrereqLoser, p2PrereqLoser);
+		}
+		catch(NumberFormatException nfe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		}
+	}
+	
+	/**
+	 * returns the text of a child element that may be missing or empty
+	 * 
+	 * @param e parent element
+	 * @param tag tag of the child element
+	 * @return trimmed text of the child, or an empty String if it is missing
+	 */
+	private static String getOptionalText(Element e, String tag)
+	{
+		NodeList list = e.getElementsByTagName(tag);
+		if(list.getLength() == 0)
+			return "";
+		
+		return list.item(0).getTextContent().trim();
+	}
+	
+	/**
+	 * parses a numeric child element that may be missing or empty
+	 * 
+	 * @param e parent element
+	 * @param tag tag of the child element
+	 * @param missing value returned if the child is missing or empty
+	 * @return value of the child, or <b>missing</b>
+	 * @throws NumberFormatException if the child contains something other than a number
+	 */
+	private static int parseOptionalInt(Element e, String tag, int missing)
+	{
+		String text = getOptionalText(e, tag);
+		if(text.isEmpty())
+			return missing;
+		
+		return Integer.parseInt(text);
+	}
+	
+	/**
+	 * parses a timestamp child element that may be missing or empty
+	 * 
+	 * @param e parent element
+	 * @param tag tag of the child element
+	 * @return time in milliseconds since the epoch, or NO_TIME if it is missing, empty or not a
+	 * timestamp
+	 */
+	private static long parseOptionalTime(Element e, String tag)
+	{
+		return parseTime(getOptionalText(e, tag));
+	}
+	
+	/**
+	 * parses an ISO 8601 timestamp with an offset (with or without fractional seconds) that may be
+	 * empty; the completion time is informative, so a timestamp that cannot be read does not make
+	 * the whole match list fail
+	 * 
+	 * @param text timestamp, or an empty String
+	 * @return time in milliseconds since the epoch, or NO_TIME if <b>text</b> is empty or not a
+	 * timestamp
+	 */
+	private static long parseTime(String text)
+	{
+		if(text.isEmpty())
+			return NO_TIME;
+		
+		try
+		{
+			return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+		}
+		catch(DateTimeParseException dtpe)
+		{
+			return NO_TIME;
+		}
+	}
+	
+	/**
+	 * creates a Match from a Challonge xml response
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param parent Tournament to which this Match belongs
+	 * @param lookup snapshot whose participant list is used to resolve player IDs
+	 * @param xml Challonge xml response containing one Match
+	 * @return Match
+	 * @throws ChallongeException if Challonge response could not be parsed
+	 */
+	/* package */ static Match createMatchFromXML(String apiKey, Tournament parent, TournamentSnapshot lookup, String xml) throws ChallongeException
 	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
 		try
 		{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes());
-			Document doc = builder.parse(input);
+			Document doc = Challonge.parseXML(xml);
 			
 			Element e = (Element) doc.getElementsByTagName(XML_MATCH).item(0);
-			return createMatchFromElement(apiKey, parent, e);
+			Match m = createMatchFromElement(apiKey, parent, lookup, e);
+			ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_MATCH, parent.getID(), 1, xml, null);
+			
+			return m;
 		}
 		catch(ChallongeException ce)
 		{
@@ -126,23 +345,23 @@ public class Match {
 	 * 
 	 * @param apiKey API key necessary for authentication
 	 * @param parent Tournament to which these Matches belong
+	 * @param lookup snapshot whose participant list is used to resolve player IDs
 	 * @param xml Challonge xml response containing a list of Matches
 	 * @return ArrayList of Matches
 	 * @throws ChallongeException if Challonge response could not be parsed
 	 */
-	/* package */ static ArrayList<Match> createMatchListFromXML(String apiKey, Tournament parent, String xml) throws ChallongeException
+	/* package */ static ArrayList<Match> createMatchListFromXML(String apiKey, Tournament parent, TournamentSnapshot lookup, String xml) throws ChallongeException
 	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
 		try
 		{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes());
-			Document doc = builder.parse(input);
+			Document doc = Challonge.parseXML(xml);
 			
 			ArrayList<Match> matchList = new ArrayList<Match>();
 			NodeList list = doc.getElementsByTagName(XML_MATCH);
 			for(int i = 0; i < list.getLength(); i++)
-				matchList.add(createMatchFromElement(apiKey, parent, (Element) list.item(i)));
+				matchList.add(createMatchFromElement(apiKey, parent, lookup, (Element) list.item(i)));
+			ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_MATCH, parent.getID(), matchList.size(), xml, null);
 			
 			return matchList;
 		}
@@ -156,7 +375,287 @@ public class Match {
 		}
 	}
 	
+	/**
+	 * creates a list of Matches from a Challonge xml response, reading only the fields kept by a
+	 * projection
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param parent Tournament to which these Matches belong
+	 * @param lookup snapshot whose participant list is used to resolve player IDs
+	 * @param xml Challonge xml response containing a list of Matches
+	 * @param p fields to read
+	 * @return ArrayList of Matches
+	 * @throws ChallongeException if Challonge response could not be parsed
+	 */
+	/* package */ static ArrayList<Match> createMatchListFromXML(String apiKey, Tournament parent, TournamentSnapshot lookup, String xml, Projection p) throws ChallongeException
+	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
+		ArrayList<Projection.Record> records = p.parse(xml, XML_MATCH);
+		ArrayList<Match> matchList = new ArrayList<Match>(records.size());
+		for(int i = 0; i < records.size(); i++)
+			matchList.add(createMatchFromRecord(apiKey, parent, lookup, records.get(i)));
+		ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_MATCH, parent.getID(), matchList.size(), xml, p);
+		
+		return matchList;
+	}
+	
 	// Instance Methods
+	/**
+	 * returns when this Match was completed
+	 * 
+	 * @return completion time in milliseconds since the epoch, or NO_TIME if not completed
+	 */
+	public long getCompletedAt()
+	{
+		return completedAt;
+	}
+	
+	/**
+	 * returns the unique ID number of this Match
+	 * 
+	 * @return this Match's ID number
+	 */
+	public int getID()
+	{
+		return id;
+	}
+	
+	/**
+	 * returns the first player in this Match
+	 * 
+	 * @return player 1, or <b>null</b> if not determined yet
+	 */
+	public Participant getPlayer1()
+	{
+		return player1;
+	}
+	
+	/**
+	 * returns the match player 1 advances from
+	 * 
+	 * @return ID of the earlier match, or NO_MATCH if player 1 was seeded into this Match
+	 */
+	public int getPlayer1PrereqMatchID()
+	{
+		return player1Prereq;
+	}
+	
+	/**
+	 * returns the second player in this Match
+	 * 
+	 * @return player 2, or <b>null</b> if not determined yet
+	 */
+	public Participant getPlayer2()
+	{
+		return player2;
+	}
+	
+	/**
+	 * returns the match player 2 advances from
+	 * 
+	 * @return ID of the earlier match, or NO_MATCH if player 2 was seeded into this Match
+	 */
+	public int getPlayer2PrereqMatchID()
+	{
+		return player2Prereq;
+	}
+	
+	/**
+	 * returns the result of this Match
+	 * 
+	 * @return RESULT_P1_WIN, RESULT_P2_WIN, RESULT_DRAW, or RESULT_OPEN if the match is still going on
+	 */
+	public int getResult()
+	{
+		return result;
+	}
+	
+	/**
+	 * returns the round of this Match
+	 * 
+	 * @return round number (negative for the losers bracket), or NO_ROUND if unknown
+	 */
+	public int getRound()
+	{
+		return round;
+	}
+	
+	/**
+	 * returns the scores of this Match
+	 * 
+	 * @return scores as reported to Challonge ("3-1,2-3"), or an empty String if none
+	 */
+	public String getScores()
+	{
+		return scores;
+	}
+	
+	/**
+	 * returns the state of this Match
+	 * 
+	 * @return STATE_PENDING, STATE_OPEN or STATE_COMPLETE
+	 */
+	public String getState()
+	{
+		return state;
+	}
+	
+	/**
+	 * returns the Tournament to which this Match belongs
+	 * 
+	 * @return parent Tournament
+	 */
+	public Tournament getTournament()
+	{
+		return parentTournament;
+	}
+	
+	/**
+	 * returns whether player 1 is the loser (rather than the winner) of their prerequisite match
+	 * 
+	 * @return <b>true</b> if player 1 drops down from the earlier match
+	 */
+	public boolean isPlayer1PrereqLoser()
+	{
+		return player1PrereqLoser;
+	}
+	
+	/**
+	 * returns whether player 2 is the loser (rather than the winner) of their prerequisite match
+	 * 
+	 * @return <b>true</b> if player 2 drops down from the earlier match
+	 */
+	public boolean isPlayer2PrereqLoser()
+	{
+		return player2PrereqLoser;
+	}
+	
+	/**
+	 * reports the scores and result of this Match to Challonge and applies the server's response to
+	 * the parent Tournament
+	 * <p>
+	 * The response is read against this Match's own players, so the parent Tournament does not
+	 * need its participants.  Once the server has accepted the report, a response that cannot be
+	 * read does not make the report fail: the updated Match is built from what was sent instead.
+	 * 
+	 * @param scoresCsv scores, one set per game ("3-1,2-3"), player 1's score first
+	 * @param r RESULT_P1_WIN, RESULT_P2_WIN or RESULT_DRAW
+	 * @return the updated Match (this Match is not modified)
+	 * @throws ChallongeException if the arguments are invalid, or the report could not be sent or
+	 * was rejected
+	 */
+	public Match reportScore(String scoresCsv, int r) throws ChallongeException
+	{
+		// Ensure valid arguments
+		if((scoresCsv == null) || !scoresCsv.matches(SCORES_PATTERN))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		if((player1 == null) || (player2 == null))
+			throw new ChallongeException(ChallongeException.REASON_MATCH_STATE);
+		
+		String winner;
+		if(r == RESULT_P1_WIN)
+			winner = Integer.toString(player1.getID());
+		else if(r == RESULT_P2_WIN)
+			winner = Integer.toString(player2.getID());
+		else if(r == RESULT_DRAW)
+			winner = PARAM_WINNER_TIE;
+		else
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		StringBuilder body = Endpoint.body(apiKey);
+		Endpoint.appendParameter(body, PARAM_SCORES, scoresCsv);
+		Endpoint.appendParameter(body, PARAM_WINNER_ID, winner);
+		String xml = Challonge.sendHttpRequest(apiKey, Endpoint.MATCH.url(parentTournament.getID(), id), "PUT", body.toString());
+		
+		// Apply the server's view of the match to the tournament
+		Match updated;
+		try
+		{
+			TournamentSnapshot players = new TournamentSnapshot(0, Arrays.asList(player1, player2), new ArrayList<Match>());
+			updated = createMatchFromXML(apiKey, parentTournament, players, xml);
+		}
+		catch(ChallongeException ce)
+		{
+			updated = new Match(apiKey, id, parentTournament, player1, player2, r, STATE_COMPLETE, round, scoresCsv,
+					NO_TIME, player1Prereq, player2Prereq, player1PrereqLoser, player2PrereqLoser);
+		}
+		parentTournament.applyMatch(updated);
+		return updated;
+	}
+	
+	/**
+	 * returns this Match with its players replaced by the participants of a snapshot that have
+	 * the same IDs; players the snapshot does not contain are kept
+	 * 
+	 * @param lookup snapshot whose participants are used
+	 * @return this Match if its players are already those of the snapshot, a copy otherwise
+	 */
+	/* package */ Match resolvePlayers(TournamentSnapshot lookup)
+	{
+		Participant p1 = resolvePlayer(player1, lookup);
+		Participant p2 = resolvePlayer(player2, lookup);
+		if((p1 == player1) && (p2 == player2))
+			return this;
+		
+		return new Match(apiKey, id, parentTournament, p1, p2, result, state, round, scores, completedAt,
+				player1Prereq, player2Prereq, player1PrereqLoser, player2PrereqLoser);
+	}
+	
+	/**
+	 * returns the participant of a snapshot with the same ID as a player
+	 * 
+	 * @param player player (or <b>null</b> if not determined yet)
+	 * @param lookup snapshot whose participants are used
+	 * @return participant of the snapshot, or <b>player</b> if the snapshot does not contain it
+	 */
+	private static Participant resolvePlayer(Participant player, TournamentSnapshot lookup)
+	{
+		if(player == null)
+			return null;
+		
+		Participant p = lookup.getParticipantByID(player.getID());
+		return (p == null) ? player : p;
+	}
+	
+	/**
+	 * creates an XML element that
+	 * {@link #createMatchFromElement(String, Tournament, TournamentSnapshot, Element)} reads back
+	 * into an equal Match
+	 * 
+	 * @param doc document that will contain the element
+	 * @return new element
+	 */
+	/* package */ Element toElement(Document doc)
+	{
+		Element e = doc.createElement(XML_MATCH);
+		Challonge.appendXMLElement(e, XML_ID, Integer.toString(id));
+		Challonge.appendXMLElement(e, XML_STATE, state);
+		if(player1 != null)
+			Challonge.appendXMLElement(e, XML_P1_ID, Integer.toString(player1.getID()));
+		if(player2 != null)
+			Challonge.appendXMLElement(e, XML_P2_ID, Integer.toString(player2.getID()));
+		if(round != NO_ROUND)
+			Challonge.appendXMLElement(e, XML_ROUND, Integer.toString(round));
+		if(scores != null)
+			Challonge.appendXMLElement(e, XML_SCORES, scores);
+		if(completedAt != NO_TIME)
+			Challonge.appendXMLElement(e, XML_COMPLETED_AT, DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(Instant.ofEpochMilli(completedAt).atOffset(ZoneOffset.UTC)));
+		if(player1Prereq != NO_MATCH)
+			Challonge.appendXMLElement(e, XML_P1_PREREQ, Integer.toString(player1Prereq));
+		if(player2Prereq != NO_MATCH)
+			Challonge.appendXMLElement(e, XML_P2_PREREQ, Integer.toString(player2Prereq));
+		Challonge.appendXMLElement(e, XML_P1_PREREQ_LOSER, Boolean.toString(player1PrereqLoser));
+		Challonge.appendXMLElement(e, XML_P2_PREREQ_LOSER, Boolean.toString(player2PrereqLoser));
+		
+		// A draw is a completed match without a winner
+		if(result == RESULT_P1_WIN)
+			Challonge.appendXMLElement(e, XML_WINNER_ID, Integer.toString(player1.getID()));
+		else if(result == RESULT_P2_WIN)
+			Challonge.appendXMLElement(e, XML_WINNER_ID, Integer.toString(player2.getID()));
+		
+		return e;
+	}
+	
 	/**
 	 * returns a String representation of this Match
 	 * 
@@ -165,6 +664,8 @@ public class Match {
 	@Override
 	public String toString()
 	{
-		return player1.getName() + " vs. " + player2.getName();
+		String name1 = (player1 == null) ? "TBD" : player1.getName();
+		String name2 = (player2 == null) ? "TBD" : player2.getName();
+		return name1 + " vs. " + name2;
 	}
 }
@@ -0,0 +1,222 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MatchReportBatch {
+	
+	// DATA MEMBERS
+	private ArrayList<Report> reports;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an empty batch
+	 */
+	public MatchReportBatch()
+	{
+		reports = new ArrayList<Report>();
+	}
+	
+	// Instance methods
+	/**
+	 * adds a score report to this batch
+	 * 
+	 * @param m Match to report
+	 * @param scoresCsv scores, one set per game ("3-1,2-3"), player 1's score first
+	 * @param result Match.RESULT_P1_WIN, Match.RESULT_P2_WIN or Match.RESULT_DRAW
+	 * @return this batch
+	 */
+	public MatchReportBatch add(Match m, String scoresCsv, int result)
+	{
+		reports.add(new Report(m, scoresCsv, result));
+		return this;
+	}
+	
+	/**
+	 * returns the number of reports in this batch
+	 * 
+	 * @return number of reports
+	 */
+	public int size()
+	{
+		return reports.size();
+	}
+	
+	/**
+	 * sends every report using a temporary pool of threads
+	 * 
+	 * @param parallelism maximum number of reports in flight at once
+	 * @return the reports, in the order they were added, each with its outcome
+	 * @throws ChallongeException if <b>parallelism</b> is not positive or the wait was interrupted
+	 * @see #submit(ExecutorService)
+	 */
+	public List<Report> submit(int parallelism) throws ChallongeException
+	{
+		if(parallelism <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, reports.size())));
+		try
+		{
+			return submit(executor);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * sends every report using an executor and waits for all of them to finish; reports for
+	 * different matches are sent concurrently, reports for the same match are sent in the order
+	 * they were added
+	 * <p>
+	 * A failed report does not stop the others; check {@link Report#getException()}.  Each
+	 * successful report updates the match in its Tournament.
+	 * 
+	 * @param executor executor to send reports on
+	 * @return the reports, in the order they were added, each with its outcome
+	 * @throws ChallongeException if the wait was interrupted
+	 */
+	public List<Report> submit(ExecutorService executor) throws ChallongeException
+	{
+		// Group by match so updates to one match never race each other
+		LinkedHashMap<Integer, ArrayList<Report>> byMatch = new LinkedHashMap<Integer, ArrayList<Report>>();
+		for(int i = 0; i < reports.size(); i++)
+		{
+			Report r = reports.get(i);
+			ArrayList<Report> group = byMatch.get(r.match.getID());
+			if(group == null)
+			{
+				group = new ArrayList<Report>();
+				byMatch.put(r.match.getID(), group);
+			}
+			group.add(r);
+		}
+		
+		ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+		for(final ArrayList<Report> group : byMatch.values())
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run()
+				{
+					for(int i = 0; i < group.size(); i++)
+						group.get(i).send();
+				}
+			}));
+		
+		try
+		{
+			for(int i = 0; i < futures.size(); i++)
+				futures.get(i).get();
+		}
+		catch(InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+		}
+		catch(ExecutionException ee)
+		{
+			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+		}
+		
+		return new ArrayList<Report>(reports);
+	}
+	
+	// Classes
+	/**
+	 * a single score report and its outcome
+	 */
+	public static class Report {
+		
+		// DATA MEMBERS
+		private Match match;
+		private String scores;
+		private int result;
+		private volatile Match updated;
+		private volatile Exception exception;
+		
+		// METHODS
+		/**
+		 * creates a report that has not been sent
+		 * 
+		 * @param m Match to report
+		 * @param sc scores
+		 * @param r result
+		 */
+		private Report(Match m, String sc, int r)
+		{
+			match = m;
+			scores = sc;
+			result = r;
+		}
+		
+		/**
+		 * returns the reason this report failed
+		 * 
+		 * @return ChallongeException if the report was invalid, rejected or could not be sent; any
+		 * other exception thrown while reporting; <b>null</b> if the report succeeded or has not
+		 * been sent
+		 */
+		public Exception getException()
+		{
+			return exception;
+		}
+		
+		/**
+		 * returns the Match this report was created for
+		 * 
+		 * @return Match as it was before the report
+		 */
+		public Match getMatch()
+		{
+			return match;
+		}
+		
+		/**
+		 * returns the Match as updated by the server
+		 * 
+		 * @return updated Match, or <b>null</b> if the report failed or has not been sent
+		 */
+		public Match getUpdatedMatch()
+		{
+			return updated;
+		}
+		
+		/**
+		 * returns whether this report was accepted
+		 * 
+		 * @return <b>true</b> if the server accepted the report
+		 */
+		public boolean isSuccessful()
+		{
+			return updated != null;
+		}
+		
+		/**
+		 * sends this report, recording its outcome
+		 */
+		private void send()
+		{
+			try
+			{
+				updated = match.reportScore(scores, result);
+			}
+			catch(ChallongeException ce)
+			{
+				exception = ce;
+			}
+			catch(RuntimeException re)
+			{
+				// Recorded like any failure, so the other reports of the match are still sent
+				exception = re;
+			}
+		}
+	}
+}
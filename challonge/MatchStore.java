@@ -0,0 +1,396 @@
+package challonge;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class MatchStore {
+	
+	// CONSTANTS - Data
+	public static final int NO_PLAYER = -1;
+	
+	// CONSTANTS - Sizes
+	private static final int INITIAL_MATCH_CAPACITY = 1024;
+	private static final int INITIAL_PARTICIPANT_CAPACITY = 256;
+	
+	// DATA MEMBERS
+	// Match columns (one entry per row)
+	private int size;
+	private int[] matchIDs;
+	private int[] tournamentIDs;
+	private int[] player1s; // index into participant dictionary, or NO_PLAYER
+	private int[] player2s; // index into participant dictionary, or NO_PLAYER
+	private byte[] results;
+	
+	// Participant dictionary (one entry per distinct participant)
+	private int participantCount;
+	private int[] participantIDs;
+	private String[] participantNames;
+	private HashMap<Integer, Integer> participantIndex;
+	
+	// Per-participant row index, rebuilt lazily after new rows are added
+	private int[] rowOffsets;
+	private int[] rowsByParticipant;
+	private boolean indexStale;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an empty MatchStore
+	 */
+	public MatchStore()
+	{
+		matchIDs = new int[INITIAL_MATCH_CAPACITY];
+		tournamentIDs = new int[INITIAL_MATCH_CAPACITY];
+		player1s = new int[INITIAL_MATCH_CAPACITY];
+		player2s = new int[INITIAL_MATCH_CAPACITY];
+		results = new byte[INITIAL_MATCH_CAPACITY];
+		
+		participantIDs = new int[INITIAL_PARTICIPANT_CAPACITY];
+		participantNames = new String[INITIAL_PARTICIPANT_CAPACITY];
+		participantIndex = new HashMap<Integer, Integer>();
+		
+		indexStale = true;
+	}
+	
+	// Static
+	/**
+	 * creates a MatchStore holding every Match of the given Tournaments
+	 * 
+	 * @param tournaments Tournaments to copy matches from
+	 * @return newly created MatchStore, trimmed to size
+	 */
+	public static MatchStore createMatchStore(List<Tournament> tournaments)
+	{
+		MatchStore store = new MatchStore();
+		for(int i = 0; i < tournaments.size(); i++)
+			store.addTournament(tournaments.get(i));
+		store.trimToSize();
+		
+		return store;
+	}
+	
+	// Instance methods
+	/**
+	 * appends a single Match to this store
+	 * 
+	 * @param m Match to be added
+	 */
+	public void addMatch(Match m)
+	{
+		ensureMatchCapacity(size + 1);
+		
+		matchIDs[size] = m.getID();
+		tournamentIDs[size] = m.getTournament().getID();
+		player1s[size] = internParticipant(m.getPlayer1());
+		player2s[size] = internParticipant(m.getPlayer2());
+		results[size] = (byte) m.getResult();
+		size++;
+		
+		indexStale = true;
+	}
+	
+	/**
+	 * appends every Match in a list to this store
+	 * 
+	 * @param matches Matches to be added
+	 */
+	public void addMatches(List<Match> matches)
+	{
+		ensureMatchCapacity(size + matches.size());
+		for(int i = 0; i < matches.size(); i++)
+			addMatch(matches.get(i));
+	}
+	
+	/**
+	 * appends every Match of a Tournament to this store
+	 * 
+	 * @param t Tournament whose matches should be added
+	 */
+	public void addTournament(Tournament t)
+	{
+		addMatches(t.getMatches());
+	}
+	
+	/**
+	 * returns the ID of the Match stored in a row
+	 * 
+	 * @param row row number (0 to size() - 1)
+	 * @return Match ID
+	 */
+	public int getMatchID(int row)
+	{
+		checkRow(row);
+		return matchIDs[row];
+	}
+	
+	/**
+	 * returns the number of distinct participants referenced by this store
+	 * 
+	 * @return size of the participant dictionary
+	 */
+	public int getParticipantCount()
+	{
+		return participantCount;
+	}
+	
+	/**
+	 * returns the name of a participant in this store
+	 * 
+	 * @param participantID participant ID
+	 * @return name of the participant, or <b>null</b> if not found
+	 */
+	public String getParticipantName(int participantID)
+	{
+		Integer index = participantIndex.get(participantID);
+		if(index == null)
+			return null;
+		
+		return participantNames[index];
+	}
+	
+	/**
+	 * returns the participant ID of player 1 in a row
+	 * 
+	 * @param row row number (0 to size() - 1)
+	 * @return participant ID, or NO_PLAYER if the slot is empty
+	 */
+	public int getPlayer1ID(int row)
+	{
+		checkRow(row);
+		return dictionaryToID(player1s[row]);
+	}
+	
+	/**
+	 * returns the participant ID of player 2 in a row
+	 * 
+	 * @param row row number (0 to size() - 1)
+	 * @return participant ID, or NO_PLAYER if the slot is empty
+	 */
+	public int getPlayer2ID(int row)
+	{
+		checkRow(row);
+		return dictionaryToID(player2s[row]);
+	}
+	
+	/**
+	 * returns the result of the Match stored in a row
+	 * 
+	 * @param row row number (0 to size() - 1)
+	 * @return Match.RESULT_P1_WIN, Match.RESULT_P2_WIN, Match.RESULT_DRAW, or Match.RESULT_OPEN
+	 */
+	public int getResult(int row)
+	{
+		checkRow(row);
+		return results[row];
+	}
+	
+	/**
+	 * returns the rows of every Match a participant played in, in insertion order
+	 * 
+	 * @param participantID participant ID
+	 * @return row numbers (empty if the participant is not in this store)
+	 */
+	public int[] getRowsForParticipant(int participantID)
+	{
+		Integer index = participantIndex.get(participantID);
+		if(index == null)
+			return new int[0];
+		
+		if(indexStale)
+			rebuildIndex();
+		
+		return Arrays.copyOfRange(rowsByParticipant, rowOffsets[index], rowOffsets[index + 1]);
+	}
+	
+	/**
+	 * returns the ID of the Tournament a row belongs to
+	 * 
+	 * @param row row number (0 to size() - 1)
+	 * @return Tournament ID
+	 */
+	public int getTournamentID(int row)
+	{
+		checkRow(row);
+		return tournamentIDs[row];
+	}
+	
+	/**
+	 * calls a visitor for every row in this store, in insertion order
+	 * 
+	 * @param visitor visitor to receive each row
+	 */
+	public void scan(RowVisitor visitor)
+	{
+		for(int i = 0; i < size; i++)
+			visitor.visit(i, matchIDs[i], tournamentIDs[i], dictionaryToID(player1s[i]),
+					dictionaryToID(player2s[i]), results[i]);
+	}
+	
+	/**
+	 * calls a visitor for every row a participant played in, in insertion order
+	 * 
+	 * @param participantID participant ID
+	 * @param visitor visitor to receive each row
+	 */
+	public void scanParticipant(int participantID, RowVisitor visitor)
+	{
+		Integer index = participantIndex.get(participantID);
+		if(index == null)
+			return;
+		
+		if(indexStale)
+			rebuildIndex();
+		
+		for(int i = rowOffsets[index]; i < rowOffsets[index + 1]; i++)
+		{
+			int row = rowsByParticipant[i];
+			visitor.visit(row, matchIDs[row], tournamentIDs[row], dictionaryToID(player1s[row]),
+					dictionaryToID(player2s[row]), results[row]);
+		}
+	}
+	
+	/**
+	 * returns the number of rows (matches) in this store
+	 * 
+	 * @return number of rows
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * releases unused capacity in every column
+	 */
+	public void trimToSize()
+	{
+		matchIDs = Arrays.copyOf(matchIDs, size);
+		tournamentIDs = Arrays.copyOf(tournamentIDs, size);
+		player1s = Arrays.copyOf(player1s, size);
+		player2s = Arrays.copyOf(player2s, size);
+		results = Arrays.copyOf(results, size);
+		
+		participantIDs = Arrays.copyOf(participantIDs, participantCount);
+		participantNames = Arrays.copyOf(participantNames, participantCount);
+	}
+	
+	/**
+	 * throws an exception if a row number is out of range
+	 * 
+	 * @param row row number
+	 */
+	private void checkRow(int row)
+	{
+		if((row < 0) || (row >= size))
+			throw new IndexOutOfBoundsException("Row " + row + " (size " + size + ")");
+	}
+	
+	/**
+	 * converts a dictionary index to a participant ID
+	 * 
+	 * @param index dictionary index or NO_PLAYER
+	 * @return participant ID or NO_PLAYER
+	 */
+	private int dictionaryToID(int index)
+	{
+		if(index == NO_PLAYER)
+			return NO_PLAYER;
+		
+		return participantIDs[index];
+	}
+	
+	/**
+	 * grows every match column so it can hold at least the given number of rows
+	 * 
+	 * @param capacity required number of rows
+	 */
+	private void ensureMatchCapacity(int capacity)
+	{
+		if(capacity <= matchIDs.length)
+			return;
+		
+		int newCapacity = Math.max(capacity, Math.max(INITIAL_MATCH_CAPACITY, matchIDs.length * 2));
+		matchIDs = Arrays.copyOf(matchIDs, newCapacity);
+		tournamentIDs = Arrays.copyOf(tournamentIDs, newCapacity);
+		player1s = Arrays.copyOf(player1s, newCapacity);
+		player2s = Arrays.copyOf(player2s, newCapacity);
+		results = Arrays.copyOf(results, newCapacity);
+	}
+	
+	/**
+	 * returns the dictionary index of a participant, adding it to the dictionary if necessary
+	 * 
+	 * @param p participant (can be <b>null</b>)
+	 * @return dictionary index, or NO_PLAYER if <b>p</b> is <b>null</b>
+	 */
+	private int internParticipant(Participant p)
+	{
+		if(p == null)
+			return NO_PLAYER;
+		
+		Integer index = participantIndex.get(p.getID());
+		if(index != null)
+			return index;
+		
+		if(participantCount == participantIDs.length)
+		{
+			int newCapacity = Math.max(INITIAL_PARTICIPANT_CAPACITY, participantIDs.length * 2);
+			participantIDs = Arrays.copyOf(participantIDs, newCapacity);
+			participantNames = Arrays.copyOf(participantNames, newCapacity);
+		}
+		
+		participantIDs[participantCount] = p.getID();
+		participantNames[participantCount] = p.getName();
+		participantIndex.put(p.getID(), participantCount);
+		return participantCount++;
+	}
+	
+	/**
+	 * rebuilds the per-participant row index (counting sort of rows by participant)
+	 */
+	private void rebuildIndex()
+	{
+		rowOffsets = new int[participantCount + 1];
+		for(int i = 0; i < size; i++)
+		{
+			if(player1s[i] != NO_PLAYER)
+				rowOffsets[player1s[i] + 1]++;
+			if((player2s[i] != NO_PLAYER) && (player2s[i] != player1s[i]))
+				rowOffsets[player2s[i] + 1]++;
+		}
+		for(int i = 0; i < participantCount; i++)
+			rowOffsets[i + 1] += rowOffsets[i];
+		
+		rowsByParticipant = new int[rowOffsets[participantCount]];
+		int[] next = Arrays.copyOf(rowOffsets, participantCount);
+		for(int i = 0; i < size; i++)
+		{
+			if(player1s[i] != NO_PLAYER)
+				rowsByParticipant[next[player1s[i]]++] = i;
+			if((player2s[i] != NO_PLAYER) && (player2s[i] != player1s[i]))
+				rowsByParticipant[next[player2s[i]]++] = i;
+		}
+		
+		indexStale = false;
+	}
+	
+	// Interfaces
+	/**
+	 * receives rows during a scan of a MatchStore
+	 */
+	public interface RowVisitor {
+		
+		/**
+		 * called once per row
+		 * 
+		 * @param row row number
+		 * @param matchID Match ID
+		 * @param tournamentID Tournament ID
+		 * @param player1ID participant ID of player 1 (or NO_PLAYER)
+		 * @param player2ID participant ID of player 2 (or NO_PLAYER)
+		 * @param result Match result (Match.RESULT_*)
+		 */
+		public void visit(int row, int matchID, int tournamentID, int player1ID, int player2ID, int result);
+	}
+}
@@ -0,0 +1,731 @@
+package challonge;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+public class MutationQueue {
+	
+	// CONSTANTS - Operations
+	public static final String OP_ADD_PARTICIPANT = "add-participant";
+	public static final String OP_CHANGE_NAME = "change-name";
+	public static final String OP_START = "start";
+	public static final String OP_DELETE = "delete";
+	public static final String[] OPS = {OP_ADD_PARTICIPANT, OP_CHANGE_NAME, OP_START, OP_DELETE};
+	
+	// CONSTANTS - Journal
+	private static final String JOURNAL_PENDING = "P"; // P <sequence> <tournament ID> <operation> <argument>
+	private static final String JOURNAL_DONE = "D"; // D <sequence>
+	private static final String JOURNAL_SEPARATOR = " ";
+	private static final char JOURNAL_LINE_END = '\n';
+	private static final String JOURNAL_NO_ARGUMENT = "-";
+	private static final String JOURNAL_COMPACT_SUFFIX = ".tmp";
+	private static final String JOURNAL_ENCODING = "UTF-8";
+	
+	// CONSTANTS - Retries
+	public static final int UNLIMITED_ATTEMPTS = 0;
+	private static final int DEFAULT_WORKERS = 4;
+	private static final long DEFAULT_INITIAL_BACKOFF = 500;
+	private static final long DEFAULT_MAX_BACKOFF = 30000;
+	
+	// CONSTANTS - Threads
+	private static final String THREAD_NAME = "challonge-mutations";
+	
+	// DATA MEMBERS
+	private String apiKey; // never written to the journal
+	private File journalFile;
+	private FileOutputStream journal;
+	private long nextSequence;
+	private HashMap<Integer, ArrayDeque<Mutation>> queues; // pending mutations by tournament ID
+	private MutationListener listener;
+	private ExecutorService executor;
+	private volatile int maxAttempts;
+	private volatile long initialBackoff;
+	private volatile long maxBackoff;
+	private volatile boolean closed;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * opens a queue with the default number of workers and no listener
+	 * 
+	 * @param key API key mutations are sent with
+	 * @param file journal file (created if it does not exist)
+	 * @throws ChallongeException if the journal could not be read or opened
+	 * @see #MutationQueue(String, File, int, MutationListener)
+	 */
+	public MutationQueue(String key, File file) throws ChallongeException
+	{
+		this(key, file, DEFAULT_WORKERS, null);
+	}
+	
+	/**
+	 * opens a queue; mutations left pending in the journal by a previous run are sent again, in
+	 * their original order
+	 * <p>
+	 * Mutations are sent at least once: a mutation whose outcome is unknown (replayed from the
+	 * journal, or retried after the connection failed) is sent again.  A participant is only
+	 * added again if the tournament does not already have a participant with that name; a start
+	 * or delete that the server had already applied fails when sent again.
+	 * 
+	 * @param key API key mutations are sent with
+	 * @param file journal file (created if it does not exist)
+	 * @param workers number of tournaments whose mutations may be sent at once
+	 * @param l listener notified once each mutation has succeeded or failed for good (can be
+	 * <b>null</b>)
+	 * @throws ChallongeException if the journal could not be read or opened
+	 */
+	public MutationQueue(String key, File file, int workers, MutationListener l) throws ChallongeException
+	{
+		if(workers <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		apiKey = key;
+		journalFile = file;
+		listener = l;
+		queues = new HashMap<Integer, ArrayDeque<Mutation>>();
+		maxAttempts = UNLIMITED_ATTEMPTS;
+		initialBackoff = DEFAULT_INITIAL_BACKOFF;
+		maxBackoff = DEFAULT_MAX_BACKOFF;
+		executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, THREAD_NAME);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		
+		List<Mutation> pending = replay();
+		try
+		{
+			journal = new FileOutputStream(journalFile, true);
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_JOURNAL);
+		}
+		
+		synchronized(this)
+		{
+			for(int i = 0; i < pending.size(); i++)
+				schedule(pending.get(i));
+		}
+	}
+	
+	// Static
+	/**
+	 * returns whether a failure is worth retrying
+	 * 
+	 * @param ce failure
+	 * @return <b>true</b> if the failure came from the connection or the service rather than the
+	 * request itself
+	 */
+	private static boolean isTransient(ChallongeException ce)
+	{
+		return ce.isServiceFailure() || ce.hasReason(ChallongeException.REASON_CIRCUIT_OPEN);
+	}
+	
+	/**
+	 * forces the entries of a directory to disk, so a file moved into it survives a crash
+	 * 
+	 * @param dir directory
+	 */
+	private static void syncDirectory(File dir)
+	{
+		try
+		{
+			FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ);
+			try
+			{
+				channel.force(true);
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+		catch(IOException ioe)
+		{
+			// Directories cannot be opened on every platform; the move itself is still atomic
+		}
+	}
+	
+	// Instance methods
+	/**
+	 * queues a participant to be added to a tournament
+	 * 
+	 * @param t Tournament
+	 * @param name desired username to be added
+	 * @return queued mutation
+	 * @throws ChallongeException if the queue is closed or the mutation could not be journaled
+	 */
+	public Mutation addParticipant(Tournament t, String name) throws ChallongeException
+	{
+		return enqueue(t, t.getID(), OP_ADD_PARTICIPANT, name);
+	}
+	
+	/**
+	 * queues a name change; the Tournament's name changes once the server has accepted it
+	 * 
+	 * @param t Tournament
+	 * @param newName new tournament name
+	 * @return queued mutation
+	 * @throws ChallongeException if the queue is closed, the name is too long or the mutation could
+	 * not be journaled
+	 */
+	public Mutation changeName(Tournament t, String newName) throws ChallongeException
+	{
+		if(newName.length() > Tournament.NAME_MAX_LENGTH)
+			throw new ChallongeException(ChallongeException.REASON_NAME_LENGTH);
+		
+		return enqueue(t, t.getID(), OP_CHANGE_NAME, newName);
+	}
+	
+	/**
+	 * stops sending mutations; mutations not yet sent stay in the journal and are sent when the
+	 * journal is opened again, and threads waiting for them are woken (see {@link Mutation#await()})
+	 */
+	public void close()
+	{
+		ArrayList<Mutation> pending = new ArrayList<Mutation>();
+		synchronized(this)
+		{
+			if(closed)
+				return;
+			closed = true;
+			for(ArrayDeque<Mutation> queue : queues.values())
+				pending.addAll(queue);
+		}
+		
+		for(int i = 0; i < pending.size(); i++)
+		{
+			Mutation m = pending.get(i);
+			synchronized(m)
+			{
+				m.abandoned = true;
+				m.notifyAll();
+			}
+		}
+		
+		executor.shutdownNow();
+		synchronized(this)
+		{
+			try
+			{
+				journal.close();
+			}
+			catch(IOException ioe)
+			{
+				// Every entry has already been synced
+			}
+		}
+	}
+	
+	/**
+	 * queues a tournament to be deleted
+	 * 
+	 * @param t Tournament
+	 * @return queued mutation
+	 * @throws ChallongeException if the queue is closed or the mutation could not be journaled
+	 */
+	public Mutation delete(Tournament t) throws ChallongeException
+	{
+		return enqueue(t, t.getID(), OP_DELETE, null);
+	}
+	
+	/**
+	 * sends the mutations of one tournament, one at a time, until its queue is empty
+	 * 
+	 * @param tournamentID ID of the tournament
+	 */
+	private void drain(int tournamentID)
+	{
+		boolean empty = false;
+		while(!closed && !empty)
+		{
+			Mutation m;
+			synchronized(this)
+			{
+				m = queues.get(tournamentID).peek();
+			}
+			
+			if(!send(m)) // Interrupted by close(); the mutation stays in the journal
+				return;
+			
+			synchronized(this)
+			{
+				try
+				{
+					writeJournal(JOURNAL_DONE + JOURNAL_SEPARATOR + m.sequence);
+				}
+				catch(ChallongeException ce)
+				{
+					// The mutation will be sent again on replay
+				}
+				
+				// Decided under the lock, so a mutation queued after this starts a new worker
+				ArrayDeque<Mutation> queue = queues.get(tournamentID);
+				queue.poll();
+				empty = queue.isEmpty();
+				if(empty)
+					queues.remove(tournamentID);
+			}
+			
+			synchronized(m)
+			{
+				m.done = true;
+				m.notifyAll();
+			}
+			if(listener != null)
+				listener.mutationCompleted(m);
+		}
+	}
+	
+	/**
+	 * writes a mutation to the journal and schedules it; the mutation is durable once this returns
+	 * 
+	 * @param t Tournament to update once the mutation succeeds (can be <b>null</b>)
+	 * @param tournamentID ID of the tournament
+	 * @param op operation (from <b>OPS</b>)
+	 * @param argument argument of the operation (can be <b>null</b>)
+	 * @return queued mutation
+	 * @throws ChallongeException if the queue is closed or the mutation could not be journaled
+	 */
+	private synchronized Mutation enqueue(Tournament t, int tournamentID, String op, String argument) throws ChallongeException
+	{
+		if(closed)
+			throw new ChallongeException(ChallongeException.REASON_QUEUE_CLOSED);
+		
+		Mutation m = new Mutation(nextSequence++, tournamentID, op, argument);
+		m.tournament = t;
+		try
+		{
+			String encoded = (argument == null) ? JOURNAL_NO_ARGUMENT : Challonge.encodeString(argument);
+			writeJournal(JOURNAL_PENDING + JOURNAL_SEPARATOR + m.sequence + JOURNAL_SEPARATOR + tournamentID
+					+ JOURNAL_SEPARATOR + op + JOURNAL_SEPARATOR + encoded);
+		}
+		catch(UnsupportedEncodingException uee)
+		{
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		}
+		
+		schedule(m);
+		return m;
+	}
+	
+	/**
+	 * returns the number of mutations not yet completed
+	 * 
+	 * @return number of pending mutations
+	 */
+	public synchronized int getPendingCount()
+	{
+		int count = 0;
+		for(ArrayDeque<Mutation> queue : queues.values())
+			count += queue.size();
+		
+		return count;
+	}
+	
+	/**
+	 * checks whether a tournament has a participant with a name
+	 * 
+	 * @param tournamentID ID of the tournament
+	 * @param name participant name
+	 * @return <b>true</b> if a participant has exactly that name
+	 * @throws ChallongeException if the participant list could not be retrieved
+	 */
+	private boolean hasParticipant(int tournamentID, String name) throws ChallongeException
+	{
+		String xml = Challonge.sendHttpRequest(apiKey, Endpoint.PARTICIPANTS.url(apiKey, tournamentID), "GET");
+		List<Participant> participants = Participant.createParticipantListFromXML(apiKey, tournamentID, xml);
+		if(participants == null)
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		
+		for(int i = 0; i < participants.size(); i++)
+			if(name.equals(participants.get(i).getName()))
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * reads the journal, keeping the mutations that were never completed, and rewrites it with only
+	 * those; an entry without its line break was cut off by a crash and is ignored
+	 * 
+	 * @return pending mutations, in the order they were queued
+	 * @throws ChallongeException if the journal could not be read or rewritten
+	 */
+	private List<Mutation> replay() throws ChallongeException
+	{
+		LinkedHashMap<Long, Mutation> pending = new LinkedHashMap<Long, Mutation>();
+		if(journalFile.exists())
+		{
+			try
+			{
+				String text = new String(Files.readAllBytes(journalFile.toPath()), StandardCharsets.UTF_8);
+				int start = 0;
+				int end;
+				while((end = text.indexOf(JOURNAL_LINE_END, start)) >= 0)
+				{
+					String[] fields = text.substring(start, end).split(JOURNAL_SEPARATOR);
+					start = end + 1;
+					try
+					{
+						if(fields[0].equals(JOURNAL_PENDING) && (fields.length == 5))
+						{
+							long sequence = Long.parseLong(fields[1]);
+							String argument = fields[4].equals(JOURNAL_NO_ARGUMENT) ? null : URLDecoder.decode(fields[4], JOURNAL_ENCODING);
+							Mutation m = new Mutation(sequence, Integer.parseInt(fields[2]), fields[3], argument);
+							m.uncertain = true; // It may have been sent before the crash
+							pending.put(sequence, m);
+							nextSequence = Math.max(nextSequence, sequence + 1);
+						}
+						else if(fields[0].equals(JOURNAL_DONE) && (fields.length == 2))
+							pending.remove(Long.parseLong(fields[1]));
+					}
+					catch(IllegalArgumentException iae)
+					{
+						// Not an entry this version wrote; skip it rather than lose the journal
+					}
+				}
+				
+				// Compact: keep only pending entries
+				File compacted = new File(journalFile.getPath() + JOURNAL_COMPACT_SUFFIX);
+				FileOutputStream output = new FileOutputStream(compacted);
+				try
+				{
+					for(Mutation m : pending.values())
+					{
+						String encoded = (m.argument == null) ? JOURNAL_NO_ARGUMENT : Challonge.encodeString(m.argument);
+						output.write((JOURNAL_PENDING + JOURNAL_SEPARATOR + m.sequence + JOURNAL_SEPARATOR + m.tournamentID
+								+ JOURNAL_SEPARATOR + m.op + JOURNAL_SEPARATOR + encoded + JOURNAL_LINE_END).getBytes(StandardCharsets.UTF_8));
+					}
+					output.getFD().sync();
+				}
+				finally
+				{
+					output.close();
+				}
+				Files.move(compacted.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				syncDirectory(journalFile.getAbsoluteFile().getParentFile());
+			}
+			catch(IOException ioe)
+			{
+				throw new ChallongeException(ChallongeException.REASON_JOURNAL);
+			}
+		}
+		
+		return new ArrayList<Mutation>(pending.values());
+	}
+	
+	/**
+	 * adds a mutation to its tournament's queue, starting a worker for the tournament if none is
+	 * running
+	 * 
+	 * @param m mutation
+	 */
+	private void schedule(final Mutation m)
+	{
+		ArrayDeque<Mutation> queue = queues.get(m.tournamentID);
+		if(queue == null)
+		{
+			queue = new ArrayDeque<Mutation>();
+			queues.put(m.tournamentID, queue);
+			queue.add(m);
+			executor.execute(new Runnable() {
+				@Override
+				public void run()
+				{
+					drain(m.tournamentID);
+				}
+			});
+		}
+		else
+			queue.add(m);
+	}
+	
+	/**
+	 * sends a mutation, retrying transient failures
+	 * 
+	 * @param m mutation
+	 * @return <b>true</b> if the mutation completed (successfully or not), <b>false</b> if sending
+	 * was interrupted
+	 */
+	private boolean send(Mutation m)
+	{
+		long backoff = initialBackoff;
+		while(true)
+		{
+			m.attempts++;
+			try
+			{
+				if(m.op.equals(OP_ADD_PARTICIPANT))
+				{
+					// Adding is not idempotent, so check an attempt that may have been applied
+					if(!m.uncertain || !hasParticipant(m.tournamentID, m.argument))
+						Tournament.sendAddParticipant(apiKey, m.tournamentID, m.argument);
+				}
+				else if(m.op.equals(OP_CHANGE_NAME))
+				{
+					Tournament.sendChangeName(apiKey, m.tournamentID, m.argument);
+					if(m.tournament != null)
+						m.tournament.applyName(m.argument);
+				}
+				else if(m.op.equals(OP_START))
+					Tournament.sendStart(apiKey, m.tournamentID);
+				else if(m.op.equals(OP_DELETE))
+					Tournament.sendDelete(apiKey, m.tournamentID);
+				else
+					throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+				
+				if(m.tournament != null)
+					m.tournament.invalidateRefreshes();
+				m.exception = null;
+				return true;
+			}
+			catch(ChallongeException ce)
+			{
+				m.exception = ce;
+				if(!ce.hasReason(ChallongeException.REASON_CIRCUIT_OPEN))
+					m.uncertain = true;
+				if(!isTransient(ce) || ((maxAttempts != UNLIMITED_ATTEMPTS) && (m.attempts >= maxAttempts)))
+					return true;
+			}
+			
+			try
+			{
+				Thread.sleep(backoff);
+			}
+			catch(InterruptedException ie)
+			{
+				return false;
+			}
+			backoff = Math.min(backoff * 2, maxBackoff);
+		}
+	}
+	
+	/**
+	 * sets how failures caused by the connection or the service are retried; other failures are
+	 * never retried
+	 * 
+	 * @param attempts maximum number of attempts per mutation (UNLIMITED_ATTEMPTS to retry until the
+	 * mutation succeeds)
+	 * @param initial delay before the first retry, in milliseconds (doubles after each retry)
+	 * @param max longest delay between retries, in milliseconds
+	 * @throws ChallongeException if the policy is invalid
+	 */
+	public void setRetryPolicy(int attempts, long initial, long max) throws ChallongeException
+	{
+		if((attempts < 0) || (initial <= 0) || (max < initial))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		maxAttempts = attempts;
+		initialBackoff = initial;
+		maxBackoff = max;
+	}
+	
+	/**
+	 * queues a tournament to be started
+	 * 
+	 * @param t Tournament
+	 * @return queued mutation
+	 * @throws ChallongeException if the queue is closed or the mutation could not be journaled
+	 */
+	public Mutation start(Tournament t) throws ChallongeException
+	{
+		return enqueue(t, t.getID(), OP_START, null);
+	}
+	
+	/**
+	 * appends an entry to the journal and forces it to disk
+	 * 
+	 * @param entry journal entry
+	 * @throws ChallongeException if the entry could not be written
+	 */
+	private void writeJournal(String entry) throws ChallongeException
+	{
+		try
+		{
+			journal.write((entry + JOURNAL_LINE_END).getBytes(StandardCharsets.UTF_8));
+			journal.getFD().sync();
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_JOURNAL);
+		}
+	}
+	
+	// Classes
+	/**
+	 * a queued change to a tournament and its outcome
+	 */
+	public static class Mutation {
+		
+		// DATA MEMBERS
+		private long sequence;
+		private int tournamentID;
+		private String op;
+		private String argument;
+		private Tournament tournament; // null for mutations replayed from the journal
+		private volatile int attempts;
+		private volatile ChallongeException exception;
+		private boolean uncertain; // an earlier attempt may have been applied; worker thread only
+		private boolean done;
+		private boolean abandoned; // the queue closed before this mutation was done
+		
+		// METHODS
+		/**
+		 * creates a mutation that has not been sent
+		 * 
+		 * @param s sequence number
+		 * @param t tournament ID
+		 * @param o operation
+		 * @param a argument (can be <b>null</b>)
+		 */
+		private Mutation(long s, int t, String o, String a)
+		{
+			sequence = s;
+			tournamentID = t;
+			op = o;
+			argument = a;
+		}
+		
+		/**
+		 * waits until this mutation has succeeded or failed for good, or its queue is closed
+		 * 
+		 * @return <b>true</b> if this mutation is done, <b>false</b> if the queue was closed first (the
+		 * mutation then stays in the journal and is sent when the journal is opened again)
+		 * @throws InterruptedException if the wait was interrupted
+		 */
+		public synchronized boolean await() throws InterruptedException
+		{
+			while(!done && !abandoned)
+				wait();
+			
+			return done;
+		}
+		
+		/**
+		 * returns the argument of the operation
+		 * 
+		 * @return participant name or new tournament name, <b>null</b> for other operations
+		 */
+		public String getArgument()
+		{
+			return argument;
+		}
+		
+		/**
+		 * returns how many times this mutation has been sent
+		 * 
+		 * @return number of attempts
+		 */
+		public int getAttempts()
+		{
+			return attempts;
+		}
+		
+		/**
+		 * returns the reason the last attempt failed
+		 * 
+		 * @return exception, or <b>null</b> if the mutation succeeded or has not been sent
+		 */
+		public ChallongeException getException()
+		{
+			return exception;
+		}
+		
+		/**
+		 * returns the operation
+		 * 
+		 * @return operation (from <b>OPS</b>)
+		 */
+		public String getOperation()
+		{
+			return op;
+		}
+		
+		/**
+		 * returns the position of this mutation in the journal
+		 * 
+		 * @return sequence number
+		 */
+		public long getSequence()
+		{
+			return sequence;
+		}
+		
+		/**
+		 * returns the ID of the tournament this mutation changes
+		 * 
+		 * @return tournament ID
+		 */
+		public int getTournamentID()
+		{
+			return tournamentID;
+		}
+		
+		/**
+		 * returns whether this mutation has succeeded or failed for good
+		 * 
+		 * @return <b>true</b> if no more attempts will be made
+		 */
+		public synchronized boolean isDone()
+		{
+			return done;
+		}
+		
+		/**
+		 * returns whether the server accepted this mutation
+		 * 
+		 * @return <b>true</b> if this mutation is done and succeeded
+		 */
+		public boolean isSuccessful()
+		{
+			return isDone() && (exception == null);
+		}
+		
+		/**
+		 * returns a String representation of this mutation
+		 * 
+		 * @return String representation of this mutation
+		 */
+		@Override
+		public String toString()
+		{
+			return "#" + sequence + " " + op + " (tournament " + tournamentID + ")" + ((argument == null) ? "" : ": " + argument);
+		}
+	}
+	
+	// Interfaces
+	/**
+	 * receives the outcome of each mutation
+	 */
+	public interface MutationListener {
+		
+		/**
+		 * called once a mutation has succeeded or failed for good, on the worker that sent it
+		 * 
+		 * @param m completed mutation
+		 */
+		public void mutationCompleted(Mutation m);
+	}
+}
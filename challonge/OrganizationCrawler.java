@@ -0,0 +1,439 @@
+package challonge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class OrganizationCrawler {
+	
+	// CONSTANTS - Defaults
+	private static final int DEFAULT_THREADS = 4;
+	private static final long DEFAULT_CHECKPOINT_INTERVAL = 10000;
+	
+	// CONSTANTS - Checkpoint
+	private static final String CHECKPOINT_FILE = "crawl.checkpoint"; // one captured tournament ID per line
+	private static final String CHECKPOINT_TEMP_SUFFIX = ".tmp";
+	
+	// CONSTANTS - Priorities
+	private static final int PRIORITY_ACTIVE = 0; // results still changing
+	private static final int PRIORITY_PENDING = 1;
+	private static final int PRIORITY_COMPLETE = 2;
+	
+	// CONSTANTS - Threads
+	private static final String THREAD_NAME = "challonge-crawler";
+	
+	// DATA MEMBERS
+	private TournamentQuery query;
+	private WarmStartCache store;
+	private File checkpointFile;
+	private int threads;
+	private long checkpointInterval;
+	private Filter filter; // null to crawl every tournament
+	private HashSet<Integer> captured; // completed tournaments already stored, guarded by this
+	private long lastCheckpoint; // System.currentTimeMillis(), guarded by this
+	private Object checkpointLock; // orders checkpoint writes, which are made without holding this
+	private int skipped;
+	private int stored;
+	private int failed;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a crawler; the checkpoint is read when the crawl starts
+	 * 
+	 * @param q tournaments to crawl (usually every tournament of an organization)
+	 * @param s stores each crawled tournament with its participants and matches
+	 * @param checkpoint file recording the completed tournaments already stored (created if it does
+	 * not exist)
+	 */
+	public OrganizationCrawler(TournamentQuery q, WarmStartCache s, File checkpoint)
+	{
+		query = q;
+		store = s;
+		checkpointFile = checkpoint;
+		threads = DEFAULT_THREADS;
+		checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+		captured = new HashSet<Integer>();
+		checkpointLock = new Object();
+	}
+	
+	// Static
+	/**
+	 * returns the order a tournament is crawled in; tournaments that are underway come first, since
+	 * their results are the most likely to be missing or outdated
+	 * 
+	 * @param t tournament
+	 * @return PRIORITY_ACTIVE, PRIORITY_PENDING or PRIORITY_COMPLETE
+	 */
+	private static int getPriority(Tournament t)
+	{
+		if(t.isComplete())
+			return PRIORITY_COMPLETE;
+		if(Tournament.STATE_PENDING.equals(t.getState()))
+			return PRIORITY_PENDING;
+		
+		return PRIORITY_ACTIVE;
+	}
+	
+	/**
+	 * crawls every tournament of an organization into a directory; running it again after it was
+	 * stopped resumes the crawl
+	 * <p>
+	 * Usage: <code>OrganizationCrawler &lt;api key&gt; &lt;subdomain or -&gt; &lt;directory&gt; [threads]</code>
+	 * 
+	 * @param args command-line arguments
+	 */
+	public static void main(String[] args)
+	{
+		if((args.length < 3) || (args.length > 4))
+		{
+			System.err.println("Usage: OrganizationCrawler <api key> <subdomain or -> <directory> [threads]");
+			System.exit(2);
+		}
+		
+		String subdomain = args[1].equals("-") ? null : args[1];
+		File directory = new File(args[2]);
+		TournamentQuery q = new TournamentQuery(args[0]).setSubdomain(subdomain);
+		OrganizationCrawler crawler = new OrganizationCrawler(q, new WarmStartCache(args[0], subdomain, directory),
+				new File(directory, CHECKPOINT_FILE));
+		try
+		{
+			if(args.length == 4)
+				crawler.setThreads(Integer.parseInt(args[3]));
+			
+			crawler.crawl();
+			System.out.println("Stored " + crawler.getStoredCount() + ", skipped " + crawler.getSkippedCount()
+					+ ", failed " + crawler.getFailedCount());
+			System.exit(crawler.getFailedCount() == 0 ? 0 : 1);
+		}
+		catch(NumberFormatException nfe)
+		{
+			System.err.println("Invalid number of threads: " + args[3]);
+			System.exit(2);
+		}
+		catch(ChallongeException ce)
+		{
+			System.err.println("Crawl failed: " + ce.getMessage());
+			System.exit(1);
+		}
+	}
+	
+	// Instance methods
+	/**
+	 * records a stored tournament, writing the checkpoint if the interval has elapsed
+	 * 
+	 * @param t tournament that was stored
+	 */
+	private void capture(Tournament t)
+	{
+		boolean due;
+		synchronized(this)
+		{
+			stored++;
+			if(t.isComplete())
+				captured.add(t.getID());
+			
+			long now = System.currentTimeMillis();
+			due = (now - lastCheckpoint >= checkpointInterval);
+			if(due)
+				lastCheckpoint = now;
+		}
+		
+		if(due)
+		{
+			try
+			{
+				checkpoint();
+			}
+			catch(ChallongeException ce)
+			{
+				// Try again at the next interval; the crawl itself is unaffected
+			}
+		}
+	}
+	
+	/**
+	 * writes the completed tournaments stored so far; other threads keep recording tournaments while
+	 * the file is written
+	 * 
+	 * @throws ChallongeException if the checkpoint could not be written
+	 */
+	private void checkpoint() throws ChallongeException
+	{
+		// Taken in order under the write lock, so an older list never replaces a newer one
+		synchronized(checkpointLock)
+		{
+			StringBuilder text = new StringBuilder();
+			synchronized(this)
+			{
+				for(Integer id : captured)
+					text.append(id).append('\n');
+			}
+			writeCheckpoint(text.toString());
+		}
+	}
+	
+	/**
+	 * retrieves the tournament index and stores every tournament in it, except completed tournaments
+	 * stored by an earlier crawl; tournaments underway are crawled first, and the checkpoint is
+	 * written periodically and once the crawl ends
+	 * <p>
+	 * A tournament that could not be retrieved or stored is counted as failed and crawled again by
+	 * the next crawl.
+	 * 
+	 * @throws ChallongeException if the checkpoint or the index could not be read, or the final
+	 * checkpoint could not be written
+	 */
+	public void crawl() throws ChallongeException
+	{
+		synchronized(this)
+		{
+			readCheckpoint();
+			lastCheckpoint = System.currentTimeMillis();
+			skipped = 0;
+			stored = 0;
+			failed = 0;
+		}
+		
+		String xml = Challonge.sendHttpRequest(query.getAPIKey(), query.buildURL(), "GET");
+		ArrayList<Tournament> index = Tournament.createTournamentListFromXML(query.getAPIKey(), query.getSubdomain(), xml, false);
+		
+		final PriorityBlockingQueue<Tournament> work = new PriorityBlockingQueue<Tournament>(Math.max(1, index.size()), new Comparator<Tournament>() {
+			@Override
+			public int compare(Tournament a, Tournament b)
+			{
+				int order = Integer.compare(getPriority(a), getPriority(b));
+				return (order != 0) ? order : Integer.compare(a.getID(), b.getID());
+			}
+		});
+		synchronized(this)
+		{
+			for(int i = 0; i < index.size(); i++)
+			{
+				Tournament t = index.get(i);
+				if((filter != null) && !filter.accept(t))
+					continue;
+				if(t.isComplete() && captured.contains(t.getID()))
+					skipped++;
+				else
+					work.add(t);
+			}
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, THREAD_NAME);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		for(int i = 0; i < threads; i++)
+		{
+			executor.execute(new Runnable() {
+				@Override
+				public void run()
+				{
+					Tournament t;
+					while((t = work.poll()) != null)
+						crawl(t);
+				}
+			});
+		}
+		
+		executor.shutdown();
+		try
+		{
+			while(!executor.awaitTermination(checkpointInterval, TimeUnit.MILLISECONDS))
+				continue;
+		}
+		catch(InterruptedException ie)
+		{
+			// Stop taking work; the checkpoint below keeps what was stored
+			work.clear();
+			Thread.currentThread().interrupt();
+		}
+		
+		checkpoint();
+	}
+	
+	/**
+	 * retrieves the participants and matches of one tournament and stores it
+	 * 
+	 * @param t tournament from the index
+	 */
+	private void crawl(Tournament t)
+	{
+		try
+		{
+			t.refresh();
+			store.save(t);
+			capture(t);
+		}
+		catch(ChallongeException ce)
+		{
+			synchronized(this)
+			{
+				failed++;
+			}
+		}
+		catch(RuntimeException re)
+		{
+			// Unexpected data in one tournament must not stop the worker
+			synchronized(this)
+			{
+				failed++;
+			}
+		}
+	}
+	
+	/**
+	 * returns the number of tournaments that could not be retrieved or stored by the last crawl
+	 * 
+	 * @return number of failed tournaments
+	 */
+	public synchronized int getFailedCount()
+	{
+		return failed;
+	}
+	
+	/**
+	 * returns the number of completed tournaments the last crawl skipped because an earlier crawl
+	 * stored them
+	 * 
+	 * @return number of skipped tournaments
+	 */
+	public synchronized int getSkippedCount()
+	{
+		return skipped;
+	}
+	
+	/**
+	 * returns the number of tournaments stored by the last crawl
+	 * 
+	 * @return number of stored tournaments
+	 */
+	public synchronized int getStoredCount()
+	{
+		return stored;
+	}
+	
+	/**
+	 * reads the completed tournaments stored by earlier crawls
+	 * 
+	 * @throws ChallongeException if the checkpoint exists but could not be read
+	 */
+	private void readCheckpoint() throws ChallongeException
+	{
+		captured.clear();
+		if(!checkpointFile.exists())
+			return;
+		
+		try
+		{
+			List<String> lines = Files.readAllLines(checkpointFile.toPath(), StandardCharsets.UTF_8);
+			for(int i = 0; i < lines.size(); i++)
+			{
+				String line = lines.get(i).trim();
+				if(!line.isEmpty())
+					captured.add(Integer.valueOf(line));
+			}
+		}
+		catch(NumberFormatException nfe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_CHECKPOINT);
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_CHECKPOINT);
+		}
+	}
+	
+	/**
+	 * sets how often the checkpoint is written while a crawl runs
+	 * 
+	 * @param interval minimum time between checkpoints, in milliseconds
+	 * @throws ChallongeException if the interval is not positive
+	 */
+	public void setCheckpointInterval(long interval) throws ChallongeException
+	{
+		if(interval <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		checkpointInterval = interval;
+	}
+	
+	/**
+	 * limits the crawl to some of the tournaments in the index, such as one shard of them
+	 * 
+	 * @param f filter (or <b>null</b> to crawl every tournament)
+	 */
+	public void setFilter(Filter f)
+	{
+		filter = f;
+	}
+	
+	/**
+	 * sets how many tournaments are retrieved at once
+	 * 
+	 * @param n number of crawling threads
+	 * @throws ChallongeException if <b>n</b> is not positive
+	 */
+	public void setThreads(int n) throws ChallongeException
+	{
+		if(n <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		threads = n;
+	}
+	
+	/**
+	 * replaces the checkpoint in one step so a crash never leaves a partial file
+	 * 
+	 * @param text one completed tournament ID per line
+	 * @throws ChallongeException if the checkpoint could not be written
+	 */
+	private void writeCheckpoint(String text) throws ChallongeException
+	{
+		File temp = new File(checkpointFile.getPath() + CHECKPOINT_TEMP_SUFFIX);
+		try
+		{
+			File parent = checkpointFile.getAbsoluteFile().getParentFile();
+			if(parent != null)
+				parent.mkdirs();
+			Files.write(temp.toPath(), text.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_CHECKPOINT);
+		}
+	}
+	
+	// Interfaces
+	/**
+	 * selects the tournaments a crawler stores
+	 */
+	public interface Filter {
+		
+		/**
+		 * returns whether a tournament should be crawled
+		 * 
+		 * @param t tournament from the index (not hydrated)
+		 * @return <b>true</b> to crawl the tournament
+		 */
+		boolean accept(Tournament t);
+	}
+}
@@ -1,26 +1,28 @@
 package challonge;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 public class Participant {
-
+	
 	// CONSTANTS - XML
 	private static final String XML_ID = "id";
 	private static final String XML_NAME = "name";
 	private static final String XML_PARTICIPANT = "participant";
 	private static final String XML_SEED = "seed";
+	private static final String XML_USER_ID = "challonge-user-id";
+	
+	// CONSTANTS - Data
+	public static final int NO_USER = -1;
 	
 	// DATA MEMBERS
 	private String apiKey;
 	private String name;
 	private int id;
 	private int seed;
+	private int userID;
 	
 	// METHODS
 	// Constructors
@@ -31,13 +33,15 @@ public class Participant {
 	 * @param n name
 	 * @param i id
 	 * @param s seed
+	 * @param u Challonge user ID (or NO_USER if not associated with an account)
 	 */
-	private Participant(String key, String n, int i, int s)
+	private Participant(String key, String n, int i, int s, int u)
 	{
 		apiKey = key;
 		name = n;
 		id = i;
 		seed = s;
+		userID = u;
 	}
 	
 	// Static
@@ -47,14 +51,47 @@ public class Participant {
 	 * @param e XML element containing a single participant
 	 * @return newly created Participant
 	 */
-	private static Participant createParticipantFromElement(String apiKey, Element e) throws ChallongeException
+	/* package */ static Participant createParticipantFromElement(String apiKey, Element e) throws ChallongeException
 	{
 		try
 		{
 			String name = e.getElementsByTagName(XML_NAME).item(0).getTextContent();
 			int id = Integer.parseInt(e.getElementsByTagName(XML_ID).item(0).getTextContent());
 			int seed = Integer.parseInt(e.getElementsByTagName(XML_SEED).item(0).getTextContent());
-			return new Participant(apiKey, name, id, seed);
+			
+			// User ID is empty if the participant has no Challonge account
+			int userID = NO_USER;
+			NodeList userIDList = e.getElementsByTagName(XML_USER_ID);
+			if(userIDList.getLength() > 0)
+			{
+				String userIDText = userIDList.item(0).getTextContent().trim();
+				if(!userIDText.isEmpty())
+					userID = Integer.parseInt(userIDText);
+			}
+			
+			return new Participant(apiKey, name, id, seed, userID);
+		}
+		catch(NumberFormatException nfe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		}
+	}
+	
+	/**
+	 * creates a Participant from the fields kept by a projection; fields that were not kept are
+	 * empty (a <b>null</b> name, seed 0 and NO_USER)
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param r projected fields of a single participant
+	 * @return newly created Participant
+	 * @throws ChallongeException if a kept field could not be parsed
+	 */
+	private static Participant createParticipantFromRecord(String apiKey, Projection.Record r) throws ChallongeException
+	{
+		try
+		{
+			String name = r.has(XML_NAME) ? r.getText(XML_NAME) : null;
+			return new Participant(apiKey, name, r.getInt(XML_ID, 0), r.getInt(XML_SEED, 0), r.getInt(XML_USER_ID, NO_USER));
 		}
 		catch(NumberFormatException nfe)
 		{
@@ -62,6 +99,19 @@ public class Participant {
 		}
 	}
 	
+	/**
+	 * creates a Participant known only by its ID, standing in for a participant that was not
+	 * retrieved
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param id participant ID
+	 * @return Participant with a <b>null</b> name
+	 */
+	/* package */ static Participant createPlaceholder(String apiKey, int id)
+	{
+		return new Participant(apiKey, null, id, 0, NO_USER);
+	}
+	
 	/**
 	 * create a single participant from a Challonge xml response
 	 * 
@@ -70,15 +120,16 @@ public class Participant {
 	 */
 	/* package */ static Participant createParticipantFromXML(String apiKey, String xml)
 	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
 		try
 		{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes());
-			Document doc = builder.parse(input);
+			Document doc = Challonge.parseXML(xml);
 			
 			Element e = (Element) doc.getElementsByTagName(XML_PARTICIPANT).item(0);
-			return createParticipantFromElement(apiKey, e);
+			Participant p = createParticipantFromElement(apiKey, e);
+			ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_PARTICIPANT, ChallongeEvents.NO_TOURNAMENT, 1, xml, null);
+			
+			return p;
 		}
 		catch(Exception e) // TODO: Actually handle exceptions
 		{
@@ -90,22 +141,22 @@ public class Participant {
 	/**
 	 * creates a list of Participants from a Challonge xml response
 	 * 
+	 * @param tournamentID ID of the tournament the participants belong to (reported with the parse)
 	 * @param xml String containing Challonge xml response
 	 * @return a list of Participants
 	 */
-	/* package */ static ArrayList<Participant> createParticipantListFromXML(String apiKey, String xml)
+	/* package */ static ArrayList<Participant> createParticipantListFromXML(String apiKey, int tournamentID, String xml)
 	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
 		try
 		{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes());
-			Document doc = builder.parse(input);
+			Document doc = Challonge.parseXML(xml);
 			
 			ArrayList<Participant> participantList = new ArrayList<Participant>();
 			NodeList list = doc.getElementsByTagName(XML_PARTICIPANT);
 			for(int i = 0; i < list.getLength(); i++)
 				participantList.add(createParticipantFromElement(apiKey, (Element) list.item(i)));
+			ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_PARTICIPANT, tournamentID, participantList.size(), xml, null);
 			
 			return participantList;
 		}
@@ -116,6 +167,29 @@ public class Participant {
 		}
 	}
 	
+	/**
+	 * creates a list of Participants from a Challonge xml response, reading only the fields kept by
+	 * a projection
+	 * 
+	 * @param apiKey API key necessary for authentication
+	 * @param tournamentID ID of the tournament the participants belong to (reported with the parse)
+	 * @param xml String containing Challonge xml response
+	 * @param p fields to read
+	 * @return a list of Participants
+	 * @throws ChallongeException if Challonge response could not be parsed
+	 */
+	/* package */ static ArrayList<Participant> createParticipantListFromXML(String apiKey, int tournamentID, String xml, Projection p) throws ChallongeException
+	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
+		ArrayList<Projection.Record> records = p.parse(xml, XML_PARTICIPANT);
+		ArrayList<Participant> participantList = new ArrayList<Participant>(records.size());
+		for(int i = 0; i < records.size(); i++)
+			participantList.add(createParticipantFromRecord(apiKey, records.get(i)));
+		ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_PARTICIPANT, tournamentID, participantList.size(), xml, p);
+		
+		return participantList;
+	}
+	
 	/**
 	 * returns the unique ID number of this Participant
 	 * 
@@ -129,7 +203,9 @@ public class Participant {
 	/**
 	 * returns the name of this Participant
 	 * 
-	 * @return this Participant's name
+	 * @return this Participant's name, or <b>null</b> if it was not retrieved (participants read
+	 * through a Projection without the name, and players of projected matches that the tournament's
+	 * participant list did not contain)
 	 */
 	public String getName()
 	{
@@ -146,6 +222,45 @@ public class Participant {
 		return seed;
 	}
 	
+	/**
+	 * returns the Challonge user ID of this Participant
+	 * 
+	 * @return this Participant's user ID, or NO_USER if not associated with an account
+	 */
+	public int getUserID()
+	{
+		return userID;
+	}
+	
+	/**
+	 * replaces this Participant's name with an equal, shared String instance
+	 * 
+	 * @param canonical shared instance of this Participant's name
+	 */
+	/* package */ void shareName(String canonical)
+	{
+		if((name != null) && name.equals(canonical))
+			name = canonical;
+	}
+	
+	/**
+	 * creates an XML element that {@link #createParticipantFromElement(String, Element)} reads back
+	 * into an equal Participant
+	 * 
+	 * @param doc document that will contain the element
+	 * @return new element
+	 */
+	/* package */ Element toElement(Document doc)
+	{
+		Element e = doc.createElement(XML_PARTICIPANT);
+		Challonge.appendXMLElement(e, XML_ID, Integer.toString(id));
+		Challonge.appendXMLElement(e, XML_NAME, name);
+		Challonge.appendXMLElement(e, XML_SEED, Integer.toString(seed));
+		Challonge.appendXMLElement(e, XML_USER_ID, (userID == NO_USER) ? "" : Integer.toString(userID));
+		
+		return e;
+	}
+	
 	/**
 	 * returns a String representation of this Participant
 	 * 
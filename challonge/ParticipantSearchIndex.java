@@ -0,0 +1,634 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ParticipantSearchIndex {
+	
+	// CONSTANTS - Matching
+	private static final int ONE_TYPO_LENGTH = 3; // words typed at a desk this long may have one typo
+	private static final int TWO_TYPOS_LENGTH = 6; // and this long, two
+	private static final char PREFIX_END = Character.MAX_VALUE; // sorts after every character of a word
+	private static final String WORD_SEPARATOR = " "; // as left by PlayerRegistry.normalizeName()
+	
+	// DATA MEMBERS
+	private HashMap<Integer, Entry> entries; // by participant ID
+	private TreeMap<String, HashSet<Entry>> words; // participants by each word of their name
+	private Node root; // trie of the same words, for typo-tolerant search
+	private int longestWord;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an empty index
+	 */
+	public ParticipantSearchIndex()
+	{
+		entries = new HashMap<Integer, Entry>();
+		words = new TreeMap<String, HashSet<Entry>>();
+		root = new Node((char) 0);
+	}
+	
+	// Static
+	/**
+	 * computes the edit distance between two Strings: the number of insertions, deletions,
+	 * substitutions and swaps of adjacent characters needed to turn one into the other
+	 * 
+	 * @param a first String
+	 * @param b second String
+	 * @return edit distance
+	 */
+	private static int distance(String a, String b)
+	{
+		int[][] rows = new int[a.length() + 1][b.length() + 1];
+		for(int j = 0; j <= b.length(); j++)
+			rows[0][j] = j;
+		for(int i = 1; i <= a.length(); i++)
+			fillRow(rows, i, a.charAt(i - 1), (i > 1) ? a.charAt(i - 2) : 0, b);
+		
+		return rows[a.length()][b.length()];
+	}
+	
+	/**
+	 * computes a row of the edit distance table between a word and a query word: the distances
+	 * between the first <b>i</b> characters of the word and each start of the query word
+	 * 
+	 * @param rows table, whose rows before <b>i</b> are already computed for the same first characters
+	 * @param i row to compute
+	 * @param c character <b>i</b> of the word
+	 * @param before character before it (ignored for the first character)
+	 * @param query query word
+	 * @return smallest distance in the row; no later row has a smaller one
+	 */
+	private static int fillRow(int[][] rows, int i, char c, char before, String query)
+	{
+		int[] row = rows[i];
+		int[] above = rows[i - 1];
+		row[0] = i;
+		int min = i;
+		for(int j = 1; j <= query.length(); j++)
+		{
+			int cost = (c == query.charAt(j - 1)) ? 0 : 1;
+			int d = Math.min(above[j - 1] + cost, Math.min(above[j] + 1, row[j - 1] + 1));
+			if((i > 1) && (j > 1) && (c == query.charAt(j - 2)) && (before == query.charAt(j - 1)))
+				d = Math.min(d, rows[i - 2][j - 2] + 1); // swapped characters count as one typo
+			
+			row[j] = d;
+			min = Math.min(min, d);
+		}
+		
+		return min;
+	}
+	
+	/**
+	 * returns the index of the longest word of a query, which matches the fewest names
+	 * 
+	 * @param query normalized words
+	 * @return index of the longest word
+	 */
+	private static int getLongest(String[] query)
+	{
+		int longest = 0;
+		for(int i = 1; i < query.length; i++)
+			if(query[i].length() > query[longest].length())
+				longest = i;
+		
+		return longest;
+	}
+	
+	/**
+	 * returns the number of typos tolerated in a word typed at a desk; short words must be typed
+	 * correctly, as one typo would match too many names
+	 * 
+	 * @param word normalized word
+	 * @return largest edit distance
+	 */
+	private static int getTypos(String word)
+	{
+		if(word.length() >= TWO_TYPOS_LENGTH)
+			return 2;
+		
+		return (word.length() >= ONE_TYPO_LENGTH) ? 1 : 0;
+	}
+	
+	/**
+	 * returns how close an entry's closest word is to a query word
+	 * 
+	 * @param e entry
+	 * @param word normalized query word
+	 * @param maxDistance largest distance
+	 * @return 0 if a word of the entry starts with the query word, else the smallest distance to a
+	 * word of the entry, or -1 if no word is within <b>maxDistance</b>
+	 */
+	private static int match(Entry e, String word, int maxDistance)
+	{
+		int best = -1;
+		for(int i = 0; i < e.words.length; i++)
+		{
+			if(e.words[i].startsWith(word))
+				return 0;
+			if(Math.abs(e.words[i].length() - word.length()) > maxDistance)
+				continue;
+			
+			int d = distance(word, e.words[i]);
+			if((d <= maxDistance) && ((best == -1) || (d < best)))
+				best = d;
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * returns how close an entry is to every word of a query but one
+	 * 
+	 * @param e entry
+	 * @param query normalized words
+	 * @param skip index of the word already matched
+	 * @param maxDistances largest distance for each word
+	 * @return total distance of the other words, or -1 if one does not match
+	 */
+	private static int matchOthers(Entry e, String[] query, int skip, int[] maxDistances)
+	{
+		int total = 0;
+		for(int i = 0; i < query.length; i++)
+		{
+			if(i == skip)
+				continue;
+			
+			int d = match(e, query[i], maxDistances[i]);
+			if(d == -1)
+				return -1;
+			total += d;
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * splits text into normalized words
+	 * 
+	 * @param text text
+	 * @return words, none if the text is blank
+	 */
+	private static String[] split(String text)
+	{
+		String normalized = PlayerRegistry.normalizeName(text);
+		return normalized.isEmpty() ? new String[0] : normalized.split(WORD_SEPARATOR);
+	}
+	
+	// Instance methods
+	/**
+	 * adds a participant, or updates it if its name changed
+	 * 
+	 * @param t tournament the participant is entered in
+	 * @param p participant (ignored if its name is not known)
+	 */
+	public synchronized void add(Tournament t, Participant p)
+	{
+		if(p.getName() == null)
+			return;
+		
+		Entry existing = entries.get(p.getID());
+		if(existing != null)
+		{
+			if(existing.participant.getName().equals(p.getName()))
+			{
+				existing.tournament = t;
+				existing.participant = p;
+				return;
+			}
+			remove(p.getID());
+		}
+		
+		String[] w = split(p.getName());
+		if(w.length == 0)
+			return;
+		
+		Entry e = new Entry(t, p, w);
+		entries.put(p.getID(), e);
+		for(int i = 0; i < w.length; i++)
+		{
+			HashSet<Entry> set = words.get(w[i]);
+			if(set == null)
+			{
+				set = new HashSet<Entry>();
+				words.put(w[i], set);
+				insertWord(w[i]);
+			}
+			set.add(e);
+		}
+	}
+	
+	/**
+	 * adds every participant of a tournament; participants already indexed are updated
+	 * 
+	 * @param t tournament
+	 */
+	public void addTournament(Tournament t)
+	{
+		List<Participant> participants = t.getParticipants();
+		for(int i = 0; i < participants.size(); i++)
+			add(t, participants.get(i));
+	}
+	
+	/**
+	 * collects the words of a subtree of the trie within an edit distance of a query word
+	 * <p>
+	 * Words sharing their first characters share the rows of the table computed for them.  Once every
+	 * distance in a row is too large, no word below can match, and the subtree is skipped.
+	 * 
+	 * @param node subtree, whose row is already computed
+	 * @param depth depth of the subtree (its row)
+	 * @param rows table
+	 * @param word normalized query word
+	 * @param maxDistance largest distance
+	 * @param found words found so far, with their distance
+	 */
+	private void collect(Node node, int depth, int[][] rows, String word, int maxDistance, Map<String, Integer> found)
+	{
+		if((node.word != null) && (rows[depth][word.length()] <= maxDistance))
+			found.put(node.word, rows[depth][word.length()]);
+		
+		for(int i = 0; i < node.size; i++)
+			if(fillRow(rows, depth + 1, node.characters[i], node.character, word) <= maxDistance)
+				collect(node.children[i], depth + 1, rows, word, maxDistance, found);
+	}
+	
+	/**
+	 * adds a word to the trie
+	 * 
+	 * @param word normalized word
+	 */
+	private void insertWord(String word)
+	{
+		Node node = root;
+		for(int i = 0; i < word.length(); i++)
+			node = node.getChild(word.charAt(i), true);
+		
+		node.word = word;
+		longestWord = Math.max(longestWord, word.length());
+	}
+	
+	/**
+	 * adds the participants with a word starting with each word of a query
+	 * 
+	 * @param query normalized words
+	 * @param limit maximum number of results in total
+	 * @param found results so far, with their distance (0 for these)
+	 */
+	private void matchPrefix(String[] query, int limit, LinkedHashMap<Entry, Integer> found)
+	{
+		if(query.length == 0)
+			return;
+		
+		// Words starting with the longest query word sort between it and it followed by PREFIX_END
+		int longest = getLongest(query);
+		int[] exact = new int[query.length];
+		for(HashSet<Entry> matches : words.subMap(query[longest], true, query[longest] + PREFIX_END, false).values())
+		{
+			for(Entry e : matches)
+			{
+				if(found.size() >= limit)
+					return;
+				if(!found.containsKey(e) && (matchOthers(e, query, longest, exact) == 0))
+					found.put(e, 0);
+			}
+		}
+	}
+	
+	/**
+	 * adds the participants with a word within an edit distance of each word of a query (or starting
+	 * with it), closest first
+	 * 
+	 * @param query normalized words
+	 * @param maxDistances largest distance for each word
+	 * @param limit maximum number of results in total
+	 * @param found results so far, with their total distance
+	 */
+	private void matchSimilar(String[] query, int[] maxDistances, int limit, LinkedHashMap<Entry, Integer> found)
+	{
+		if(query.length == 0)
+			return;
+		
+		int longest = getLongest(query);
+		String word = query[longest];
+		int[][] rows = new int[longestWord + 1][word.length() + 1];
+		for(int j = 0; j <= word.length(); j++)
+			rows[0][j] = j;
+		HashMap<String, Integer> close = new HashMap<String, Integer>();
+		collect(root, 0, rows, word, maxDistances[longest], close);
+		
+		final HashMap<Entry, Integer> candidates = new HashMap<Entry, Integer>();
+		for(Map.Entry<String, Integer> c : close.entrySet())
+		{
+			for(Entry e : words.get(c.getKey()))
+			{
+				if(found.containsKey(e))
+					continue;
+				
+				int others = matchOthers(e, query, longest, maxDistances);
+				Integer previous = candidates.get(e);
+				if((others != -1) && ((previous == null) || (c.getValue() + others < previous)))
+					candidates.put(e, c.getValue() + others);
+			}
+		}
+		
+		ArrayList<Entry> ordered = new ArrayList<Entry>(candidates.keySet());
+		Collections.sort(ordered, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b)
+			{
+				int order = Integer.compare(candidates.get(a), candidates.get(b));
+				return (order != 0) ? order : a.normalized.compareTo(b.normalized);
+			}
+		});
+		
+		for(int i = 0; (i < ordered.size()) && (found.size() < limit); i++)
+			found.put(ordered.get(i), candidates.get(ordered.get(i)));
+	}
+	
+	/**
+	 * removes a participant
+	 * 
+	 * @param participantID participant ID
+	 */
+	public synchronized void remove(int participantID)
+	{
+		Entry e = entries.remove(participantID);
+		if(e == null)
+			return;
+		
+		for(int i = 0; i < e.words.length; i++)
+		{
+			HashSet<Entry> set = words.get(e.words[i]);
+			if(set == null)
+				continue; // the name repeats a word
+			
+			set.remove(e);
+			if(set.isEmpty())
+			{
+				words.remove(e.words[i]);
+				removeWord(e.words[i]);
+			}
+		}
+	}
+	
+	/**
+	 * removes a word from the trie; its nodes are kept, to be reused if the word is added again
+	 * 
+	 * @param word normalized word
+	 */
+	private void removeWord(String word)
+	{
+		Node node = root;
+		for(int i = 0; (i < word.length()) && (node != null); i++)
+			node = node.getChild(word.charAt(i), false);
+		
+		if(node != null)
+			node.word = null;
+	}
+	
+	/**
+	 * finds participants for what was typed at a desk: names with a word starting with each word
+	 * typed come first, then names allowing for typos (one in words of three to five characters, two
+	 * in longer words)
+	 * 
+	 * @param text partial name, as typed
+	 * @param limit maximum number of results
+	 * @return results, best first
+	 */
+	public synchronized List<Result> search(String text, int limit)
+	{
+		String[] query = split(text);
+		LinkedHashMap<Entry, Integer> found = new LinkedHashMap<Entry, Integer>();
+		matchPrefix(query, limit, found);
+		if(found.size() < limit)
+		{
+			int[] maxDistances = new int[query.length];
+			for(int i = 0; i < query.length; i++)
+				maxDistances[i] = getTypos(query[i]);
+			matchSimilar(query, maxDistances, limit, found);
+		}
+		
+		return toResults(found);
+	}
+	
+	/**
+	 * finds participants with a word starting with each word of some text, ignoring case and
+	 * accents; "jo sm" finds "John Smith" and "Smith Joanna"
+	 * 
+	 * @param text partial name
+	 * @param limit maximum number of results
+	 * @return results
+	 */
+	public synchronized List<Result> searchPrefix(String text, int limit)
+	{
+		LinkedHashMap<Entry, Integer> found = new LinkedHashMap<Entry, Integer>();
+		matchPrefix(split(text), limit, found);
+		return toResults(found);
+	}
+	
+	/**
+	 * finds participants with a word within an edit distance of each word of some text (or starting
+	 * with it), ignoring case and accents
+	 * 
+	 * @param text name, possibly misspelled
+	 * @param maxDistance largest number of insertions, deletions, substitutions and swaps of
+	 * adjacent characters in each word
+	 * @param limit maximum number of results
+	 * @return results, closest first
+	 * @throws ChallongeException if <b>maxDistance</b> is negative
+	 */
+	public synchronized List<Result> searchSimilar(String text, int maxDistance, int limit) throws ChallongeException
+	{
+		if(maxDistance < 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		String[] query = split(text);
+		int[] maxDistances = new int[query.length];
+		for(int i = 0; i < query.length; i++)
+			maxDistances[i] = maxDistance;
+		
+		LinkedHashMap<Entry, Integer> found = new LinkedHashMap<Entry, Integer>();
+		matchPrefix(query, limit, found);
+		if(found.size() < limit)
+			matchSimilar(query, maxDistances, limit, found);
+		return toResults(found);
+	}
+	
+	/**
+	 * returns the number of indexed participants
+	 * 
+	 * @return number of participants
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+	
+	/**
+	 * converts found entries into results
+	 * 
+	 * @param found entries with their distance, in order
+	 * @return results in the same order
+	 */
+	private List<Result> toResults(LinkedHashMap<Entry, Integer> found)
+	{
+		ArrayList<Result> results = new ArrayList<Result>(found.size());
+		for(Map.Entry<Entry, Integer> f : found.entrySet())
+			results.add(new Result(f.getKey().tournament, f.getKey().participant, f.getValue()));
+		
+		return results;
+	}
+	
+	// Classes
+	/**
+	 * an indexed participant
+	 */
+	private static class Entry {
+		
+		// DATA MEMBERS
+		private Tournament tournament;
+		private Participant participant;
+		private String[] words; // normalized words of the name
+		private String normalized; // normalized name
+		
+		// METHODS
+		/**
+		 * creates an entry
+		 * 
+		 * @param t tournament
+		 * @param p participant
+		 * @param w normalized words of the participant's name
+		 */
+		private Entry(Tournament t, Participant p, String[] w)
+		{
+			tournament = t;
+			participant = p;
+			words = w;
+			normalized = String.join(WORD_SEPARATOR, w);
+		}
+	}
+	
+	/**
+	 * a node of the trie, reached from its parent by one character
+	 */
+	private static class Node {
+		
+		// DATA MEMBERS
+		private char character;
+		private char[] characters; // of the children, sorted
+		private Node[] children;
+		private int size; // number of children
+		private String word; // word ending here, null if none
+		
+		// METHODS
+		/**
+		 * creates a node without children
+		 * 
+		 * @param c character leading to the node
+		 */
+		private Node(char c)
+		{
+			character = c;
+			characters = new char[0];
+			children = new Node[0];
+		}
+		
+		/**
+		 * returns the child reached by a character
+		 * 
+		 * @param c character
+		 * @param create whether to create the child if there is none
+		 * @return child, or <b>null</b> if there is none and <b>create</b> is <b>false</b>
+		 */
+		private Node getChild(char c, boolean create)
+		{
+			int index = Arrays.binarySearch(characters, 0, size, c);
+			if(index >= 0)
+				return children[index];
+			if(!create)
+				return null;
+			
+			if(size == characters.length)
+			{
+				characters = Arrays.copyOf(characters, Math.max(2, 2 * size));
+				children = Arrays.copyOf(children, characters.length);
+			}
+			
+			// Keep the children sorted
+			index = -index - 1;
+			System.arraycopy(characters, index, characters, index + 1, size - index);
+			System.arraycopy(children, index, children, index + 1, size - index);
+			characters[index] = c;
+			children[index] = new Node(c);
+			size++;
+			
+			return children[index];
+		}
+	}
+	
+	/**
+	 * a participant found by a search
+	 */
+	public static class Result {
+		
+		// DATA MEMBERS
+		private Tournament tournament;
+		private Participant participant;
+		private int distance;
+		
+		// METHODS
+		/**
+		 * creates a result
+		 * 
+		 * @param t tournament
+		 * @param p participant
+		 * @param d edit distance
+		 */
+		private Result(Tournament t, Participant p, int d)
+		{
+			tournament = t;
+			participant = p;
+			distance = d;
+		}
+		
+		/**
+		 * returns how many typos separate the search text from the participant's name
+		 * 
+		 * @return total edit distance of the words searched for (0 for prefix matches)
+		 */
+		public int getDistance()
+		{
+			return distance;
+		}
+		
+		/**
+		 * returns the participant found
+		 * 
+		 * @return participant
+		 */
+		public Participant getParticipant()
+		{
+			return participant;
+		}
+		
+		/**
+		 * returns the tournament the participant is entered in
+		 * 
+		 * @return tournament
+		 */
+		public Tournament getTournament()
+		{
+			return tournament;
+		}
+	}
+}
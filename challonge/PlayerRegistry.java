@@ -0,0 +1,193 @@
+package challonge;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+public class PlayerRegistry {
+	
+	// CONSTANTS - Data
+	public static final int NO_PLAYER = -1;
+	
+	// DATA MEMBERS
+	private HashMap<Integer, Integer> playersByParticipant;
+	private HashMap<Integer, Integer> playersByUser;
+	private HashMap<String, Integer> playersByName;
+	private ArrayList<String> playerNames;
+	private ArrayList<Integer> playerUsers;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an empty PlayerRegistry
+	 */
+	public PlayerRegistry()
+	{
+		playersByParticipant = new HashMap<Integer, Integer>();
+		playersByUser = new HashMap<Integer, Integer>();
+		playersByName = new HashMap<String, Integer>();
+		playerNames = new ArrayList<String>();
+		playerUsers = new ArrayList<Integer>();
+	}
+	
+	// Static
+	/**
+	 * normalizes a participant name for comparison (case, accents and surrounding/repeated
+	 * whitespace are ignored)
+	 * 
+	 * @param name participant name (or <b>null</b>)
+	 * @return normalized name, or <b>null</b> if the name is <b>null</b>
+	 */
+	public static String normalizeName(String name)
+	{
+		if(name == null)
+			return null;
+		
+		String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+		String stripped = decomposed.replaceAll("\\p{M}+", "");
+		return stripped.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+	
+	// Instance methods
+	/**
+	 * returns the canonical player ID of a Participant that has already been registered
+	 * 
+	 * @param p Participant
+	 * @return canonical player ID, or NO_PLAYER if the Participant has not been registered
+	 */
+	public synchronized int getPlayerID(Participant p)
+	{
+		Integer playerID = playersByParticipant.get(p.getID());
+		if(playerID == null)
+			return NO_PLAYER;
+		
+		return playerID;
+	}
+	
+	/**
+	 * returns the canonical player ID associated with a name
+	 * 
+	 * @param name player name (compared after normalization)
+	 * @return canonical player ID, or NO_PLAYER if no player has that name
+	 */
+	public synchronized int getPlayerIDByName(String name)
+	{
+		Integer playerID = playersByName.get(normalizeName(name));
+		if(playerID == null)
+			return NO_PLAYER;
+		
+		return playerID;
+	}
+	
+	/**
+	 * returns the canonical player ID associated with a Challonge user ID
+	 * 
+	 * @param userID Challonge user ID
+	 * @return canonical player ID, or NO_PLAYER if no player has that user ID
+	 */
+	public synchronized int getPlayerIDByUser(int userID)
+	{
+		Integer playerID = playersByUser.get(userID);
+		if(playerID == null)
+			return NO_PLAYER;
+		
+		return playerID;
+	}
+	
+	/**
+	 * returns the display name of a player (the first name it was registered under)
+	 * 
+	 * @param playerID canonical player ID
+	 * @return player name, or <b>null</b> if it was registered from a participant without a name
+	 */
+	public synchronized String getPlayerName(int playerID)
+	{
+		return playerNames.get(playerID);
+	}
+	
+	/**
+	 * maps a Participant to a canonical player, creating a new player if no existing one matches
+	 * <p>
+	 * Participants are matched first by Challonge user ID, then by normalized name.  A name
+	 * match is rejected if both sides are tied to different Challonge accounts.  A Participant
+	 * without a name (see {@link Participant#getName()}) is only matched by user ID.
+	 * 
+	 * @param p Participant to register
+	 * @return canonical player ID
+	 */
+	public synchronized int register(Participant p)
+	{
+		Integer playerID = playersByParticipant.get(p.getID());
+		if(playerID != null)
+			return playerID;
+		
+		String normalized = normalizeName(p.getName());
+		int userID = p.getUserID();
+		
+		// Prefer the account link, fall back on the name
+		if(userID != Participant.NO_USER)
+			playerID = playersByUser.get(userID);
+		if((playerID == null) && (normalized != null))
+		{
+			playerID = playersByName.get(normalized);
+			if((playerID != null) && (userID != Participant.NO_USER))
+			{
+				int existingUser = playerUsers.get(playerID);
+				if(existingUser == Participant.NO_USER)
+					playerUsers.set(playerID, userID);
+				else if(existingUser != userID)
+					playerID = null; // Same name, different account
+			}
+		}
+		
+		// No match, create a new player
+		if(playerID == null)
+		{
+			playerID = playerNames.size();
+			playerNames.add(p.getName());
+			playerUsers.add(userID);
+			if((normalized != null) && !playersByName.containsKey(normalized))
+				playersByName.put(normalized.intern(), playerID);
+		}
+		
+		if(userID != Participant.NO_USER)
+			playersByUser.put(userID, playerID);
+		playersByParticipant.put(p.getID(), playerID);
+		p.shareName(playerNames.get(playerID));
+		
+		return playerID;
+	}
+	
+	/**
+	 * registers every Participant in a list
+	 * 
+	 * @param participants Participants to register
+	 */
+	public void registerAll(List<Participant> participants)
+	{
+		for(int i = 0; i < participants.size(); i++)
+			register(participants.get(i));
+	}
+	
+	/**
+	 * registers every Participant in a Tournament
+	 * 
+	 * @param t Tournament whose participants should be registered
+	 */
+	public void registerTournament(Tournament t)
+	{
+		registerAll(t.getParticipants());
+	}
+	
+	/**
+	 * returns the number of distinct players in this registry
+	 * 
+	 * @return number of canonical players
+	 */
+	public synchronized int size()
+	{
+		return playerNames.size();
+	}
+}
@@ -0,0 +1,241 @@
+package challonge;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+public class Projection {
+	
+	// CONSTANTS - Projections
+	/**
+	 * every field
+	 */
+	public static final Projection FULL = new Projection();
+	/**
+	 * what is needed to score results: IDs, names, match states, players and winners
+	 */
+	public static final Projection RESULTS = new Projection("id", "name", "state", "player1-id", "player2-id", "winner-id");
+	/**
+	 * only IDs and names (and the players of matches)
+	 */
+	public static final Projection IDS_AND_NAMES = new Projection("id", "name", "player1-id", "player2-id");
+	
+	// DATA MEMBERS
+	private static final XMLInputFactory factory = createFactory();
+	private HashSet<String> tags; // null for every field
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a projection of every field
+	 */
+	private Projection()
+	{
+		tags = null;
+	}
+	
+	/**
+	 * creates a projection of some fields; fields are named by their XML tags and apply to every
+	 * kind of object (so "id" selects the ID of tournaments, participants and matches)
+	 * 
+	 * @param t XML tags of the fields to keep
+	 */
+	public Projection(String... t)
+	{
+		tags = new HashSet<String>(Arrays.asList(t));
+	}
+	
+	// Static
+	/**
+	 * creates the factory used to create stream readers
+	 * 
+	 * @return factory that does not resolve external entities
+	 */
+	private static XMLInputFactory createFactory()
+	{
+		XMLInputFactory f = XMLInputFactory.newInstance();
+		f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		f.setProperty(XMLInputFactory.IS_COALESCING, false);
+		return f;
+	}
+	
+	/**
+	 * reads the text of a field, leaving the reader on the field's end tag
+	 * 
+	 * @param reader reader positioned on the field's start tag
+	 * @return text of the field, or <b>null</b> if the field contains elements rather than text
+	 * @throws XMLStreamException if the XML could not be parsed
+	 */
+	private static String readText(XMLStreamReader reader) throws XMLStreamException
+	{
+		StringBuilder text = new StringBuilder();
+		boolean nested = false;
+		while(true)
+		{
+			int event = reader.next();
+			if(event == XMLStreamConstants.END_ELEMENT)
+				return nested ? null : text.toString();
+			if(event == XMLStreamConstants.START_ELEMENT)
+			{
+				nested = true;
+				skipElement(reader);
+			}
+			else if(!nested && ((event == XMLStreamConstants.CHARACTERS) || (event == XMLStreamConstants.CDATA)))
+				text.append(reader.getText());
+		}
+	}
+	
+	/**
+	 * skips the rest of the current element, including nested elements
+	 * 
+	 * @param reader reader inside the element to skip
+	 * @throws XMLStreamException if the XML could not be parsed
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException
+	{
+		int depth = 1;
+		while(depth > 0)
+		{
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if(event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+	
+	// Instance methods
+	/**
+	 * returns whether a field is kept by this projection
+	 * 
+	 * @param tag XML tag of the field
+	 * @return <b>true</b> if the field is kept
+	 */
+	public boolean includes(String tag)
+	{
+		return (tags == null) || tags.contains(tag);
+	}
+	
+	/**
+	 * reads the kept fields of every record in an XML response; the text of other fields, and any
+	 * element nested inside a record's fields, is skipped without being collected
+	 * 
+	 * @param xml XML data as a String
+	 * @param recordTag tag of the records ("match", "participant" or "tournament")
+	 * @return one record per occurrence of <b>recordTag</b>, in document order
+	 * @throws ChallongeException if the XML could not be parsed
+	 */
+	/* package */ ArrayList<Record> parse(String xml, String recordTag) throws ChallongeException
+	{
+		ArrayList<Record> records = new ArrayList<Record>();
+		try
+		{
+			XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(xml));
+			try
+			{
+				while(reader.hasNext())
+				{
+					if((reader.next() == XMLStreamConstants.START_ELEMENT) && reader.getLocalName().equals(recordTag))
+						records.add(readRecord(reader));
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch(XMLStreamException xse)
+		{
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		}
+		
+		return records;
+	}
+	
+	/**
+	 * reads one record, leaving the reader on the record's end tag
+	 * 
+	 * @param reader reader positioned on the record's start tag
+	 * @return record holding the kept fields
+	 * @throws XMLStreamException if the XML could not be parsed
+	 */
+	private Record readRecord(XMLStreamReader reader) throws XMLStreamException
+	{
+		Record record = new Record();
+		while(true)
+		{
+			int event = reader.next();
+			if(event == XMLStreamConstants.END_ELEMENT)
+				return record;
+			if(event != XMLStreamConstants.START_ELEMENT)
+				continue;
+			
+			String tag = reader.getLocalName();
+			if(includes(tag))
+			{
+				String text = readText(reader);
+				if(text != null)
+					record.fields.put(tag, text.trim());
+			}
+			else
+				skipElement(reader);
+		}
+	}
+	
+	// Classes
+	/**
+	 * the kept fields of one object
+	 */
+	/* package */ static class Record {
+		
+		// DATA MEMBERS
+		private HashMap<String, String> fields = new HashMap<String, String>();
+		
+		// METHODS
+		/**
+		 * parses a numeric field that may be missing or empty
+		 * 
+		 * @param tag XML tag of the field
+		 * @param missing value returned if the field is missing or empty
+		 * @return value of the field, or <b>missing</b>
+		 * @throws NumberFormatException if the field contains something other than a number
+		 */
+		/* package */ int getInt(String tag, int missing)
+		{
+			String text = getText(tag);
+			if(text.isEmpty())
+				return missing;
+			
+			return Integer.parseInt(text);
+		}
+		
+		/**
+		 * returns the text of a field that may be missing or empty
+		 * 
+		 * @param tag XML tag of the field
+		 * @return trimmed text of the field, or an empty String if it is missing
+		 */
+		/* package */ String getText(String tag)
+		{
+			String text = fields.get(tag);
+			return (text == null) ? "" : text;
+		}
+		
+		/**
+		 * returns whether a field was present
+		 * 
+		 * @param tag XML tag of the field
+		 * @return <b>true</b> if the field was kept and present
+		 */
+		/* package */ boolean has(String tag)
+		{
+			return fields.containsKey(tag);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package challonge;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RequestBudget {
+	
+	// CONSTANTS - Defaults
+	public static final int UNLIMITED_CONCURRENCY = Integer.MAX_VALUE;
+	public static final double UNLIMITED_RATE = 0;
+	
+	// CONSTANTS - Time
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	private static final long NANOS_PER_MILLI = 1000000L;
+	
+	// DATA MEMBERS
+	private int maxConcurrentRequests;
+	private double requestsPerSecond;
+	private Semaphore concurrency;
+	private long intervalNanos;
+	private long nextRequestNanos; // guarded by this
+	private AtomicLong requestCount;
+	private AtomicLong waitNanos;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a budget limiting concurrent requests and request rate
+	 * 
+	 * @param maxConcurrent maximum number of requests in flight at once (or UNLIMITED_CONCURRENCY)
+	 * @param perSecond maximum number of requests started per second (or UNLIMITED_RATE)
+	 */
+	public RequestBudget(int maxConcurrent, double perSecond)
+	{
+		if((maxConcurrent <= 0) || (perSecond < 0))
+			throw new IllegalArgumentException(ChallongeException.REASON_ARGUMENTS);
+		
+		maxConcurrentRequests = maxConcurrent;
+		requestsPerSecond = perSecond;
+		concurrency = new Semaphore(maxConcurrent, true);
+		intervalNanos = (perSecond == UNLIMITED_RATE) ? 0 : (long) (NANOS_PER_SECOND / perSecond);
+		nextRequestNanos = System.nanoTime();
+		requestCount = new AtomicLong();
+		waitNanos = new AtomicLong();
+	}
+	
+	// Instance methods
+	/**
+	 * waits until a request may be sent under this budget; every successful call must be
+	 * followed by a call to {@link #release()}
+	 * 
+	 * @throws ChallongeException if the thread was interrupted while waiting
+	 */
+	/* package */ void acquire() throws ChallongeException
+	{
+		long start = System.nanoTime();
+		try
+		{
+			concurrency.acquire();
+		}
+		catch(InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+		}
+		
+		// Reserve the next start slot, then wait for it outside the lock
+		if(intervalNanos > 0)
+		{
+			long slot;
+			synchronized(this)
+			{
+				slot = Math.max(System.nanoTime(), nextRequestNanos);
+				nextRequestNanos = slot + intervalNanos;
+			}
+			
+			long delay = slot - System.nanoTime();
+			try
+			{
+				if(delay > 0)
+					Thread.sleep(delay / NANOS_PER_MILLI, (int) (delay % NANOS_PER_MILLI));
+			}
+			catch(InterruptedException ie)
+			{
+				concurrency.release();
+				Thread.currentThread().interrupt();
+				throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			}
+		}
+		
+		requestCount.incrementAndGet();
+		waitNanos.addAndGet(System.nanoTime() - start);
+	}
+	
+	/**
+	 * returns the number of requests currently in flight under this budget
+	 * 
+	 * @return number of requests in flight
+	 */
+	public int getInFlightRequests()
+	{
+		return maxConcurrentRequests - concurrency.availablePermits();
+	}
+	
+	/**
+	 * returns the maximum number of requests in flight at once
+	 * 
+	 * @return maximum concurrent requests
+	 */
+	public int getMaxConcurrentRequests()
+	{
+		return maxConcurrentRequests;
+	}
+	
+	/**
+	 * returns the total number of requests sent under this budget
+	 * 
+	 * @return number of requests
+	 */
+	public long getRequestCount()
+	{
+		return requestCount.get();
+	}
+	
+	/**
+	 * returns the maximum request rate
+	 * 
+	 * @return requests per second (UNLIMITED_RATE if not limited)
+	 */
+	public double getRequestsPerSecond()
+	{
+		return requestsPerSecond;
+	}
+	
+	/**
+	 * returns the total time requests spent waiting for this budget
+	 * 
+	 * @return total wait time in milliseconds
+	 */
+	public long getTotalWaitMillis()
+	{
+		return waitNanos.get() / NANOS_PER_MILLI;
+	}
+	
+	/**
+	 * returns a request slot acquired with {@link #acquire()}
+	 */
+	/* package */ void release()
+	{
+		concurrency.release();
+	}
+}
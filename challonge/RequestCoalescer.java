@@ -0,0 +1,335 @@
+package challonge;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RequestCoalescer<T> {
+	
+	// CONSTANTS - Defaults
+	public static final int DEFAULT_MAX_ENTRIES = 1024;
+	
+	// CONSTANTS - Time
+	private static final long NANOS_PER_MILLI = 1000000L;
+	
+	// DATA MEMBERS
+	private volatile boolean enabled;
+	private volatile long windowMillis;
+	private volatile int maxEntries;
+	private ConcurrentHashMap<String, Entry<T>> entries;
+	private AtomicLong lastSweep; // System.nanoTime() of the last removal of expired entries
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a RequestCoalescer that only shares calls still in flight
+	 */
+	public RequestCoalescer()
+	{
+		this(true, 0);
+	}
+	
+	/**
+	 * creates a RequestCoalescer with no calls in flight
+	 * 
+	 * @param e <b>false</b> to run every call on its own until enabled with {@link #setEnabled(boolean)}
+	 * @param window how long a completed result keeps being shared, in milliseconds (0 to only share
+	 * calls that are still in flight)
+	 * @throws IllegalArgumentException if the window is negative
+	 */
+	public RequestCoalescer(boolean e, long window)
+	{
+		if(window < 0)
+			throw new IllegalArgumentException();
+		
+		enabled = e;
+		windowMillis = window;
+		maxEntries = DEFAULT_MAX_ENTRIES;
+		entries = new ConcurrentHashMap<String, Entry<T>>();
+		lastSweep = new AtomicLong(System.nanoTime());
+	}
+	
+	// Static
+	/**
+	 * returns the exception a caller receives for a failed call; unchecked exceptions and errors
+	 * are thrown unchanged
+	 * 
+	 * @param t failure of the call
+	 * @return the failure itself if it is a ChallongeException, otherwise a ChallongeException with
+	 * REASON_DEFAULT
+	 */
+	private static ChallongeException rethrow(Throwable t)
+	{
+		if(t instanceof ChallongeException)
+			return (ChallongeException) t;
+		if(t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		if(t instanceof Error)
+			throw (Error) t;
+		
+		return new ChallongeException(ChallongeException.REASON_DEFAULT);
+	}
+	
+	// Instance methods
+	/**
+	 * runs a call, unless an identical call is in flight (or completed within the window), in which
+	 * case its result is returned instead
+	 * 
+	 * @param key identifies identical calls
+	 * @param call call to run
+	 * @return result of the call (possibly shared with other callers)
+	 * @throws ChallongeException if the call (or the shared call) failed; unchecked exceptions
+	 * thrown by the call reach every caller unchanged
+	 */
+	public T execute(String key, Callable<T> call) throws ChallongeException
+	{
+		if(!enabled)
+		{
+			try
+			{
+				return call.call();
+			}
+			catch(Exception e)
+			{
+				throw rethrow(e);
+			}
+		}
+		
+		long window = windowMillis;
+		while(true)
+		{
+			// Join an existing call if it is still usable
+			Entry<T> existing = entries.get(key);
+			if(existing != null)
+			{
+				if(!existing.isExpired(window))
+					return existing.get();
+				
+				entries.remove(key, existing);
+				continue;
+			}
+			
+			// Otherwise become the leader for this key
+			Entry<T> created = new Entry<T>(call);
+			if(entries.putIfAbsent(key, created) == null)
+			{
+				try
+				{
+					created.run();
+					return created.get();
+				}
+				finally
+				{
+					// Keep the result for the window only while there is room for it
+					if((window == 0) || created.isFailed() || (entries.size() > maxEntries))
+						entries.remove(key, created);
+					removeExpired(window);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * returns how many results are kept at most
+	 * 
+	 * @return maximum number of calls in flight or completed within the window
+	 */
+	public int getMaxEntries()
+	{
+		return maxEntries;
+	}
+	
+	/**
+	 * returns how long completed results keep being shared
+	 * 
+	 * @return window in milliseconds
+	 */
+	public long getWindowMillis()
+	{
+		return windowMillis;
+	}
+	
+	/**
+	 * forgets every result, in flight or completed, so the next call for any key runs again; calls
+	 * already waiting on a result still receive it
+	 */
+	public void invalidateAll()
+	{
+		entries.clear();
+	}
+	
+	/**
+	 * returns whether calls are shared
+	 * 
+	 * @return <b>true</b> if identical calls are shared
+	 */
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+	
+	/**
+	 * removes the completed results that are older than the window, at most once per window
+	 * 
+	 * @param window sharing window in milliseconds
+	 */
+	private void removeExpired(long window)
+	{
+		if(window == 0)
+			return; // nothing is kept once completed
+		
+		long now = System.nanoTime();
+		long last = lastSweep.get();
+		if((now - last < window * NANOS_PER_MILLI) || !lastSweep.compareAndSet(last, now))
+			return;
+		
+		Iterator<Map.Entry<String, Entry<T>>> it = entries.entrySet().iterator();
+		while(it.hasNext())
+			if(it.next().getValue().isExpired(window))
+				it.remove();
+	}
+	
+	/**
+	 * enables or disables sharing; while disabled, every call runs on its own
+	 * 
+	 * @param e <b>true</b> to share identical calls
+	 */
+	public void setEnabled(boolean e)
+	{
+		enabled = e;
+		if(!e)
+			entries.clear();
+	}
+	
+	/**
+	 * sets how many results are kept at most; once there are more, completed results are no longer
+	 * kept for the window
+	 * 
+	 * @param n maximum number of calls in flight or completed within the window
+	 * @throws ChallongeException if <b>n</b> is not positive
+	 */
+	public void setMaxEntries(int n) throws ChallongeException
+	{
+		if(n <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		maxEntries = n;
+	}
+	
+	/**
+	 * sets how long completed results keep being shared
+	 * 
+	 * @param window window in milliseconds (0 to only share calls that are still in flight)
+	 * @throws ChallongeException if the window is negative
+	 */
+	public void setWindow(long window) throws ChallongeException
+	{
+		if(window < 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		windowMillis = window;
+	}
+	
+	/**
+	 * returns the number of results kept
+	 * 
+	 * @return number of calls in flight or completed within the window
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+	
+	// Classes
+	/**
+	 * a shared call and the time it completed
+	 */
+	private static class Entry<T> {
+		
+		// DATA MEMBERS
+		private FutureTask<T> task;
+		private volatile long completedAt; // System.nanoTime(), 0 while running
+		private volatile boolean failed;
+		
+		// METHODS
+		/**
+		 * creates an entry for a call that has not started yet
+		 * 
+		 * @param call call to run
+		 */
+		private Entry(Callable<T> call)
+		{
+			task = new FutureTask<T>(call);
+		}
+		
+		/**
+		 * waits for the call to complete and returns its result
+		 * 
+		 * @return result of the call
+		 * @throws ChallongeException if the call failed or the wait was interrupted; unchecked
+		 * exceptions thrown by the call are rethrown unchanged
+		 */
+		private T get() throws ChallongeException
+		{
+			try
+			{
+				return task.get();
+			}
+			catch(InterruptedException ie)
+			{
+				Thread.currentThread().interrupt();
+				throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			}
+			catch(ExecutionException ee)
+			{
+				throw rethrow(ee.getCause());
+			}
+		}
+		
+		/**
+		 * returns whether the call failed
+		 * 
+		 * @return <b>true</b> if the call completed with an exception
+		 */
+		private boolean isFailed()
+		{
+			return failed;
+		}
+		
+		/**
+		 * returns whether the result may no longer be shared
+		 * 
+		 * @param window sharing window in milliseconds
+		 * @return <b>true</b> if the call failed or completed more than <b>window</b> ms ago
+		 */
+		private boolean isExpired(long window)
+		{
+			if(failed)
+				return true;
+			
+			long completed = completedAt;
+			return (completed != 0) && (System.nanoTime() - completed > window * NANOS_PER_MILLI);
+		}
+		
+		/**
+		 * runs the call on the current thread
+		 */
+		private void run()
+		{
+			task.run();
+			try
+			{
+				task.get();
+			}
+			catch(Exception e)
+			{
+				failed = true;
+			}
+			completedAt = System.nanoTime();
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package challonge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class ShardMembership {
+	
+	// CONSTANTS - Defaults
+	public static final long DEFAULT_HEARTBEAT_INTERVAL = 2000;
+	public static final long DEFAULT_TIMEOUT = 10000;
+	
+	// CONSTANTS - Files
+	private static final String MEMBER_SUFFIX = ".member"; // contains "<time> <state>"
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final String SEPARATOR = " ";
+	
+	// CONSTANTS - States
+	private static final String STATE_ACTIVE = "active";
+	private static final String STATE_DONE = "done"; // finished its share, waiting for the others
+	
+	// CONSTANTS - Threads
+	private static final String THREAD_NAME = "challonge-heartbeat";
+	
+	// DATA MEMBERS
+	private File directory;
+	private String name;
+	private long heartbeatInterval;
+	private long timeout;
+	private ScheduledExecutorService heartbeats;
+	private String state; // guarded by this
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a member of the group coordinated through a directory; the member does not join until
+	 * {@link #join()} is called
+	 * 
+	 * @param dir directory shared by every member (created if it does not exist)
+	 * @param n name of this member, unique within the group (letters, digits, '-' and '_')
+	 * @param interval time between heartbeats, in milliseconds
+	 * @param t time without a heartbeat after which a member is considered gone, in milliseconds
+	 * @throws ChallongeException if the name is invalid or the timeout is not longer than the interval
+	 */
+	public ShardMembership(File dir, String n, long interval, long t) throws ChallongeException
+	{
+		if(!n.matches("^[a-zA-Z0-9_-]+$") || (interval <= 0) || (t <= interval))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		directory = dir;
+		name = n;
+		heartbeatInterval = interval;
+		timeout = t;
+		state = STATE_ACTIVE;
+	}
+	
+	// Instance methods
+	/**
+	 * writes a scheduled heartbeat, unless heartbeats were stopped while it was waiting
+	 */
+	private synchronized void beat()
+	{
+		if(heartbeats == null)
+			return;
+		
+		try
+		{
+			writeHeartbeat();
+		}
+		catch(ChallongeException ce)
+		{
+			// Try again at the next heartbeat; one missed heartbeat is within the timeout
+		}
+	}
+	
+	/**
+	 * returns the members whose heartbeat is recent
+	 * 
+	 * @return member names, sorted
+	 * @throws ChallongeException if the directory could not be read
+	 */
+	public ArrayList<String> getMembers() throws ChallongeException
+	{
+		return new ArrayList<String>(readMembers().keySet());
+	}
+	
+	/**
+	 * returns the name of this member
+	 * 
+	 * @return member name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * returns the time between heartbeats
+	 * 
+	 * @return heartbeat interval, in milliseconds
+	 */
+	public long getHeartbeatInterval()
+	{
+		return heartbeatInterval;
+	}
+	
+	/**
+	 * returns whether every member has finished its share
+	 * 
+	 * @return <b>true</b> if every member whose heartbeat is recent is done
+	 * @throws ChallongeException if the directory could not be read
+	 */
+	public boolean isFinished() throws ChallongeException
+	{
+		return !readMembers().containsValue(Boolean.FALSE);
+	}
+	
+	/**
+	 * joins the group and starts sending heartbeats
+	 * 
+	 * @throws ChallongeException if the first heartbeat could not be written
+	 */
+	public synchronized void join() throws ChallongeException
+	{
+		if(heartbeats != null)
+			return;
+		
+		directory.mkdirs();
+		writeHeartbeat();
+		heartbeats = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, THREAD_NAME);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		heartbeats.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run()
+			{
+				beat();
+			}
+		}, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * stops sending heartbeats; the member's file is left to expire, so members still checking
+	 * {@link #isFinished()} see this member as done until the timeout
+	 */
+	public synchronized void leave()
+	{
+		if(heartbeats != null)
+		{
+			heartbeats.shutdownNow();
+			heartbeats = null;
+		}
+	}
+	
+	/**
+	 * reads the members whose heartbeat is recent; heartbeats of members that crashed or left, and
+	 * files left by earlier runs, expire after the timeout
+	 * 
+	 * @return whether each member is done, by member name (sorted)
+	 * @throws ChallongeException if the directory could not be read
+	 */
+	private TreeMap<String, Boolean> readMembers() throws ChallongeException
+	{
+		File[] files = directory.listFiles();
+		if(files == null)
+			throw new ChallongeException(ChallongeException.REASON_CHECKPOINT);
+		
+		TreeMap<String, Boolean> members = new TreeMap<String, Boolean>();
+		long now = System.currentTimeMillis();
+		for(int i = 0; i < files.length; i++)
+		{
+			String file = files[i].getName();
+			if(!file.endsWith(MEMBER_SUFFIX))
+				continue;
+			
+			try
+			{
+				String[] fields = new String(Files.readAllBytes(files[i].toPath()), StandardCharsets.UTF_8).trim().split(SEPARATOR);
+				if((fields.length == 2) && (now - Long.parseLong(fields[0]) <= timeout))
+					members.put(file.substring(0, file.length() - MEMBER_SUFFIX.length()), fields[1].equals(STATE_DONE));
+			}
+			catch(NumberFormatException nfe)
+			{
+				// Not a heartbeat; ignore it
+			}
+			catch(IOException ioe)
+			{
+				// Removed while being read
+			}
+		}
+		
+		return members;
+	}
+	
+	/**
+	 * records whether this member has finished its share, writing a heartbeat at once
+	 * 
+	 * @param done <b>true</b> once this member's share is stored, <b>false</b> when it has more work
+	 * (such as after the members changed)
+	 * @throws ChallongeException if the heartbeat could not be written
+	 */
+	public synchronized void setDone(boolean done) throws ChallongeException
+	{
+		state = done ? STATE_DONE : STATE_ACTIVE;
+		writeHeartbeat();
+	}
+	
+	/**
+	 * writes this member's heartbeat file in one step, so readers never see a partial file
+	 * 
+	 * @throws ChallongeException if the file could not be written
+	 */
+	private void writeHeartbeat() throws ChallongeException
+	{
+		File file = new File(directory, name + MEMBER_SUFFIX);
+		File temp = new File(directory, name + MEMBER_SUFFIX + TEMP_SUFFIX);
+		String text = System.currentTimeMillis() + SEPARATOR + state;
+		try
+		{
+			Files.write(temp.toPath(), text.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_CHECKPOINT);
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package challonge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+public class ShardedCrawler {
+	
+	// CONSTANTS - Files
+	private static final String MEMBERS_DIRECTORY = "members";
+	private static final String SHARDS_DIRECTORY = "shards";
+	private static final String CHECKPOINT_FILE = "crawl.checkpoint";
+	private static final String FILE_PREFIX = "tournament-"; // as written by WarmStartCache
+	private static final String FILE_SUFFIX = ".xml";
+	private static final String TEMP_SUFFIX = ".tmp";
+	
+	// CONSTANTS - Commands
+	private static final String COMMAND_CRAWL = "crawl";
+	private static final String COMMAND_MERGE = "merge";
+	
+	// DATA MEMBERS
+	private ShardMembership membership;
+	private OrganizationCrawler crawler;
+	private int virtualNodes;
+	private volatile ConsistentHashRing ring;
+	private int rounds;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a worker of a sharded crawl; every worker of a crawl uses the same query and shared
+	 * directory, and a different name
+	 * <p>
+	 * Workers announce themselves in <code>members/</code> of the shared directory, and each stores
+	 * the tournaments it owns in <code>shards/&lt;name&gt;/</code>, with its own checkpoint.
+	 * 
+	 * @param q tournaments to crawl
+	 * @param shared directory shared by every worker
+	 * @param name name of this worker (letters, digits, '-' and '_')
+	 * @throws ChallongeException if the name is invalid
+	 */
+	public ShardedCrawler(TournamentQuery q, File shared, String name) throws ChallongeException
+	{
+		membership = new ShardMembership(new File(shared, MEMBERS_DIRECTORY), name,
+				ShardMembership.DEFAULT_HEARTBEAT_INTERVAL, ShardMembership.DEFAULT_TIMEOUT);
+		virtualNodes = ConsistentHashRing.DEFAULT_VIRTUAL_NODES;
+		
+		File shard = new File(new File(shared, SHARDS_DIRECTORY), name);
+		crawler = new OrganizationCrawler(q, new WarmStartCache(q.getAPIKey(), q.getSubdomain(), shard),
+				new File(shard, CHECKPOINT_FILE));
+		crawler.setFilter(new OrganizationCrawler.Filter() {
+			@Override
+			public boolean accept(Tournament t)
+			{
+				return ring.getOwner(t.getID()).equals(membership.getName());
+			}
+		});
+	}
+	
+	// Static
+	/**
+	 * crawls as one worker, or merges the shards of a finished crawl
+	 * <p>
+	 * Usage:<br>
+	 * <code>ShardedCrawler crawl &lt;api key&gt; &lt;subdomain or -&gt; &lt;shared directory&gt; &lt;worker name&gt; [threads]</code><br>
+	 * <code>ShardedCrawler merge &lt;shared directory&gt; &lt;output directory&gt;</code>
+	 * <p>
+	 * Several workers can be started on one machine with the same shared directory to test a crawl
+	 * locally.
+	 * 
+	 * @param args command-line arguments
+	 */
+	public static void main(String[] args)
+	{
+		try
+		{
+			if((args.length >= 5) && (args.length <= 6) && args[0].equals(COMMAND_CRAWL))
+			{
+				String subdomain = args[2].equals("-") ? null : args[2];
+				ShardedCrawler worker = new ShardedCrawler(new TournamentQuery(args[1]).setSubdomain(subdomain), new File(args[3]), args[4]);
+				if(args.length == 6)
+					worker.setThreads(Integer.parseInt(args[5]));
+				
+				worker.crawl();
+				System.out.println("Stored " + worker.getStoredCount() + ", failed " + worker.getFailedCount()
+						+ " in " + worker.getRoundCount() + " rounds");
+				System.exit(worker.getFailedCount() == 0 ? 0 : 1);
+			}
+			else if((args.length == 3) && args[0].equals(COMMAND_MERGE))
+			{
+				System.out.println("Merged " + merge(new File(args[1]), new File(args[2])) + " tournaments");
+				System.exit(0);
+			}
+		}
+		catch(NumberFormatException nfe)
+		{
+			System.err.println("Invalid number of threads: " + args[5]);
+			System.exit(2);
+		}
+		catch(ChallongeException ce)
+		{
+			System.err.println("Crawl failed: " + ce.getMessage());
+			System.exit(1);
+		}
+		
+		System.err.println("Usage: ShardedCrawler crawl <api key> <subdomain or -> <shared directory> <worker name> [threads]");
+		System.err.println("       ShardedCrawler merge <shared directory> <output directory>");
+		System.exit(2);
+	}
+	
+	/**
+	 * merges the tournaments stored by every worker into one directory that {@link WarmStartCache}
+	 * can load; when several workers stored the same tournament (because the shards moved during
+	 * the crawl), the most recently stored copy is kept, and ties go to the worker whose name sorts
+	 * first, so merging the same shards always gives the same result
+	 * 
+	 * @param shared directory shared by the workers
+	 * @param output directory to merge into (created if it does not exist)
+	 * @return number of tournaments merged
+	 * @throws ChallongeException if a file could not be read or copied
+	 */
+	public static int merge(File shared, File output) throws ChallongeException
+	{
+		File[] shards = new File(shared, SHARDS_DIRECTORY).listFiles();
+		if(shards == null)
+			throw new ChallongeException(ChallongeException.REASON_CACHE);
+		Arrays.sort(shards);
+		
+		// Choose one copy of each tournament, by file name
+		TreeMap<String, File> chosen = new TreeMap<String, File>();
+		for(int i = 0; i < shards.length; i++)
+		{
+			File[] files = shards[i].listFiles();
+			if(files == null)
+				continue;
+			
+			for(int j = 0; j < files.length; j++)
+			{
+				String name = files[j].getName();
+				if(!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX))
+					continue;
+				
+				File existing = chosen.get(name);
+				if((existing == null) || (files[j].lastModified() > existing.lastModified()))
+					chosen.put(name, files[j]);
+			}
+		}
+		
+		output.mkdirs();
+		try
+		{
+			for(File f : chosen.values())
+			{
+				File target = new File(output, f.getName());
+				File temp = new File(output, f.getName() + TEMP_SUFFIX);
+				Files.copy(f.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_CACHE);
+		}
+		
+		return chosen.size();
+	}
+	
+	// Instance methods
+	/**
+	 * joins the crawl and stores the tournaments this worker owns, until every worker has finished
+	 * <p>
+	 * Tournaments are assigned to workers by a consistent hash of their ID over the workers whose
+	 * heartbeat is recent.  Whenever a worker joins, or stops sending heartbeats, the workers still
+	 * running crawl again with the new assignment; completed tournaments a worker already stored are
+	 * skipped, and consistent hashing keeps most tournaments with the same worker.
+	 * 
+	 * @throws ChallongeException if the crawl could not be coordinated, or the index or a checkpoint
+	 * could not be read
+	 */
+	public void crawl() throws ChallongeException
+	{
+		membership.join();
+		try
+		{
+			// Give workers started together time to see each other
+			Thread.sleep(2 * membership.getHeartbeatInterval());
+			
+			ArrayList<String> members = membership.getMembers();
+			while(true)
+			{
+				membership.setDone(false);
+				ring = new ConsistentHashRing(members, virtualNodes);
+				crawler.crawl();
+				rounds++;
+				
+				ArrayList<String> current = membership.getMembers();
+				if(!current.equals(members))
+				{
+					members = current;
+					continue;
+				}
+				
+				// Wait for the others, unless the members change first
+				membership.setDone(true);
+				while(!membership.isFinished() && current.equals(members))
+				{
+					Thread.sleep(membership.getHeartbeatInterval());
+					current = membership.getMembers();
+				}
+				
+				if(current.equals(members))
+					break;
+				members = current;
+			}
+		}
+		catch(InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+		}
+		finally
+		{
+			membership.leave();
+		}
+	}
+	
+	/**
+	 * returns the number of tournaments that could not be retrieved or stored in the last round
+	 * 
+	 * @return number of failed tournaments
+	 */
+	public int getFailedCount()
+	{
+		return crawler.getFailedCount();
+	}
+	
+	/**
+	 * returns the number of times this worker crawled its shard; more than one means the workers
+	 * changed during the crawl
+	 * 
+	 * @return number of rounds
+	 */
+	public int getRoundCount()
+	{
+		return rounds;
+	}
+	
+	/**
+	 * returns the number of tournaments stored in the last round
+	 * 
+	 * @return number of stored tournaments
+	 */
+	public int getStoredCount()
+	{
+		return crawler.getStoredCount();
+	}
+	
+	/**
+	 * sets how many tournaments this worker retrieves at once
+	 * 
+	 * @param n number of crawling threads
+	 * @throws ChallongeException if <b>n</b> is not positive
+	 */
+	public void setThreads(int n) throws ChallongeException
+	{
+		crawler.setThreads(n);
+	}
+	
+	/**
+	 * sets how many points each worker is placed at on the hash ring; every worker of a crawl must
+	 * use the same value
+	 * 
+	 * @param n virtual nodes per worker
+	 * @throws ChallongeException if <b>n</b> is not positive
+	 */
+	public void setVirtualNodes(int n) throws ChallongeException
+	{
+		if(n <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		virtualNodes = n;
+	}
+}
@@ -0,0 +1,754 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+public class Standings {
+	
+	// CONSTANTS - Points (Challonge defaults)
+	public static final double POINTS_MATCH_WIN = 1.0;
+	public static final double POINTS_MATCH_DRAW = 0.5;
+	
+	// CONSTANTS - Data
+	public static final int NO_PLACEMENT = 0;
+	private static final int NO_PLAYER = -1;
+	
+	// DATA MEMBERS
+	private String type;
+	private HashMap<Integer, Record> records; // by participant ID
+	private HashMap<Integer, Slot> slots; // by match ID
+	private HashMap<Integer, ArrayList<Slot>> dependents; // by prerequisite match ID
+	private int deepestLosersRound;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates standings from the current participants and matches of a Tournament
+	 * 
+	 * @param t Tournament
+	 * @throws ChallongeException if the Tournament has no type
+	 */
+	public Standings(Tournament t) throws ChallongeException
+	{
+		this(t.getType(), t.getSnapshot());
+	}
+	
+	/**
+	 * creates standings from a snapshot of a Tournament
+	 * 
+	 * @param tournamentType tournament type (from <b>Tournament.TYPES</b>)
+	 * @param snapshot participants and matches
+	 * @throws ChallongeException if the tournament type is <b>null</b>
+	 */
+	public Standings(String tournamentType, TournamentSnapshot snapshot) throws ChallongeException
+	{
+		if(tournamentType == null)
+			throw new ChallongeException(ChallongeException.REASON_TOURNEY_TYPE);
+		
+		type = tournamentType;
+		records = new HashMap<Integer, Record>();
+		slots = new HashMap<Integer, Slot>();
+		dependents = new HashMap<Integer, ArrayList<Slot>>();
+		
+		List<Participant> participants = snapshot.getParticipants();
+		for(int i = 0; i < participants.size(); i++)
+			records.put(participants.get(i).getID(), new Record(participants.get(i)));
+		
+		// Index every match and the matches that depend on it
+		List<Match> matches = snapshot.getMatches();
+		for(int i = 0; i < matches.size(); i++)
+		{
+			Slot slot = new Slot(matches.get(i));
+			slots.put(slot.id, slot);
+			addDependent(slot.player1Prereq, slot);
+			addDependent(slot.player2Prereq, slot);
+			deepestLosersRound = Math.max(deepestLosersRound, -slot.round);
+		}
+		
+		// Count results, then fill in players of later matches locally
+		for(Slot slot : slots.values())
+			addContribution(slot);
+		for(Slot slot : slots.values())
+			propagate(slot);
+	}
+	
+	// Instance methods
+	/**
+	 * applies a result confirmed by the server (for example, the Match returned by
+	 * {@link Match#reportScore(String, int)} or by a refresh)
+	 * 
+	 * @param m updated Match
+	 */
+	public synchronized void applyResult(Match m)
+	{
+		Slot slot = slots.get(m.getID());
+		if(slot == null)
+		{
+			slot = new Slot(m);
+			slots.put(slot.id, slot);
+			addDependent(slot.player1Prereq, slot);
+			addDependent(slot.player2Prereq, slot);
+			deepestLosersRound = Math.max(deepestLosersRound, -slot.round);
+		}
+		
+		int p1 = (m.getPlayer1() == null) ? slot.player1 : m.getPlayer1().getID();
+		int p2 = (m.getPlayer2() == null) ? slot.player2 : m.getPlayer2().getID();
+		update(slot, p1, p2, m.getResult(), m.getScores());
+	}
+	
+	/**
+	 * applies a result that has not been confirmed by the server yet, so displays can update
+	 * immediately
+	 * 
+	 * @param matchID ID of the match
+	 * @param result Match.RESULT_P1_WIN, Match.RESULT_P2_WIN, Match.RESULT_DRAW or Match.RESULT_OPEN
+	 * @param scores scores ("3-1,2-3", empty if none)
+	 * @throws ChallongeException if the match is unknown or its players are not known yet
+	 */
+	public synchronized void applyLocalResult(int matchID, int result, String scores) throws ChallongeException
+	{
+		Slot slot = slots.get(matchID);
+		if(slot == null)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		if((result != Match.RESULT_OPEN) && ((slot.player1 == NO_PLAYER) || (slot.player2 == NO_PLAYER)))
+			throw new ChallongeException(ChallongeException.REASON_MATCH_STATE);
+		
+		update(slot, slot.player1, slot.player2, result, scores);
+	}
+	
+	/**
+	 * returns the match a participant plays next: a match that can be played now if there is one,
+	 * otherwise the earliest match the participant is already placed in
+	 * 
+	 * @param participantID participant ID
+	 * @return match ID, or Match.NO_MATCH if the participant has no match left
+	 */
+	public synchronized int getNextMatchID(int participantID)
+	{
+		Slot next = null;
+		for(Slot slot : slots.values())
+		{
+			if((slot.result != Match.RESULT_OPEN) || ((slot.player1 != participantID) && (slot.player2 != participantID)))
+				continue;
+			
+			if((next == null) || (slot.isReady() && !next.isReady())
+					|| ((slot.isReady() == next.isReady()) && (playOrder(slot) < playOrder(next))))
+				next = slot;
+		}
+		
+		return (next == null) ? Match.NO_MATCH : next.id;
+	}
+	
+	/**
+	 * returns the players currently placed in a match, including players filled in locally
+	 * 
+	 * @param matchID match ID
+	 * @return participant IDs of player 1 and player 2 (-1 where not determined yet), or <b>null</b>
+	 * if the match is unknown
+	 */
+	public synchronized int[] getPlayers(int matchID)
+	{
+		Slot slot = slots.get(matchID);
+		if(slot == null)
+			return null;
+		
+		return new int[] {slot.player1, slot.player2};
+	}
+	
+	/**
+	 * returns the standings, best first
+	 * <p>
+	 * Round robin and Swiss standings are ordered by points, then by tiebreaker (game difference for
+	 * round robin, Buchholz score for Swiss), then by seed.  Elimination standings are ordered by
+	 * placement; players still in the bracket have no placement until it is complete.
+	 * 
+	 * @return copies of every participant's record
+	 */
+	public synchronized List<Record> getStandings()
+	{
+		ArrayList<Record> list = new ArrayList<Record>();
+		for(Record r : records.values())
+			list.add(r.copy());
+		
+		if(isElimination())
+		{
+			computePlacements(list);
+			Collections.sort(list, new Comparator<Record>() {
+				@Override
+				public int compare(Record a, Record b)
+				{
+					// Players still in the bracket (NO_PLACEMENT) come first
+					if(a.placement != b.placement)
+						return Integer.compare(a.placement, b.placement);
+					return Integer.compare(a.seed, b.seed);
+				}
+			});
+		}
+		else
+		{
+			computeTiebreaks(list);
+			Collections.sort(list, new Comparator<Record>() {
+				@Override
+				public int compare(Record a, Record b)
+				{
+					if(a.points != b.points)
+						return Double.compare(b.points, a.points);
+					if(a.tiebreak != b.tiebreak)
+						return Double.compare(b.tiebreak, a.tiebreak);
+					return Integer.compare(a.seed, b.seed);
+				}
+			});
+		}
+		
+		return list;
+	}
+	
+	/**
+	 * adds a match to the dependents of its prerequisite match
+	 * 
+	 * @param prereq prerequisite match ID (or Match.NO_MATCH)
+	 * @param slot dependent match
+	 */
+	private void addDependent(int prereq, Slot slot)
+	{
+		if(prereq == Match.NO_MATCH)
+			return;
+		
+		ArrayList<Slot> list = dependents.get(prereq);
+		if(list == null)
+		{
+			list = new ArrayList<Slot>();
+			dependents.put(prereq, list);
+		}
+		list.add(slot);
+	}
+	
+	/**
+	 * adds a match's result to its players' records
+	 * 
+	 * @param slot match
+	 */
+	private void addContribution(Slot slot)
+	{
+		contribute(slot, 1);
+	}
+	
+	/**
+	 * assigns final placements to elimination records
+	 * 
+	 * @param list records to update
+	 */
+	private void computePlacements(ArrayList<Record> list)
+	{
+		boolean doubleElim = Tournament.TYPE_DOUBLE_ELIM.equals(type);
+		int lossesToEliminate = doubleElim ? 2 : 1;
+		
+		// Find the match that eliminated each player
+		HashMap<Integer, Integer> eliminationKeys = new HashMap<Integer, Integer>();
+		boolean complete = true;
+		for(Slot slot : slots.values())
+		{
+			if(slot.result == Match.RESULT_OPEN)
+			{
+				complete = false;
+				continue;
+			}
+			
+			int loser = slot.getLoser();
+			if(loser == NO_PLAYER)
+				continue;
+			
+			Record r = records.get(loser);
+			if((r == null) || (r.losses < lossesToEliminate))
+				continue;
+			
+			// A losers bracket loss always eliminates; otherwise the latest winners bracket loss does
+			int key = (slot.round < 0) ? -slot.round : deepestLosersRound + slot.round;
+			Integer previous = eliminationKeys.get(loser);
+			if((previous == null) || (slot.round < 0) || ((previous > deepestLosersRound) && (key > previous)))
+				eliminationKeys.put(loser, key);
+		}
+		
+		int alive = records.size() - eliminationKeys.size();
+		for(int i = 0; i < list.size(); i++)
+		{
+			Record r = list.get(i);
+			Integer key = eliminationKeys.get(r.participantID);
+			if(key == null)
+			{
+				r.placement = (complete && (alive == 1)) ? 1 : NO_PLACEMENT;
+				continue;
+			}
+			
+			// Everyone still alive or eliminated later finishes ahead
+			int ahead = alive;
+			for(Integer other : eliminationKeys.values())
+				if(other > key)
+					ahead++;
+			r.placement = ahead + 1;
+		}
+	}
+	
+	/**
+	 * computes tiebreakers for round robin (game difference) and Swiss (Buchholz score)
+	 * 
+	 * @param list records to update
+	 */
+	private void computeTiebreaks(ArrayList<Record> list)
+	{
+		if(!Tournament.TYPE_SWISS.equals(type))
+		{
+			for(int i = 0; i < list.size(); i++)
+				list.get(i).tiebreak = list.get(i).gamesWon - list.get(i).gamesLost;
+			return;
+		}
+		
+		// Buchholz: sum of the points of every opponent played
+		HashMap<Integer, Double> buchholz = new HashMap<Integer, Double>();
+		for(Slot slot : slots.values())
+		{
+			if((slot.result == Match.RESULT_OPEN) || !slot.isReady())
+				continue;
+			
+			Record r1 = records.get(slot.player1);
+			Record r2 = records.get(slot.player2);
+			if((r1 == null) || (r2 == null))
+				continue;
+			
+			buchholz.put(r1.participantID, getOrZero(buchholz, r1.participantID) + r2.points);
+			buchholz.put(r2.participantID, getOrZero(buchholz, r2.participantID) + r1.points);
+		}
+		
+		for(int i = 0; i < list.size(); i++)
+			list.get(i).tiebreak = getOrZero(buchholz, list.get(i).participantID);
+	}
+	
+	/**
+	 * adds (or removes) a match's result to (or from) its players' records
+	 * 
+	 * @param slot match
+	 * @param sign 1 to add, -1 to remove
+	 */
+	private void contribute(Slot slot, int sign)
+	{
+		if((slot.result == Match.RESULT_OPEN) || !slot.isReady())
+			return;
+		
+		Record r1 = records.get(slot.player1);
+		Record r2 = records.get(slot.player2);
+		if((r1 == null) || (r2 == null))
+			return;
+		
+		if(slot.result == Match.RESULT_P1_WIN)
+		{
+			r1.wins += sign;
+			r2.losses += sign;
+			r1.points += sign * POINTS_MATCH_WIN;
+		}
+		else if(slot.result == Match.RESULT_P2_WIN)
+		{
+			r2.wins += sign;
+			r1.losses += sign;
+			r2.points += sign * POINTS_MATCH_WIN;
+		}
+		else
+		{
+			r1.draws += sign;
+			r2.draws += sign;
+			r1.points += sign * POINTS_MATCH_DRAW;
+			r2.points += sign * POINTS_MATCH_DRAW;
+		}
+		
+		// Games: each comma-separated set counts as one game for whoever scored more
+		if(slot.scores.isEmpty())
+			return;
+		String[] sets = slot.scores.split(",");
+		for(int i = 0; i < sets.length; i++)
+		{
+			int separator = sets[i].indexOf('-', 1); // Skip a leading minus sign
+			if(separator < 0)
+				continue;
+			try
+			{
+				int score1 = Integer.parseInt(sets[i].substring(0, separator).trim());
+				int score2 = Integer.parseInt(sets[i].substring(separator + 1).trim());
+				if(score1 > score2)
+				{
+					r1.gamesWon += sign;
+					r2.gamesLost += sign;
+				}
+				else if(score2 > score1)
+				{
+					r2.gamesWon += sign;
+					r1.gamesLost += sign;
+				}
+			}
+			catch(NumberFormatException nfe)
+			{
+				// Ignore malformed sets, the match result still counts
+			}
+		}
+	}
+	
+	/**
+	 * returns a value from a map, or 0 if it is missing
+	 * 
+	 * @param map map
+	 * @param key key
+	 * @return value or 0
+	 */
+	private static double getOrZero(HashMap<Integer, Double> map, int key)
+	{
+		Double value = map.get(key);
+		return (value == null) ? 0 : value;
+	}
+	
+	/**
+	 * returns whether this is an elimination tournament
+	 * 
+	 * @return <b>true</b> for single and double elimination
+	 */
+	private boolean isElimination()
+	{
+		return Tournament.TYPE_SINGLE_ELIM.equals(type) || Tournament.TYPE_DOUBLE_ELIM.equals(type);
+	}
+	
+	/**
+	 * returns a number that orders matches by when they are played
+	 * 
+	 * @param slot match
+	 * @return order (lower is earlier)
+	 */
+	private int playOrder(Slot slot)
+	{
+		// Losers round k runs alongside winners round (k + 1) / 2, grand finals run last
+		if(slot.round < 0)
+			return -slot.round;
+		return 2 * slot.round - 1;
+	}
+	
+	/**
+	 * fills in the players of matches that depend on a match's result
+	 * 
+	 * @param slot match whose result is known (or was reset)
+	 */
+	private void propagate(Slot slot)
+	{
+		ArrayList<Slot> list = dependents.get(slot.id);
+		if(list == null)
+			return;
+		
+		for(int i = 0; i < list.size(); i++)
+		{
+			Slot dependent = list.get(i);
+			int p1 = dependent.player1;
+			int p2 = dependent.player2;
+			if(dependent.player1Prereq == slot.id)
+				p1 = dependent.player1PrereqLoser ? slot.getLoser() : slot.getWinner();
+			if(dependent.player2Prereq == slot.id)
+				p2 = dependent.player2PrereqLoser ? slot.getLoser() : slot.getWinner();
+			
+			if((p1 != dependent.player1) || (p2 != dependent.player2))
+				update(dependent, p1, p2, dependent.result, dependent.scores);
+		}
+	}
+	
+	/**
+	 * removes a match's result from its players' records
+	 * 
+	 * @param slot match
+	 */
+	private void removeContribution(Slot slot)
+	{
+		contribute(slot, -1);
+	}
+	
+	/**
+	 * changes a match's players and result, updating records and later matches
+	 * 
+	 * @param slot match
+	 * @param p1 player 1
+	 * @param p2 player 2
+	 * @param result result
+	 * @param scores scores
+	 */
+	private void update(Slot slot, int p1, int p2, int result, String scores)
+	{
+		int previousWinner = slot.getWinner();
+		int previousLoser = slot.getLoser();
+		
+		removeContribution(slot);
+		slot.player1 = p1;
+		slot.player2 = p2;
+		slot.result = result;
+		slot.scores = (scores == null) ? "" : scores;
+		addContribution(slot);
+		
+		if((slot.getWinner() != previousWinner) || (slot.getLoser() != previousLoser))
+			propagate(slot);
+	}
+	
+	// Classes
+	/**
+	 * one participant's record
+	 */
+	public static class Record {
+		
+		// DATA MEMBERS
+		private int participantID;
+		private String name;
+		private int seed;
+		private int wins;
+		private int losses;
+		private int draws;
+		private double points;
+		private int gamesWon;
+		private int gamesLost;
+		private double tiebreak;
+		private int placement;
+		
+		// METHODS
+		/**
+		 * creates an empty record
+		 * 
+		 * @param p participant
+		 */
+		private Record(Participant p)
+		{
+			participantID = p.getID();
+			name = p.getName();
+			seed = p.getSeed();
+		}
+		
+		/**
+		 * creates a copy of a record
+		 * 
+		 * @param r record to copy
+		 */
+		private Record(Record r)
+		{
+			participantID = r.participantID;
+			name = r.name;
+			seed = r.seed;
+			wins = r.wins;
+			losses = r.losses;
+			draws = r.draws;
+			points = r.points;
+			gamesWon = r.gamesWon;
+			gamesLost = r.gamesLost;
+			tiebreak = r.tiebreak;
+			placement = r.placement;
+		}
+		
+		/**
+		 * returns a copy of this record
+		 * 
+		 * @return copy
+		 */
+		private Record copy()
+		{
+			return new Record(this);
+		}
+		
+		/**
+		 * returns the number of drawn matches
+		 * 
+		 * @return number of draws
+		 */
+		public int getDraws()
+		{
+			return draws;
+		}
+		
+		/**
+		 * returns the number of games lost
+		 * 
+		 * @return games lost
+		 */
+		public int getGamesLost()
+		{
+			return gamesLost;
+		}
+		
+		/**
+		 * returns the number of games won
+		 * 
+		 * @return games won
+		 */
+		public int getGamesWon()
+		{
+			return gamesWon;
+		}
+		
+		/**
+		 * returns the number of matches lost
+		 * 
+		 * @return number of losses
+		 */
+		public int getLosses()
+		{
+			return losses;
+		}
+		
+		/**
+		 * returns the name of the participant
+		 * 
+		 * @return participant name
+		 */
+		public String getName()
+		{
+			return name;
+		}
+		
+		/**
+		 * returns the ID of the participant
+		 * 
+		 * @return participant ID
+		 */
+		public int getParticipantID()
+		{
+			return participantID;
+		}
+		
+		/**
+		 * returns the final placement (elimination only); a player eliminated while others in the
+		 * same round are still playing may move up once that round is complete
+		 * 
+		 * @return placement (ties share a placement), or NO_PLACEMENT if still in the bracket
+		 */
+		public int getPlacement()
+		{
+			return placement;
+		}
+		
+		/**
+		 * returns the match points earned
+		 * 
+		 * @return points
+		 */
+		public double getPoints()
+		{
+			return points;
+		}
+		
+		/**
+		 * returns the seed of the participant
+		 * 
+		 * @return seed
+		 */
+		public int getSeed()
+		{
+			return seed;
+		}
+		
+		/**
+		 * returns the tiebreaker (game difference for round robin, Buchholz score for Swiss)
+		 * 
+		 * @return tiebreaker value
+		 */
+		public double getTiebreak()
+		{
+			return tiebreak;
+		}
+		
+		/**
+		 * returns the number of matches won
+		 * 
+		 * @return number of wins
+		 */
+		public int getWins()
+		{
+			return wins;
+		}
+		
+		/**
+		 * returns a String representation of this record
+		 * 
+		 * @return a String representation of this record
+		 */
+		@Override
+		public String toString()
+		{
+			return name + " (" + wins + "-" + losses + "-" + draws + ", " + points + " pts)";
+		}
+	}
+	
+	/**
+	 * the local state of one match
+	 */
+	private static class Slot {
+		
+		// DATA MEMBERS
+		private int id;
+		private int round;
+		private int player1;
+		private int player2;
+		private int result;
+		private String scores;
+		private int player1Prereq;
+		private int player2Prereq;
+		private boolean player1PrereqLoser;
+		private boolean player2PrereqLoser;
+		
+		// METHODS
+		/**
+		 * creates the local state of a match
+		 * 
+		 * @param m Match
+		 */
+		private Slot(Match m)
+		{
+			id = m.getID();
+			round = m.getRound();
+			player1 = (m.getPlayer1() == null) ? NO_PLAYER : m.getPlayer1().getID();
+			player2 = (m.getPlayer2() == null) ? NO_PLAYER : m.getPlayer2().getID();
+			result = m.getResult();
+			scores = m.getScores();
+			player1Prereq = m.getPlayer1PrereqMatchID();
+			player2Prereq = m.getPlayer2PrereqMatchID();
+			player1PrereqLoser = m.isPlayer1PrereqLoser();
+			player2PrereqLoser = m.isPlayer2PrereqLoser();
+		}
+		
+		/**
+		 * returns the loser of this match
+		 * 
+		 * @return participant ID, or NO_PLAYER if undecided or drawn
+		 */
+		private int getLoser()
+		{
+			if(result == Match.RESULT_P1_WIN)
+				return player2;
+			if(result == Match.RESULT_P2_WIN)
+				return player1;
+			return NO_PLAYER;
+		}
+		
+		/**
+		 * returns the winner of this match
+		 * 
+		 * @return participant ID, or NO_PLAYER if undecided or drawn
+		 */
+		private int getWinner()
+		{
+			if(result == Match.RESULT_P1_WIN)
+				return player1;
+			if(result == Match.RESULT_P2_WIN)
+				return player2;
+			return NO_PLAYER;
+		}
+		
+		/**
+		 * returns whether both players are known
+		 * 
+		 * @return <b>true</b> if the match can be played
+		 */
+		private boolean isReady()
+		{
+			return (player1 != NO_PLAYER) && (player2 != NO_PLAYER);
+		}
+	}
+}
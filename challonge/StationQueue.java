@@ -0,0 +1,369 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+public class StationQueue {
+	
+	// DATA MEMBERS
+	private PlayerRegistry registry;
+	private TreeSet<Entry> waiting; // matches not on a station, best first
+	private HashMap<Long, Entry> entries; // every open match, by tournament and match ID
+	private HashMap<String, Entry> stations; // match on each station
+	private HashMap<Integer, HashSet<Entry>> matchesByPlayer; // open matches of each player
+	private HashSet<Integer> conflicts; // players in more than one open match
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an empty queue
+	 * 
+	 * @param r registry identifying the same player across tournaments
+	 */
+	public StationQueue(PlayerRegistry r)
+	{
+		registry = r;
+		waiting = new TreeSet<Entry>(new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b)
+			{
+				// Earlier rounds first, then longest waiting; IDs only break ties
+				int order = Integer.compare(a.round, b.round);
+				if(order == 0)
+					order = Long.compare(a.waitingSince, b.waitingSince);
+				if(order == 0)
+					order = Long.compare(a.key, b.key);
+				
+				return order;
+			}
+		});
+		entries = new HashMap<Long, Entry>();
+		stations = new HashMap<String, Entry>();
+		matchesByPlayer = new HashMap<Integer, HashSet<Entry>>();
+		conflicts = new HashSet<Integer>();
+	}
+	
+	// Static
+	/**
+	 * returns whether a match can be played now
+	 * 
+	 * @param m match
+	 * @return <b>true</b> if the match is open and both players are known
+	 */
+	private static boolean isReady(Match m)
+	{
+		return Match.STATE_OPEN.equals(m.getState()) && (m.getResult() == Match.RESULT_OPEN)
+				&& (m.getPlayer1() != null) && (m.getPlayer2() != null);
+	}
+	
+	/**
+	 * returns the key of a match, unique across tournaments
+	 * 
+	 * @param m match
+	 * @return tournament ID and match ID packed into a long
+	 */
+	private static long getKey(Match m)
+	{
+		return ((long) m.getTournament().getID() << 32) | (m.getID() & 0xFFFFFFFFL);
+	}
+	
+	// Instance methods
+	/**
+	 * adds an entry to the index of its players' matches
+	 * 
+	 * @param e entry
+	 */
+	private void addPlayers(Entry e)
+	{
+		for(int i = 0; i < e.players.length; i++)
+		{
+			if(e.players[i] == PlayerRegistry.NO_PLAYER)
+				continue;
+			
+			HashSet<Entry> matches = matchesByPlayer.get(e.players[i]);
+			if(matches == null)
+			{
+				matches = new HashSet<Entry>();
+				matchesByPlayer.put(e.players[i], matches);
+			}
+			matches.add(e);
+			if(matches.size() > 1)
+				conflicts.add(e.players[i]);
+		}
+	}
+	
+	/**
+	 * takes the best waiting match whose players are not playing on another station and puts it on
+	 * a station
+	 * 
+	 * @param station station name
+	 * @return match assigned to the station, or <b>null</b> if no waiting match can be played (or
+	 * the station is already in use)
+	 */
+	public synchronized Match assign(String station)
+	{
+		if(stations.containsKey(station))
+			return null;
+		
+		Iterator<Entry> it = waiting.iterator();
+		while(it.hasNext())
+		{
+			Entry e = it.next();
+			if(!isPlaying(e))
+			{
+				it.remove();
+				e.station = station;
+				stations.put(station, e);
+				return e.match;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * returns the players in more than one open match, such as a player entered in two tournaments
+	 * whose matches are both ready
+	 * 
+	 * @return player IDs (from the registry)
+	 */
+	public synchronized List<Integer> getConflictedPlayers()
+	{
+		return new ArrayList<Integer>(conflicts);
+	}
+	
+	/**
+	 * returns the open matches of a player
+	 * 
+	 * @param playerID player ID (from the registry)
+	 * @return open matches, waiting or on a station
+	 */
+	public synchronized List<Match> getMatches(int playerID)
+	{
+		ArrayList<Match> list = new ArrayList<Match>();
+		HashSet<Entry> matches = matchesByPlayer.get(playerID);
+		if(matches != null)
+			for(Entry e : matches)
+				list.add(e.match);
+		
+		return list;
+	}
+	
+	/**
+	 * returns the player a participant is, registering it if needed
+	 * 
+	 * @param p participant
+	 * @return player ID, or NO_PLAYER if the participant is only known by ID
+	 */
+	private int getPlayerID(Participant p)
+	{
+		return (p.getName() == null) ? PlayerRegistry.NO_PLAYER : registry.register(p);
+	}
+	
+	/**
+	 * returns the match on a station
+	 * 
+	 * @param station station name
+	 * @return match, or <b>null</b> if the station is free
+	 */
+	public synchronized Match getStationMatch(String station)
+	{
+		Entry e = stations.get(station);
+		return (e == null) ? null : e.match;
+	}
+	
+	/**
+	 * returns the number of open matches not on a station
+	 * 
+	 * @return number of waiting matches
+	 */
+	public synchronized int getWaitingCount()
+	{
+		return waiting.size();
+	}
+	
+	/**
+	 * returns whether one of a match's players is also in another open match
+	 * 
+	 * @param m match
+	 * @return <b>true</b> if a player of the match is in more than one open match
+	 */
+	public synchronized boolean isConflicted(Match m)
+	{
+		Entry e = entries.get(getKey(m));
+		if(e == null)
+			return false;
+		
+		for(int i = 0; i < e.players.length; i++)
+			if(conflicts.contains(e.players[i]))
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * returns whether one of an entry's players is playing another match on a station
+	 * 
+	 * @param e entry
+	 * @return <b>true</b> if the entry cannot be put on a station yet
+	 */
+	private boolean isPlaying(Entry e)
+	{
+		for(int i = 0; i < e.players.length; i++)
+		{
+			HashSet<Entry> matches = matchesByPlayer.get(e.players[i]);
+			if((matches == null) || (matches.size() < 2))
+				continue;
+			
+			for(Entry other : matches)
+				if((other != e) && (other.station != null))
+					return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * returns the best waiting match without assigning it, whether or not its players are free
+	 * 
+	 * @return match, or <b>null</b> if no match is waiting
+	 */
+	public synchronized Match peek()
+	{
+		return waiting.isEmpty() ? null : waiting.first().match;
+	}
+	
+	/**
+	 * returns the match on a station to the queue, keeping its place
+	 * 
+	 * @param station station name
+	 * @return match that was on the station, or <b>null</b> if the station was free
+	 */
+	public synchronized Match release(String station)
+	{
+		Entry e = stations.remove(station);
+		if(e == null)
+			return null;
+		
+		e.station = null;
+		waiting.add(e);
+		return e.match;
+	}
+	
+	/**
+	 * removes an entry from the queue or its station and from the index of its players' matches
+	 * 
+	 * @param e entry
+	 */
+	private void remove(Entry e)
+	{
+		entries.remove(e.key);
+		if(e.station != null)
+			stations.remove(e.station);
+		else
+			waiting.remove(e);
+		
+		for(int i = 0; i < e.players.length; i++)
+		{
+			HashSet<Entry> matches = matchesByPlayer.get(e.players[i]);
+			if(matches == null)
+				continue;
+			
+			matches.remove(e);
+			if(matches.size() < 2)
+				conflicts.remove(e.players[i]);
+			if(matches.isEmpty())
+				matchesByPlayer.remove(e.players[i]);
+		}
+	}
+	
+	/**
+	 * returns the number of open matches, waiting or on a station
+	 * 
+	 * @return number of open matches
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+	
+	/**
+	 * applies the current state of a match: a match that became ready joins the queue, a match that
+	 * is no longer open leaves it (freeing its station), and a match already queued keeps its place
+	 * 
+	 * @param m current copy of the match
+	 */
+	public synchronized void update(Match m)
+	{
+		long key = getKey(m);
+		Entry existing = entries.get(key);
+		if(!isReady(m))
+		{
+			if(existing != null)
+				remove(existing);
+			return;
+		}
+		
+		if(existing != null)
+		{
+			existing.match = m; // same round and players, so its place is unchanged
+			return;
+		}
+		
+		Entry e = new Entry(key, m, new int[] {getPlayerID(m.getPlayer1()), getPlayerID(m.getPlayer2())}, System.currentTimeMillis());
+		entries.put(key, e);
+		waiting.add(e);
+		addPlayers(e);
+	}
+	
+	/**
+	 * applies the current state of every match in a tournament
+	 * 
+	 * @param t tournament
+	 * @see #update(Match)
+	 */
+	public void updateTournament(Tournament t)
+	{
+		List<Match> matches = t.getMatches();
+		for(int i = 0; i < matches.size(); i++)
+			update(matches.get(i));
+	}
+	
+	// Classes
+	/**
+	 * an open match, with what is needed to order it and find its players
+	 */
+	private static class Entry {
+		
+		// DATA MEMBERS
+		private long key;
+		private Match match;
+		private int[] players; // player IDs, NO_PLAYER if unknown
+		private int round; // distance from the start of the bracket; unknown rounds last
+		private long waitingSince; // ms since the epoch
+		private String station; // null while waiting
+		
+		// METHODS
+		/**
+		 * creates an entry for a match that has just become ready
+		 * 
+		 * @param k tournament and match ID
+		 * @param m match
+		 * @param p player IDs
+		 * @param since time the match became ready
+		 */
+		private Entry(long k, Match m, int[] p, long since)
+		{
+			key = k;
+			match = m;
+			players = p;
+			round = (m.getRound() == Match.NO_ROUND) ? Integer.MAX_VALUE : Math.abs(m.getRound());
+			waitingSince = since;
+		}
+	}
+}
@@ -1,33 +1,40 @@
 package challonge;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 public class Tournament {
-
+	
+	// CONSTANTS - Coalescing Keys
+	private static final String COALESCE_MATCHES = "matches";
+	private static final String COALESCE_PARTICIPANTS = "participants";
+	private static final String COALESCE_REFRESH = "refresh";
+	
 	// CONSTANTS - Limits
-	private static final int NAME_MAX_LENGTH = 60;
+	/* package */ static final int NAME_MAX_LENGTH = 60;
 	
 	// CONSTANTS - Parameters
-	private static final String PARAM_KEY = "api_key=";
 	private static final String PARAM_PARTICIPANT_NAME = "participant[name]=";
 	private static final String PARAM_TOURNAMENT_NAME = "tournament[name]=";
 	private static final String PARAM_TOURNAMENT_SUBDOMAIN = "tournament[subdomain]=";
 	private static final String PARAM_TOURNAMENT_TYPE = "tournament[tournament_type]=";
 	private static final String PARAM_TOURNAMENT_URL = "tournament[url]=";
 	
+	// CONSTANTS - Tournament States
+	public static final String STATE_PENDING = "pending";
+	public static final String STATE_UNDERWAY = "underway";
+	public static final String STATE_AWAITING_REVIEW = "awaiting_review";
+	public static final String STATE_COMPLETE = "complete";
+	
 	// CONSTANTS - Tournament Types
 	public static final String TYPE_SINGLE_ELIM = "single elimination";
 	public static final String TYPE_DOUBLE_ELIM = "double elimination";
@@ -39,32 +46,36 @@ public class Tournament {
 	private static final String XML_DESCRIPTION = "description";
 	private static final String XML_ID = "id";
 	private static final String XML_NAME = "name";
+	private static final String XML_STATE = "state";
 	private static final String XML_TOURNAMENT = "tournament";
 	private static final String XML_TYPE = "tournament-type";
 	private static final String XML_URL = "url";
 	
 	// DATA MEMBERS
 	private String apiKey;
-	private String subdomain;
+	private String subdomain; // attributes guarded by this, since updates may come from other threads
 	private int id;
 	private String name;
 	private String url;
 	private String description;
 	private String type;
-	private ArrayList<Participant> participants;
-	private ArrayList<Match> matches;
+	private String state;
+	private AtomicReference<TournamentSnapshot> snapshot;
+	private RequestCoalescer<TournamentSnapshot> refreshes;
 	
 	// METHODS
 	// Constructors
 	/**
-	 * creates a tournament given an ID, name, URL, description, and type
+	 * creates a tournament given an ID, name, URL, description, type and state (participants and
+	 * matches are not retrieved until the tournament is hydrated)
 	 * @param i ID
 	 * @param n name
 	 * @param u URL
 	 * @param d description
 	 * @param t type (TYPE_SINGLE_ELIM, TYPE_DOUBLE_ELIM, etc.)
+	 * @param st state (STATE_PENDING, STATE_UNDERWAY, etc., or <b>null</b> if unknown)
 	 */
-	private Tournament(String key, String domain, int i, String n, String u, String d, String t) throws ChallongeException
+	private Tournament(String key, String domain, int i, String n, String u, String d, String t, String st)
 	{
 		apiKey = key;
 		subdomain = domain;
@@ -73,9 +84,9 @@ public class Tournament {
 		url = u;
 		description = d;
 		type = t;
-		
-		updateParticipants();
-		updateMatches();
+		state = st;
+		snapshot = new AtomicReference<TournamentSnapshot>(TournamentSnapshot.EMPTY);
+		refreshes = new RequestCoalescer<TournamentSnapshot>(false, 0);
 	}
 	
 	// Static
@@ -116,113 +127,258 @@ public class Tournament {
 		if(!validTournamentType(type))
 			throw new ChallongeException(ChallongeException.REASON_TOURNEY_TYPE);
 		
+		// Credentials and parameters go in the body
+		StringBuilder body = Endpoint.body(apiKey);
+		Endpoint.appendParameter(body, PARAM_TOURNAMENT_TYPE, type);
+		Endpoint.appendParameter(body, PARAM_TOURNAMENT_NAME, name);
+		Endpoint.appendParameter(body, PARAM_TOURNAMENT_URL, customURL);
+		// Subdomain may be null, check before adding it
+		if(subdomain != null)
+			Endpoint.appendParameter(body, PARAM_TOURNAMENT_SUBDOMAIN, subdomain);
+		
+		// Send request and process response
+		String xml = Challonge.sendHttpRequest(apiKey, Endpoint.TOURNAMENTS.url(), "POST", body.toString());
+		return createTournamentFromXML(apiKey, null, xml);
+	}
+	
+	/**
+	 * creates a tournament from XML data received from Challonge
+	 * 
+	 * @param apiKey the API key necessary to authenticate
+	 * @param subdomain the desired subdomain of the tournament (or <b>null</b> if no subdomain)
+	 * @param xml XML data as a String containing one tournament
+	 * @return a fully initialized tournament, or <b>null</b> if initialization fails
+	 */
+	/* package */ static Tournament createTournamentFromXML(String apiKey, String subdomain, String xml) throws ChallongeException
+	{
+		return createTournamentFromXML(apiKey, subdomain, xml, true);
+	}
+	
+	/**
+	 * creates a tournament from XML data received from Challonge
+	 * 
+	 * @param apiKey the API key necessary to authenticate
+	 * @param subdomain the desired subdomain of the tournament (or <b>null</b> if no subdomain)
+	 * @param xml XML data as a String containing one tournament
+	 * @param hydrate <b>true</b> to retrieve the participants and matches of the tournament,
+	 * <b>false</b> to leave that to the caller (see {@link #hydrate()})
+	 * @return a tournament
+	 * @throws ChallongeException if the XML could not be parsed, or the tournament hydrated
+	 */
+	/* package */ static Tournament createTournamentFromXML(String apiKey, String subdomain, String xml, boolean hydrate) throws ChallongeException
+	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
 		try
 		{
-			// Generate URL
-			String urlString = Challonge.URL_START + "tournaments.xml?" + PARAM_KEY + apiKey;
+			Document doc = Challonge.parseXML(xml);
 			
-			urlString += "&" + PARAM_TOURNAMENT_TYPE + Challonge.encodeString(type);
-			urlString += "&" + PARAM_TOURNAMENT_NAME + Challonge.encodeString(name);
-			urlString += "&" + PARAM_TOURNAMENT_URL + Challonge.encodeString(customURL);
-			// Subdomain may be null, check before adding it
-			if(subdomain != null)
-				urlString += "&" + PARAM_TOURNAMENT_SUBDOMAIN + Challonge.encodeString(subdomain);
-			URL url = new URL(urlString);
+			Element e = (Element) doc.getElementsByTagName(XML_TOURNAMENT).item(0);
+			Tournament t = createTournamentFromElement(apiKey, subdomain, e);
+			ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_TOURNAMENT, t.getID(), 1, xml, null);
+			if(hydrate)
+				t.hydrate();
 			
-			// Send request and process response
-			String xml = Challonge.sendHttpRequest(url, "POST");
-	        return createTournamentFromXML(apiKey, null, xml);
+			return t;
 		}
-		catch(UnsupportedEncodingException uee)
+		catch(ChallongeException ce)
 		{
-			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+			throw ce;
 		}
-		catch(MalformedURLException mfe)
+		catch(Exception e)
 		{
-			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		}
+	}
+	
+	/**
+	 * creates a list of fully initialized Tournaments from XML data received from Challonge
+	 * 
+	 * @param apiKey the API key necessary to authenticate
+	 * @param subdomain the desired subdomain of the tournaments (or <b>null</b> if no subdomain)
+	 * @param xml XML data as a String containing a list of tournaments
+	 * @return a list of Tournaments
+	 */
+	/* package */ static ArrayList<Tournament> createTournamentListFromXML(String apiKey, String subdomain, String xml) throws ChallongeException
+	{
+		return createTournamentListFromXML(apiKey, subdomain, xml, true);
+	}
+	
+	/**
+	 * creates a list of Tournaments from XML data received from Challonge
+	 * 
+	 * @param apiKey the API key necessary to authenticate
+	 * @param subdomain the desired subdomain of the tournaments (or <b>null</b> if no subdomain)
+	 * @param xml XML data as a String containing a list of tournaments
+	 * @param hydrate <b>true</b> to retrieve participants and matches of every tournament,
+	 * <b>false</b> to leave that to the caller (see {@link #hydrate()})
+	 * @return a list of Tournaments
+	 */
+	/* package */ static ArrayList<Tournament> createTournamentListFromXML(String apiKey, String subdomain, String xml, boolean hydrate) throws ChallongeException
+	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
+		try
+		{
+			Document doc = Challonge.parseXML(xml);
+			
+			ArrayList<Tournament> tournamentList = new ArrayList<Tournament>();
+			NodeList list = doc.getElementsByTagName(XML_TOURNAMENT);
+			for(int i = 0; i < list.getLength(); i++)
+				tournamentList.add(createTournamentFromElement(apiKey, subdomain, (Element) list.item(i)));
+			ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_TOURNAMENT, ChallongeEvents.NO_TOURNAMENT, tournamentList.size(), xml, null);
+			
+			// Hydrate once the whole index has been parsed, so each phase is timed on its own
+			if(hydrate)
+				for(int i = 0; i < tournamentList.size(); i++)
+					tournamentList.get(i).hydrate();
+			
+			return tournamentList;
 		}
 		catch(ChallongeException ce)
 		{
 			throw ce;
 		}
-		catch(IOException ioe)
+		catch (Exception e)
 		{
-			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			e.printStackTrace();
+			throw new ChallongeException(ChallongeException.REASON_XML);
 		}
 	}
 	
 	/**
-	 * creates a tournament from XML data received from Challonge
+	 * creates a list of Tournaments from XML data received from Challonge, reading only the fields
+	 * kept by a projection (participants and matches are not retrieved)
+	 * 
+	 * @param apiKey the API key necessary to authenticate
+	 * @param subdomain the desired subdomain of the tournaments (or <b>null</b> if no subdomain)
+	 * @param xml XML data as a String containing a list of tournaments
+	 * @param p fields to read
+	 * @return a list of Tournaments
+	 * @throws ChallongeException if the XML could not be parsed
+	 */
+	/* package */ static ArrayList<Tournament> createTournamentListFromXML(String apiKey, String subdomain, String xml, Projection p) throws ChallongeException
+	{
+		ChallongeEvents.Parse event = ChallongeEvents.beginParse();
+		ArrayList<Projection.Record> records = p.parse(xml, XML_TOURNAMENT);
+		ArrayList<Tournament> tournamentList = new ArrayList<Tournament>(records.size());
+		for(int i = 0; i < records.size(); i++)
+			tournamentList.add(createTournamentFromRecord(apiKey, subdomain, records.get(i)));
+		ChallongeEvents.endParse(event, ChallongeEvents.ENTITY_TOURNAMENT, ChallongeEvents.NO_TOURNAMENT, tournamentList.size(), xml, p);
+		
+		return tournamentList;
+	}
+	
+	/**
+	 * creates a Tournament from an XML element without retrieving its participants or matches
 	 * 
 	 * @param apiKey the API key necessary to authenticate
 	 * @param subdomain the desired subdomain of the tournament (or <b>null</b> if no subdomain)
-	 * @param xml XML data as a String containing one tournament
-	 * @return a fully initialized tournament, or <b>null</b> if initialization fails
+	 * @param e XML element containing a single tournament
+	 * @return newly created Tournament
+	 * @throws ChallongeException if the element could not be parsed
 	 */
-	/* package */ static Tournament createTournamentFromXML(String apiKey, String subdomain, String xml) throws ChallongeException
+	/* package */ static Tournament createTournamentFromElement(String apiKey, String subdomain, Element e) throws ChallongeException
 	{
 		try
 		{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes());
-			Document doc = builder.parse(input);
-			
-			Element e = (Element) doc.getElementsByTagName(XML_TOURNAMENT).item(0);
 			int id = Integer.parseInt(e.getElementsByTagName(XML_ID).item(0).getTextContent());
 			String name = e.getElementsByTagName(XML_NAME).item(0).getTextContent();
 			String url = e.getElementsByTagName(XML_URL).item(0).getTextContent();
 			String description = e.getElementsByTagName(XML_DESCRIPTION).item(0).getTextContent();
 			String type = e.getElementsByTagName(XML_TYPE).item(0).getTextContent();
 			
-			return new Tournament(apiKey, subdomain, id, name, url, description, type);	
+			// State is missing from files written by older caches
+			String state = null;
+			NodeList stateList = e.getElementsByTagName(XML_STATE);
+			if(stateList.getLength() > 0)
+				state = stateList.item(0).getTextContent().trim();
+			
+			return new Tournament(apiKey, subdomain, id, name, url, description, type, state);
 		}
-		catch(Exception e)
+		catch(NumberFormatException nfe)
 		{
 			throw new ChallongeException(ChallongeException.REASON_XML);
 		}
 	}
 	
 	/**
-	 * creates a list of Tournaments from XML data received from Challonge
+	 * creates a Tournament from the fields kept by a projection; fields that were not kept are
+	 * <b>null</b>
 	 * 
 	 * @param apiKey the API key necessary to authenticate
-	 * @param subdomain the desired subdomain of the tournaments (or <b>null</b> if no subdomain)
-	 * @param xml XML data as a String containing a list of tournaments
-	 * @return a list of Tournaments
+	 * @param subdomain the desired subdomain of the tournament (or <b>null</b> if no subdomain)
+	 * @param r projected fields of a single tournament
+	 * @return newly created Tournament
+	 * @throws ChallongeException if a kept field could not be parsed
 	 */
-	/* package */ static ArrayList<Tournament> createTournamentListFromXML(String apiKey, String subdomain, String xml) throws ChallongeException
+	private static Tournament createTournamentFromRecord(String apiKey, String subdomain, Projection.Record r) throws ChallongeException
 	{
 		try
 		{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes());
-			Document doc = builder.parse(input);
-			
-			ArrayList<Tournament> tournamentList = new ArrayList<Tournament>();
-			NodeList list = doc.getElementsByTagName(XML_TOURNAMENT);
-			for(int i = 0; i < list.getLength(); i++)
-			{
-				Element e = (Element) list.item(i);
-				int id = Integer.parseInt(e.getElementsByTagName(XML_ID).item(0).getTextContent());
-				String name = e.getElementsByTagName(XML_NAME).item(0).getTextContent();
-				String url = e.getElementsByTagName(XML_URL).item(0).getTextContent();
-				String description = e.getElementsByTagName(XML_DESCRIPTION).item(0).getTextContent();
-				String type = e.getElementsByTagName(XML_TYPE).item(0).getTextContent();
-				
-				tournamentList.add(new Tournament(apiKey, subdomain, id, name, url, description, type));
-			}
-			
-			return tournamentList;
+			return new Tournament(apiKey, subdomain, r.getInt(XML_ID, 0),
+					r.has(XML_NAME) ? r.getText(XML_NAME) : null,
+					r.has(XML_URL) ? r.getText(XML_URL) : null,
+					r.has(XML_DESCRIPTION) ? r.getText(XML_DESCRIPTION) : null,
+					r.has(XML_TYPE) ? r.getText(XML_TYPE) : null,
+					r.has(XML_STATE) ? r.getText(XML_STATE) : null);
 		}
-		catch (Exception e)
+		catch(NumberFormatException nfe)
 		{
-			e.printStackTrace();
 			throw new ChallongeException(ChallongeException.REASON_XML);
 		}
 	}
 	
+	/**
+	 * sends a request adding a participant to a tournament
+	 * 
+	 * @param apiKey key to connect to challonge service
+	 * @param tournamentID ID of the tournament
+	 * @param name desired username to be added
+	 * @throws ChallongeException if the user could not be added
+	 */
+	/* package */ static void sendAddParticipant(String apiKey, int tournamentID, String name) throws ChallongeException
+	{
+		StringBuilder body = Endpoint.appendParameter(Endpoint.body(apiKey), PARAM_PARTICIPANT_NAME, name);
+		Challonge.sendHttpRequest(apiKey, Endpoint.PARTICIPANTS.url(tournamentID), "POST", body.toString());
+	}
+	
+	/**
+	 * sends a request changing the name of a tournament
+	 * 
+	 * @param apiKey key to connect to challonge service
+	 * @param tournamentID ID of the tournament
+	 * @param newName new tournament name
+	 * @throws ChallongeException if the name is too long or could not be changed
+	 */
+	/* package */ static void sendChangeName(String apiKey, int tournamentID, String newName) throws ChallongeException
+	{
+		new TournamentUpdate(apiKey, tournamentID).setName(newName).send();
+	}
+	
+	/**
+	 * sends a request deleting a tournament
+	 * 
+	 * @param apiKey key to connect to challonge service
+	 * @param tournamentID ID of the tournament
+	 * @throws ChallongeException if tournament could not be deleted
+	 */
+	/* package */ static void sendDelete(String apiKey, int tournamentID) throws ChallongeException
+	{
+		// DELETE requests have no body, so the key stays in the query
+		Challonge.sendHttpRequest(apiKey, Endpoint.TOURNAMENT.url(apiKey, tournamentID), "DELETE");
+	}
+	
+	/**
+	 * sends a request starting a tournament
+	 * 
+	 * @param apiKey key to connect to challonge service
+	 * @param tournamentID ID of the tournament
+	 * @throws ChallongeException if tournament could not be started
+	 */
+	/* package */ static void sendStart(String apiKey, int tournamentID) throws ChallongeException
+	{
+		Challonge.sendHttpRequest(apiKey, Endpoint.TOURNAMENT_START.url(tournamentID), "POST", Endpoint.body(apiKey).toString());
+	}
+	
 	/**
 	 * checks to see if the given String contains a valid tournament type
 	 * 
@@ -250,71 +406,70 @@ public class Tournament {
 	{
 		try
 		{
-			// Generate URL
-			String urlString = Challonge.URL_START + "tournaments/" + id + "/participants.xml?" + PARAM_KEY + Challonge.encodeString(apiKey);
-			urlString += "&" + PARAM_PARTICIPANT_NAME + Challonge.encodeString(name);
-			URL url = new URL(urlString);
-			String body = PARAM_PARTICIPANT_NAME + Challonge.encodeString(name);
-			
-			// Establish connection
-			Challonge.sendHttpRequest(url, "POST", body);
-			
-			// Update participants list
-			updateParticipants();
-		}
-		catch(UnsupportedEncodingException uee)
-		{
-			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
-		}
-		catch(MalformedURLException mfe)
-		{
-			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
-		}
-		catch(ChallongeException ce)
-		{
-			throw ce;
+			sendAddParticipant(apiKey, id, name);
 		}
-		catch(IOException ioe)
+		finally
 		{
-			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			invalidateRefreshes();
 		}
+		
+		// Update participants list
+		updateParticipants();
+	}
+	
+	/**
+	 * replaces a Match in this Tournament's match list with an updated copy; a Tournament whose
+	 * participants and matches were never retrieved is left as it is
+	 * 
+	 * @param m updated Match
+	 */
+	/* package */ void applyMatch(Match m)
+	{
+		// A partial match list would keep the Tournament from being hydrated
+		TournamentSnapshot current = snapshot.get();
+		while((current != TournamentSnapshot.EMPTY) && !snapshot.compareAndSet(current, current.withMatch(m)))
+			current = snapshot.get();
+		invalidateRefreshes();
+	}
+	
+	/**
+	 * replaces the attributes of this Tournament with those of a copy returned by the server after
+	 * an update; participants and matches are kept
+	 * 
+	 * @param updated updated copy
+	 */
+	/* package */ synchronized void applyUpdate(Tournament updated)
+	{
+		subdomain = updated.subdomain;
+		name = updated.name;
+		url = updated.url;
+		description = updated.description;
+		type = updated.type;
+		state = updated.state;
+		invalidateRefreshes();
+	}
+	
+	/**
+	 * records a name change that has already been sent to the server
+	 * 
+	 * @param newName new tournament name
+	 */
+	/* package */ synchronized void applyName(String newName)
+	{
+		name = newName;
+		invalidateRefreshes();
 	}
 	
 	/**
 	 * changes the name of this Tournament
 	 * 
 	 * @param newName new tournament name 
+	 * @throws ChallongeException if the name is too long or could not be changed
+	 * @see #update()
 	 */
 	public void changeName(String newName) throws ChallongeException
 	{
-		try
-		{
-			// Ensure name is valid
-			if(newName.length() > NAME_MAX_LENGTH)
-				throw new ChallongeException(ChallongeException.REASON_NAME_LENGTH);
-			
-			// Generate and send request
-			String urlString = Challonge.URL_START + "tournaments/" + id + ".xml?" + PARAM_KEY + Challonge.encodeString(apiKey);
-			urlString += "&" + PARAM_TOURNAMENT_NAME + Challonge.encodeString(newName);
-			URL url = new URL(urlString);
-			String body = PARAM_TOURNAMENT_NAME + Challonge.encodeString(newName);
-			Challonge.sendHttpRequest(url, "PUT", body);
-			
-			// If connection went through, change name
-			name = newName;
-		}
-		catch(MalformedURLException mfe)
-		{
-			throw new ChallongeException(ChallongeException.REASON_INVALID_URL);
-		}
-		catch(ChallongeException ce)
-		{
-			throw ce;
-		}
-		catch(IOException ioe)
-		{
-			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
-		}
+		update().setName(newName).send();
 	}
 	
 	/**
@@ -326,24 +481,75 @@ public class Tournament {
 	{
 		try
 		{
-			String urlString = Challonge.URL_START + "tournaments/" + id + ".xml?" + PARAM_KEY + Challonge.encodeString(apiKey);
-			URL url = new URL(urlString);
-			Challonge.sendHttpRequest(url, "DELETE");
+			sendDelete(apiKey, id);
 		}
-		catch(MalformedURLException mfe)
+		finally
 		{
-			throw new ChallongeException(ChallongeException.REASON_INVALID_URL);
-		}
-		catch(ChallongeException ce)
-		{
-			throw ce;
-		}
-		catch(IOException ioe)
-		{
-			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			invalidateRefreshes();
 		}
 	}
 	
+	/**
+	 * retrieves one of this Tournament's lists from the Challonge website
+	 * 
+	 * @param list endpoint of the list (Endpoint.MATCHES or Endpoint.PARTICIPANTS)
+	 * @return the server's XML response
+	 * @throws ChallongeException if the list could not be retrieved
+	 */
+	private String fetchListXML(Endpoint list) throws ChallongeException
+	{
+		return Challonge.sendHttpRequest(apiKey, list.url(apiKey, id), "GET");
+	}
+	
+	/**
+	 * retrieves the match list from the Challonge website without publishing it
+	 * 
+	 * @param lookup snapshot used to resolve player IDs
+	 * @return list of matches
+	 * @throws ChallongeException if the match list could not be retrieved
+	 */
+	private List<Match> fetchMatches(TournamentSnapshot lookup) throws ChallongeException
+	{
+		return Match.createMatchListFromXML(apiKey, this, lookup, fetchListXML(Endpoint.MATCHES));
+	}
+	
+	/**
+	 * retrieves the participant list from the Challonge website without publishing it
+	 * 
+	 * @return list of participants
+	 * @throws ChallongeException if the participant list could not be retrieved
+	 */
+	private List<Participant> fetchParticipants() throws ChallongeException
+	{
+		List<Participant> list = Participant.createParticipantListFromXML(apiKey, id, fetchListXML(Endpoint.PARTICIPANTS));
+		if(list == null)
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		
+		return list;
+	}
+	
+	/**
+	 * returns the description of this Tournament
+	 * 
+	 * @return description (possibly empty)
+	 */
+	public synchronized String getDescription()
+	{
+		return description;
+	}
+	
+	/**
+	 * returns the coalescer shared by concurrent refresh(), updateMatches() and
+	 * updateParticipants() calls on this Tournament; it is disabled until enabled with
+	 * {@link RequestCoalescer#setEnabled(boolean)}, and writes made through this Tournament empty it
+	 * 
+	 * @return coalescer of snapshots
+	 */
+	public RequestCoalescer<TournamentSnapshot> getRefreshCoalescer()
+	{
+		return refreshes;
+	}
+	
 	/**
 	 * returns the ID of this Tournament
 	 * 
@@ -357,11 +563,12 @@ public class Tournament {
 	/**
 	 * returns the list of Matches in this Tournament
 	 * 
-	 * @return the list of Matches in this Tournament
+	 * @return a copy of the list of Matches in this Tournament (see {@link #getSnapshot()} to
+	 * read it without copying)
 	 */
 	public ArrayList<Match> getMatches()
 	{
-		return matches;
+		return new ArrayList<Match>(snapshot.get().getMatches());
 	}
 	
 	/**
@@ -369,7 +576,7 @@ public class Tournament {
 	 * 
 	 * @return the name of this Tournament
 	 */
-	public String getName()
+	public synchronized String getName()
 	{
 		return name;
 	}
@@ -382,22 +589,228 @@ public class Tournament {
 	 */
 	public Participant getParticipantByID(int id)
 	{
-		for(int i = 0; i < participants.size(); i++)
-			if(participants.get(i).getID() == id)
-				return participants.get(i);
-		
-		// Not found
-		return null;
+		return snapshot.get().getParticipantByID(id);
 	}
 	
 	/**
 	 * returns the list of participants in this Tournament
 	 * 
-	 * @return the list of participants in this Tournament
+	 * @return a copy of the list of participants in this Tournament (see {@link #getSnapshot()}
+	 * to read it without copying)
 	 */
 	public ArrayList<Participant> getParticipants()
 	{
-		return participants;
+		return new ArrayList<Participant>(snapshot.get().getParticipants());
+	}
+	
+	/**
+	 * returns the state of this Tournament when it was retrieved
+	 * 
+	 * @return tournament state (STATE_PENDING, STATE_UNDERWAY, etc.), or <b>null</b> if unknown
+	 */
+	public synchronized String getState()
+	{
+		return state;
+	}
+	
+	/**
+	 * returns the current participants and matches of this Tournament; the snapshot never
+	 * changes, later refreshes publish a new one
+	 * 
+	 * @return current snapshot
+	 */
+	public TournamentSnapshot getSnapshot()
+	{
+		return snapshot.get();
+	}
+	
+	/**
+	 * returns the subdomain of this Tournament
+	 * 
+	 * @return subdomain, or <b>null</b> if the tournament has no subdomain
+	 */
+	public synchronized String getSubdomain()
+	{
+		return subdomain;
+	}
+	
+	/**
+	 * returns the type of this Tournament
+	 * 
+	 * @return tournament type (from <b>Tournament.TYPES</b>)
+	 */
+	public synchronized String getType()
+	{
+		return type;
+	}
+	
+	/**
+	 * returns the custom URL of this Tournament
+	 * 
+	 * @return URL, without the subdomain
+	 */
+	public synchronized String getURL()
+	{
+		return url;
+	}
+	
+	/**
+	 * retrieves the participants and then the matches of this Tournament
+	 * 
+	 * @throws ChallongeException if either list could not be retrieved
+	 */
+	/* package */ void hydrate() throws ChallongeException
+	{
+		refresh();
+	}
+	
+	/**
+	 * forgets the refreshes shared by the coalescer, so reads after a write see it
+	 */
+	/* package */ void invalidateRefreshes()
+	{
+		refreshes.invalidateAll();
+	}
+	
+	/**
+	 * returns whether this Tournament had ended when it was retrieved; the results of an ended
+	 * tournament no longer change
+	 * 
+	 * @return <b>true</b> if the state is STATE_COMPLETE
+	 */
+	public synchronized boolean isComplete()
+	{
+		return STATE_COMPLETE.equals(state);
+	}
+	
+	/**
+	 * retrieves the match list and publishes it with the current participants
+	 * 
+	 * @return newly published snapshot
+	 * @throws ChallongeException if the match list could not be retrieved
+	 */
+	private TournamentSnapshot publishMatches() throws ChallongeException
+	{
+		ChallongeEvents.Hydration event = ChallongeEvents.beginHydration();
+		List<Match> updated = fetchMatches(snapshot.get());
+		
+		TournamentSnapshot current;
+		TournamentSnapshot next;
+		do
+		{
+			current = snapshot.get();
+			next = current.withMatches(updated);
+		} while(!snapshot.compareAndSet(current, next));
+		ChallongeEvents.endHydration(event, ChallongeEvents.PHASE_MATCHES, id, next);
+		
+		return next;
+	}
+	
+	/**
+	 * retrieves the participant list and publishes it with the current matches
+	 * 
+	 * @return newly published snapshot
+	 * @throws ChallongeException if the participant list could not be retrieved
+	 */
+	private TournamentSnapshot publishParticipants() throws ChallongeException
+	{
+		ChallongeEvents.Hydration event = ChallongeEvents.beginHydration();
+		List<Participant> updated = fetchParticipants();
+		
+		TournamentSnapshot current;
+		TournamentSnapshot next;
+		do
+		{
+			current = snapshot.get();
+			next = current.withParticipants(updated);
+		} while(!snapshot.compareAndSet(current, next));
+		ChallongeEvents.endHydration(event, ChallongeEvents.PHASE_PARTICIPANTS, id, next);
+		
+		return next;
+	}
+	
+	/**
+	 * retrieves the participants and matches of this Tournament and publishes both at once, so
+	 * readers see either the old or the new lists but never a mix of both
+	 * 
+	 * @return newly published snapshot
+	 * @throws ChallongeException if either list could not be retrieved
+	 */
+	public TournamentSnapshot refresh() throws ChallongeException
+	{
+		return refreshes.execute(COALESCE_REFRESH, new Callable<TournamentSnapshot>() {
+			@Override
+			public TournamentSnapshot call() throws ChallongeException
+			{
+				return publishRefresh();
+			}
+		});
+	}
+	
+	/**
+	 * retrieves the participants and matches of this Tournament and publishes both at once
+	 * 
+	 * @return newly published snapshot
+	 * @throws ChallongeException if either list could not be retrieved
+	 */
+	private TournamentSnapshot publishRefresh() throws ChallongeException
+	{
+		ChallongeEvents.Hydration event = ChallongeEvents.beginHydration();
+		List<Participant> updatedParticipants = fetchParticipants();
+		TournamentSnapshot lookup = new TournamentSnapshot(0, updatedParticipants, new ArrayList<Match>());
+		List<Match> updatedMatches = fetchMatches(lookup);
+		
+		TournamentSnapshot current;
+		TournamentSnapshot next;
+		do
+		{
+			current = snapshot.get();
+			next = current.withParticipantsAndMatches(updatedParticipants, updatedMatches);
+		} while(!snapshot.compareAndSet(current, next));
+		ChallongeEvents.endHydration(event, ChallongeEvents.PHASE_REFRESH, id, next);
+		
+		return next;
+	}
+	
+	/**
+	 * publishes participants and matches obtained without contacting the server, such as from a
+	 * cache; a snapshot that is already newer than the empty one is kept
+	 * 
+	 * @param participants participant list
+	 * @param matches match list
+	 * @return <b>true</b> if the lists were published
+	 */
+	/* package */ boolean restore(List<Participant> participants, List<Match> matches)
+	{
+		TournamentSnapshot next = TournamentSnapshot.EMPTY.withParticipantsAndMatches(participants, matches);
+		return snapshot.compareAndSet(TournamentSnapshot.EMPTY, next);
+	}
+	
+	/**
+	 * retrieves the match list from the Challonge website, reading only the fields kept by a
+	 * projection; the matches are returned without replacing this Tournament's match list
+	 * 
+	 * @param p fields to read (players are resolved against the current participant list)
+	 * @return list of matches; players missing from the participant list (all of them if this
+	 * Tournament was not hydrated) are participants with only an ID and a <b>null</b> name
+	 * @throws ChallongeException if the match list could not be retrieved
+	 */
+	public List<Match> retrieveMatches(Projection p) throws ChallongeException
+	{
+		return Match.createMatchListFromXML(apiKey, this, snapshot.get(), fetchListXML(Endpoint.MATCHES), p);
+	}
+	
+	/**
+	 * retrieves the participant list from the Challonge website, reading only the fields kept by a
+	 * projection; the participants are returned without replacing this Tournament's participant list
+	 * 
+	 * @param p fields to read
+	 * @return list of participants
+	 * @throws ChallongeException if the participant list could not be retrieved
+	 */
+	public List<Participant> retrieveParticipants(Projection p) throws ChallongeException
+	{
+		return Participant.createParticipantListFromXML(apiKey, id, fetchListXML(Endpoint.PARTICIPANTS), p);
 	}
 	
 	/**
@@ -409,48 +822,73 @@ public class Tournament {
 	{
 		try
 		{
-			String urlString = Challonge.URL_START + "tournaments/" + id + "/start.xml?" + PARAM_KEY + Challonge.encodeString(apiKey);
-			URL url = new URL(urlString);
-			Challonge.sendHttpRequest(url, "POST");
-		}
-		catch(ChallongeException ce)
-		{
-			throw ce;
+			sendStart(apiKey, id);
 		}
-		catch(IOException ioe)
+		finally
 		{
-			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			invalidateRefreshes();
 		}
 	}
 	
+	/**
+	 * creates an XML element that {@link #createTournamentFromElement(String, String, Element)}
+	 * reads back into an equal (unhydrated) Tournament
+	 * 
+	 * @param doc document that will contain the element
+	 * @return new element
+	 */
+	/* package */ synchronized Element toElement(Document doc)
+	{
+		Element e = doc.createElement(XML_TOURNAMENT);
+		Challonge.appendXMLElement(e, XML_ID, Integer.toString(id));
+		Challonge.appendXMLElement(e, XML_NAME, name);
+		Challonge.appendXMLElement(e, XML_URL, url);
+		Challonge.appendXMLElement(e, XML_DESCRIPTION, description);
+		Challonge.appendXMLElement(e, XML_TYPE, type);
+		if(state != null)
+			Challonge.appendXMLElement(e, XML_STATE, state);
+		
+		return e;
+	}
+	
 	/**
 	 * returns a String representation of this Tournament
 	 * 
 	 * @return String representation of this Tournament
 	 */
 	@Override
-	public String toString() // for testing purposes
+	public synchronized String toString() // for testing purposes
 	{
 		return name + ": (ID: " + id + ") (URL: " + url + ")";
 	}
 	
+	/**
+	 * starts an update of this Tournament's attributes; the changes are sent together by
+	 * {@link TournamentUpdate#send()}
+	 * 
+	 * @return empty update of this Tournament
+	 */
+	public TournamentUpdate update()
+	{
+		return new TournamentUpdate(apiKey, id, this);
+	}
+	
+	/**
+	 * updates the match list from the Challonge website, resolving players against the current
+	 * participant list
+	 * 
+	 * @return updated list of matches
+	 * @throws ChallongeException if updated match list could not be retrieved
+	 */
 	public ArrayList<Match> updateMatches() throws ChallongeException
 	{
-		System.out.println("Getting matches for " + name); // debug
-		
-		try
-		{
-			String urlString = Challonge.URL_START + "tournaments/" + id + "/matches.xml?" + PARAM_KEY + Challonge.encodeString(apiKey);
-			URL url = new URL(urlString);
-			String xml = Challonge.sendHttpRequest(url, "GET");
-			System.out.println(xml);
-			matches = Match.createMatchListFromXML(apiKey, this, xml);
-			return matches;
-		}
-		catch(Exception e) // TODO: Actually handle exceptions
-		{
-			throw new ChallongeException(ChallongeException.REASON_XML);
-		}
+		return new ArrayList<Match>(refreshes.execute(COALESCE_MATCHES, new Callable<TournamentSnapshot>() {
+			@Override
+			public TournamentSnapshot call() throws ChallongeException
+			{
+				return publishMatches();
+			}
+		}).getMatches());
 	}
 	
 	/**
@@ -461,26 +899,12 @@ public class Tournament {
 	 */
 	public ArrayList<Participant> updateParticipants() throws ChallongeException
 	{
-		try
-		{
-			String urlString = Challonge.URL_START + "tournaments/" + id + "/participants.xml?";
-			urlString += PARAM_KEY + Challonge.encodeString(apiKey);
-			URL url = new URL(urlString);
-			String xml = Challonge.sendHttpRequest(url, "GET");
-			participants = Participant.createParticipantListFromXML(apiKey, xml);
-			return participants;
-		}
-		catch(MalformedURLException mfe)
-		{
-			throw new ChallongeException(ChallongeException.REASON_INVALID_URL);
-		}
-		catch(ChallongeException ce)
-		{
-			throw ce;
-		}
-		catch(IOException ioe)
-		{
-			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
-		}
+		return new ArrayList<Participant>(refreshes.execute(COALESCE_PARTICIPANTS, new Callable<TournamentSnapshot>() {
+			@Override
+			public TournamentSnapshot call() throws ChallongeException
+			{
+				return publishParticipants();
+			}
+		}).getParticipants());
 	}
 }
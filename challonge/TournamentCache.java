@@ -0,0 +1,474 @@
+package challonge;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+public class TournamentCache {
+	
+	// CONSTANTS - Defaults
+	public static final long DEFAULT_MAX_WEIGHT = 100000; // about 100 large brackets
+	public static final long DEFAULT_ACTIVE_TTL = 30 * 1000L;
+	public static final long NO_EXPIRY = 0;
+	
+	// CONSTANTS - Time
+	private static final long NANOS_PER_MILLI = 1000000L;
+	
+	// DATA MEMBERS
+	private Loader loader;
+	private long maxWeight;
+	private long activeTTL; // ms, for tournaments that have not ended
+	private long completeTTL; // ms, for tournaments that have ended
+	private LinkedHashMap<Integer, Entry> entries; // access order, least recently used first
+	private HashMap<String, Integer> ids; // URL (or "subdomain-url") to tournament ID
+	private HashMap<String, Load> loads; // in progress only, by identifier
+	private int generation; // incremented when tournaments are invalidated
+	private long weight;
+	private long hits;
+	private long misses;
+	private long evictions;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a cache with the default weight limit, where tournaments that have not ended expire
+	 * after DEFAULT_ACTIVE_TTL and ended tournaments never expire
+	 * 
+	 * @param l loads tournaments that are not cached (or <b>null</b> to only serve what was put)
+	 */
+	public TournamentCache(Loader l)
+	{
+		this(l, DEFAULT_MAX_WEIGHT, DEFAULT_ACTIVE_TTL, NO_EXPIRY);
+	}
+	
+	/**
+	 * creates a cache
+	 * 
+	 * @param l loads tournaments that are not cached (or <b>null</b> to only serve what was put)
+	 * @param max maximum total weight; a tournament weighs one plus its participant and match counts
+	 * @param active how long a tournament that has not ended is served, in milliseconds (or NO_EXPIRY)
+	 * @param complete how long an ended tournament is served, in milliseconds (or NO_EXPIRY)
+	 * @throws IllegalArgumentException if the weight limit is not positive or a TTL is negative
+	 */
+	public TournamentCache(Loader l, long max, long active, long complete)
+	{
+		if((max <= 0) || (active < 0) || (complete < 0))
+			throw new IllegalArgumentException();
+		
+		loader = l;
+		maxWeight = max;
+		activeTTL = active;
+		completeTTL = complete;
+		entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true);
+		ids = new HashMap<String, Integer>();
+		loads = new HashMap<String, Load>();
+	}
+	
+	// Static
+	/**
+	 * returns the identifier a tournament is requested by when it is not requested by ID
+	 * 
+	 * @param t tournament
+	 * @return URL, prefixed with "subdomain-" if the tournament has a subdomain
+	 */
+	private static String getKey(Tournament t)
+	{
+		return (t.getSubdomain() == null) ? t.getURL() : t.getSubdomain() + "-" + t.getURL();
+	}
+	
+	/**
+	 * returns the weight of a tournament
+	 * 
+	 * @param t tournament
+	 * @return one plus the number of participants and matches
+	 */
+	private static long getWeight(Tournament t)
+	{
+		TournamentSnapshot s = t.getSnapshot();
+		return 1 + s.getParticipants().size() + s.getMatches().size();
+	}
+	
+	/**
+	 * parses an identifier that is a tournament ID
+	 * 
+	 * @param idOrURL identifier
+	 * @return tournament ID, or <b>null</b> if the identifier is a URL
+	 */
+	private static Integer parseID(String idOrURL)
+	{
+		if(idOrURL.isEmpty())
+			return null;
+		for(int i = 0; i < idOrURL.length(); i++)
+			if(!Character.isDigit(idOrURL.charAt(i)))
+				return null;
+		
+		try
+		{
+			return Integer.valueOf(idOrURL);
+		}
+		catch(NumberFormatException nfe)
+		{
+			return null;
+		}
+	}
+	
+	// Instance methods
+	/**
+	 * removes every tournament; statistics are kept
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		ids.clear();
+		weight = 0;
+		forgetLoads();
+	}
+	
+	/**
+	 * makes loads in progress private to the requests already waiting for them, and keeps their
+	 * results out of the cache, since they may predate an invalidation
+	 */
+	private void forgetLoads()
+	{
+		loads.clear();
+		generation++;
+	}
+	
+	/**
+	 * returns a tournament, loading it if it is not cached or has expired; concurrent requests for
+	 * the same tournament share one load
+	 * 
+	 * @param idOrURL tournament ID, URL, or "subdomain-url"
+	 * @return the tournament, or <b>null</b> if it is not cached and there is no loader
+	 * @throws ChallongeException if the tournament could not be loaded
+	 */
+	public Tournament get(final String idOrURL) throws ChallongeException
+	{
+		Tournament t = getIfPresent(idOrURL);
+		if((t != null) || (loader == null))
+			return t;
+		
+		Load load;
+		boolean leader = false;
+		synchronized(this)
+		{
+			load = loads.get(idOrURL);
+			if(load == null)
+			{
+				load = new Load(new Callable<Tournament>() {
+					@Override
+					public Tournament call() throws ChallongeException
+					{
+						return loader.load(idOrURL);
+					}
+				}, generation);
+				loads.put(idOrURL, load);
+				leader = true;
+			}
+		}
+		if(!leader)
+			return load.get();
+		
+		load.task.run();
+		synchronized(this)
+		{
+			loads.remove(idOrURL, load);
+			t = load.get();
+			if(load.generation == generation)
+				put(t);
+		}
+		
+		return t;
+	}
+	
+	/**
+	 * returns the number of tournaments removed to stay within the weight limit
+	 * 
+	 * @return number of evictions (expired tournaments are not counted)
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
+	
+	/**
+	 * returns the number of requests that were served from the cache
+	 * 
+	 * @return number of hits
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+	
+	/**
+	 * returns the fraction of requests that were served from the cache
+	 * 
+	 * @return hits divided by requests, or 0 if there were no requests
+	 */
+	public synchronized double getHitRate()
+	{
+		long requests = hits + misses;
+		return (requests == 0) ? 0 : (double) hits / requests;
+	}
+	
+	/**
+	 * returns a cached tournament without loading it
+	 * 
+	 * @param idOrURL tournament ID, URL, or "subdomain-url"
+	 * @return the tournament, or <b>null</b> if it is not cached or has expired
+	 */
+	public synchronized Tournament getIfPresent(String idOrURL)
+	{
+		Integer id = parseID(idOrURL);
+		if(id == null)
+			id = ids.get(idOrURL);
+		
+		Entry e = (id == null) ? null : entries.get(id);
+		if((e != null) && e.isExpired(System.nanoTime()))
+		{
+			remove(id);
+			e = null;
+		}
+		
+		if(e == null)
+		{
+			misses++;
+			return null;
+		}
+		
+		hits++;
+		reweigh(e);
+		return e.tournament;
+	}
+	
+	/**
+	 * returns the number of requests that were not served from the cache
+	 * 
+	 * @return number of misses
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+	
+	/**
+	 * returns the total weight of the cached tournaments; a tournament is weighed again each time
+	 * it is served, so growth since then is not counted yet
+	 * 
+	 * @return weight (one plus the participant and match counts of each tournament)
+	 */
+	public synchronized long getWeight()
+	{
+		return weight;
+	}
+	
+	/**
+	 * removes a tournament, so the next request loads it again instead of sharing a load that
+	 * was already in progress
+	 * 
+	 * @param id tournament ID
+	 */
+	public synchronized void invalidate(int id)
+	{
+		remove(id);
+		forgetLoads();
+	}
+	
+	/**
+	 * adds a tournament, replacing any cached copy, then removes the least recently used
+	 * tournaments until the cache is within its weight limit; a tournament heavier than the limit is
+	 * not cached
+	 * 
+	 * @param t tournament with its participants and matches
+	 */
+	public synchronized void put(Tournament t)
+	{
+		remove(t.getID());
+		
+		long w = getWeight(t);
+		if(w > maxWeight)
+			return;
+		
+		long ttl = t.isComplete() ? completeTTL : activeTTL;
+		long expiresAt = (ttl == NO_EXPIRY) ? 0 : System.nanoTime() + ttl * NANOS_PER_MILLI;
+		entries.put(t.getID(), new Entry(t, w, expiresAt));
+		if(t.getURL() != null)
+			ids.put(getKey(t), t.getID());
+		weight += w;
+		trim();
+	}
+	
+	/**
+	 * weighs a served tournament again, since its lists are updated in place, and removes the
+	 * least recently used tournaments if it grew past the weight limit
+	 * 
+	 * @param e served entry
+	 */
+	private void reweigh(Entry e)
+	{
+		long w = getWeight(e.tournament);
+		if(w == e.weight)
+			return;
+		
+		weight += w - e.weight;
+		e.weight = w;
+		trim();
+	}
+	
+	/**
+	 * removes a tournament and its URL
+	 * 
+	 * @param id tournament ID
+	 */
+	private void remove(int id)
+	{
+		Entry e = entries.remove(id);
+		if(e != null)
+			unmap(e);
+	}
+	
+	/**
+	 * returns the number of cached tournaments
+	 * 
+	 * @return number of tournaments, including expired tournaments not yet requested again
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+	
+	/**
+	 * removes the least recently used tournaments until the cache is within its weight limit
+	 */
+	private void trim()
+	{
+		// Eldest entries are the least recently used
+		Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator();
+		while((weight > maxWeight) && it.hasNext())
+		{
+			Entry eldest = it.next().getValue();
+			it.remove();
+			unmap(eldest);
+			evictions++;
+		}
+	}
+	
+	/**
+	 * releases the weight and URL of an entry that was removed from the entries
+	 * 
+	 * @param e removed entry
+	 */
+	private void unmap(Entry e)
+	{
+		weight -= e.weight;
+		if(e.tournament.getURL() != null)
+			ids.remove(getKey(e.tournament), e.tournament.getID());
+	}
+	
+	// Classes
+	/**
+	 * a cached tournament with its weight and expiry
+	 */
+	private static class Entry {
+		
+		// DATA MEMBERS
+		private Tournament tournament;
+		private long weight;
+		private long expiresAt; // System.nanoTime(), 0 if the entry never expires
+		
+		// METHODS
+		/**
+		 * creates an entry
+		 * 
+		 * @param t tournament
+		 * @param w weight of the tournament
+		 * @param expires time the entry expires (System.nanoTime(), or 0 to never expire)
+		 */
+		private Entry(Tournament t, long w, long expires)
+		{
+			tournament = t;
+			weight = w;
+			expiresAt = expires;
+		}
+		
+		/**
+		 * returns whether the entry may no longer be served
+		 * 
+		 * @param now System.nanoTime()
+		 * @return <b>true</b> if the entry has expired
+		 */
+		private boolean isExpired(long now)
+		{
+			return (expiresAt != 0) && (now - expiresAt > 0);
+		}
+	}
+	
+	/**
+	 * a load in progress, shared by the requests made while it runs
+	 */
+	private static class Load {
+		
+		// DATA MEMBERS
+		private FutureTask<Tournament> task;
+		private int generation; // of the cache when the load started
+		
+		// METHODS
+		/**
+		 * creates a load that has not started
+		 * 
+		 * @param call retrieves the tournament
+		 * @param g generation of the cache
+		 */
+		private Load(Callable<Tournament> call, int g)
+		{
+			task = new FutureTask<Tournament>(call);
+			generation = g;
+		}
+		
+		/**
+		 * waits for the load to complete and returns the tournament
+		 * 
+		 * @return loaded tournament
+		 * @throws ChallongeException if the load failed or the wait was interrupted
+		 */
+		private Tournament get() throws ChallongeException
+		{
+			try
+			{
+				return task.get();
+			}
+			catch(InterruptedException ie)
+			{
+				Thread.currentThread().interrupt();
+				throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			}
+			catch(ExecutionException ee)
+			{
+				if(ee.getCause() instanceof ChallongeException)
+					throw (ChallongeException) ee.getCause();
+				throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+			}
+		}
+	}
+	
+	// Interfaces
+	/**
+	 * loads tournaments that are not cached
+	 */
+	public interface Loader {
+		
+		/**
+		 * retrieves a tournament with its participants and matches
+		 * 
+		 * @param idOrURL tournament ID, URL, or "subdomain-url"
+		 * @return the tournament
+		 * @throws ChallongeException if the tournament could not be retrieved
+		 */
+		Tournament load(String idOrURL) throws ChallongeException;
+	}
+}
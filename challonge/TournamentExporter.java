@@ -0,0 +1,570 @@
+package challonge;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class TournamentExporter {
+	
+	// CONSTANTS - Defaults
+	private static final int DEFAULT_THREADS = 4;
+	private static final int DEFAULT_CHUNK_ROWS = 100000;
+	private static final int DEFAULT_INDEX_DAYS = 30;
+	
+	// CONSTANTS - Files
+	private static final String FILE_SUFFIX = ".csv";
+	private static final String CHUNK_FORMAT = "%s-%05d" + FILE_SUFFIX; // table name, chunk number
+	private static final int WRITE_BUFFER_SIZE = 65536;
+	
+	// CONSTANTS - Tables
+	private static final String TABLE_TOURNAMENTS = "tournaments";
+	private static final String TABLE_PARTICIPANTS = "participants";
+	private static final String TABLE_MATCHES = "matches";
+	private static final String TABLE_PLAYERS = "players";
+	private static final String HEADER_TOURNAMENTS = "tournament_id,name,url,subdomain,type,state,participants,matches";
+	private static final String HEADER_PARTICIPANTS = "tournament_id,participant_id,player_id,seed,user_id";
+	private static final String HEADER_MATCHES = "tournament_id,match_id,round,state,player1_id,player2_id,player1_player_id,player2_player_id,result,scores,completed_at";
+	private static final String HEADER_PLAYERS = "player_id,name";
+	
+	// CONSTANTS - Threads
+	private static final String THREAD_NAME = "challonge-export";
+	
+	// DATA MEMBERS
+	private File directory;
+	private PlayerRegistry registry;
+	private int threads;
+	private int chunkRows;
+	private int indexDays;
+	private Table tournaments;
+	private Table participants;
+	private Table matches;
+	private int exported; // guarded by this
+	private int failed; // guarded by this
+	private ChallongeException writeFailure; // first failure to write, guarded by this
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an exporter writing into a directory; each table is written as numbered CSV chunks
+	 * (<code>matches-00000.csv</code>, <code>matches-00001.csv</code>, ...) that each start with a
+	 * header; participants and matches refer to players by ID, and player names are written once,
+	 * to <code>players-00000.csv</code>, when the exporter is closed
+	 * 
+	 * @param dir output directory (created if it does not exist)
+	 * @param r registry mapping participants to players (shared with other users if desired)
+	 */
+	public TournamentExporter(File dir, PlayerRegistry r)
+	{
+		directory = dir;
+		registry = r;
+		threads = DEFAULT_THREADS;
+		chunkRows = DEFAULT_CHUNK_ROWS;
+		indexDays = DEFAULT_INDEX_DAYS;
+		tournaments = new Table(TABLE_TOURNAMENTS, HEADER_TOURNAMENTS);
+		participants = new Table(TABLE_PARTICIPANTS, HEADER_PARTICIPANTS);
+		matches = new Table(TABLE_MATCHES, HEADER_MATCHES);
+	}
+	
+	// Static
+	/**
+	 * appends a CSV field, quoting it if necessary
+	 * 
+	 * @param row row being built
+	 * @param value field value (<b>null</b> is written as an empty field)
+	 * @param last <b>true</b> if the field ends the row
+	 */
+	private static void appendField(StringBuilder row, Object value, boolean last)
+	{
+		if(value != null)
+		{
+			String text = value.toString();
+			boolean quote = false;
+			for(int i = 0; (i < text.length()) && !quote; i++)
+			{
+				char c = text.charAt(i);
+				quote = (c == ',') || (c == '"') || (c == '\n') || (c == '\r');
+			}
+			
+			if(quote)
+				row.append('"').append(text.replace("\"", "\"\"")).append('"');
+			else
+				row.append(text);
+		}
+		
+		row.append(last ? '\n' : ',');
+	}
+	
+	// Instance methods
+	/**
+	 * writes the player dictionary and closes every chunk; the exporter cannot be used afterwards
+	 * <p>
+	 * Every table is closed even if another one could not be written.
+	 * 
+	 * @throws ChallongeException if a file could not be written (the first failure is thrown)
+	 */
+	public synchronized void close() throws ChallongeException
+	{
+		ChallongeException failure = null;
+		Table[] tables = {tournaments, participants, matches};
+		for(int i = 0; i < tables.length; i++)
+		{
+			try
+			{
+				tables[i].close();
+			}
+			catch(ChallongeException ce)
+			{
+				if(failure == null)
+					failure = ce;
+			}
+		}
+		
+		Table players = new Table(TABLE_PLAYERS, HEADER_PLAYERS);
+		try
+		{
+			StringBuilder rows = new StringBuilder();
+			int count = registry.size();
+			for(int i = 0; i < count; i++)
+			{
+				appendField(rows, i, false);
+				appendField(rows, registry.getPlayerName(i), true);
+				if(rows.length() >= WRITE_BUFFER_SIZE)
+				{
+					players.append(rows, 0);
+					rows.setLength(0);
+				}
+			}
+			players.append(rows, 0);
+		}
+		catch(ChallongeException ce)
+		{
+			if(failure == null)
+				failure = ce;
+		}
+		finally
+		{
+			try
+			{
+				players.close();
+			}
+			catch(ChallongeException ce)
+			{
+				if(failure == null)
+					failure = ce;
+			}
+		}
+		
+		if(failure != null)
+			throw failure;
+	}
+	
+	/**
+	 * writes tournaments from an iterator, several at a time; only the tournaments being written are
+	 * held in memory, so the iterator should produce them lazily
+	 * 
+	 * @param source tournaments to write
+	 * @param refresh <b>true</b> to retrieve the participants and matches of each tournament before
+	 * writing it, <b>false</b> if they are already hydrated
+	 * @throws ChallongeException if a file could not be written (tournaments that could not be
+	 * retrieved are counted by {@link #getFailedCount()} instead)
+	 */
+	public void export(final Iterator<Tournament> source, final boolean refresh) throws ChallongeException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, THREAD_NAME);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		for(int i = 0; i < threads; i++)
+		{
+			executor.execute(new Runnable() {
+				@Override
+				public void run()
+				{
+					while(true)
+					{
+						Tournament t;
+						synchronized(source)
+						{
+							if(!source.hasNext() || (getWriteFailure() != null))
+								return;
+							t = source.next();
+						}
+						write(t, refresh);
+					}
+				}
+			});
+		}
+		
+		executor.shutdown();
+		try
+		{
+			while(!executor.awaitTermination(1, TimeUnit.MINUTES))
+				continue;
+		}
+		catch(InterruptedException ie)
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+		}
+		
+		ChallongeException failure = getWriteFailure();
+		if(failure != null)
+			throw failure;
+	}
+	
+	/**
+	 * retrieves the tournaments matching a query and writes each one with its participants and
+	 * matches; a tournament is released as soon as it has been written
+	 * <p>
+	 * If both creation dates of the query are set, the index is retrieved a few days at a time
+	 * (see {@link #setIndexDays(int)}), each part once the previous one has been taken, so only one
+	 * part of the index is held in memory.
+	 * 
+	 * @param query filters to apply to the index
+	 * @throws ChallongeException if the index could not be retrieved or a file could not be written
+	 */
+	public void export(TournamentQuery query) throws ChallongeException
+	{
+		List<TournamentQuery> parts = query.hasDateRange() ? query.split(indexDays) : Collections.singletonList(query);
+		IndexIterator index = new IndexIterator(parts);
+		export(index, true);
+		
+		if(index.failure != null)
+			throw index.failure;
+	}
+	
+	/**
+	 * returns the number of tournaments written
+	 * 
+	 * @return number of exported tournaments
+	 */
+	public synchronized int getExportedCount()
+	{
+		return exported;
+	}
+	
+	/**
+	 * returns the number of tournaments that could not be retrieved and were not written
+	 * 
+	 * @return number of failed tournaments
+	 */
+	public synchronized int getFailedCount()
+	{
+		return failed;
+	}
+	
+	/**
+	 * returns the first failure to write a file
+	 * 
+	 * @return failure, or <b>null</b> if every write succeeded
+	 */
+	private synchronized ChallongeException getWriteFailure()
+	{
+		return writeFailure;
+	}
+	
+	/**
+	 * returns the player a participant is mapped to
+	 * 
+	 * @param p participant (can be <b>null</b>)
+	 * @return player ID, or <b>null</b> if the participant is unknown
+	 */
+	private Integer getPlayerID(Participant p)
+	{
+		if((p == null) || (p.getName() == null))
+			return null;
+		
+		return registry.register(p);
+	}
+	
+	/**
+	 * sets how many rows a chunk holds before the next chunk is started; the rows of one tournament
+	 * are never split, so a chunk can exceed this by the rows of one tournament
+	 * 
+	 * @param n rows per chunk
+	 * @throws ChallongeException if <b>n</b> is not positive
+	 */
+	public void setChunkRows(int n) throws ChallongeException
+	{
+		if(n <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		chunkRows = n;
+	}
+	
+	/**
+	 * sets how many days of the index are retrieved at once when exporting a query with both
+	 * creation dates set
+	 * 
+	 * @param days number of days per index request
+	 * @throws ChallongeException if <b>days</b> is not positive
+	 */
+	public void setIndexDays(int days) throws ChallongeException
+	{
+		if(days <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		indexDays = days;
+	}
+	
+	/**
+	 * sets how many tournaments are retrieved and written at once
+	 * 
+	 * @param n number of threads
+	 * @throws ChallongeException if <b>n</b> is not positive
+	 */
+	public void setThreads(int n) throws ChallongeException
+	{
+		if(n <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		threads = n;
+	}
+	
+	/**
+	 * writes one tournament; the rows of a tournament are contiguous in each table
+	 * 
+	 * @param t tournament
+	 * @param refresh <b>true</b> to retrieve its participants and matches first
+	 */
+	private void write(Tournament t, boolean refresh)
+	{
+		TournamentSnapshot s;
+		try
+		{
+			s = refresh ? t.refresh() : t.getSnapshot();
+		}
+		catch(ChallongeException ce)
+		{
+			synchronized(this)
+			{
+				failed++;
+			}
+			return;
+		}
+		
+		List<Participant> participantList = s.getParticipants();
+		List<Match> matchList = s.getMatches();
+		
+		StringBuilder tournamentRow = new StringBuilder();
+		appendField(tournamentRow, t.getID(), false);
+		appendField(tournamentRow, t.getName(), false);
+		appendField(tournamentRow, t.getURL(), false);
+		appendField(tournamentRow, t.getSubdomain(), false);
+		appendField(tournamentRow, t.getType(), false);
+		appendField(tournamentRow, t.getState(), false);
+		appendField(tournamentRow, participantList.size(), false);
+		appendField(tournamentRow, matchList.size(), true);
+		
+		StringBuilder participantRows = new StringBuilder();
+		for(int i = 0; i < participantList.size(); i++)
+		{
+			Participant p = participantList.get(i);
+			appendField(participantRows, t.getID(), false);
+			appendField(participantRows, p.getID(), false);
+			appendField(participantRows, getPlayerID(p), false);
+			appendField(participantRows, p.getSeed(), false);
+			appendField(participantRows, (p.getUserID() == Participant.NO_USER) ? null : p.getUserID(), true);
+		}
+		
+		StringBuilder matchRows = new StringBuilder();
+		for(int i = 0; i < matchList.size(); i++)
+		{
+			Match m = matchList.get(i);
+			Participant p1 = m.getPlayer1();
+			Participant p2 = m.getPlayer2();
+			appendField(matchRows, t.getID(), false);
+			appendField(matchRows, m.getID(), false);
+			appendField(matchRows, (m.getRound() == Match.NO_ROUND) ? null : m.getRound(), false);
+			appendField(matchRows, m.getState(), false);
+			appendField(matchRows, (p1 == null) ? null : p1.getID(), false);
+			appendField(matchRows, (p2 == null) ? null : p2.getID(), false);
+			appendField(matchRows, getPlayerID(p1), false);
+			appendField(matchRows, getPlayerID(p2), false);
+			appendField(matchRows, (m.getResult() == Match.RESULT_OPEN) ? null : m.getResult(), false);
+			appendField(matchRows, m.getScores(), false);
+			appendField(matchRows, (m.getCompletedAt() == Match.NO_TIME) ? null : m.getCompletedAt(), true);
+		}
+		
+		try
+		{
+			tournaments.append(tournamentRow, 1);
+			participants.append(participantRows, participantList.size());
+			matches.append(matchRows, matchList.size());
+			synchronized(this)
+			{
+				exported++;
+			}
+		}
+		catch(ChallongeException ce)
+		{
+			synchronized(this)
+			{
+				if(writeFailure == null)
+					writeFailure = ce;
+			}
+		}
+	}
+	
+	// Classes
+	/**
+	 * the tournaments of a split query, retrieving the index of each part once the previous part
+	 * has been taken; callers synchronize on the iterator
+	 */
+	private static class IndexIterator implements Iterator<Tournament> {
+		
+		// DATA MEMBERS
+		private ArrayDeque<TournamentQuery> parts; // not retrieved yet
+		private ArrayDeque<Tournament> index; // retrieved and not taken yet
+		private ChallongeException failure; // stops the iteration
+		
+		// METHODS
+		/**
+		 * creates an iterator that has not retrieved anything
+		 * 
+		 * @param p parts of the query, in order
+		 */
+		private IndexIterator(List<TournamentQuery> p)
+		{
+			parts = new ArrayDeque<TournamentQuery>(p);
+			index = new ArrayDeque<Tournament>();
+		}
+		
+		/**
+		 * returns whether a tournament is left, retrieving the next parts of the index if needed; a
+		 * part that could not be retrieved ends the iteration
+		 * 
+		 * @return <b>true</b> if a tournament is left
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			while(index.isEmpty() && !parts.isEmpty() && (failure == null))
+			{
+				TournamentQuery q = parts.poll();
+				try
+				{
+					String xml = Challonge.sendHttpRequest(q.getAPIKey(), q.buildURL(), "GET");
+					index.addAll(Tournament.createTournamentListFromXML(q.getAPIKey(), q.getSubdomain(), xml, false));
+				}
+				catch(ChallongeException ce)
+				{
+					failure = ce;
+				}
+			}
+			
+			return !index.isEmpty();
+		}
+		
+		/**
+		 * takes the next tournament; it is removed so written tournaments can be collected
+		 * 
+		 * @return tournament from the index
+		 */
+		@Override
+		public Tournament next()
+		{
+			return index.poll();
+		}
+	}
+	
+	/**
+	 * one table, written as a sequence of CSV chunks
+	 */
+	private class Table {
+		
+		// DATA MEMBERS
+		private String name;
+		private String header;
+		private Writer writer; // current chunk, null before the first row
+		private int chunk; // number of the next chunk
+		private int rows; // rows in the current chunk
+		
+		// METHODS
+		/**
+		 * creates a table; no file is created until rows are appended
+		 * 
+		 * @param n table name, used as the file name prefix
+		 * @param h header row, without the line break
+		 */
+		private Table(String n, String h)
+		{
+			name = n;
+			header = h;
+		}
+		
+		/**
+		 * appends rows, starting a new chunk first if the current one is full; rows appended together
+		 * stay in the same chunk
+		 * 
+		 * @param text rows, each ending with a line break
+		 * @param count number of rows (0 to never start a new chunk)
+		 * @throws ChallongeException if the rows could not be written
+		 */
+		private synchronized void append(CharSequence text, int count) throws ChallongeException
+		{
+			try
+			{
+				if((writer == null) || ((count > 0) && (rows >= chunkRows)))
+				{
+					close();
+					directory.mkdirs();
+					File file = new File(directory, String.format(CHUNK_FORMAT, name, chunk++));
+					writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+					writer.write(header);
+					writer.write('\n');
+					rows = 0;
+				}
+				
+				writer.append(text);
+				rows += count;
+			}
+			catch(IOException ioe)
+			{
+				throw new ChallongeException(ChallongeException.REASON_EXPORT);
+			}
+		}
+		
+		/**
+		 * closes the current chunk, if any
+		 * 
+		 * @throws ChallongeException if the chunk could not be written
+		 */
+		private synchronized void close() throws ChallongeException
+		{
+			if(writer == null)
+				return;
+			
+			try
+			{
+				writer.close();
+			}
+			catch(IOException ioe)
+			{
+				throw new ChallongeException(ChallongeException.REASON_EXPORT);
+			}
+			finally
+			{
+				writer = null;
+			}
+		}
+	}
+}
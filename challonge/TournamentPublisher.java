@@ -0,0 +1,335 @@
+package challonge;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TournamentPublisher implements Flow.Publisher<Tournament> {
+	
+	// CONSTANTS - Index
+	private static final int DEFAULT_INDEX_DAYS = 30;
+	
+	// CONSTANTS - Threads
+	private static final String THREAD_NAME = "challonge-publisher";
+	
+	// DATA MEMBERS
+	private static ExecutorService defaultExecutor; // shared by publishers created without an executor
+	private TournamentQuery query;
+	private Executor executor;
+	private volatile int indexDays;
+	private AtomicInteger failed;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a publisher that hydrates tournaments on a shared background thread pool
+	 * 
+	 * @param q index query whose results should be published
+	 */
+	public TournamentPublisher(TournamentQuery q)
+	{
+		this(q, getDefaultExecutor());
+	}
+	
+	/**
+	 * creates a publisher that hydrates tournaments using the given executor
+	 * 
+	 * @param q index query whose results should be published
+	 * @param e executor on which the index is retrieved and tournaments are hydrated
+	 */
+	public TournamentPublisher(TournamentQuery q, Executor e)
+	{
+		query = q;
+		executor = e;
+		indexDays = DEFAULT_INDEX_DAYS;
+		failed = new AtomicInteger();
+	}
+	
+	// Static
+	/**
+	 * returns the executor used by publishers created without one, creating it if necessary
+	 * 
+	 * @return shared executor with daemon threads
+	 */
+	private static synchronized ExecutorService getDefaultExecutor()
+	{
+		if(defaultExecutor == null)
+			defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, THREAD_NAME);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		
+		return defaultExecutor;
+	}
+	
+	// Instance methods
+	/**
+	 * returns the number of tournaments that could not be hydrated and were skipped, over every
+	 * subscription
+	 * 
+	 * @return number of skipped tournaments
+	 */
+	public int getFailedCount()
+	{
+		return failed.get();
+	}
+	
+	/**
+	 * sets how many days of the index are retrieved at once when the query has both creation
+	 * dates set; subscriptions already started keep their parts
+	 * 
+	 * @param days number of days per index request
+	 * @throws ChallongeException if <b>days</b> is not positive
+	 */
+	public void setIndexDays(int days) throws ChallongeException
+	{
+		if(days <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		indexDays = days;
+	}
+	
+	/**
+	 * subscribes to this publisher; every subscriber gets its own index request
+	 * 
+	 * @param subscriber subscriber to receive tournaments
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super Tournament> subscriber)
+	{
+		if(subscriber == null)
+			throw new NullPointerException();
+		
+		TournamentSubscription subscription = new TournamentSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+	
+	// Classes
+	/**
+	 * a single subscription: tournaments are hydrated and delivered one at a time, only while the
+	 * subscriber has outstanding demand
+	 * <p>
+	 * The index is retrieved on demand as well.  If both creation dates of the query are set, it
+	 * is split into parts of a few days (see {@link TournamentPublisher#setIndexDays(int)}), and
+	 * each part is retrieved once the previous one has been delivered; otherwise the whole index
+	 * is retrieved and parsed before the first tournament is delivered.  A tournament that could
+	 * not be hydrated is skipped and counted (see {@link TournamentPublisher#getFailedCount()}),
+	 * while an index part that could not be retrieved ends the stream with an error.
+	 */
+	private class TournamentSubscription implements Flow.Subscription, Runnable {
+		
+		// DATA MEMBERS
+		private Flow.Subscriber<? super Tournament> subscriber;
+		private AtomicLong demand;
+		private AtomicInteger pendingDrains;
+		private volatile boolean cancelled;
+		private volatile IllegalArgumentException invalidRequest; // signalled by the drain thread
+		private ArrayDeque<TournamentQuery> parts; // not retrieved yet, null before the first drain
+		private ArrayDeque<Tournament> index; // retrieved and not delivered yet
+		
+		// METHODS
+		/**
+		 * creates a subscription
+		 * 
+		 * @param s subscriber to deliver tournaments to
+		 */
+		private TournamentSubscription(Flow.Subscriber<? super Tournament> s)
+		{
+			subscriber = s;
+			demand = new AtomicLong();
+			pendingDrains = new AtomicInteger();
+			index = new ArrayDeque<Tournament>();
+		}
+		
+		/**
+		 * stops delivery; the tournament being hydrated (if any) is dropped
+		 */
+		@Override
+		public void cancel()
+		{
+			cancelled = true;
+		}
+		
+		/**
+		 * adds demand for more tournaments
+		 * 
+		 * @param n number of additional tournaments requested
+		 */
+		@Override
+		public void request(long n)
+		{
+			if(cancelled)
+				return;
+			
+			// Signalled by the drain, so onError never runs concurrently with onNext
+			if(n <= 0)
+			{
+				if(invalidRequest == null)
+					invalidRequest = new IllegalArgumentException("Demand must be positive: " + n);
+				schedule();
+				return;
+			}
+			
+			// Add demand, saturating at Long.MAX_VALUE (unbounded)
+			long current;
+			long updated;
+			do
+			{
+				current = demand.get();
+				updated = current + n;
+				if(updated < 0)
+					updated = Long.MAX_VALUE;
+			} while(!demand.compareAndSet(current, updated));
+			
+			schedule();
+		}
+		
+		/**
+		 * delivers tournaments while there is demand
+		 */
+		@Override
+		public void run()
+		{
+			int missed = 1;
+			do
+			{
+				drain();
+				missed = pendingDrains.addAndGet(-missed);
+			} while(missed != 0);
+		}
+		
+		/**
+		 * runs a drain unless one is already running, in which case it drains again before
+		 * returning
+		 */
+		private void schedule()
+		{
+			// Only one drain runs at a time
+			if(pendingDrains.getAndIncrement() == 0)
+				executor.execute(this);
+		}
+		
+		/**
+		 * ends the subscription with an error if a request was invalid
+		 * 
+		 * @return <b>true</b> if a request was invalid
+		 */
+		private boolean signalInvalidRequest()
+		{
+			if(invalidRequest == null)
+				return false;
+			
+			terminate(invalidRequest);
+			return true;
+		}
+		
+		/**
+		 * ends the subscription unless it is already cancelled
+		 * 
+		 * @param error error to signal, or <b>null</b> to signal completion
+		 */
+		private void terminate(Throwable error)
+		{
+			if(cancelled)
+				return;
+			
+			cancelled = true;
+			try
+			{
+				if(error == null)
+					subscriber.onComplete();
+				else
+					subscriber.onError(error);
+			}
+			catch(Throwable t)
+			{
+				// The subscriber broke the protocol (rule 2.13), and the subscription is already over
+			}
+		}
+		
+		/**
+		 * retrieves the index as far as needed and delivers as many tournaments as demanded
+		 */
+		private void drain()
+		{
+			try
+			{
+				if(signalInvalidRequest())
+					return;
+				if(parts == null)
+				{
+					if(cancelled)
+						return;
+					parts = new ArrayDeque<TournamentQuery>(query.hasDateRange() ? query.split(indexDays)
+							: Collections.singletonList(query));
+				}
+				
+				while(!cancelled && (invalidRequest == null) && (demand.get() > 0))
+				{
+					// Retrieve the next part of the index only once the previous one is delivered
+					if(index.isEmpty())
+					{
+						TournamentQuery q = parts.poll();
+						if(q == null)
+							break;
+						
+						String xml = Challonge.sendHttpRequest(q.getAPIKey(), q.buildURL(), "GET");
+						index.addAll(Tournament.createTournamentListFromXML(q.getAPIKey(), q.getSubdomain(), xml, false));
+						continue;
+					}
+					
+					// Removed once handed off so delivered tournaments can be collected
+					Tournament t = index.poll();
+					try
+					{
+						t.hydrate();
+					}
+					catch(ChallongeException ce)
+					{
+						failed.incrementAndGet();
+						continue;
+					}
+					if(cancelled)
+						return;
+					
+					if(demand.get() != Long.MAX_VALUE)
+						demand.decrementAndGet();
+					try
+					{
+						subscriber.onNext(t);
+					}
+					catch(Throwable th)
+					{
+						// The subscriber broke the protocol (rule 2.13), so the subscription is cancelled
+						cancelled = true;
+						return;
+					}
+				}
+				
+				if(signalInvalidRequest())
+					return;
+				if(index.isEmpty() && parts.isEmpty())
+					terminate(null);
+			}
+			catch(ChallongeException ce)
+			{
+				terminate(ce);
+			}
+			catch(RuntimeException re)
+			{
+				terminate(re);
+			}
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package challonge;
+
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.TimeZone;
+
+public class TournamentQuery {
+	
+	// CONSTANTS - States
+	public static final String STATE_ALL = "all";
+	public static final String STATE_PENDING = "pending";
+	public static final String STATE_IN_PROGRESS = "in_progress";
+	public static final String STATE_ENDED = "ended";
+	public static final String[] STATES = {STATE_ALL, STATE_PENDING, STATE_IN_PROGRESS, STATE_ENDED};
+	
+	// CONSTANTS - Parameters
+	private static final String PARAM_CREATED_AFTER = "created_after=";
+	private static final String PARAM_CREATED_BEFORE = "created_before=";
+	private static final String PARAM_STATE = "state=";
+	private static final String PARAM_SUBDOMAIN = "subdomain=";
+	private static final String PARAM_TYPE = "type=";
+	
+	// CONSTANTS - Dates
+	private static final String DATE_FORMAT = "yyyy-MM-dd";
+	private static final String DATE_TIME_ZONE = "UTC";
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+	
+	// DATA MEMBERS
+	private String apiKey;
+	private String subdomain;
+	private String state;
+	private String type;
+	private Date createdAfter;
+	private Date createdBefore;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a query matching every tournament visible to an API key
+	 * 
+	 * @param key API key necessary for authentication
+	 */
+	public TournamentQuery(String key)
+	{
+		apiKey = key;
+	}
+	
+	/**
+	 * creates a copy of a query
+	 * 
+	 * @param q query to copy
+	 */
+	private TournamentQuery(TournamentQuery q)
+	{
+		apiKey = q.apiKey;
+		subdomain = q.subdomain;
+		state = q.state;
+		type = q.type;
+		createdAfter = q.createdAfter;
+		createdBefore = q.createdBefore;
+	}
+	
+	// Static
+	/**
+	 * formats a date the way the index filters expect it
+	 * 
+	 * @param d date
+	 * @return date formatted as YYYY-MM-DD (UTC)
+	 */
+	private static String formatDate(Date d)
+	{
+		SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT);
+		format.setTimeZone(TimeZone.getTimeZone(DATE_TIME_ZONE));
+		return format.format(d);
+	}
+	
+	/**
+	 * checks to see if the given String contains a valid index state filter
+	 * 
+	 * @param state desired state
+	 * @return <b>true</b> if state is valid, <b>false</b> otherwise
+	 * @see #STATES
+	 */
+	public static boolean validState(String state)
+	{
+		for(int i = 0; i < STATES.length; i++)
+			if(state.equals(STATES[i]))
+				return true;
+		
+		return false;
+	}
+	
+	// Instance methods
+	/**
+	 * builds the index request URL for this query
+	 * 
+	 * @return request URL with every filter applied
+	 * @throws ChallongeException if the filters are invalid
+	 */
+	/* package */ URL buildURL() throws ChallongeException
+	{
+		if((state != null) && !validState(state))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		if((type != null) && !Tournament.validTournamentType(type))
+			throw new ChallongeException(ChallongeException.REASON_TOURNEY_TYPE);
+		if((createdAfter != null) && (createdBefore != null) && createdAfter.after(createdBefore))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		StringBuilder url = Endpoint.TOURNAMENTS.query(apiKey);
+		if(subdomain != null)
+			Endpoint.appendParameter(url, PARAM_SUBDOMAIN, subdomain);
+		if(state != null)
+			Endpoint.appendParameter(url, PARAM_STATE, state);
+		if(type != null) // Index filter uses underscores ("double_elimination")
+			Endpoint.appendParameter(url, PARAM_TYPE, type.replace(' ', '_'));
+		if(createdAfter != null)
+			Endpoint.appendParameter(url, PARAM_CREATED_AFTER, formatDate(createdAfter));
+		if(createdBefore != null)
+			Endpoint.appendParameter(url, PARAM_CREATED_BEFORE, formatDate(createdBefore));
+		
+		return Endpoint.toURL(url);
+	}
+	
+	/**
+	 * sends this query and returns every matching tournament
+	 * 
+	 * @return ArrayList of matching tournaments
+	 * @throws ChallongeException if the request could not be processed
+	 */
+	public ArrayList<Tournament> execute() throws ChallongeException
+	{
+		String xml = Challonge.sendHttpRequest(apiKey, buildURL(), "GET");
+		return Tournament.createTournamentListFromXML(apiKey, subdomain, xml);
+	}
+	
+	/**
+	 * retrieves the tournaments matching this query, reading only the fields kept by a projection;
+	 * participants and matches are not retrieved
+	 * 
+	 * @param p fields to read
+	 * @return tournaments matching this query
+	 * @throws ChallongeException if the request could not be processed
+	 */
+	public ArrayList<Tournament> execute(Projection p) throws ChallongeException
+	{
+		String xml = Challonge.sendHttpRequest(apiKey, buildURL(), "GET");
+		return Tournament.createTournamentListFromXML(apiKey, subdomain, xml, p);
+	}
+	
+	/**
+	 * returns the API key used by this query
+	 * 
+	 * @return API key
+	 */
+	public String getAPIKey()
+	{
+		return apiKey;
+	}
+	
+	/**
+	 * returns the subdomain filter of this query
+	 * 
+	 * @return subdomain, or <b>null</b> if not filtered by subdomain
+	 */
+	public String getSubdomain()
+	{
+		return subdomain;
+	}
+	
+	/**
+	 * returns whether both creation date filters are set, so the query can be split
+	 * 
+	 * @return <b>true</b> if the creation dates are bounded on both sides
+	 * @see #split(int)
+	 */
+	/* package */ boolean hasDateRange()
+	{
+		return (createdAfter != null) && (createdBefore != null);
+	}
+	
+	/**
+	 * only match tournaments created after a date
+	 * 
+	 * @param d earliest creation date (or <b>null</b> to remove the filter)
+	 * @return this query
+	 */
+	public TournamentQuery setCreatedAfter(Date d)
+	{
+		createdAfter = d;
+		return this;
+	}
+	
+	/**
+	 * only match tournaments created before a date
+	 * 
+	 * @param d latest creation date (or <b>null</b> to remove the filter)
+	 * @return this query
+	 */
+	public TournamentQuery setCreatedBefore(Date d)
+	{
+		createdBefore = d;
+		return this;
+	}
+	
+	/**
+	 * only match tournaments in a state
+	 * 
+	 * @param s state (from <b>TournamentQuery.STATES</b>, or <b>null</b> to remove the filter)
+	 * @return this query
+	 */
+	public TournamentQuery setState(String s)
+	{
+		state = s;
+		return this;
+	}
+	
+	/**
+	 * only match tournaments belonging to an organization
+	 * 
+	 * @param sd subdomain associated with target organization (or <b>null</b> to remove the filter)
+	 * @return this query
+	 */
+	public TournamentQuery setSubdomain(String sd)
+	{
+		subdomain = sd;
+		return this;
+	}
+	
+	/**
+	 * only match tournaments of a type
+	 * 
+	 * @param t tournament type (from <b>Tournament.TYPES</b>, or <b>null</b> to remove the filter)
+	 * @return this query
+	 */
+	public TournamentQuery setType(String t)
+	{
+		type = t;
+		return this;
+	}
+	
+	/**
+	 * splits this query into consecutive queries that each cover at most a number of whole days
+	 * <p>
+	 * Both creation date filters must be set.  The API filters by UTC date, including both
+	 * dates, so each query starts the day after the previous one ends and no date is covered
+	 * twice; together they cover the same dates as this query.
+	 * 
+	 * @param days maximum number of days covered by each query
+	 * @return list of queries in chronological order
+	 * @throws ChallongeException if the date range is not bounded or <b>days</b> is not positive
+	 */
+	public ArrayList<TournamentQuery> split(int days) throws ChallongeException
+	{
+		if((days <= 0) || (createdAfter == null) || (createdBefore == null) || createdAfter.after(createdBefore))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		// Both dates are sent without their time, so align chunks to UTC midnight
+		ArrayList<TournamentQuery> chunks = new ArrayList<TournamentQuery>();
+		long first = Math.floorDiv(createdAfter.getTime(), MILLIS_PER_DAY) * MILLIS_PER_DAY;
+		long last = Math.floorDiv(createdBefore.getTime(), MILLIS_PER_DAY) * MILLIS_PER_DAY;
+		long step = days * MILLIS_PER_DAY;
+		for(long start = first; start <= last; start += step)
+		{
+			TournamentQuery chunk = new TournamentQuery(this);
+			chunk.createdAfter = new Date(start);
+			chunk.createdBefore = new Date(Math.min(start + step - MILLIS_PER_DAY, last));
+			chunks.add(chunk);
+		}
+		
+		return chunks;
+	}
+}
@@ -0,0 +1,174 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+public final class TournamentSnapshot {
+	
+	// CONSTANTS - Data
+	/* package */ static final TournamentSnapshot EMPTY = new TournamentSnapshot(0,
+			new ArrayList<Participant>(), new ArrayList<Match>());
+	
+	// DATA MEMBERS
+	private final long version;
+	private final List<Participant> participants;
+	private final List<Match> matches;
+	private final HashMap<Integer, Participant> participantIndex;
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a snapshot; the lists are copied so later changes to them are not visible, and the
+	 * players of the matches are resolved against the participants
+	 * 
+	 * @param v version number (increases with every refresh of the same Tournament)
+	 * @param p participants
+	 * @param m matches
+	 */
+	/* package */ TournamentSnapshot(long v, List<Participant> p, List<Match> m)
+	{
+		version = v;
+		participants = Collections.unmodifiableList(new ArrayList<Participant>(p));
+		
+		participantIndex = new HashMap<Integer, Participant>(p.size() * 2);
+		for(int i = 0; i < participants.size(); i++)
+			participantIndex.put(participants.get(i).getID(), participants.get(i));
+		matches = resolve(m);
+	}
+	
+	/**
+	 * creates a snapshot from lists that are already unmodifiable (nothing is copied)
+	 * 
+	 * @param v version number
+	 * @param p unmodifiable participants
+	 * @param m unmodifiable matches
+	 * @param index participant index matching <b>p</b>
+	 */
+	private TournamentSnapshot(long v, List<Participant> p, List<Match> m, HashMap<Integer, Participant> index)
+	{
+		version = v;
+		participants = p;
+		matches = m;
+		participantIndex = index;
+	}
+	
+	// Instance methods
+	/**
+	 * returns the list of Matches in this snapshot
+	 * 
+	 * @return unmodifiable list of Matches
+	 */
+	public List<Match> getMatches()
+	{
+		return matches;
+	}
+	
+	/**
+	 * gets a participant from this snapshot by ID number
+	 * 
+	 * @param id desired participant's ID number
+	 * @return Participant with desired ID number, or <b>null</b> if not found
+	 */
+	public Participant getParticipantByID(int id)
+	{
+		return participantIndex.get(id);
+	}
+	
+	/**
+	 * returns the list of participants in this snapshot
+	 * 
+	 * @return unmodifiable list of participants
+	 */
+	public List<Participant> getParticipants()
+	{
+		return participants;
+	}
+	
+	/**
+	 * returns the version of this snapshot
+	 * 
+	 * @return version number, 0 for a Tournament that has not been hydrated
+	 */
+	public long getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * copies a list of matches, replacing their players by the participants of this snapshot, so
+	 * a snapshot never mixes participants from different refreshes
+	 * 
+	 * @param m matches
+	 * @return unmodifiable list of resolved matches
+	 */
+	private List<Match> resolve(List<Match> m)
+	{
+		ArrayList<Match> resolved = new ArrayList<Match>(m.size());
+		for(int i = 0; i < m.size(); i++)
+			resolved.add(m.get(i).resolvePlayers(this));
+		
+		return Collections.unmodifiableList(resolved);
+	}
+	
+	/**
+	 * creates the next version of this snapshot with one Match replaced (or added if it is new)
+	 * 
+	 * @param m updated match
+	 * @return new snapshot sharing this snapshot's participants
+	 */
+	/* package */ TournamentSnapshot withMatch(Match m)
+	{
+		ArrayList<Match> updated = new ArrayList<Match>(matches);
+		m = m.resolvePlayers(this);
+		boolean replaced = false;
+		for(int i = 0; (i < updated.size()) && !replaced; i++)
+			if(updated.get(i).getID() == m.getID())
+			{
+				updated.set(i, m);
+				replaced = true;
+			}
+		if(!replaced)
+			updated.add(m);
+		
+		return new TournamentSnapshot(version + 1, participants, Collections.unmodifiableList(updated), participantIndex);
+	}
+	
+	/**
+	 * creates the next version of this snapshot with a new list of Matches, whose players are
+	 * resolved against this snapshot's participants (they may have been parsed against an older
+	 * snapshot)
+	 * 
+	 * @param m new matches
+	 * @return new snapshot sharing this snapshot's participants
+	 */
+	/* package */ TournamentSnapshot withMatches(List<Match> m)
+	{
+		return new TournamentSnapshot(version + 1, participants, resolve(m), participantIndex);
+	}
+	
+	/**
+	 * creates the next version of this snapshot with a new list of participants; the players of
+	 * this snapshot's matches are replaced by the new participants
+	 * 
+	 * @param p new participants
+	 * @return new snapshot
+	 */
+	/* package */ TournamentSnapshot withParticipants(List<Participant> p)
+	{
+		return new TournamentSnapshot(version + 1, p, matches);
+	}
+	
+	/**
+	 * creates the next version of this snapshot with a new list of participants and Matches
+	 * 
+	 * @param p new participants
+	 * @param m new matches
+	 * @return new snapshot
+	 */
+	/* package */ TournamentSnapshot withParticipantsAndMatches(List<Participant> p, List<Match> m)
+	{
+		return new TournamentSnapshot(version + 1, p, m);
+	}
+}
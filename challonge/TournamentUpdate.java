@@ -0,0 +1,346 @@
+package challonge;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class TournamentUpdate {
+	
+	// CONSTANTS - Rankings
+	public static final String RANKED_BY_MATCH_WINS = "match wins";
+	public static final String RANKED_BY_GAME_WINS = "game wins";
+	public static final String RANKED_BY_POINTS_SCORED = "points scored";
+	public static final String RANKED_BY_POINTS_DIFFERENCE = "points difference";
+	public static final String RANKED_BY_CUSTOM = "custom";
+	public static final String[] RANKINGS = {RANKED_BY_MATCH_WINS, RANKED_BY_GAME_WINS, RANKED_BY_POINTS_SCORED, RANKED_BY_POINTS_DIFFERENCE, RANKED_BY_CUSTOM};
+	
+	// CONSTANTS - Limits
+	public static final int NO_SIGNUP_CAP = 0;
+	
+	// CONSTANTS - Parameters
+	private static final String PARAM_CHECK_IN_DURATION = "tournament[check_in_duration]=";
+	private static final String PARAM_DESCRIPTION = "tournament[description]=";
+	private static final String PARAM_HOLD_THIRD_PLACE_MATCH = "tournament[hold_third_place_match]=";
+	private static final String PARAM_NAME = "tournament[name]=";
+	private static final String PARAM_OPEN_SIGNUP = "tournament[open_signup]=";
+	private static final String PARAM_PRIVATE = "tournament[private]=";
+	private static final String PARAM_RANKED_BY = "tournament[ranked_by]=";
+	private static final String PARAM_SEQUENTIAL_PAIRINGS = "tournament[sequential_pairings]=";
+	private static final String PARAM_SIGNUP_CAP = "tournament[signup_cap]=";
+	private static final String PARAM_START_AT = "tournament[start_at]=";
+	private static final String PARAM_SUBDOMAIN = "tournament[subdomain]=";
+	private static final String PARAM_SWISS_ROUNDS = "tournament[swiss_rounds]=";
+	private static final String PARAM_TYPE = "tournament[tournament_type]=";
+	private static final String PARAM_URL = "tournament[url]=";
+	private static final String CLEARED = ""; // removes an optional attribute
+	
+	// CONSTANTS - Dates
+	private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+	private static final String DATE_TIME_ZONE = "UTC";
+	
+	// DATA MEMBERS
+	private String apiKey;
+	private int tournamentID;
+	private Tournament target; // null if only the ID is known
+	private String subdomain; // as of the last update sent
+	private LinkedHashMap<String, String> parameters; // changed attributes, in the order they were set
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates an empty update of a tournament known only by its ID
+	 * 
+	 * @param key API key necessary for authentication
+	 * @param id ID of the tournament
+	 */
+	public TournamentUpdate(String key, int id)
+	{
+		this(key, id, null);
+	}
+	
+	/**
+	 * creates an empty update of a tournament
+	 * 
+	 * @param key API key necessary for authentication
+	 * @param id ID of the tournament
+	 * @param t tournament the server's response is applied to (or <b>null</b>)
+	 * @see Tournament#update()
+	 */
+	/* package */ TournamentUpdate(String key, int id, Tournament t)
+	{
+		apiKey = key;
+		tournamentID = id;
+		target = t;
+		subdomain = (t == null) ? null : t.getSubdomain();
+		parameters = new LinkedHashMap<String, String>();
+	}
+	
+	// Static
+	/**
+	 * formats a date the way the API expects start times
+	 * 
+	 * @param d date
+	 * @return date in ISO 8601 format (UTC)
+	 */
+	private static String formatDate(Date d)
+	{
+		SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT);
+		format.setTimeZone(TimeZone.getTimeZone(DATE_TIME_ZONE));
+		return format.format(d);
+	}
+	
+	/**
+	 * checks to see if the given String contains a valid ranking
+	 * 
+	 * @param ranking desired ranking
+	 * @return <b>true</b> if ranking is valid, <b>false</b> otherwise
+	 * @see #RANKINGS
+	 */
+	public static boolean validRanking(String ranking)
+	{
+		for(int i = 0; i < RANKINGS.length; i++)
+			if(ranking.equals(RANKINGS[i]))
+				return true;
+		
+		return false;
+	}
+	
+	// Instance methods
+	/**
+	 * sends every attribute set on this update in a single request, and applies the tournament
+	 * returned by the server to the local Tournament; nothing is sent if no attribute was set
+	 * <p>
+	 * Once the server has accepted it, the update is empty again and can be reused, even if its
+	 * response could not be read.
+	 * 
+	 * @return the updated Tournament (for an update created from an ID, a new Tournament without
+	 * participants or matches), or the local Tournament if nothing was sent
+	 * @throws ChallongeException if the server rejected the update or could not be reached
+	 */
+	public Tournament send() throws ChallongeException
+	{
+		if(parameters.isEmpty())
+			return target;
+		
+		StringBuilder body = Endpoint.body(apiKey);
+		for(Map.Entry<String, String> p : parameters.entrySet())
+			Endpoint.appendParameter(body, p.getKey(), p.getValue());
+		
+		String xml = Challonge.sendHttpRequest(apiKey, Endpoint.TOURNAMENT.url(tournamentID), "PUT", body.toString());
+		
+		// Applied by the server, so it must not be sent again
+		if(parameters.containsKey(PARAM_SUBDOMAIN))
+			subdomain = parameters.get(PARAM_SUBDOMAIN);
+		parameters.clear();
+		
+		Tournament updated = Tournament.createTournamentFromXML(apiKey, subdomain, xml, false);
+		if(target == null)
+			return updated;
+		
+		target.applyUpdate(updated);
+		return target;
+	}
+	
+	/**
+	 * sets how long before the start time participants can check in; a start time is required
+	 * 
+	 * @param minutes length of the check-in window, in minutes (0 to disable check-in)
+	 * @return this update
+	 * @throws ChallongeException if <b>minutes</b> is negative
+	 */
+	public TournamentUpdate setCheckInDuration(int minutes) throws ChallongeException
+	{
+		if(minutes < 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		parameters.put(PARAM_CHECK_IN_DURATION, (minutes == 0) ? CLEARED : Integer.toString(minutes));
+		return this;
+	}
+	
+	/**
+	 * sets the description
+	 * 
+	 * @param d description (may contain HTML, <b>null</b> to remove it)
+	 * @return this update
+	 */
+	public TournamentUpdate setDescription(String d)
+	{
+		parameters.put(PARAM_DESCRIPTION, (d == null) ? CLEARED : d);
+		return this;
+	}
+	
+	/**
+	 * sets whether a single elimination tournament holds a match for third place
+	 * 
+	 * @param hold <b>true</b> to hold a third place match
+	 * @return this update
+	 */
+	public TournamentUpdate setHoldThirdPlaceMatch(boolean hold)
+	{
+		parameters.put(PARAM_HOLD_THIRD_PLACE_MATCH, Boolean.toString(hold));
+		return this;
+	}
+	
+	/**
+	 * sets the name
+	 * 
+	 * @param n new tournament name
+	 * @return this update
+	 * @throws ChallongeException if the name is too long
+	 */
+	public TournamentUpdate setName(String n) throws ChallongeException
+	{
+		if(n.length() > Tournament.NAME_MAX_LENGTH)
+			throw new ChallongeException(ChallongeException.REASON_NAME_LENGTH);
+		
+		parameters.put(PARAM_NAME, n);
+		return this;
+	}
+	
+	/**
+	 * sets whether participants can sign up on Challonge
+	 * 
+	 * @param open <b>true</b> to open a sign-up page
+	 * @return this update
+	 */
+	public TournamentUpdate setOpenSignup(boolean open)
+	{
+		parameters.put(PARAM_OPEN_SIGNUP, Boolean.toString(open));
+		return this;
+	}
+	
+	/**
+	 * sets whether the tournament is hidden from public listings
+	 * 
+	 * @param hidden <b>true</b> to hide the tournament
+	 * @return this update
+	 */
+	public TournamentUpdate setPrivate(boolean hidden)
+	{
+		parameters.put(PARAM_PRIVATE, Boolean.toString(hidden));
+		return this;
+	}
+	
+	/**
+	 * sets how participants of a round robin or Swiss tournament are ranked
+	 * 
+	 * @param r ranking (from <b>TournamentUpdate.RANKINGS</b>)
+	 * @return this update
+	 * @throws ChallongeException if the ranking is invalid
+	 */
+	public TournamentUpdate setRankedBy(String r) throws ChallongeException
+	{
+		if(!validRanking(r))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		parameters.put(PARAM_RANKED_BY, r);
+		return this;
+	}
+	
+	/**
+	 * sets whether participants are paired in seed order (1 against 2) instead of against the
+	 * opposite seed (1 against 16)
+	 * 
+	 * @param sequential <b>true</b> for sequential pairings
+	 * @return this update
+	 */
+	public TournamentUpdate setSequentialPairings(boolean sequential)
+	{
+		parameters.put(PARAM_SEQUENTIAL_PAIRINGS, Boolean.toString(sequential));
+		return this;
+	}
+	
+	/**
+	 * sets the largest number of participants; later sign-ups go on a waiting list
+	 * 
+	 * @param cap maximum number of participants (NO_SIGNUP_CAP to remove the limit)
+	 * @return this update
+	 * @throws ChallongeException if <b>cap</b> is negative
+	 */
+	public TournamentUpdate setSignupCap(int cap) throws ChallongeException
+	{
+		if(cap < 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		parameters.put(PARAM_SIGNUP_CAP, (cap == NO_SIGNUP_CAP) ? CLEARED : Integer.toString(cap));
+		return this;
+	}
+	
+	/**
+	 * sets the planned start time
+	 * 
+	 * @param d start time (or <b>null</b> to remove it)
+	 * @return this update
+	 */
+	public TournamentUpdate setStartAt(Date d)
+	{
+		parameters.put(PARAM_START_AT, (d == null) ? CLEARED : formatDate(d));
+		return this;
+	}
+	
+	/**
+	 * moves the tournament to an organization
+	 * 
+	 * @param sd subdomain associated with the organization
+	 * @return this update
+	 * @throws ChallongeException if the subdomain is invalid
+	 */
+	public TournamentUpdate setSubdomain(String sd) throws ChallongeException
+	{
+		if(!sd.matches("^[a-zA-Z0-9]+$"))
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		parameters.put(PARAM_SUBDOMAIN, sd);
+		return this;
+	}
+	
+	/**
+	 * sets the number of rounds of a Swiss tournament
+	 * 
+	 * @param rounds number of rounds
+	 * @return this update
+	 * @throws ChallongeException if <b>rounds</b> is not positive
+	 */
+	public TournamentUpdate setSwissRounds(int rounds) throws ChallongeException
+	{
+		if(rounds <= 0)
+			throw new ChallongeException(ChallongeException.REASON_ARGUMENTS);
+		
+		parameters.put(PARAM_SWISS_ROUNDS, Integer.toString(rounds));
+		return this;
+	}
+	
+	/**
+	 * sets the type
+	 * 
+	 * @param t tournament type (from <b>Tournament.TYPES</b>)
+	 * @return this update
+	 * @throws ChallongeException if the type is invalid
+	 */
+	public TournamentUpdate setType(String t) throws ChallongeException
+	{
+		if(!Tournament.validTournamentType(t))
+			throw new ChallongeException(ChallongeException.REASON_TOURNEY_TYPE);
+		
+		parameters.put(PARAM_TYPE, t);
+		return this;
+	}
+	
+	/**
+	 * sets the custom URL
+	 * 
+	 * @param u new URL (letters, digits and underscores)
+	 * @return this update
+	 * @throws ChallongeException if the URL is invalid
+	 */
+	public TournamentUpdate setURL(String u) throws ChallongeException
+	{
+		if(!Challonge.validURL(u))
+			throw new ChallongeException(ChallongeException.REASON_INVALID_URL);
+		
+		parameters.put(PARAM_URL, u);
+		return this;
+	}
+}
@@ -0,0 +1,371 @@
+package challonge;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class WarmStartCache {
+	
+	// CONSTANTS - Files
+	private static final String FILE_PREFIX = "tournament-";
+	private static final String FILE_SUFFIX = ".xml";
+	private static final String TEMP_SUFFIX = ".tmp";
+	
+	// CONSTANTS - XML Tags
+	private static final String XML_CACHE = "cached-tournament";
+	private static final String XML_MATCH = "match";
+	private static final String XML_MATCHES = "matches";
+	private static final String XML_PARTICIPANT = "participant";
+	private static final String XML_PARTICIPANTS = "participants";
+	private static final String XML_TOURNAMENT = "tournament";
+	
+	// CONSTANTS - Threads
+	private static final String THREAD_NAME = "challonge-warm-start";
+	
+	// DATA MEMBERS
+	private String apiKey;
+	private String subdomain;
+	private File directory;
+	private ConcurrentHashMap<Integer, Tournament> tournaments;
+	private int failed; // guarded by this
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a cache stored in a directory; nothing is read until {@link #load()} is called
+	 * 
+	 * @param key API key used by the cached tournaments
+	 * @param sd subdomain of the cached tournaments (can be <b>null</b>)
+	 * @param dir directory holding one file per tournament (created if it does not exist)
+	 */
+	public WarmStartCache(String key, String sd, File dir)
+	{
+		apiKey = key;
+		subdomain = sd;
+		directory = dir;
+		tournaments = new ConcurrentHashMap<Integer, Tournament>();
+	}
+	
+	// Instance methods
+	/**
+	 * returns the file a tournament is stored in
+	 * 
+	 * @param id tournament ID
+	 * @return cache file
+	 */
+	private File getFile(int id)
+	{
+		return new File(directory, FILE_PREFIX + id + FILE_SUFFIX);
+	}
+	
+	/**
+	 * returns the number of files that could not be read by the last {@link #load()}, or of
+	 * tournaments that could not be retrieved or stored by the last
+	 * {@link #refresh(TournamentQuery)}, whichever ran last
+	 * 
+	 * @return number of failed files or tournaments
+	 */
+	public synchronized int getFailedCount()
+	{
+		return failed;
+	}
+	
+	/**
+	 * returns a cached tournament
+	 * 
+	 * @param id tournament ID
+	 * @return the tournament, or <b>null</b> if it is not cached
+	 */
+	public Tournament getTournament(int id)
+	{
+		return tournaments.get(id);
+	}
+	
+	/**
+	 * returns every cached tournament
+	 * 
+	 * @return tournaments, ordered by ID
+	 */
+	public ArrayList<Tournament> getTournaments()
+	{
+		ArrayList<Tournament> list = new ArrayList<Tournament>(tournaments.values());
+		Collections.sort(list, new Comparator<Tournament>() {
+			@Override
+			public int compare(Tournament a, Tournament b)
+			{
+				return Integer.compare(a.getID(), b.getID());
+			}
+		});
+		
+		return list;
+	}
+	
+	/**
+	 * reads every stored tournament without contacting the server; files that cannot be read are
+	 * skipped, counted as failed and replaced on the next refresh
+	 * 
+	 * @return number of tournaments loaded
+	 */
+	public int load()
+	{
+		synchronized(this)
+		{
+			failed = 0;
+		}
+		
+		File[] files = directory.listFiles();
+		if(files == null)
+			return 0;
+		
+		int loaded = 0;
+		for(int i = 0; i < files.length; i++)
+		{
+			String name = files[i].getName();
+			if(!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX))
+				continue;
+			
+			try
+			{
+				Tournament t = readFile(files[i]);
+				tournaments.put(t.getID(), t);
+				loaded++;
+			}
+			catch(ChallongeException ce)
+			{
+				// A file left by an older version or a failed write
+				synchronized(this)
+				{
+					failed++;
+				}
+			}
+		}
+		
+		return loaded;
+	}
+	
+	/**
+	 * removes the tournaments, and their files, that are not in an index
+	 * 
+	 * @param keep IDs of the tournaments in the index
+	 */
+	private void prune(HashSet<Integer> keep)
+	{
+		tournaments.keySet().retainAll(keep);
+		
+		// Also files that were never loaded
+		File[] files = directory.listFiles();
+		if(files == null)
+			return;
+		for(int i = 0; i < files.length; i++)
+		{
+			String name = files[i].getName();
+			if(!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX))
+				continue;
+			
+			try
+			{
+				int id = Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+				if(!keep.contains(id))
+					files[i].delete();
+			}
+			catch(NumberFormatException nfe)
+			{
+				// Not a cache file
+			}
+		}
+	}
+	
+	/**
+	 * reads a tournament, its participants and its matches from a cache file
+	 * 
+	 * @param f cache file
+	 * @return tournament with its participants and matches published
+	 * @throws ChallongeException if the file could not be read or parsed
+	 */
+	private Tournament readFile(File f) throws ChallongeException
+	{
+		try
+		{
+			Document doc = Challonge.parseXML(new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8));
+			Element tournamentElement = (Element) doc.getElementsByTagName(XML_TOURNAMENT).item(0);
+			Element participantsElement = (Element) doc.getElementsByTagName(XML_PARTICIPANTS).item(0);
+			Element matchesElement = (Element) doc.getElementsByTagName(XML_MATCHES).item(0);
+			if((tournamentElement == null) || (participantsElement == null) || (matchesElement == null))
+				throw new ChallongeException(ChallongeException.REASON_XML);
+			
+			Tournament t = Tournament.createTournamentFromElement(apiKey, subdomain, tournamentElement);
+			
+			ArrayList<Participant> participants = new ArrayList<Participant>();
+			NodeList list = participantsElement.getElementsByTagName(XML_PARTICIPANT);
+			for(int i = 0; i < list.getLength(); i++)
+				participants.add(Participant.createParticipantFromElement(apiKey, (Element) list.item(i)));
+			
+			TournamentSnapshot lookup = new TournamentSnapshot(0, participants, new ArrayList<Match>());
+			ArrayList<Match> matches = new ArrayList<Match>();
+			list = matchesElement.getElementsByTagName(XML_MATCH);
+			for(int i = 0; i < list.getLength(); i++)
+				matches.add(Match.createMatchFromElement(apiKey, t, lookup, (Element) list.item(i)));
+			
+			t.restore(participants, matches);
+			return t;
+		}
+		catch(ChallongeException ce)
+		{
+			throw ce;
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_XML);
+		}
+	}
+	
+	/**
+	 * retrieves the tournaments matching a query and the participants and matches of each one,
+	 * replacing the cached copies and files as each tournament completes; a tournament that could not
+	 * be retrieved or stored keeps its cached copy and is counted as failed
+	 * <p>
+	 * Once the index has been retrieved, cached tournaments that are not in it (deleted, or no
+	 * longer matching the query) are removed with their files, so the cache should hold the results
+	 * of a single query.
+	 * 
+	 * @param query filters to apply to the index
+	 * @return tournaments that were refreshed
+	 * @throws ChallongeException if the index could not be retrieved
+	 */
+	public List<Tournament> refresh(TournamentQuery query) throws ChallongeException
+	{
+		synchronized(this)
+		{
+			failed = 0;
+		}
+		
+		String xml = Challonge.sendHttpRequest(query.getAPIKey(), query.buildURL(), "GET");
+		ArrayList<Tournament> index = Tournament.createTournamentListFromXML(query.getAPIKey(), query.getSubdomain(), xml, false);
+		
+		HashSet<Integer> ids = new HashSet<Integer>();
+		for(int i = 0; i < index.size(); i++)
+			ids.add(index.get(i).getID());
+		prune(ids);
+		
+		ArrayList<Tournament> refreshed = new ArrayList<Tournament>();
+		for(int i = 0; i < index.size(); i++)
+		{
+			Tournament t = index.get(i);
+			try
+			{
+				t.refresh();
+				save(t);
+				refreshed.add(t);
+			}
+			catch(ChallongeException ce)
+			{
+				// Keep serving the cached copy
+				synchronized(this)
+				{
+					failed++;
+				}
+			}
+		}
+		
+		return refreshed;
+	}
+	
+	/**
+	 * starts {@link #refresh(TournamentQuery)} on a background thread; cached tournaments can be read
+	 * while it runs
+	 * 
+	 * @param query filters to apply to the index
+	 * @return the refresh, completing with the tournaments that were refreshed
+	 */
+	public Future<List<Tournament>> refreshInBackground(final TournamentQuery query)
+	{
+		FutureTask<List<Tournament>> task = new FutureTask<List<Tournament>>(new Callable<List<Tournament>>() {
+			@Override
+			public List<Tournament> call() throws ChallongeException
+			{
+				return refresh(query);
+			}
+		});
+		
+		Thread thread = new Thread(task, THREAD_NAME);
+		thread.setDaemon(true);
+		thread.start();
+		
+		return task;
+	}
+	
+	/**
+	 * stores a tournament with its current participants and matches, replacing any cached copy
+	 * 
+	 * @param t tournament
+	 * @throws ChallongeException if the file could not be written
+	 */
+	public void save(Tournament t) throws ChallongeException
+	{
+		TournamentSnapshot s = t.getSnapshot();
+		
+		Document doc = Challonge.createXMLDocument();
+		Element root = doc.createElement(XML_CACHE);
+		doc.appendChild(root);
+		root.appendChild(t.toElement(doc));
+		
+		Element participants = doc.createElement(XML_PARTICIPANTS);
+		for(int i = 0; i < s.getParticipants().size(); i++)
+			participants.appendChild(s.getParticipants().get(i).toElement(doc));
+		root.appendChild(participants);
+		
+		Element matches = doc.createElement(XML_MATCHES);
+		for(int i = 0; i < s.getMatches().size(); i++)
+			matches.appendChild(s.getMatches().get(i).toElement(doc));
+		root.appendChild(matches);
+		
+		// Write a temporary file and move it into place so readers never see a partial file; it is
+		// synced first, so a crash after the move cannot leave an empty file in place of the old one
+		File file = getFile(t.getID());
+		File temp = new File(directory, file.getName() + TEMP_SUFFIX);
+		try
+		{
+			directory.mkdirs();
+			FileOutputStream output = new FileOutputStream(temp);
+			try
+			{
+				TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(output));
+				output.flush();
+				output.getFD().sync();
+			}
+			finally
+			{
+				output.close();
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			tournaments.put(t.getID(), t);
+		}
+		catch(TransformerException te)
+		{
+			throw new ChallongeException(ChallongeException.REASON_CACHE);
+		}
+		catch(IOException ioe)
+		{
+			throw new ChallongeException(ChallongeException.REASON_CACHE);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * runs every offline unit test; exits with status 1 if a test failed
+ */
+public class AllTests {
+	
+	// METHODS
+	public static void main(String[] args)
+	{
+		List<Class<? extends UnitTest>> tests = new ArrayList<Class<? extends UnitTest>>();
+		tests.add(CircuitBreakerTest.class);
+		tests.add(ConsistentHashRingTest.class);
+		tests.add(EndpointTest.class);
+		tests.add(HeadToHeadIndexTest.class);
+		tests.add(MatchReportBatchTest.class);
+		tests.add(MatchStoreTest.class);
+		tests.add(MutationQueueTest.class);
+		tests.add(OrganizationCrawlerTest.class);
+		tests.add(ParticipantSearchIndexTest.class);
+		tests.add(ProjectionTest.class);
+		tests.add(RequestCoalescerTest.class);
+		tests.add(ResponseEncodingTest.class);
+		tests.add(StandingsTest.class);
+		tests.add(StationQueueTest.class);
+		tests.add(TournamentCacheTest.class);
+		tests.add(TournamentExporterTest.class);
+		tests.add(TournamentPublisherTest.class);
+		tests.add(TournamentQueryTest.class);
+		tests.add(TournamentUpdateTest.class);
+		tests.add(WarmStartCacheTest.class);
+		
+		System.exit((UnitTest.run(tests) == 0) ? 0 : 1);
+	}
+}
@@ -0,0 +1,105 @@
+package challonge;
+
+public class CircuitBreakerTest extends UnitTest {
+	
+	// CONSTANTS - Fixtures
+	private static final long OPEN_MILLIS = 20;
+	
+	// METHODS
+	// Static
+	/**
+	 * fails unless a breaker refuses a request
+	 * 
+	 * @param breaker breaker
+	 */
+	private static void assertRefused(CircuitBreaker breaker)
+	{
+		try
+		{
+			breaker.acquire();
+			fail("the request should have been refused");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_CIRCUIT_OPEN, ce);
+		}
+	}
+	
+	/**
+	 * creates a breaker and opens it
+	 * 
+	 * @return open breaker
+	 * @throws ChallongeException if a request was refused while the breaker was closed
+	 */
+	private static CircuitBreaker createOpenBreaker() throws ChallongeException
+	{
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, 0.5, OPEN_MILLIS);
+		for(int i = 0; i < 2; i++)
+			breaker.record(breaker.acquire(), true);
+		assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState());
+		
+		return breaker;
+	}
+	
+	// Instance methods
+	public void testFailedProbeOpensAgain() throws Exception
+	{
+		CircuitBreaker breaker = createOpenBreaker();
+		Thread.sleep(OPEN_MILLIS * 2);
+		
+		breaker.record(breaker.acquire(), true);
+		assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState());
+		assertRefused(breaker);
+	}
+	
+	public void testOpensOnceWindowIsFull() throws ChallongeException
+	{
+		CircuitBreaker breaker = new CircuitBreaker("test", 4, 0.5, 60000);
+		for(int i = 0; i < 3; i++)
+		{
+			assertFalse(breaker.acquire());
+			breaker.record(false, true);
+		}
+		
+		// Three failures out of three, but the window is not full yet
+		assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState());
+		assertEquals(1.0, breaker.getFailureRatio());
+		
+		breaker.record(breaker.acquire(), false);
+		assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState());
+		assertRefused(breaker);
+	}
+	
+	public void testOldOutcomesLeaveTheWindow() throws ChallongeException
+	{
+		CircuitBreaker breaker = new CircuitBreaker("test", 4, 0.75, 60000);
+		boolean[] outcomes = {true, true, false, false, false, true, true};
+		for(int i = 0; i < outcomes.length; i++)
+			breaker.record(breaker.acquire(), outcomes[i]);
+		
+		// The first two failures have left the window, so only two of the last four failed
+		assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState());
+		assertEquals(0.5, breaker.getFailureRatio());
+	}
+	
+	public void testSuccessfulProbeCloses() throws Exception
+	{
+		CircuitBreaker breaker = createOpenBreaker();
+		assertRefused(breaker);
+		Thread.sleep(OPEN_MILLIS * 2);
+		
+		// Only one probe is let through
+		assertTrue(breaker.acquire());
+		assertEquals(CircuitBreaker.STATE_HALF_OPEN, breaker.getState());
+		assertRefused(breaker);
+		
+		// A request sent before the breaker opened does not settle the probe
+		breaker.record(false, false);
+		assertEquals(CircuitBreaker.STATE_HALF_OPEN, breaker.getState());
+		
+		breaker.record(true, false);
+		assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState());
+		assertEquals(0.0, breaker.getFailureRatio());
+		assertFalse(breaker.acquire());
+	}
+}
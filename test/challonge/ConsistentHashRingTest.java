@@ -0,0 +1,101 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class ConsistentHashRingTest extends UnitTest {
+	
+	// CONSTANTS - Fixtures
+	private static final int KEYS = 4000;
+	private static final List<String> MEMBERS = Arrays.asList("crawler-a", "crawler-b", "crawler-c", "crawler-d");
+	
+	// METHODS
+	// Instance methods
+	public void testAddedMemberOnlyTakesKeys() throws ChallongeException
+	{
+		ArrayList<String> grown = new ArrayList<String>(MEMBERS);
+		grown.add("crawler-e");
+		ConsistentHashRing before = new ConsistentHashRing(MEMBERS);
+		ConsistentHashRing after = new ConsistentHashRing(grown);
+		
+		int moved = 0;
+		for(int i = 0; i < KEYS; i++)
+		{
+			String owner = after.getOwner(i);
+			if(owner.equals(before.getOwner(i)))
+				continue;
+			
+			assertEquals("crawler-e", owner);
+			moved++;
+		}
+		
+		// About a fifth of the keys move to the new member
+		assertTrue((moved > KEYS / 10) && (moved < KEYS * 3 / 10));
+	}
+	
+	public void testKeysAreSpreadOverMembers() throws ChallongeException
+	{
+		ConsistentHashRing ring = new ConsistentHashRing(MEMBERS);
+		HashMap<String, Integer> owned = new HashMap<String, Integer>();
+		for(int i = 0; i < KEYS; i++)
+		{
+			String owner = ring.getOwner(i);
+			Integer count = owned.get(owner);
+			owned.put(owner, (count == null) ? 1 : count + 1);
+		}
+		
+		assertEquals(MEMBERS.size(), owned.size());
+		for(Integer count : owned.values())
+			assertTrue((count > KEYS / 8) && (count < KEYS * 3 / 8));
+	}
+	
+	public void testMembersAreRequired()
+	{
+		try
+		{
+			new ConsistentHashRing(new ArrayList<String>());
+			fail("a ring needs members");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_ARGUMENTS, ce);
+		}
+		
+		try
+		{
+			new ConsistentHashRing(MEMBERS, 0);
+			fail("a ring needs virtual nodes");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_ARGUMENTS, ce);
+		}
+	}
+	
+	public void testOwnersDoNotDependOnMemberOrder() throws ChallongeException
+	{
+		ConsistentHashRing ring = new ConsistentHashRing(MEMBERS);
+		ConsistentHashRing reversed = new ConsistentHashRing(Arrays.asList("crawler-d", "crawler-c", "crawler-b", "crawler-a"));
+		assertEquals(MEMBERS, reversed.getMembers());
+		for(int i = 0; i < KEYS; i++)
+			assertEquals(ring.getOwner(i), reversed.getOwner(i));
+		assertEquals(ring.getOwner("tournament"), reversed.getOwner("tournament"));
+		assertEquals(ring.getOwner("17"), ring.getOwner(17));
+	}
+	
+	public void testRemovedMemberOnlyGivesUpItsKeys() throws ChallongeException
+	{
+		ConsistentHashRing before = new ConsistentHashRing(MEMBERS);
+		ConsistentHashRing after = new ConsistentHashRing(MEMBERS.subList(0, 3));
+		for(int i = 0; i < KEYS; i++)
+		{
+			String owner = before.getOwner(i);
+			if(!owner.equals("crawler-d"))
+				assertEquals(owner, after.getOwner(i));
+			else
+				assertFalse(after.getOwner(i).equals("crawler-d"));
+		}
+	}
+}
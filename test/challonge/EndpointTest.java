@@ -0,0 +1,44 @@
+package challonge;
+
+public class EndpointTest extends UnitTest {
+	
+	// METHODS
+	// Instance methods
+	public void testBodyCarriesKeyAndParameters() throws ChallongeException
+	{
+		StringBuilder body = Endpoint.body("key/1");
+		Endpoint.appendParameter(body, "participant[name]=", "Ana & Bo");
+		assertEquals("api_key=key%2F1&participant[name]=Ana+%26+Bo", body.toString());
+	}
+	
+	public void testIDsFillPlaceholders() throws ChallongeException
+	{
+		assertEquals(Challonge.URL_START + "tournaments/12/matches/345.xml", Endpoint.MATCH.url(12, 345).toString());
+		assertEquals(Challonge.URL_START + "tournaments/12/start.xml", Endpoint.TOURNAMENT_START.url(12).toString());
+		assertEquals(Challonge.URL_START + "tournaments.xml", Endpoint.TOURNAMENTS.url().toString());
+	}
+	
+	public void testQueryCarriesEncodedKey() throws ChallongeException
+	{
+		assertEquals(Challonge.URL_START + "tournaments/7/participants.xml?api_key=a+b%26c",
+				Endpoint.PARTICIPANTS.url("a b&c", 7).toString());
+		
+		// The cached encoding is reused, and parameters follow the key
+		StringBuilder query = Endpoint.TOURNAMENTS.query("a b&c");
+		Endpoint.appendParameter(query, "state=", "in progress");
+		assertEquals(Challonge.URL_START + "tournaments.xml?api_key=a+b%26c&state=in+progress", query.toString());
+	}
+	
+	public void testWrongNumberOfIDs() throws ChallongeException
+	{
+		try
+		{
+			Endpoint.MATCH.url(12);
+			fail("the route needs two IDs");
+		}
+		catch(IllegalArgumentException iae)
+		{
+			// Expected
+		}
+	}
+}
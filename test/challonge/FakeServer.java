@@ -0,0 +1,340 @@
+package challonge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.net.URLStreamHandlerFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * answers the HTTPS requests of the library in place of Challonge, so code that sends requests can
+ * be tested offline; it replaces the JVM's HTTPS handler the first time it is installed
+ */
+public class FakeServer {
+	
+	// CONSTANTS - Responses
+	private static final String NOT_FOUND = "<errors><error>Not found</error></errors>";
+	private static final String PROTOCOL_HTTPS = "https";
+	
+	// DATA MEMBERS
+	private static FakeServer installed;
+	private ConcurrentHashMap<String, Response> responses; // "METHOD route" to response
+	private ArrayList<Request> requests; // guarded by this
+	
+	// METHODS
+	// Constructors
+	/**
+	 * creates a server without responses
+	 */
+	private FakeServer()
+	{
+		responses = new ConcurrentHashMap<String, Response>();
+		requests = new ArrayList<Request>();
+	}
+	
+	// Static
+	/**
+	 * returns the server answering HTTPS requests, installing it first if needed; responses and
+	 * requests of earlier tests are forgotten
+	 * 
+	 * @return installed server
+	 */
+	public static synchronized FakeServer install()
+	{
+		if(installed == null)
+		{
+			installed = new FakeServer();
+			URL.setURLStreamHandlerFactory(new URLStreamHandlerFactory() {
+				@Override
+				public URLStreamHandler createURLStreamHandler(String protocol)
+				{
+					if(!PROTOCOL_HTTPS.equals(protocol))
+						return null; // the JVM's own handler
+					
+					return new URLStreamHandler() {
+						@Override
+						protected URLConnection openConnection(URL url)
+						{
+							return installed.new Connection(url);
+						}
+					};
+				}
+			});
+		}
+		
+		installed.responses.clear();
+		synchronized(installed)
+		{
+			installed.requests.clear();
+		}
+		
+		return installed;
+	}
+	
+	/**
+	 * returns the route of a URL
+	 * 
+	 * @param url request URL
+	 * @return URL without Challonge.URL_START and the query, such as "tournaments/7/matches.xml"
+	 */
+	private static String getRoute(URL url)
+	{
+		String text = url.toString();
+		int query = text.indexOf('?');
+		if(query >= 0)
+			text = text.substring(0, query);
+		
+		return text.startsWith(Challonge.URL_START) ? text.substring(Challonge.URL_START.length()) : text;
+	}
+	
+	// Instance methods
+	/**
+	 * returns the requests received for a route
+	 * 
+	 * @param method request method
+	 * @param route route (see {@link #respond(String, String, int, String)})
+	 * @return requests in the order they were received
+	 */
+	public synchronized List<Request> getRequests(String method, String route)
+	{
+		ArrayList<Request> matching = new ArrayList<Request>();
+		for(int i = 0; i < requests.size(); i++)
+		{
+			Request r = requests.get(i);
+			if(r.method.equals(method) && r.route.equals(route))
+				matching.add(r);
+		}
+		
+		return matching;
+	}
+	
+	/**
+	 * records a request and returns its response
+	 * 
+	 * @param r request
+	 * @return response, 404 if none was set
+	 */
+	private Response receive(Request r)
+	{
+		synchronized(this)
+		{
+			requests.add(r);
+		}
+		
+		Response response = responses.get(r.method + " " + r.route);
+		if(response == null)
+			return new Response(HttpURLConnection.HTTP_NOT_FOUND, NOT_FOUND.getBytes(StandardCharsets.UTF_8), null);
+		
+		return response;
+	}
+	
+	/**
+	 * sets the response to every following request for a route
+	 * 
+	 * @param method request method
+	 * @param route URL after Challonge.URL_START without the query, such as "tournaments.xml"
+	 * @param code HTTP status
+	 * @param body response body
+	 */
+	public void respond(String method, String route, int code, String body)
+	{
+		respond(method, route, code, body.getBytes(StandardCharsets.UTF_8), null);
+	}
+	
+	/**
+	 * sets the response to every following request for a route
+	 * 
+	 * @param method request method
+	 * @param route URL after Challonge.URL_START without the query, such as "tournaments.xml"
+	 * @param code HTTP status
+	 * @param body response body as sent
+	 * @param encoding content encoding of the body (or <b>null</b>)
+	 */
+	public void respond(String method, String route, int code, byte[] body, String encoding)
+	{
+		responses.put(method + " " + route, new Response(code, body, encoding));
+	}
+	
+	// Classes
+	/**
+	 * a connection answered by this server
+	 */
+	private class Connection extends HttpURLConnection {
+		
+		// DATA MEMBERS
+		private ByteArrayOutputStream body;
+		private Response response;
+		
+		// METHODS
+		/**
+		 * creates a connection that has not been sent yet
+		 * 
+		 * @param url request URL
+		 */
+		private Connection(URL url)
+		{
+			super(url);
+			body = new ByteArrayOutputStream();
+		}
+		
+		@Override
+		public synchronized void connect()
+		{
+			if(connected)
+				return;
+			
+			String query = getURL().getQuery();
+			response = receive(new Request(getRequestMethod(), getRoute(getURL()), (query == null) ? "" : query,
+					new String(body.toByteArray(), StandardCharsets.UTF_8), getRequestProperty("Accept-Encoding")));
+			connected = true;
+		}
+		
+		@Override
+		public void disconnect()
+		{
+			// Nothing is held open
+		}
+		
+		@Override
+		public String getContentEncoding()
+		{
+			connect();
+			return response.encoding;
+		}
+		
+		@Override
+		public InputStream getErrorStream()
+		{
+			if(!connected || (response.code < HttpURLConnection.HTTP_BAD_REQUEST))
+				return null;
+			
+			return new ByteArrayInputStream(response.body);
+		}
+		
+		@Override
+		public InputStream getInputStream() throws IOException
+		{
+			connect();
+			if(response.code >= HttpURLConnection.HTTP_BAD_REQUEST)
+				throw new IOException("HTTP " + response.code);
+			
+			return new ByteArrayInputStream(response.body);
+		}
+		
+		@Override
+		public OutputStream getOutputStream()
+		{
+			return body;
+		}
+		
+		@Override
+		public int getResponseCode()
+		{
+			connect();
+			return response.code;
+		}
+		
+		@Override
+		public boolean usingProxy()
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * a request received by this server
+	 */
+	public static class Request {
+		
+		// DATA MEMBERS
+		private String method;
+		private String route;
+		private String query;
+		private String body;
+		private String acceptEncoding;
+		
+		// METHODS
+		/**
+		 * creates a request
+		 * 
+		 * @param m method
+		 * @param r route
+		 * @param q query (empty if none)
+		 * @param b body (empty if none)
+		 * @param a Accept-Encoding header (or <b>null</b>)
+		 */
+		private Request(String m, String r, String q, String b, String a)
+		{
+			method = m;
+			route = r;
+			query = q;
+			body = b;
+			acceptEncoding = a;
+		}
+		
+		/**
+		 * returns the Accept-Encoding header
+		 * 
+		 * @return header value, or <b>null</b> if it was not sent
+		 */
+		public String getAcceptEncoding()
+		{
+			return acceptEncoding;
+		}
+		
+		/**
+		 * returns the body
+		 * 
+		 * @return form-encoded body, empty if none was sent
+		 */
+		public String getBody()
+		{
+			return body;
+		}
+		
+		/**
+		 * returns the query
+		 * 
+		 * @return query without the "?", empty if there is none
+		 */
+		public String getQuery()
+		{
+			return query;
+		}
+	}
+	
+	/**
+	 * a canned response
+	 */
+	private static class Response {
+		
+		// DATA MEMBERS
+		private int code;
+		private byte[] body;
+		private String encoding;
+		
+		// METHODS
+		/**
+		 * creates a response
+		 * 
+		 * @param c HTTP status
+		 * @param b body as sent
+		 * @param e content encoding (or <b>null</b>)
+		 */
+		private Response(int c, byte[] b, String e)
+		{
+			code = c;
+			body = b;
+			encoding = e;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package challonge;
+
+import java.util.List;
+
+public class HeadToHeadIndexTest extends UnitTest {
+	
+	// METHODS
+	// Instance methods
+	public void testIgnoresOpenAndRepeatedMatches() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SWISS);
+		Participant a = createParticipant(101, "Alice", 1);
+		Participant b = createParticipant(102, "Bob", 2);
+		HeadToHeadIndex index = new HeadToHeadIndex(new PlayerRegistry());
+		
+		assertFalse(index.addMatch(createOpenMatch(t, 11, 1, a, b)));
+		assertTrue(index.addMatch(createCompletedMatch(t, 12, 1, a, b, a, "", "")));
+		assertFalse(index.addMatch(createCompletedMatch(t, 12, 1, a, b, a, "", "")));
+		
+		int alice = index.getRegistry().getPlayerID(a);
+		int bob = index.getRegistry().getPlayerID(b);
+		assertEquals(new int[] {1, 0, 0}, index.getHeadToHead(alice, bob));
+		assertEquals(new int[] {0, 0, 0}, index.getHeadToHead(alice, alice + bob + 1));
+	}
+	
+	public void testPlayersAreCombinedAcrossTournaments() throws ChallongeException
+	{
+		HeadToHeadIndex index = new HeadToHeadIndex(new PlayerRegistry());
+		for(int i = 0; i < 3; i++)
+		{
+			// Each tournament has its own participant IDs for the same players
+			Tournament t = createTournament(i + 1, Tournament.TYPE_SWISS);
+			Participant a = createParticipant(100 + 10 * i, "Alice", 1);
+			Participant b = createParticipant(101 + 10 * i, " BOB ", 2);
+			Participant winner = (i == 1) ? b : a;
+			assertTrue(index.addMatch(createCompletedMatch(t, 1000 + i, 1, b, a, winner, "", "")));
+		}
+		index.addMatch(createCompletedMatch(createTournament(4, Tournament.TYPE_SWISS), 1003, 1,
+				createParticipant(130, "alice", 1), createParticipant(131, "Bob", 2), null, "", ""));
+		
+		PlayerRegistry registry = index.getRegistry();
+		int alice = registry.getPlayerIDByName("Alice");
+		int bob = registry.getPlayerIDByName("Bob");
+		assertEquals(2, registry.size());
+		assertEquals(new int[] {2, 1, 1}, index.getHeadToHead(alice, bob));
+		assertEquals(new int[] {1, 2, 1}, index.getHeadToHead(bob, alice));
+	}
+	
+	public void testRecentResultsAreNewestFirst() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_ROUND_ROBIN);
+		Participant a = createParticipant(101, "Alice", 1);
+		Participant b = createParticipant(102, "Bob", 2);
+		Participant c = createParticipant(103, "Carol", 3);
+		HeadToHeadIndex index = new HeadToHeadIndex(new PlayerRegistry());
+		
+		// Added out of order, as when tournaments are indexed one after another
+		index.addMatch(createCompletedMatch(t, 12, 2, a, c, c, "", "2024-05-01T12:00:00Z"));
+		index.addMatch(createCompletedMatch(t, 11, 1, a, b, a, "", "2024-05-01T10:00:00+00:00"));
+		index.addMatch(createCompletedMatch(t, 13, 3, b, a, null, "", "2024-05-01T09:00:00-05:00"));
+		
+		int alice = index.getRegistry().getPlayerID(a);
+		List<HeadToHeadIndex.Result> results = index.getRecentResults(alice, 10);
+		assertEquals(3, results.size());
+		assertEquals(13, results.get(0).getMatchID());
+		assertEquals(HeadToHeadIndex.OUTCOME_DRAW, results.get(0).getOutcome());
+		assertEquals(12, results.get(1).getMatchID());
+		assertEquals(HeadToHeadIndex.OUTCOME_LOSS, results.get(1).getOutcome());
+		assertEquals(index.getRegistry().getPlayerID(c), results.get(1).getOpponent());
+		assertEquals(11, results.get(2).getMatchID());
+		assertEquals(HeadToHeadIndex.OUTCOME_WIN, results.get(2).getOutcome());
+		assertEquals(1, results.get(2).getTournamentID());
+		assertEquals(1714557600000L, results.get(2).getTime());
+		
+		assertEquals(1, index.getRecentResults(alice, 1).size());
+		assertEquals(0, index.getRecentResults(alice + 100, 5).size());
+	}
+}
@@ -0,0 +1,76 @@
+package challonge;
+
+import java.net.HttpURLConnection;
+import java.util.List;
+
+public class MatchReportBatchTest extends UnitTest {
+	
+	// CONSTANTS - Requests
+	private static final String ROUTE = "tournaments/1/matches/11.xml";
+	
+	// DATA MEMBERS
+	private FakeServer server;
+	private Tournament t;
+	private Participant a;
+	private Participant b;
+	
+	// METHODS
+	// Constructors
+	public MatchReportBatchTest() throws ChallongeException
+	{
+		server = FakeServer.install();
+		server.respond("PUT", ROUTE, HttpURLConnection.HTTP_OK, "<match><id>11</id><state>" + Match.STATE_COMPLETE
+				+ "</state><round>1</round><player1-id>101</player1-id><player2-id>102</player2-id><winner-id>101</winner-id>"
+				+ "<scores-csv>2-1</scores-csv><completed-at>2024-03-11T15:00:00Z</completed-at></match>");
+		t = createTournament(1, Tournament.TYPE_SINGLE_ELIM);
+		a = createParticipant(101, "A", 1);
+		b = createParticipant(102, "B", 2);
+	}
+	
+	// Instance methods
+	public void testFailedReportDoesNotStopTheNextOne() throws ChallongeException
+	{
+		// Without its tournament, the first report fails before anything is sent
+		Match orphan = createOpenMatch(null, 11, 1, a, b);
+		List<MatchReportBatch.Report> reports = new MatchReportBatch().add(orphan, "2-1", Match.RESULT_P1_WIN)
+				.add(createOpenMatch(t, 11, 1, a, b), "2-1", Match.RESULT_P1_WIN).submit(2);
+		
+		assertFalse(reports.get(0).isSuccessful());
+		assertTrue(reports.get(0).getException() instanceof RuntimeException);
+		assertTrue(reports.get(1).isSuccessful());
+		assertNull(reports.get(1).getException());
+		assertEquals(1, server.getRequests("PUT", ROUTE).size());
+	}
+	
+	public void testRejectedReportFails() throws ChallongeException
+	{
+		server.respond("PUT", ROUTE, HttpURLConnection.HTTP_INTERNAL_ERROR, "");
+		List<MatchReportBatch.Report> reports = new MatchReportBatch().add(createOpenMatch(t, 11, 1, a, b), "2-1", Match.RESULT_P1_WIN)
+				.submit(1);
+		
+		assertFalse(reports.get(0).isSuccessful());
+		assertReason(ChallongeException.REASON_SERVER, (ChallongeException) reports.get(0).getException());
+	}
+	
+	public void testReportNeedsNoParticipantList() throws ChallongeException
+	{
+		Match updated = createOpenMatch(t, 11, 1, a, b).reportScore("2-1", Match.RESULT_P1_WIN);
+		assertEquals("api_key=" + KEY + "&match[scores_csv]=2-1&match[winner_id]=101", server.getRequests("PUT", ROUTE).get(0).getBody());
+		assertEquals(Match.RESULT_P1_WIN, updated.getResult());
+		assertEquals(a, updated.getPlayer1());
+		assertTrue(updated.getCompletedAt() != Match.NO_TIME);
+		
+		// The tournament was never hydrated, so it is left without a partial match list
+		assertEquals(0, t.getSnapshot().getMatches().size());
+	}
+	
+	public void testUnreadableResponseKeepsTheReport() throws ChallongeException
+	{
+		server.respond("PUT", ROUTE, HttpURLConnection.HTTP_OK, "<html>Accepted</html>");
+		Match updated = createOpenMatch(t, 11, 1, a, b).reportScore("1-2,2-2", Match.RESULT_DRAW);
+		assertEquals(Match.RESULT_DRAW, updated.getResult());
+		assertEquals(Match.STATE_COMPLETE, updated.getState());
+		assertEquals("1-2,2-2", updated.getScores());
+		assertEquals(Match.NO_TIME, updated.getCompletedAt());
+	}
+}
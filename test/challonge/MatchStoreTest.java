@@ -0,0 +1,128 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class MatchStoreTest extends UnitTest {
+	
+	// DATA MEMBERS
+	private Tournament first;
+	private Tournament second;
+	private Participant a;
+	private Participant b;
+	private Participant c;
+	
+	// METHODS
+	// Constructors
+	public MatchStoreTest() throws ChallongeException
+	{
+		first = createTournament(1, Tournament.TYPE_ROUND_ROBIN);
+		second = createTournament(2, Tournament.TYPE_SINGLE_ELIM);
+		a = createParticipant(101, "A", 1);
+		b = createParticipant(102, "B", 2);
+		c = createParticipant(103, "C", 3);
+		first.restore(Arrays.asList(a, b, c), Arrays.asList(createCompletedMatch(first, 11, 1, a, b, a, "2-0", ""),
+				createCompletedMatch(first, 12, 2, b, c, null, "1-1", ""), createOpenMatch(first, 13, 3, c, a)));
+		second.restore(Arrays.asList(a, b), Arrays.asList(createCompletedMatch(second, 21, 1, b, a, a, "0-2", ""),
+				createPendingMatch(second, 22, 2, 21, false, 21, true)));
+	}
+	
+	// Instance methods
+	public void testColumnsKeepInsertionOrder()
+	{
+		MatchStore store = MatchStore.createMatchStore(Arrays.asList(first, second));
+		assertEquals(5, store.size());
+		assertEquals(3, store.getParticipantCount());
+		
+		assertEquals(11, store.getMatchID(0));
+		assertEquals(1, store.getTournamentID(0));
+		assertEquals(101, store.getPlayer1ID(0));
+		assertEquals(102, store.getPlayer2ID(0));
+		assertEquals(Match.RESULT_P1_WIN, store.getResult(0));
+		assertEquals(Match.RESULT_DRAW, store.getResult(1));
+		assertEquals(Match.RESULT_OPEN, store.getResult(2));
+		assertEquals(21, store.getMatchID(3));
+		assertEquals(2, store.getTournamentID(3));
+		assertEquals(Match.RESULT_P2_WIN, store.getResult(3));
+		
+		// Players of the pending match are not known yet
+		assertEquals(MatchStore.NO_PLAYER, store.getPlayer1ID(4));
+		assertEquals(MatchStore.NO_PLAYER, store.getPlayer2ID(4));
+		assertEquals("B", store.getParticipantName(102));
+	}
+	
+	public void testEmptyStore()
+	{
+		MatchStore store = MatchStore.createMatchStore(new ArrayList<Tournament>());
+		assertEquals(0, store.size());
+		assertEquals(0, store.getParticipantCount());
+		assertNull(store.getParticipantName(101));
+		assertEquals(new int[0], store.getRowsForParticipant(101));
+		store.scan(new MatchStore.RowVisitor() {
+			@Override
+			public void visit(int row, int matchID, int tournamentID, int player1ID, int player2ID, int result)
+			{
+				fail("the store has no rows");
+			}
+		});
+	}
+	
+	public void testRowOutOfRange()
+	{
+		MatchStore store = new MatchStore();
+		store.addTournament(first);
+		int[] rows = {-1, 3};
+		for(int i = 0; i < rows.length; i++)
+		{
+			try
+			{
+				store.getMatchID(rows[i]);
+				fail("row " + rows[i] + " does not exist");
+			}
+			catch(IndexOutOfBoundsException ioobe)
+			{
+				// Expected
+			}
+		}
+	}
+	
+	public void testRowsForParticipantFollowNewRows() throws ChallongeException
+	{
+		MatchStore store = new MatchStore();
+		store.addTournament(first);
+		assertEquals(new int[] {0, 2}, store.getRowsForParticipant(101));
+		assertEquals(new int[] {0, 1}, store.getRowsForParticipant(102));
+		assertEquals(new int[0], store.getRowsForParticipant(999));
+		
+		// The index is rebuilt once rows are added
+		store.addTournament(second);
+		assertEquals(new int[] {0, 2, 3}, store.getRowsForParticipant(101));
+		assertEquals(new int[] {0, 1, 3}, store.getRowsForParticipant(102));
+		assertEquals(new int[] {1, 2}, store.getRowsForParticipant(103));
+	}
+	
+	public void testScanParticipantVisitsItsRows()
+	{
+		MatchStore store = MatchStore.createMatchStore(Arrays.asList(first, second));
+		final ArrayList<Integer> matchIDs = new ArrayList<Integer>();
+		store.scanParticipant(103, new MatchStore.RowVisitor() {
+			@Override
+			public void visit(int row, int matchID, int tournamentID, int player1ID, int player2ID, int result)
+			{
+				assertTrue((player1ID == 103) || (player2ID == 103));
+				matchIDs.add(matchID);
+			}
+		});
+		assertEquals(Arrays.asList(12, 13), matchIDs);
+		
+		final int[] rows = {0};
+		store.scan(new MatchStore.RowVisitor() {
+			@Override
+			public void visit(int row, int matchID, int tournamentID, int player1ID, int player2ID, int result)
+			{
+				assertEquals(rows[0]++, row);
+			}
+		});
+		assertEquals(5, rows[0]);
+	}
+}
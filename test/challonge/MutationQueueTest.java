@@ -0,0 +1,151 @@
+package challonge;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class MutationQueueTest extends UnitTest {
+	
+	// METHODS
+	// Static
+	/**
+	 * creates a journal file
+	 * 
+	 * @param entries journal entries, one per line
+	 * @return journal file, deleted when the tests end
+	 * @throws IOException if the file could not be written
+	 */
+	private static File createJournal(String... entries) throws IOException
+	{
+		File file = File.createTempFile("mutations", ".journal");
+		file.deleteOnExit();
+		new File(file.getPath() + ".tmp").deleteOnExit();
+		Files.write(file.toPath(), Arrays.asList(entries), StandardCharsets.UTF_8);
+		
+		return file;
+	}
+	
+	/**
+	 * reads the entries of a journal
+	 * 
+	 * @param file journal file
+	 * @return journal entries
+	 * @throws IOException if the file could not be read
+	 */
+	private static List<String> readJournal(File file) throws IOException
+	{
+		return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+	}
+	
+	// Instance methods
+	public void testClosedQueueRejectsMutations() throws Exception
+	{
+		MutationQueue queue = new MutationQueue(KEY, createJournal());
+		queue.close();
+		try
+		{
+			queue.start(createTournament(7, Tournament.TYPE_SWISS));
+			fail("the queue is closed");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_QUEUE_CLOSED, ce);
+		}
+	}
+	
+	public void testCloseWakesWaitingThreads() throws Exception
+	{
+		FakeServer.install().respond("POST", "tournaments/7/start.xml", HttpURLConnection.HTTP_INTERNAL_ERROR, "");
+		MutationQueue queue = new MutationQueue(KEY, createJournal());
+		queue.setRetryPolicy(MutationQueue.UNLIMITED_ATTEMPTS, 60000, 60000);
+		final MutationQueue.Mutation m = queue.start(createTournament(7, Tournament.TYPE_SWISS));
+		final boolean[] result = {true};
+		Thread waiter = new Thread() {
+			@Override
+			public void run()
+			{
+				try
+				{
+					result[0] = m.await();
+				}
+				catch(InterruptedException ie)
+				{
+					// Leaves the result as it was, failing the test
+				}
+			}
+		};
+		waiter.start();
+		
+		// The first attempt failed, and the retry is a minute away
+		while(m.getAttempts() == 0)
+			Thread.sleep(5);
+		queue.close();
+		waiter.join(5000);
+		assertFalse(waiter.isAlive());
+		assertFalse(result[0]);
+		assertFalse(m.isDone());
+		assertFalse(m.await());
+	}
+	
+	public void testCompletedMutationsAreCompacted() throws Exception
+	{
+		File journal = createJournal("P 0 7 start -", "P 1 7 change-name New+Name", "D 1", "D 0", "P 2 7 del");
+		MutationQueue queue = new MutationQueue(KEY, journal);
+		try
+		{
+			// The truncated entry was never acknowledged, so it is dropped
+			assertEquals(0, queue.getPendingCount());
+			assertEquals(0, readJournal(journal).size());
+		}
+		finally
+		{
+			queue.close();
+		}
+	}
+	
+	public void testIncompleteLastEntryIsIgnored() throws Exception
+	{
+		File journal = createJournal();
+		Files.write(journal.toPath(), "P 0 7 start -\nD 0\nP 1 7 change-name New+Na".getBytes(StandardCharsets.UTF_8));
+		MutationQueue queue = new MutationQueue(KEY, journal);
+		try
+		{
+			// The last entry parses, but was cut off inside its argument
+			assertEquals(0, queue.getPendingCount());
+			assertEquals(0, readJournal(journal).size());
+			assertFalse(new File(journal.getPath() + ".tmp").exists());
+		}
+		finally
+		{
+			queue.close();
+		}
+	}
+	
+	public void testPendingMutationsAreReplayed() throws Exception
+	{
+		File journal = createJournal("P 0 7 start -", "P 1 7 change-name New+Name", "P 2 8 delete -", "D 0", "P 3 9 add-part");
+		MutationQueue queue = new MutationQueue(KEY, journal);
+		try
+		{
+			// Entries for outcomes reported while the queue is open follow the compacted ones
+			List<String> entries = readJournal(journal);
+			assertEquals("P 1 7 change-name New+Name", entries.get(0));
+			assertEquals("P 2 8 delete -", entries.get(1));
+			for(int i = 2; i < entries.size(); i++)
+				assertTrue(entries.get(i).startsWith("D "));
+			
+			// Sequence numbers continue after the highest one in the journal
+			MutationQueue.Mutation m = queue.start(createTournament(9, Tournament.TYPE_SWISS));
+			assertEquals(3, m.getSequence());
+			assertEquals(MutationQueue.OP_START, m.getOperation());
+		}
+		finally
+		{
+			queue.close();
+		}
+	}
+}
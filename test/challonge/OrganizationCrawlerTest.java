@@ -0,0 +1,103 @@
+package challonge;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class OrganizationCrawlerTest extends UnitTest {
+	
+	// CONSTANTS - Responses
+	private static final String EMPTY_MATCHES = "<matches type=\"array\"/>";
+	private static final String EMPTY_PARTICIPANTS = "<participants type=\"array\"/>";
+	
+	// DATA MEMBERS
+	private FakeServer server;
+	
+	// METHODS
+	// Constructors
+	public OrganizationCrawlerTest()
+	{
+		server = FakeServer.install();
+		server.respond("GET", "tournaments.xml", HttpURLConnection.HTTP_OK, "<tournaments type=\"array\">"
+				+ createTournamentXML(1, Tournament.STATE_COMPLETE) + createTournamentXML(2, Tournament.STATE_COMPLETE)
+				+ createTournamentXML(3, Tournament.STATE_UNDERWAY) + "</tournaments>");
+		for(int id = 1; id <= 3; id++)
+		{
+			server.respond("GET", "tournaments/" + id + "/participants.xml", HttpURLConnection.HTTP_OK, EMPTY_PARTICIPANTS);
+			server.respond("GET", "tournaments/" + id + "/matches.xml", HttpURLConnection.HTTP_OK, EMPTY_MATCHES);
+		}
+	}
+	
+	// Static
+	/**
+	 * returns the index element of a tournament
+	 * 
+	 * @param id tournament ID
+	 * @param state tournament state
+	 * @return tournament element
+	 */
+	private static String createTournamentXML(int id, String state)
+	{
+		return "<tournament><id>" + id + "</id><name>Tournament " + id + "</name><url>t" + id + "</url><description/>"
+				+ "<tournament-type>" + Tournament.TYPE_SWISS + "</tournament-type><state>" + state + "</state></tournament>";
+	}
+	
+	// Instance methods
+	public void testCorruptCheckpointStopsCrawl() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			File checkpoint = new File(directory, "crawl.checkpoint");
+			Files.write(checkpoint.toPath(), "1\nnot an ID\n".getBytes(StandardCharsets.UTF_8));
+			new OrganizationCrawler(new TournamentQuery(KEY), new WarmStartCache(KEY, null, directory), checkpoint).crawl();
+			fail("the checkpoint cannot be read");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_CHECKPOINT, ce);
+			assertEquals(0, server.getRequests("GET", "tournaments.xml").size());
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+	
+	public void testResumeSkipsStoredCompleteTournaments() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			File checkpoint = new File(directory, "crawl.checkpoint");
+			WarmStartCache store = new WarmStartCache(KEY, null, directory);
+			server.respond("GET", "tournaments/2/participants.xml", HttpURLConnection.HTTP_INTERNAL_ERROR, "");
+			OrganizationCrawler crawler = new OrganizationCrawler(new TournamentQuery(KEY), store, checkpoint);
+			crawler.crawl();
+			assertEquals(2, crawler.getStoredCount());
+			assertEquals(1, crawler.getFailedCount());
+			assertEquals(0, crawler.getSkippedCount());
+			assertEquals(Arrays.asList("1"), Files.readAllLines(checkpoint.toPath(), StandardCharsets.UTF_8));
+			
+			// The failed tournament and the one underway are crawled again, the stored one is not
+			server.respond("GET", "tournaments/2/participants.xml", HttpURLConnection.HTTP_OK, EMPTY_PARTICIPANTS);
+			crawler = new OrganizationCrawler(new TournamentQuery(KEY), store, checkpoint);
+			crawler.crawl();
+			assertEquals(2, crawler.getStoredCount());
+			assertEquals(0, crawler.getFailedCount());
+			assertEquals(1, crawler.getSkippedCount());
+			assertEquals(1, server.getRequests("GET", "tournaments/1/participants.xml").size());
+			assertEquals(2, server.getRequests("GET", "tournaments/3/participants.xml").size());
+			
+			String[] ids = Files.readAllLines(checkpoint.toPath(), StandardCharsets.UTF_8).toArray(new String[0]);
+			Arrays.sort(ids);
+			assertEquals(Arrays.asList("1", "2"), Arrays.asList(ids));
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+}
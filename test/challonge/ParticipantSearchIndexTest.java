@@ -0,0 +1,127 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ParticipantSearchIndexTest extends UnitTest {
+	
+	// DATA MEMBERS
+	private Tournament t;
+	private ParticipantSearchIndex index;
+	
+	// METHODS
+	// Constructors
+	public ParticipantSearchIndexTest() throws ChallongeException
+	{
+		t = createTournament(1, Tournament.TYPE_SWISS);
+		t.restore(Arrays.asList(createParticipant(1, "John Smith", 1), createParticipant(2, "Smith Joanna", 2),
+				createParticipant(3, "Joe Brown", 3), createParticipant(4, "Jos\u00e9 \u00c1lvarez", 4),
+				createParticipant(5, "Christina Robertson", 5), createParticipant(6, "Al", 6)), new ArrayList<Match>());
+		index = new ParticipantSearchIndex();
+		index.addTournament(t);
+	}
+	
+	// Static
+	/**
+	 * returns the participant IDs of some search results, in order
+	 * 
+	 * @param results search results
+	 * @return participant IDs
+	 */
+	private static int[] getIDs(List<ParticipantSearchIndex.Result> results)
+	{
+		int[] ids = new int[results.size()];
+		for(int i = 0; i < ids.length; i++)
+			ids[i] = results.get(i).getParticipant().getID();
+		
+		return ids;
+	}
+	
+	/**
+	 * returns the sorted participant IDs of some search results
+	 * 
+	 * @param results search results
+	 * @return participant IDs, sorted
+	 */
+	private static int[] getSortedIDs(List<ParticipantSearchIndex.Result> results)
+	{
+		int[] ids = getIDs(results);
+		Arrays.sort(ids);
+		return ids;
+	}
+	
+	// Instance methods
+	public void testAccentsAndCaseAreIgnored()
+	{
+		assertEquals(new int[] {4}, getIDs(index.searchPrefix("JOSE alv", 10)));
+		assertEquals(new int[] {4}, getIDs(index.searchPrefix("\u00e1lvarez", 10)));
+	}
+	
+	public void testPrefixMatchesEveryWord()
+	{
+		assertEquals(new int[] {1, 2}, getSortedIDs(index.searchPrefix("jo sm", 10)));
+		assertEquals(new int[] {1, 2, 3, 4}, getSortedIDs(index.searchPrefix("jo", 10)));
+		assertEquals(new int[] {3}, getIDs(index.searchPrefix("brown jo", 10)));
+		assertEquals(2, index.searchPrefix("jo", 2).size());
+		assertEquals(0, index.searchPrefix("", 10).size());
+		assertEquals(0, index.searchPrefix("jo xy", 10).size());
+		
+		List<ParticipantSearchIndex.Result> results = index.searchPrefix("rob", 10);
+		assertEquals(0, results.get(0).getDistance());
+		assertEquals(t, results.get(0).getTournament());
+	}
+	
+	public void testRemovedParticipantsAreNotFound() throws ChallongeException
+	{
+		index.remove(1);
+		assertEquals(5, index.size());
+		assertEquals(new int[] {2}, getIDs(index.searchPrefix("smith", 10)));
+		assertEquals(0, index.searchPrefix("john", 10).size());
+		
+		// A participant renamed in a later refresh is found by its new name only
+		index.add(t, createParticipant(3, "Joe Green", 3));
+		assertEquals(0, index.searchPrefix("brown", 10).size());
+		assertEquals(new int[] {3}, getIDs(index.searchPrefix("green", 10)));
+		assertEquals(5, index.size());
+	}
+	
+	public void testSearchAllowsTyposByWordLength() throws ChallongeException
+	{
+		// Swapped letters count as one typo, allowed in a four letter word
+		List<ParticipantSearchIndex.Result> results = index.search("jonh", 10);
+		assertEquals(new int[] {1}, getIDs(results));
+		assertEquals(1, results.get(0).getDistance());
+		
+		// Two letters left out of a long word
+		assertEquals(new int[] {5}, getIDs(index.search("robrtsn", 10)));
+		
+		// Short words must be typed exactly
+		assertEquals(0, index.search("ak", 10).size());
+		assertEquals(new int[] {4, 6}, getSortedIDs(index.search("al", 10)));
+		
+		// Names starting with what was typed come before names with typos
+		results = index.search("smit", 10);
+		assertEquals(new int[] {1, 2}, getSortedIDs(results));
+		assertEquals(0, results.get(1).getDistance());
+	}
+	
+	public void testSearchSimilarOrdersByDistance() throws ChallongeException
+	{
+		List<ParticipantSearchIndex.Result> results = index.searchSimilar("joa", 1, 10);
+		assertEquals(new int[] {2, 3}, getIDs(results)); // "joanna" starts with it, "joe" is one typo away
+		assertEquals(0, results.get(0).getDistance());
+		assertEquals(1, results.get(1).getDistance());
+		
+		assertEquals(0, index.searchSimilar("jonh", 0, 10).size());
+		try
+		{
+			index.searchSimilar("john", -1, 10);
+			fail("distance cannot be negative");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_ARGUMENTS, ce);
+		}
+	}
+}
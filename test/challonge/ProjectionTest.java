@@ -0,0 +1,102 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ProjectionTest extends UnitTest {
+	
+	// CONSTANTS - Fixtures
+	private static final String MATCHES = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><matches type=\"array\">"
+			+ "<match><id type=\"integer\">11</id><state>complete</state><player1-id type=\"integer\">101</player1-id>"
+			+ "<player2-id type=\"integer\">102</player2-id><winner-id type=\"integer\">102</winner-id>"
+			+ "<scores-csv>1-2</scores-csv><attachments><attachment><id>5</id></attachment></attachments></match>"
+			+ "<match><id type=\"integer\">12</id><state>open</state><player1-id type=\"integer\">101</player1-id>"
+			+ "<player2-id type=\"integer\">999</player2-id><winner-id nil=\"true\"></winner-id></match>"
+			+ "</matches>";
+	
+	// METHODS
+	// Instance methods
+	public void testFullProjectionKeepsEveryField() throws ChallongeException
+	{
+		assertTrue(Projection.FULL.includes("anything"));
+		
+		ArrayList<Projection.Record> records = Projection.FULL.parse(MATCHES, "match");
+		assertEquals(2, records.size());
+		assertEquals("1-2", records.get(0).getText("scores-csv"));
+		assertEquals(11, records.get(0).getInt("id", -1));
+		assertFalse(records.get(0).has("attachments")); // holds elements rather than text
+	}
+	
+	public void testMalformedXMLIsRejected()
+	{
+		try
+		{
+			Projection.RESULTS.parse("<matches><match><id>1</id></matches>", "match");
+			fail("the XML is not well formed");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_XML, ce);
+		}
+	}
+	
+	public void testMatchesWithoutState() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SWISS);
+		Participant a = createParticipant(101, "A", 1);
+		Participant b = createParticipant(102, "B", 2);
+		t.restore(Arrays.asList(a, b), new ArrayList<Match>());
+		
+		// Without the state, only a winner shows the match is complete
+		List<Match> matches = Match.createMatchListFromXML(KEY, t, t.getSnapshot(), MATCHES,
+				new Projection("id", "player1-id", "player2-id", "winner-id"));
+		assertEquals(Match.RESULT_P2_WIN, matches.get(0).getResult());
+		assertEquals(Match.RESULT_OPEN, matches.get(1).getResult());
+		
+		matches = Match.createMatchListFromXML(KEY, t, t.getSnapshot(), MATCHES, Projection.IDS_AND_NAMES);
+		assertEquals(Match.RESULT_OPEN, matches.get(0).getResult());
+		assertEquals("", matches.get(0).getScores());
+	}
+	
+	public void testParseKeepsOnlyProjectedFields() throws ChallongeException
+	{
+		ArrayList<Projection.Record> records = Projection.RESULTS.parse(MATCHES, "match");
+		assertEquals(2, records.size());
+		
+		Projection.Record first = records.get(0);
+		assertEquals(11, first.getInt("id", -1));
+		assertEquals("complete", first.getText("state"));
+		assertEquals(102, first.getInt("winner-id", -1));
+		assertFalse(first.has("scores-csv"));
+		assertFalse(first.has("attachments"));
+		assertEquals("", first.getText("scores-csv"));
+		assertEquals(-1, first.getInt("round", -1));
+		
+		// The attachment's ID is not read as the match's
+		assertEquals(12, records.get(1).getInt("id", -1));
+		assertEquals(-1, records.get(1).getInt("winner-id", -1));
+		assertTrue(Projection.RESULTS.includes("winner-id"));
+		assertFalse(Projection.RESULTS.includes("scores-csv"));
+	}
+	
+	public void testResultsProjectionBuildsMatches() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SWISS);
+		Participant a = createParticipant(101, "A", 1);
+		Participant b = createParticipant(102, "B", 2);
+		t.restore(Arrays.asList(a, b), new ArrayList<Match>());
+		
+		List<Match> matches = Match.createMatchListFromXML(KEY, t, t.getSnapshot(), MATCHES, Projection.RESULTS);
+		assertEquals(2, matches.size());
+		assertEquals(11, matches.get(0).getID());
+		assertEquals(Match.RESULT_P2_WIN, matches.get(0).getResult());
+		assertEquals("B", matches.get(0).getPlayer2().getName());
+		assertEquals("", matches.get(0).getScores());
+		assertEquals(Match.RESULT_OPEN, matches.get(1).getResult());
+		
+		// Players missing from the participant list only carry their ID
+		assertEquals(999, matches.get(1).getPlayer2().getID());
+		assertNull(matches.get(1).getPlayer2().getName());
+	}
+}
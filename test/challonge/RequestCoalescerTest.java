@@ -0,0 +1,204 @@
+package challonge;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestCoalescerTest extends UnitTest {
+	
+	// CONSTANTS - Fixtures
+	private static final long WINDOW_MILLIS = 60000;
+	
+	// DATA MEMBERS
+	private AtomicInteger calls = new AtomicInteger();
+	
+	// METHODS
+	// Instance methods
+	/**
+	 * creates a call that counts how many times it ran
+	 * 
+	 * @param result result of the call
+	 * @return call
+	 */
+	private Callable<String> count(final String result)
+	{
+		return new Callable<String>() {
+			@Override
+			public String call()
+			{
+				calls.incrementAndGet();
+				return result;
+			}
+		};
+	}
+	
+	public void testCallsInFlightAreShared() throws Exception
+	{
+		final RequestCoalescer<String> coalescer = new RequestCoalescer<String>();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final String[] results = new String[2];
+		Thread leader = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				try
+				{
+					results[0] = coalescer.execute("key", new Callable<String>() {
+						@Override
+						public String call() throws Exception
+						{
+							calls.incrementAndGet();
+							started.countDown();
+							release.await();
+							return "shared";
+						}
+					});
+				}
+				catch(ChallongeException ce)
+				{
+					results[0] = ce.getMessage();
+				}
+			}
+		});
+		Thread follower = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				try
+				{
+					results[1] = coalescer.execute("key", count("own"));
+				}
+				catch(ChallongeException ce)
+				{
+					results[1] = ce.getMessage();
+				}
+			}
+		});
+		
+		leader.start();
+		started.await();
+		follower.start();
+		while(follower.getState() != Thread.State.WAITING) // waiting for the leader's result
+			Thread.sleep(1);
+		release.countDown();
+		leader.join();
+		follower.join();
+		
+		assertEquals(1, calls.get());
+		assertEquals("shared", results[0]);
+		assertEquals("shared", results[1]);
+		
+		// Without a window, a completed call is not kept
+		assertEquals(0, coalescer.size());
+		assertEquals("own", coalescer.execute("key", count("own")));
+		assertEquals(2, calls.get());
+	}
+	
+	public void testDisabledCoalescerRunsEveryCall() throws ChallongeException
+	{
+		RequestCoalescer<String> coalescer = new RequestCoalescer<String>(false, WINDOW_MILLIS);
+		coalescer.execute("key", count("a"));
+		coalescer.execute("key", count("a"));
+		assertEquals(2, calls.get());
+		assertEquals(0, coalescer.size());
+	}
+	
+	public void testFailuresAreNotShared() throws ChallongeException
+	{
+		RequestCoalescer<String> coalescer = new RequestCoalescer<String>(true, WINDOW_MILLIS);
+		Callable<String> failing = new Callable<String>() {
+			@Override
+			public String call() throws ChallongeException
+			{
+				calls.incrementAndGet();
+				throw new ChallongeException(ChallongeException.REASON_SERVER);
+			}
+		};
+		for(int i = 0; i < 2; i++)
+		{
+			try
+			{
+				coalescer.execute("key", failing);
+				fail("the call failed");
+			}
+			catch(ChallongeException ce)
+			{
+				assertReason(ChallongeException.REASON_SERVER, ce);
+			}
+		}
+		
+		assertEquals(2, calls.get());
+		assertEquals(0, coalescer.size());
+	}
+	
+	public void testMaxEntriesLimitsKeptResults() throws ChallongeException
+	{
+		RequestCoalescer<String> coalescer = new RequestCoalescer<String>(true, WINDOW_MILLIS);
+		coalescer.setMaxEntries(1);
+		coalescer.execute("a", count("a"));
+		coalescer.execute("b", count("b"));
+		assertEquals(1, coalescer.size());
+		
+		// "a" is still shared, "b" did not fit
+		coalescer.execute("a", count("a"));
+		coalescer.execute("b", count("b"));
+		assertEquals(3, calls.get());
+		
+		try
+		{
+			coalescer.setMaxEntries(0);
+			fail("at least one entry is needed");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_ARGUMENTS, ce);
+		}
+	}
+	
+	public void testResultsAreSharedWithinWindow() throws Exception
+	{
+		RequestCoalescer<String> coalescer = new RequestCoalescer<String>(true, 30);
+		assertEquals("first", coalescer.execute("key", count("first")));
+		assertEquals("first", coalescer.execute("key", count("second")));
+		assertEquals("other", coalescer.execute("other", count("other")));
+		assertEquals(2, calls.get());
+		
+		// Expired results are run again
+		Thread.sleep(60);
+		assertEquals("second", coalescer.execute("key", count("second")));
+		assertEquals(3, calls.get());
+		
+		// And so are invalidated ones
+		coalescer.invalidateAll();
+		assertEquals(0, coalescer.size());
+		assertEquals("third", coalescer.execute("key", count("third")));
+		assertEquals(4, calls.get());
+	}
+	
+	public void testUncheckedExceptionsAreRethrown() throws ChallongeException
+	{
+		final IllegalStateException failure = new IllegalStateException("bug in the call");
+		Callable<String> failing = new Callable<String>() {
+			@Override
+			public String call()
+			{
+				throw failure;
+			}
+		};
+		
+		boolean[] enabled = {true, false};
+		for(int i = 0; i < enabled.length; i++)
+		{
+			try
+			{
+				new RequestCoalescer<String>(enabled[i], WINDOW_MILLIS).execute("key", failing);
+				fail("the call failed");
+			}
+			catch(IllegalStateException ise)
+			{
+				assertTrue(ise == failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package challonge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class ResponseEncodingTest extends UnitTest {
+	
+	// CONSTANTS - Responses
+	private static final String ROUTE = "tournaments.xml";
+	private static final String BODY = "<tournaments type=\"array\"><tournament><name>Caf\u00e9 Cup</name></tournament></tournaments>";
+	
+	// DATA MEMBERS
+	private FakeServer server;
+	
+	// METHODS
+	// Constructors
+	public ResponseEncodingTest()
+	{
+		server = FakeServer.install();
+	}
+	
+	// Static
+	/**
+	 * compresses the response body in deflate format
+	 * 
+	 * @param zlib <b>true</b> for the zlib format the encoding names, <b>false</b> for raw deflate data
+	 * @return compressed body
+	 * @throws IOException if the body could not be compressed
+	 */
+	private static byte[] deflate(boolean zlib) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, !zlib);
+		DeflaterOutputStream output = new DeflaterOutputStream(bytes, deflater);
+		output.write(BODY.getBytes(StandardCharsets.UTF_8));
+		output.close();
+		deflater.end();
+		return bytes.toByteArray();
+	}
+	
+	// Instance methods
+	/**
+	 * retrieves the response body
+	 * 
+	 * @return decoded body
+	 * @throws Exception if the request failed
+	 */
+	private String get() throws Exception
+	{
+		return Challonge.sendHttpRequest(KEY, new URL(Challonge.URL_START + ROUTE), "GET");
+	}
+	
+	public void testDeflateBodyIsDecoded() throws Exception
+	{
+		server.respond("GET", ROUTE, HttpURLConnection.HTTP_OK, deflate(true), "deflate");
+		assertEquals(BODY, get());
+	}
+	
+	public void testGzipBodyIsDecoded() throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GZIPOutputStream output = new GZIPOutputStream(bytes);
+		output.write(BODY.getBytes(StandardCharsets.UTF_8));
+		output.close();
+		server.respond("GET", ROUTE, HttpURLConnection.HTTP_OK, bytes.toByteArray(), "GZIP");
+		
+		assertEquals(BODY, get());
+		assertEquals("gzip, deflate", server.getRequests("GET", ROUTE).get(0).getAcceptEncoding());
+	}
+	
+	public void testRawDeflateBodyIsDecoded() throws Exception
+	{
+		// Sent by servers that leave out the zlib header the encoding calls for
+		server.respond("GET", ROUTE, HttpURLConnection.HTTP_OK, deflate(false), "deflate");
+		assertEquals(BODY, get());
+	}
+	
+	public void testUnencodedBodyIsReadAsIs() throws Exception
+	{
+		server.respond("GET", ROUTE, HttpURLConnection.HTTP_OK, BODY);
+		assertEquals(BODY, get());
+	}
+}
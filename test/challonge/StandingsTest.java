@@ -0,0 +1,194 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StandingsTest extends UnitTest {
+	
+	// METHODS
+	// Static
+	/**
+	 * returns the participant IDs of some standings, in order
+	 * 
+	 * @param records standings
+	 * @return participant IDs
+	 */
+	private static int[] getOrder(List<Standings.Record> records)
+	{
+		int[] order = new int[records.size()];
+		for(int i = 0; i < order.length; i++)
+			order[i] = records.get(i).getParticipantID();
+		
+		return order;
+	}
+	
+	// Instance methods
+	public void testDrawsAreOrderedBySeed() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_ROUND_ROBIN);
+		Participant second = createParticipant(20, "Second", 2);
+		Participant first = createParticipant(10, "First", 1);
+		Match draw = createCompletedMatch(t, 1, 1, second, first, null, "", "");
+		
+		List<Standings.Record> records = new Standings(Tournament.TYPE_ROUND_ROBIN,
+				new TournamentSnapshot(0, Arrays.asList(second, first), Arrays.asList(draw))).getStandings();
+		assertEquals(new int[] {10, 20}, getOrder(records));
+		assertEquals(Standings.POINTS_MATCH_DRAW, records.get(0).getPoints());
+		assertEquals(1, records.get(0).getDraws());
+	}
+	
+	public void testEliminationPlacements() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SINGLE_ELIM);
+		Participant a = createParticipant(1, "A", 1);
+		Participant b = createParticipant(2, "B", 2);
+		Participant c = createParticipant(3, "C", 3);
+		Participant d = createParticipant(4, "D", 4);
+		List<Participant> participants = Arrays.asList(d, c, b, a);
+		ArrayList<Match> matches = new ArrayList<Match>();
+		matches.add(createCompletedMatch(t, 11, 1, a, d, a, "2-0", ""));
+		matches.add(createCompletedMatch(t, 12, 1, b, c, b, "2-1", ""));
+		matches.add(createPendingMatch(t, 13, 2, 11, false, 12, false));
+		
+		// Both finalists are still in the bracket
+		Standings standings = new Standings(Tournament.TYPE_SINGLE_ELIM, new TournamentSnapshot(0, participants, matches));
+		List<Standings.Record> records = standings.getStandings();
+		assertEquals(new int[] {1, 2, 3, 4}, getOrder(records));
+		assertEquals(Standings.NO_PLACEMENT, records.get(0).getPlacement());
+		assertEquals(Standings.NO_PLACEMENT, records.get(1).getPlacement());
+		assertEquals(3, records.get(2).getPlacement());
+		assertEquals(3, records.get(3).getPlacement());
+		
+		standings.applyLocalResult(13, Match.RESULT_P2_WIN, "1-2");
+		records = standings.getStandings();
+		assertEquals(new int[] {2, 1, 3, 4}, getOrder(records));
+		assertEquals(1, records.get(0).getPlacement());
+		assertEquals(2, records.get(1).getPlacement());
+	}
+	
+	public void testLocalResultsFillInLaterMatches() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SINGLE_ELIM);
+		Participant a = createParticipant(1, "A", 1);
+		Participant b = createParticipant(2, "B", 2);
+		Participant c = createParticipant(3, "C", 3);
+		Participant d = createParticipant(4, "D", 4);
+		ArrayList<Match> matches = new ArrayList<Match>();
+		matches.add(createOpenMatch(t, 11, 1, a, d));
+		matches.add(createOpenMatch(t, 12, 1, b, c));
+		matches.add(createPendingMatch(t, 13, 2, 11, false, 12, false));
+		Standings standings = new Standings(Tournament.TYPE_SINGLE_ELIM, new TournamentSnapshot(0, Arrays.asList(a, b, c, d), matches));
+		
+		assertEquals(new int[] {-1, -1}, standings.getPlayers(13));
+		try
+		{
+			standings.applyLocalResult(13, Match.RESULT_P1_WIN, "");
+			fail("players of the final are not known yet");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_MATCH_STATE, ce);
+		}
+		
+		standings.applyLocalResult(11, Match.RESULT_P1_WIN, "2-0");
+		assertEquals(new int[] {1, -1}, standings.getPlayers(13));
+		assertEquals(13, standings.getNextMatchID(1));
+		assertEquals(Match.NO_MATCH, standings.getNextMatchID(4));
+		
+		// Correcting a result moves the other player into the final
+		standings.applyLocalResult(11, Match.RESULT_P2_WIN, "0-2");
+		assertEquals(new int[] {4, -1}, standings.getPlayers(13));
+		assertEquals(12, standings.getNextMatchID(3));
+		assertEquals(Match.NO_MATCH, standings.getNextMatchID(1));
+	}
+	
+	public void testMissingTypeIsRejected()
+	{
+		try
+		{
+			new Standings(null, TournamentSnapshot.EMPTY);
+			fail("standings need a tournament type");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_TOURNEY_TYPE, ce);
+		}
+	}
+	
+	public void testRoundRobinOrdersByPointsThenGameDifference() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_ROUND_ROBIN);
+		Participant a = createParticipant(1, "A", 3);
+		Participant b = createParticipant(2, "B", 1);
+		Participant c = createParticipant(3, "C", 2);
+		ArrayList<Match> matches = new ArrayList<Match>();
+		matches.add(createCompletedMatch(t, 11, 1, a, c, a, "3-0,3-1", ""));
+		matches.add(createCompletedMatch(t, 12, 2, b, c, b, "3-0,0-3,3-1", ""));
+		matches.add(createCompletedMatch(t, 13, 3, a, b, null, "2-1,1-2", ""));
+		
+		List<Standings.Record> records = new Standings(Tournament.TYPE_ROUND_ROBIN,
+				new TournamentSnapshot(0, Arrays.asList(a, b, c), matches)).getStandings();
+		assertEquals(new int[] {1, 2, 3}, getOrder(records));
+		assertEquals(1.5, records.get(0).getPoints());
+		assertEquals(1.5, records.get(1).getPoints());
+		assertEquals(2.0, records.get(0).getTiebreak()); // 3 games won, 1 lost
+		assertEquals(1.0, records.get(1).getTiebreak()); // 3 games won, 2 lost
+		assertEquals(2, records.get(2).getLosses());
+		assertEquals(4, records.get(2).getGamesLost());
+	}
+	
+	public void testServerResultReplacesLocalResult() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_ROUND_ROBIN);
+		Participant a = createParticipant(1, "A", 1);
+		Participant b = createParticipant(2, "B", 2);
+		Standings standings = new Standings(Tournament.TYPE_ROUND_ROBIN,
+				new TournamentSnapshot(0, Arrays.asList(a, b), Arrays.asList(createOpenMatch(t, 11, 1, a, b))));
+		
+		standings.applyLocalResult(11, Match.RESULT_P1_WIN, "2-0");
+		standings.applyResult(createCompletedMatch(t, 11, 1, a, b, b, "0-2", ""));
+		List<Standings.Record> records = standings.getStandings();
+		assertEquals(new int[] {2, 1}, getOrder(records));
+		assertEquals(1, records.get(0).getWins());
+		assertEquals(0, records.get(1).getWins());
+		assertEquals(1, records.get(1).getLosses());
+	}
+	
+	public void testSwissTiebreakIsBuchholzScore() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SWISS);
+		Participant a = createParticipant(1, "A", 1);
+		Participant b = createParticipant(2, "B", 2);
+		Participant c = createParticipant(3, "C", 4);
+		Participant d = createParticipant(4, "D", 3);
+		ArrayList<Match> matches = new ArrayList<Match>();
+		matches.add(createCompletedMatch(t, 11, 1, a, b, a, "", ""));
+		matches.add(createCompletedMatch(t, 12, 1, c, d, c, "", ""));
+		matches.add(createCompletedMatch(t, 13, 2, a, c, a, "", ""));
+		matches.add(createCompletedMatch(t, 14, 2, d, b, d, "", ""));
+		
+		// C and D both have one win; C played stronger opponents, so it ranks ahead despite its seed
+		List<Standings.Record> records = new Standings(Tournament.TYPE_SWISS,
+				new TournamentSnapshot(0, Arrays.asList(a, b, c, d), matches)).getStandings();
+		assertEquals(new int[] {1, 3, 4, 2}, getOrder(records));
+		assertEquals(3.0, records.get(1).getTiebreak());
+		assertEquals(1.0, records.get(2).getTiebreak());
+	}
+	
+	public void testUnknownMatchIsRejected() throws ChallongeException
+	{
+		Standings standings = new Standings(Tournament.TYPE_ROUND_ROBIN, TournamentSnapshot.EMPTY);
+		assertNull(standings.getPlayers(99));
+		assertEquals(Match.NO_MATCH, standings.getNextMatchID(1));
+		try
+		{
+			standings.applyLocalResult(99, Match.RESULT_DRAW, "");
+			fail("match 99 does not exist");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_ARGUMENTS, ce);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package challonge;
+
+import java.util.Arrays;
+
+public class StationQueueTest extends UnitTest {
+	
+	// DATA MEMBERS
+	private Tournament t;
+	private Participant a;
+	private Participant b;
+	private Participant c;
+	private Participant d;
+	
+	// METHODS
+	// Constructors
+	public StationQueueTest() throws ChallongeException
+	{
+		t = createTournament(1, Tournament.TYPE_DOUBLE_ELIM);
+		a = createParticipant(101, "A", 1);
+		b = createParticipant(102, "B", 2);
+		c = createParticipant(103, "C", 3);
+		d = createParticipant(104, "D", 4);
+	}
+	
+	// Instance methods
+	public void testCompletedMatchLeavesItsStation() throws ChallongeException
+	{
+		StationQueue queue = new StationQueue(new PlayerRegistry());
+		Match first = createOpenMatch(t, 11, 1, a, b);
+		queue.update(first);
+		queue.update(createOpenMatch(t, 12, 1, a, c));
+		assertEquals(first, queue.assign("station 1"));
+		
+		queue.update(createCompletedMatch(t, 11, 1, a, b, a, "2-0", ""));
+		assertNull(queue.getStationMatch("station 1"));
+		assertEquals(1, queue.size());
+		assertEquals(0, queue.getConflictedPlayers().size());
+		assertEquals(12, queue.assign("station 1").getID());
+	}
+	
+	public void testEarlierRoundsComeFirst() throws ChallongeException
+	{
+		StationQueue queue = new StationQueue(new PlayerRegistry());
+		queue.update(createOpenMatch(t, 31, 2, a, b));
+		queue.update(createOpenMatch(t, 32, -1, c, d));
+		queue.update(createPendingMatch(t, 33, 3, 31, false, 32, false));
+		assertEquals(2, queue.size());
+		assertEquals(2, queue.getWaitingCount());
+		
+		// Losers round 1 runs before winners round 2
+		assertEquals(32, queue.peek().getID());
+		assertEquals(32, queue.assign("station 1").getID());
+		assertNull(queue.assign("station 1"));
+		assertEquals(31, queue.assign("station 2").getID());
+		assertNull(queue.assign("station 3"));
+		assertEquals(0, queue.getWaitingCount());
+		
+		// A released match keeps its place
+		queue.release("station 1");
+		queue.release("station 2");
+		assertEquals(32, queue.peek().getID());
+	}
+	
+	public void testPlayersInTwoMatchesAreConflicted() throws ChallongeException
+	{
+		StationQueue queue = new StationQueue(new PlayerRegistry());
+		Match ab = createOpenMatch(t, 11, 1, a, b);
+		Match ac = createOpenMatch(t, 12, 1, a, c);
+		Match de = createOpenMatch(t, 13, 1, d, createParticipant(105, "E", 5));
+		queue.update(ab);
+		queue.update(ac);
+		queue.update(de);
+		
+		assertTrue(queue.isConflicted(ab));
+		assertTrue(queue.isConflicted(ac));
+		assertFalse(queue.isConflicted(de));
+		assertEquals(1, queue.getConflictedPlayers().size());
+		assertEquals(2, queue.getMatches(queue.getConflictedPlayers().get(0)).size());
+		
+		// A is playing, so the other match of A waits for the next free station
+		assertEquals(ab, queue.assign("station 1"));
+		assertEquals(de, queue.assign("station 2"));
+		assertNull(queue.assign("station 3"));
+		assertEquals(ab, queue.release("station 1"));
+		assertEquals(ab, queue.assign("station 3"));
+		assertEquals(1, queue.getWaitingCount());
+	}
+	
+	public void testUpdateTournamentQueuesReadyMatches() throws ChallongeException
+	{
+		t.restore(Arrays.asList(a, b, c, d), Arrays.asList(createCompletedMatch(t, 11, 1, a, b, a, "", ""),
+				createOpenMatch(t, 12, 1, c, d), createPendingMatch(t, 13, 2, 11, false, 12, false)));
+		StationQueue queue = new StationQueue(new PlayerRegistry());
+		queue.updateTournament(t);
+		assertEquals(1, queue.size());
+		assertEquals(12, queue.peek().getID());
+		
+		// The same match again keeps its place
+		queue.updateTournament(t);
+		assertEquals(1, queue.size());
+	}
+}
@@ -0,0 +1,142 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TournamentCacheTest extends UnitTest {
+	
+	// CONSTANTS - Fixtures
+	private static final long TTL_MILLIS = 20;
+	
+	// DATA MEMBERS
+	private AtomicInteger loads = new AtomicInteger();
+	
+	// METHODS
+	// Static
+	/**
+	 * creates a tournament with two participants and no matches
+	 * 
+	 * @param id tournament ID
+	 * @return tournament weighing 3
+	 * @throws ChallongeException if the tournament could not be created
+	 */
+	private static Tournament createPair(int id) throws ChallongeException
+	{
+		Tournament t = createTournament(id, Tournament.TYPE_SINGLE_ELIM);
+		t.restore(Arrays.asList(createParticipant(id * 10 + 1, "A", 1), createParticipant(id * 10 + 2, "B", 2)),
+				new ArrayList<Match>());
+		
+		return t;
+	}
+	
+	// Instance methods
+	/**
+	 * creates a loader that counts how many tournaments it loaded
+	 * 
+	 * @param release released once loads may complete (or <b>null</b> to complete at once)
+	 * @return loader of empty tournaments
+	 */
+	private TournamentCache.Loader count(final CountDownLatch release)
+	{
+		return new TournamentCache.Loader() {
+			@Override
+			public Tournament load(String idOrURL) throws ChallongeException
+			{
+				loads.incrementAndGet();
+				try
+				{
+					if(release != null)
+						release.await();
+				}
+				catch(InterruptedException ie)
+				{
+					throw new ChallongeException(ChallongeException.REASON_DEFAULT);
+				}
+				
+				return createTournament(Integer.parseInt(idOrURL), Tournament.TYPE_SWISS);
+			}
+		};
+	}
+	
+	public void testConcurrentLoadsAreShared() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		final TournamentCache cache = new TournamentCache(count(release));
+		final Tournament[] results = new Tournament[2];
+		Thread[] threads = new Thread[2];
+		for(int i = 0; i < threads.length; i++)
+		{
+			final int index = i;
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run()
+				{
+					try
+					{
+						results[index] = cache.get("5");
+					}
+					catch(ChallongeException ce)
+					{
+						// Leaves the result empty
+					}
+				}
+			});
+		}
+		
+		threads[0].start();
+		while(loads.get() == 0)
+			Thread.sleep(1);
+		threads[1].start();
+		while(threads[1].getState() != Thread.State.WAITING) // waiting for the first load
+			Thread.sleep(1);
+		release.countDown();
+		threads[0].join();
+		threads[1].join();
+		
+		assertEquals(1, loads.get());
+		assertEquals(5, results[0].getID());
+		assertTrue(results[0] == results[1]);
+		assertEquals(1, cache.size());
+	}
+	
+	public void testExpiredTournamentsAreLoadedAgain() throws Exception
+	{
+		TournamentCache cache = new TournamentCache(count(null), 100, TTL_MILLIS, TournamentCache.NO_EXPIRY);
+		Tournament first = cache.get("5");
+		assertTrue(first == cache.get("5"));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHitCount());
+		
+		Thread.sleep(TTL_MILLIS * 2);
+		assertFalse(first == cache.get("5"));
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.getEvictionCount());
+	}
+	
+	public void testLeastRecentlyUsedIsEvicted() throws ChallongeException
+	{
+		TournamentCache cache = new TournamentCache(null, 6, TournamentCache.NO_EXPIRY, TournamentCache.NO_EXPIRY);
+		Tournament first = createPair(1);
+		cache.put(first);
+		cache.put(createPair(2));
+		assertEquals(6, cache.getWeight());
+		
+		// Using the first tournament leaves the second one as least recently used
+		assertTrue(first == cache.getIfPresent("t1"));
+		cache.put(createTournament(3, Tournament.TYPE_SWISS));
+		assertNull(cache.getIfPresent("2"));
+		assertNull(cache.getIfPresent("t2"));
+		assertTrue(first == cache.getIfPresent("1"));
+		assertEquals(2, cache.size());
+		assertEquals(4, cache.getWeight());
+		assertEquals(1, cache.getEvictionCount());
+		
+		// A tournament heavier than the limit is not cached
+		TournamentCache small = new TournamentCache(null, 2, TournamentCache.NO_EXPIRY, TournamentCache.NO_EXPIRY);
+		small.put(first);
+		assertEquals(0, small.size());
+		assertNull(small.get("1"));
+	}
+}
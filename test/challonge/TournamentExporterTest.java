@@ -0,0 +1,127 @@
+package challonge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TournamentExporterTest extends UnitTest {
+	
+	// METHODS
+	// Static
+	/**
+	 * creates a tournament with two participants and one completed match
+	 * 
+	 * @param id tournament ID, also used to number its participants and match
+	 * @param name1 name of the winner
+	 * @param name2 name of the loser
+	 * @param scores scores of the match
+	 * @return hydrated tournament
+	 * @throws ChallongeException if the tournament could not be created
+	 */
+	private static Tournament createPlayedTournament(int id, String name1, String name2, String scores) throws ChallongeException
+	{
+		Tournament t = createTournament(id, Tournament.TYPE_SINGLE_ELIM);
+		Participant p1 = createParticipant(id * 10 + 1, name1, 1);
+		Participant p2 = createParticipant(id * 10 + 2, name2, 2);
+		t.restore(Arrays.asList(p1, p2), Arrays.asList(createCompletedMatch(t, id * 100, 1, p1, p2, p1, scores, "")));
+		return t;
+	}
+	
+	/**
+	 * reads one chunk of a table
+	 * 
+	 * @param directory export directory
+	 * @param name chunk file name
+	 * @return lines of the chunk, starting with the header
+	 * @throws IOException if the chunk could not be read
+	 */
+	private static List<String> read(File directory, String name) throws IOException
+	{
+		return Files.readAllLines(new File(directory, name).toPath(), StandardCharsets.UTF_8);
+	}
+	
+	// Instance methods
+	public void testFieldsAreQuoted() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			TournamentExporter exporter = new TournamentExporter(directory, new PlayerRegistry());
+			exporter.export(Arrays.asList(createPlayedTournament(1, "Smith, \"J\"", "Plain", "2-1,1-2")).iterator(), false);
+			exporter.close();
+			assertEquals(1, exporter.getExportedCount());
+			
+			List<String> players = read(directory, "players-00000.csv");
+			assertEquals("player_id,name", players.get(0));
+			assertEquals("0,\"Smith, \"\"J\"\"\"", players.get(1));
+			assertEquals("1,Plain", players.get(2));
+			assertTrue(read(directory, "matches-00000.csv").get(1).contains(",\"2-1,1-2\","));
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+	
+	public void testNewChunkStartsWhenChunkIsFull() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			ArrayList<Tournament> list = new ArrayList<Tournament>();
+			for(int id = 1; id <= 3; id++)
+				list.add(createPlayedTournament(id, "A" + id, "B" + id, ""));
+			
+			TournamentExporter exporter = new TournamentExporter(directory, new PlayerRegistry());
+			exporter.setChunkRows(2);
+			exporter.setThreads(1);
+			exporter.export(list.iterator(), false);
+			exporter.close();
+			assertEquals(3, exporter.getExportedCount());
+			assertEquals(0, exporter.getFailedCount());
+			
+			// One match per tournament, so the third starts the second chunk
+			List<String> first = read(directory, "matches-00000.csv");
+			List<String> second = read(directory, "matches-00001.csv");
+			assertEquals(3, first.size());
+			assertEquals(2, second.size());
+			assertTrue(second.get(0).startsWith("tournament_id,match_id,"));
+			assertTrue(second.get(1).startsWith("3,300,"));
+			assertFalse(new File(directory, "matches-00002.csv").exists());
+			
+			// Two participants per tournament fill a chunk each
+			for(int chunk = 0; chunk < 3; chunk++)
+			{
+				List<String> rows = read(directory, String.format("participants-%05d.csv", chunk));
+				assertEquals(3, rows.size());
+				assertTrue(rows.get(1).startsWith((chunk + 1) + ","));
+			}
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+	
+	public void testRowsOfOneTournamentStayTogether() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			TournamentExporter exporter = new TournamentExporter(directory, new PlayerRegistry());
+			exporter.setChunkRows(1);
+			exporter.export(Arrays.asList(createPlayedTournament(1, "A", "B", "")).iterator(), false);
+			exporter.close();
+			assertEquals(3, read(directory, "participants-00000.csv").size());
+			assertFalse(new File(directory, "participants-00001.csv").exists());
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package challonge;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+public class TournamentPublisherTest extends UnitTest {
+	
+	// CONSTANTS - Fixtures
+	private static final long MAR_11_2024 = 1710115200000L; // midnight UTC
+	private static final long MILLIS_PER_DAY = 86400000L;
+	private static final Executor CALLER = new Executor() {
+		@Override
+		public void execute(Runnable r)
+		{
+			r.run();
+		}
+	};
+	
+	// DATA MEMBERS
+	private FakeServer server;
+	
+	// METHODS
+	// Constructors
+	public TournamentPublisherTest()
+	{
+		server = FakeServer.install();
+		respondIndex(1, 2, 3);
+		for(int id = 1; id <= 3; id++)
+		{
+			server.respond("GET", "tournaments/" + id + "/participants.xml", HttpURLConnection.HTTP_OK, "<participants type=\"array\"/>");
+			server.respond("GET", "tournaments/" + id + "/matches.xml", HttpURLConnection.HTTP_OK, "<matches type=\"array\"/>");
+		}
+	}
+	
+	// Instance methods
+	/**
+	 * sets the tournaments returned by every index request
+	 * 
+	 * @param ids tournament IDs
+	 */
+	private void respondIndex(int... ids)
+	{
+		StringBuilder xml = new StringBuilder("<tournaments type=\"array\">");
+		for(int i = 0; i < ids.length; i++)
+			xml.append("<tournament><id>").append(ids[i]).append("</id><name>Tournament ").append(ids[i])
+					.append("</name><url>t").append(ids[i]).append("</url><description/><tournament-type>")
+					.append(Tournament.TYPE_SWISS).append("</tournament-type><state>").append(Tournament.STATE_COMPLETE)
+					.append("</state></tournament>");
+		server.respond("GET", "tournaments.xml", HttpURLConnection.HTTP_OK, xml.append("</tournaments>").toString());
+	}
+	
+	public void testFailedTournamentsAreSkipped()
+	{
+		server.respond("GET", "tournaments/2/participants.xml", HttpURLConnection.HTTP_INTERNAL_ERROR, "");
+		TournamentPublisher publisher = new TournamentPublisher(new TournamentQuery(KEY), CALLER);
+		Recorder recorder = new Recorder();
+		publisher.subscribe(recorder);
+		recorder.subscription.request(Long.MAX_VALUE);
+		
+		assertEquals(2, recorder.ids.size());
+		assertEquals(1, (int) recorder.ids.get(0));
+		assertEquals(3, (int) recorder.ids.get(1));
+		assertTrue(recorder.completed);
+		assertNull(recorder.error);
+		assertEquals(1, publisher.getFailedCount());
+	}
+	
+	public void testIndexIsRetrievedPartByPart() throws ChallongeException
+	{
+		respondIndex(1);
+		TournamentQuery q = new TournamentQuery(KEY).setCreatedAfter(new Date(MAR_11_2024))
+				.setCreatedBefore(new Date(MAR_11_2024 + 2 * MILLIS_PER_DAY));
+		TournamentPublisher publisher = new TournamentPublisher(q, CALLER);
+		publisher.setIndexDays(1);
+		Recorder recorder = new Recorder();
+		publisher.subscribe(recorder);
+		assertEquals(0, server.getRequests("GET", "tournaments.xml").size());
+		
+		// One day per part, and each part holds one tournament
+		recorder.subscription.request(1);
+		assertEquals(1, server.getRequests("GET", "tournaments.xml").size());
+		recorder.subscription.request(1);
+		assertEquals(2, server.getRequests("GET", "tournaments.xml").size());
+		assertFalse(recorder.completed);
+		
+		recorder.subscription.request(2);
+		assertEquals(3, server.getRequests("GET", "tournaments.xml").size());
+		assertEquals(3, recorder.ids.size());
+		assertTrue(recorder.completed);
+	}
+	
+	public void testThrowingSubscriberIsCancelled()
+	{
+		TournamentPublisher publisher = new TournamentPublisher(new TournamentQuery(KEY), CALLER);
+		Recorder recorder = new Recorder() {
+			@Override
+			public void onNext(Tournament t)
+			{
+				super.onNext(t);
+				throw new IllegalStateException("broken subscriber");
+			}
+		};
+		publisher.subscribe(recorder);
+		recorder.subscription.request(3);
+		recorder.subscription.request(3);
+		
+		// Nothing else is delivered or signalled, and the next tournament is never hydrated
+		assertEquals(1, recorder.ids.size());
+		assertFalse(recorder.completed);
+		assertNull(recorder.error);
+		assertEquals(0, server.getRequests("GET", "tournaments/2/participants.xml").size());
+	}
+	
+	// Classes
+	/**
+	 * a subscriber recording what it receives
+	 */
+	private static class Recorder implements Flow.Subscriber<Tournament> {
+		
+		// DATA MEMBERS
+		private Flow.Subscription subscription;
+		private ArrayList<Integer> ids;
+		private boolean completed;
+		private Throwable error;
+		
+		// METHODS
+		/**
+		 * creates a subscriber that has not received anything
+		 */
+		private Recorder()
+		{
+			ids = new ArrayList<Integer>();
+		}
+		
+		@Override
+		public void onComplete()
+		{
+			completed = true;
+		}
+		
+		@Override
+		public void onError(Throwable t)
+		{
+			error = t;
+		}
+		
+		@Override
+		public void onNext(Tournament t)
+		{
+			ids.add(t.getID());
+		}
+		
+		@Override
+		public void onSubscribe(Flow.Subscription s)
+		{
+			subscription = s;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package challonge;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+public class TournamentQueryTest extends UnitTest {
+	
+	// CONSTANTS - Time
+	private static final long MILLIS_PER_HOUR = 3600000L;
+	private static final long MAR_11_2024 = 1710115200000L; // midnight UTC
+	
+	// METHODS
+	// Static
+	/**
+	 * fails unless a query covers a range of dates
+	 * 
+	 * @param after expected first date (YYYY-MM-DD)
+	 * @param before expected last date (YYYY-MM-DD)
+	 * @param q query
+	 * @throws ChallongeException if the query is invalid
+	 */
+	private static void assertRange(String after, String before, TournamentQuery q) throws ChallongeException
+	{
+		String url = q.buildURL().toString();
+		assertTrue(url.contains("created_after=" + after));
+		assertTrue(url.contains("created_before=" + before));
+	}
+	
+	/**
+	 * fails unless splitting a query is rejected
+	 * 
+	 * @param q query
+	 * @param days days per part
+	 */
+	private static void assertRejected(TournamentQuery q, int days)
+	{
+		try
+		{
+			q.split(days);
+			fail("the query cannot be split");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_ARGUMENTS, ce);
+		}
+	}
+	
+	// Instance methods
+	public void testSplitAlignsPartsToDays() throws ChallongeException
+	{
+		TournamentQuery q = new TournamentQuery(KEY).setState(TournamentQuery.STATE_ENDED)
+				.setCreatedAfter(new Date(MAR_11_2024 + 15 * MILLIS_PER_HOUR))
+				.setCreatedBefore(new Date(MAR_11_2024 + (13 * 24 + 2) * MILLIS_PER_HOUR));
+		
+		ArrayList<TournamentQuery> parts = q.split(3);
+		assertEquals(5, parts.size());
+		assertRange("2024-03-11", "2024-03-13", parts.get(0));
+		assertRange("2024-03-14", "2024-03-16", parts.get(1));
+		assertRange("2024-03-17", "2024-03-19", parts.get(2));
+		assertRange("2024-03-20", "2024-03-22", parts.get(3));
+		assertRange("2024-03-23", "2024-03-24", parts.get(4));
+		
+		// Other filters are kept
+		assertTrue(parts.get(4).buildURL().toString().contains("state=" + TournamentQuery.STATE_ENDED));
+		assertTrue(parts.get(4).hasDateRange());
+	}
+	
+	public void testSplitSingleDay() throws ChallongeException
+	{
+		TournamentQuery q = new TournamentQuery(KEY).setCreatedAfter(new Date(MAR_11_2024 + MILLIS_PER_HOUR))
+				.setCreatedBefore(new Date(MAR_11_2024 + 23 * MILLIS_PER_HOUR));
+		
+		ArrayList<TournamentQuery> parts = q.split(30);
+		assertEquals(1, parts.size());
+		assertRange("2024-03-11", "2024-03-11", parts.get(0));
+	}
+	
+	public void testSplitNeedsDateRange()
+	{
+		Date earlier = new Date(MAR_11_2024);
+		Date later = new Date(MAR_11_2024 + 48 * MILLIS_PER_HOUR);
+		assertRejected(new TournamentQuery(KEY), 1);
+		assertRejected(new TournamentQuery(KEY).setCreatedAfter(earlier), 1);
+		assertRejected(new TournamentQuery(KEY).setCreatedAfter(later).setCreatedBefore(earlier), 1);
+		assertRejected(new TournamentQuery(KEY).setCreatedAfter(earlier).setCreatedBefore(later), 0);
+	}
+}
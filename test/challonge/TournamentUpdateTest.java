@@ -0,0 +1,71 @@
+package challonge;
+
+import java.net.HttpURLConnection;
+import java.util.List;
+
+public class TournamentUpdateTest extends UnitTest {
+	
+	// CONSTANTS - Requests
+	private static final String ROUTE = "tournaments/1.xml";
+	
+	// DATA MEMBERS
+	private FakeServer server;
+	
+	// METHODS
+	// Constructors
+	public TournamentUpdateTest()
+	{
+		server = FakeServer.install();
+		server.respond("PUT", ROUTE, HttpURLConnection.HTTP_OK, "<tournament><id>1</id><name>Final Name</name><url>t1</url>"
+				+ "<description/><tournament-type>" + Tournament.TYPE_SWISS + "</tournament-type><state>"
+				+ Tournament.STATE_PENDING + "</state></tournament>");
+	}
+	
+	// Instance methods
+	public void testChangesAreSentInOneRequest() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SINGLE_ELIM);
+		Tournament updated = t.update().setName("First Name").setType(Tournament.TYPE_SWISS).setPrivate(true)
+				.setName("Final Name").send();
+		
+		// The second name replaces the first in place
+		List<FakeServer.Request> requests = server.getRequests("PUT", ROUTE);
+		assertEquals(1, requests.size());
+		assertEquals("api_key=" + KEY + "&tournament[name]=Final+Name&tournament[tournament_type]=" + Tournament.TYPE_SWISS
+				+ "&tournament[private]=true", requests.get(0).getBody());
+		
+		// The response is applied to the local tournament
+		assertTrue(updated == t);
+		assertEquals("Final Name", t.getName());
+		assertEquals(Tournament.TYPE_SWISS, t.getType());
+		assertEquals(Tournament.STATE_PENDING, t.getState());
+	}
+	
+	public void testEmptyUpdateSendsNothing() throws ChallongeException
+	{
+		Tournament t = createTournament(1, Tournament.TYPE_SINGLE_ELIM);
+		assertTrue(t.update().send() == t);
+		assertNull(new TournamentUpdate(KEY, 1).send());
+		assertEquals(0, server.getRequests("PUT", ROUTE).size());
+	}
+	
+	public void testInvalidValueIsRejectedBeforeSending() throws ChallongeException
+	{
+		TournamentUpdate update = new TournamentUpdate(KEY, 1).setName("Name");
+		try
+		{
+			update.setType("double round robin");
+			fail("the type does not exist");
+		}
+		catch(ChallongeException ce)
+		{
+			assertReason(ChallongeException.REASON_TOURNEY_TYPE, ce);
+		}
+		
+		// Only the valid change is sent, and the update is empty afterwards
+		assertEquals("Final Name", update.send().getName());
+		assertEquals("api_key=" + KEY + "&tournament[name]=Name", server.getRequests("PUT", ROUTE).get(0).getBody());
+		update.send();
+		assertEquals(1, server.getRequests("PUT", ROUTE).size());
+	}
+}
@@ -0,0 +1,337 @@
+package challonge;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * base class of the offline unit tests; every public method whose name starts with "test" is run
+ * on a fresh instance, and fails by throwing
+ */
+public abstract class UnitTest {
+	
+	// CONSTANTS - Fixtures
+	protected static final String KEY = "test-key"; // never reaches Challonge, requests are answered by FakeServer
+	private static final String TEST_PREFIX = "test";
+	
+	// METHODS
+	// Static
+	/**
+	 * fails unless two values are equal
+	 * 
+	 * @param expected expected value
+	 * @param actual actual value
+	 */
+	protected static void assertEquals(long expected, long actual)
+	{
+		if(expected != actual)
+			fail("expected " + expected + " but was " + actual);
+	}
+	
+	/**
+	 * fails unless two values are equal
+	 * 
+	 * @param expected expected value
+	 * @param actual actual value
+	 */
+	protected static void assertEquals(double expected, double actual)
+	{
+		if(Math.abs(expected - actual) > 1e-9)
+			fail("expected " + expected + " but was " + actual);
+	}
+	
+	/**
+	 * fails unless two objects are equal
+	 * 
+	 * @param expected expected object (can be <b>null</b>)
+	 * @param actual actual object (can be <b>null</b>)
+	 */
+	protected static void assertEquals(Object expected, Object actual)
+	{
+		if((expected == null) ? (actual != null) : !expected.equals(actual))
+			fail("expected <" + expected + "> but was <" + actual + ">");
+	}
+	
+	/**
+	 * fails unless two arrays hold the same values
+	 * 
+	 * @param expected expected values
+	 * @param actual actual values
+	 */
+	protected static void assertEquals(int[] expected, int[] actual)
+	{
+		if(!Arrays.equals(expected, actual))
+			fail("expected " + Arrays.toString(expected) + " but was " + Arrays.toString(actual));
+	}
+	
+	/**
+	 * fails unless a condition is false
+	 * 
+	 * @param condition condition
+	 */
+	protected static void assertFalse(boolean condition)
+	{
+		if(condition)
+			fail("expected false");
+	}
+	
+	/**
+	 * fails unless an object is <b>null</b>
+	 * 
+	 * @param actual object
+	 */
+	protected static void assertNull(Object actual)
+	{
+		if(actual != null)
+			fail("expected null but was <" + actual + ">");
+	}
+	
+	/**
+	 * fails unless an exception has a reason
+	 * 
+	 * @param reason expected reason (from <b>ChallongeException.REASON_*</b>)
+	 * @param ce exception
+	 */
+	protected static void assertReason(String reason, ChallongeException ce)
+	{
+		if(!ce.hasReason(reason))
+			fail("expected reason <" + reason + "> but was <" + ce.getMessage() + ">");
+	}
+	
+	/**
+	 * fails unless a condition is true
+	 * 
+	 * @param condition condition
+	 */
+	protected static void assertTrue(boolean condition)
+	{
+		if(!condition)
+			fail("expected true");
+	}
+	
+	/**
+	 * creates a completed match
+	 * 
+	 * @param t tournament the match belongs to
+	 * @param id match ID
+	 * @param round round (negative for the losers bracket)
+	 * @param p1 player 1
+	 * @param p2 player 2
+	 * @param winner winning player (or <b>null</b> for a draw)
+	 * @param scores scores ("3-1,2-3", empty if none)
+	 * @param completedAt completion time (ISO 8601, empty if unknown)
+	 * @return match
+	 * @throws ChallongeException if the match could not be created
+	 */
+	protected static Match createCompletedMatch(Tournament t, int id, int round, Participant p1, Participant p2,
+			Participant winner, String scores, String completedAt) throws ChallongeException
+	{
+		String winnerID = (winner == null) ? "" : Integer.toString(winner.getID());
+		return createMatch(t, p1, p2, "<match><id>" + id + "</id><state>" + Match.STATE_COMPLETE + "</state>"
+				+ "<round>" + round + "</round><player1-id>" + p1.getID() + "</player1-id><player2-id>" + p2.getID()
+				+ "</player2-id><winner-id>" + winnerID + "</winner-id><scores-csv>" + scores + "</scores-csv>"
+				+ "<completed-at>" + completedAt + "</completed-at></match>");
+	}
+	
+	/**
+	 * creates an empty temporary directory
+	 * 
+	 * @return directory, to be removed with {@link #delete(File)}
+	 * @throws IOException if the directory could not be created
+	 */
+	protected static File createDirectory() throws IOException
+	{
+		return Files.createTempDirectory("challonge-test").toFile();
+	}
+	
+	/**
+	 * creates a match from its XML element, resolving its players against the given participants
+	 * 
+	 * @param t tournament the match belongs to
+	 * @param p1 player 1 (or <b>null</b>)
+	 * @param p2 player 2 (or <b>null</b>)
+	 * @param xml match element
+	 * @return match
+	 * @throws ChallongeException if the match could not be created
+	 */
+	private static Match createMatch(Tournament t, Participant p1, Participant p2, String xml) throws ChallongeException
+	{
+		ArrayList<Participant> players = new ArrayList<Participant>();
+		if(p1 != null)
+			players.add(p1);
+		if(p2 != null)
+			players.add(p2);
+		
+		TournamentSnapshot lookup = new TournamentSnapshot(0, players, new ArrayList<Match>());
+		return Match.createMatchFromElement(KEY, t, lookup, Challonge.parseXML(xml).getDocumentElement());
+	}
+	
+	/**
+	 * creates an open match whose players are known
+	 * 
+	 * @param t tournament the match belongs to
+	 * @param id match ID
+	 * @param round round (negative for the losers bracket)
+	 * @param p1 player 1
+	 * @param p2 player 2
+	 * @return match
+	 * @throws ChallongeException if the match could not be created
+	 */
+	protected static Match createOpenMatch(Tournament t, int id, int round, Participant p1, Participant p2) throws ChallongeException
+	{
+		return createMatch(t, p1, p2, "<match><id>" + id + "</id><state>" + Match.STATE_OPEN + "</state>"
+				+ "<round>" + round + "</round><player1-id>" + p1.getID() + "</player1-id><player2-id>" + p2.getID()
+				+ "</player2-id></match>");
+	}
+	
+	/**
+	 * creates a participant
+	 * 
+	 * @param id participant ID
+	 * @param name name
+	 * @param seed seed
+	 * @return participant without a Challonge account
+	 * @throws ChallongeException if the participant could not be created
+	 */
+	protected static Participant createParticipant(int id, String name, int seed) throws ChallongeException
+	{
+		return createParticipant(id, name, seed, Participant.NO_USER);
+	}
+	
+	/**
+	 * creates a participant
+	 * 
+	 * @param id participant ID
+	 * @param name name
+	 * @param seed seed
+	 * @param userID Challonge user ID (or Participant.NO_USER)
+	 * @return participant
+	 * @throws ChallongeException if the participant could not be created
+	 */
+	protected static Participant createParticipant(int id, String name, int seed, int userID) throws ChallongeException
+	{
+		String user = (userID == Participant.NO_USER) ? "" : Integer.toString(userID);
+		return Participant.createParticipantFromElement(KEY, Challonge.parseXML("<participant><id>" + id + "</id><name>"
+				+ name + "</name><seed>" + seed + "</seed><challonge-user-id>" + user + "</challonge-user-id></participant>")
+				.getDocumentElement());
+	}
+	
+	/**
+	 * creates a pending match whose players come from earlier matches
+	 * 
+	 * @param t tournament the match belongs to
+	 * @param id match ID
+	 * @param round round (negative for the losers bracket)
+	 * @param prereq1 match player 1 comes from
+	 * @param loser1 <b>true</b> if player 1 is the loser of <b>prereq1</b>
+	 * @param prereq2 match player 2 comes from
+	 * @param loser2 <b>true</b> if player 2 is the loser of <b>prereq2</b>
+	 * @return match
+	 * @throws ChallongeException if the match could not be created
+	 */
+	protected static Match createPendingMatch(Tournament t, int id, int round, int prereq1, boolean loser1, int prereq2, boolean loser2) throws ChallongeException
+	{
+		return createMatch(t, null, null, "<match><id>" + id + "</id><state>" + Match.STATE_PENDING + "</state>"
+				+ "<round>" + round + "</round><player1-prereq-match-id>" + prereq1 + "</player1-prereq-match-id>"
+				+ "<player1-is-prereq-match-loser>" + loser1 + "</player1-is-prereq-match-loser>"
+				+ "<player2-prereq-match-id>" + prereq2 + "</player2-prereq-match-id>"
+				+ "<player2-is-prereq-match-loser>" + loser2 + "</player2-is-prereq-match-loser></match>");
+	}
+	
+	/**
+	 * creates a tournament without participants or matches
+	 * 
+	 * @param id tournament ID
+	 * @param type tournament type (from <b>Tournament.TYPES</b>)
+	 * @return tournament
+	 * @throws ChallongeException if the tournament could not be created
+	 */
+	protected static Tournament createTournament(int id, String type) throws ChallongeException
+	{
+		return Tournament.createTournamentFromElement(KEY, null, Challonge.parseXML("<tournament><id>" + id
+				+ "</id><name>Tournament " + id + "</name><url>t" + id + "</url><description/><tournament-type>"
+				+ type + "</tournament-type><state>" + Tournament.STATE_UNDERWAY + "</state></tournament>")
+				.getDocumentElement());
+	}
+	
+	/**
+	 * deletes a file, or a directory with everything in it
+	 * 
+	 * @param file file or directory
+	 */
+	protected static void delete(File file)
+	{
+		File[] children = file.listFiles();
+		if(children != null)
+			for(int i = 0; i < children.length; i++)
+				delete(children[i]);
+		file.delete();
+	}
+	
+	/**
+	 * fails a test
+	 * 
+	 * @param message reason
+	 */
+	protected static void fail(String message)
+	{
+		throw new AssertionError(message);
+	}
+	
+	/**
+	 * runs every test of some test classes and reports the failures
+	 * 
+	 * @param tests test classes
+	 * @return number of failed tests
+	 */
+	public static int run(List<Class<? extends UnitTest>> tests)
+	{
+		int run = 0;
+		int failed = 0;
+		for(Class<? extends UnitTest> test : tests)
+		{
+			Method[] methods = test.getMethods();
+			Arrays.sort(methods, new Comparator<Method>() {
+				@Override
+				public int compare(Method a, Method b)
+				{
+					return a.getName().compareTo(b.getName());
+				}
+			});
+			
+			for(int i = 0; i < methods.length; i++)
+			{
+				Method m = methods[i];
+				if(!m.getName().startsWith(TEST_PREFIX) || (m.getParameterCount() != 0) || Modifier.isStatic(m.getModifiers()))
+					continue;
+				
+				run++;
+				try
+				{
+					m.invoke(test.getDeclaredConstructor().newInstance());
+				}
+				catch(InvocationTargetException ite)
+				{
+					failed++;
+					System.out.println("FAILED " + test.getSimpleName() + "." + m.getName() + ": " + ite.getCause());
+					ite.getCause().printStackTrace(System.out);
+				}
+				catch(ReflectiveOperationException roe)
+				{
+					failed++;
+					System.out.println("FAILED " + test.getSimpleName() + "." + m.getName() + ": " + roe);
+				}
+			}
+		}
+		
+		System.out.println(run + " tests, " + failed + " failed");
+		return failed;
+	}
+}
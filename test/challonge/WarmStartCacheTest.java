@@ -0,0 +1,149 @@
+package challonge;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class WarmStartCacheTest extends UnitTest {
+	
+	// CONSTANTS - Responses
+	private static final String EMPTY_MATCHES = "<matches type=\"array\"/>";
+	private static final String EMPTY_PARTICIPANTS = "<participants type=\"array\"/>";
+	
+	// METHODS
+	// Static
+	/**
+	 * returns the index element of a tournament
+	 * 
+	 * @param id tournament ID
+	 * @return tournament element
+	 */
+	private static String createTournamentXML(int id)
+	{
+		return "<tournament><id>" + id + "</id><name>Tournament " + id + "</name><url>t" + id + "</url><description/>"
+				+ "<tournament-type>" + Tournament.TYPE_SWISS + "</tournament-type><state>" + Tournament.STATE_UNDERWAY + "</state></tournament>";
+	}
+	
+	/**
+	 * returns a match of a snapshot
+	 * 
+	 * @param s snapshot
+	 * @param id match ID
+	 * @return match
+	 */
+	private static Match getMatch(TournamentSnapshot s, int id)
+	{
+		for(Match m : s.getMatches())
+			if(m.getID() == id)
+				return m;
+		
+		fail("match " + id + " is missing");
+		return null;
+	}
+	
+	// Instance methods
+	public void testRefreshKeepsCopiesThatFail() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			FakeServer server = FakeServer.install();
+			server.respond("GET", "tournaments.xml", HttpURLConnection.HTTP_OK, "<tournaments type=\"array\">"
+					+ createTournamentXML(1) + createTournamentXML(2) + "</tournaments>");
+			server.respond("GET", "tournaments/1/participants.xml", HttpURLConnection.HTTP_OK, EMPTY_PARTICIPANTS);
+			server.respond("GET", "tournaments/1/matches.xml", HttpURLConnection.HTTP_OK, EMPTY_MATCHES);
+			server.respond("GET", "tournaments/2/participants.xml", HttpURLConnection.HTTP_INTERNAL_ERROR, "");
+			
+			WarmStartCache cache = new WarmStartCache(KEY, null, directory);
+			Tournament cached = createTournament(2, Tournament.TYPE_SWISS);
+			cache.save(cached);
+			cache.save(createTournament(3, Tournament.TYPE_SWISS));
+			
+			List<Tournament> refreshed = cache.refresh(new TournamentQuery(KEY));
+			assertEquals(1, refreshed.size());
+			assertEquals(1, refreshed.get(0).getID());
+			assertEquals(1, cache.getFailedCount());
+			assertEquals(cached, cache.getTournament(2));
+			
+			// Tournament 3 is no longer in the index
+			assertNull(cache.getTournament(3));
+			assertFalse(new File(directory, "tournament-3.xml").exists());
+			String[] names = directory.list();
+			Arrays.sort(names);
+			assertEquals(Arrays.asList("tournament-1.xml", "tournament-2.xml"), Arrays.asList(names));
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+	
+	public void testSavedTournamentIsLoaded() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			Tournament t = createTournament(1, Tournament.TYPE_DOUBLE_ELIM);
+			Participant a = createParticipant(101, "A", 1);
+			Participant b = createParticipant(102, "B", 2, 5001);
+			Participant c = createParticipant(103, "C", 3);
+			Match won = createCompletedMatch(t, 11, 1, a, b, a, "2-1,0-2,2-0", "2024-03-11T15:30:45.250+01:00");
+			Match draw = createCompletedMatch(t, 12, 1, b, c, null, "", "");
+			t.restore(Arrays.asList(a, b, c), Arrays.asList(won, draw, createPendingMatch(t, 13, -1, 11, true, 12, false)));
+			new WarmStartCache(KEY, null, directory).save(t);
+			
+			WarmStartCache cache = new WarmStartCache(KEY, null, directory);
+			assertEquals(1, cache.load());
+			assertEquals(0, cache.getFailedCount());
+			TournamentSnapshot s = cache.getTournament(1).getSnapshot();
+			assertEquals(3, s.getParticipants().size());
+			assertEquals("B", s.getParticipants().get(1).getName());
+			assertEquals(3, s.getMatches().size());
+			
+			Match m = getMatch(s, 11);
+			assertEquals(Match.RESULT_P1_WIN, m.getResult());
+			assertEquals("2-1,0-2,2-0", m.getScores());
+			assertEquals(won.getCompletedAt(), m.getCompletedAt());
+			assertEquals(101, m.getPlayer1().getID());
+			
+			m = getMatch(s, 12);
+			assertEquals(Match.RESULT_DRAW, m.getResult());
+			assertEquals(Match.NO_TIME, m.getCompletedAt());
+			
+			m = getMatch(s, 13);
+			assertEquals(Match.STATE_PENDING, m.getState());
+			assertEquals(-1, m.getRound());
+			assertEquals(11, m.getPlayer1PrereqMatchID());
+			assertTrue(m.isPlayer1PrereqLoser());
+			assertEquals(12, m.getPlayer2PrereqMatchID());
+			assertFalse(m.isPlayer2PrereqLoser());
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+	
+	public void testUnreadableFilesAreCounted() throws Exception
+	{
+		File directory = createDirectory();
+		try
+		{
+			new WarmStartCache(KEY, null, directory).save(createTournament(1, Tournament.TYPE_SWISS));
+			Files.write(new File(directory, "tournament-2.xml").toPath(), "<cached-tournament/>".getBytes(StandardCharsets.UTF_8));
+			Files.write(new File(directory, "notes.txt").toPath(), "not a cache file".getBytes(StandardCharsets.UTF_8));
+			
+			WarmStartCache cache = new WarmStartCache(KEY, null, directory);
+			assertEquals(1, cache.load());
+			assertEquals(1, cache.getFailedCount());
+			assertNull(cache.getTournament(2));
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+}